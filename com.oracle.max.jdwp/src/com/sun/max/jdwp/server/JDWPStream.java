@@ -22,6 +22,8 @@
  */
 package com.sun.max.jdwp.server;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
@@ -44,6 +46,11 @@ import com.sun.max.jdwp.data.JDWPSender;
 import com.sun.max.jdwp.data.OutgoingData;
 import com.sun.max.jdwp.data.ReplyPacket;
 
+/**
+ * The packet level stream of a JDWP connection. Both directions are buffered. A reply is only flushed once
+ * there are no further incoming packets already available, so that the replies to a burst of pipelined
+ * commands are written to the socket together. Event packets are always flushed immediately.
+ */
 class JDWPStream implements JDWPSender {
 
     private static final Logger LOGGER = Logger.getLogger(JDWPStream.class.getName());
@@ -57,8 +64,8 @@ class JDWPStream implements JDWPSender {
     private int outgoingID;
 
     JDWPStream(InputStream is, OutputStream os) {
-        in = new DataInputStream(is);
-        out = new DataOutputStream(os);
+        in = new DataInputStream(new BufferedInputStream(is));
+        out = new DataOutputStream(new BufferedOutputStream(os));
     }
 
     public synchronized void sendCommand(OutgoingData outgoingData) throws IOException {
@@ -68,9 +75,11 @@ class JDWPStream implements JDWPSender {
 
     private void send(int id, OutgoingData outgoingData) throws IOException {
 
-        LOGGER.info("***************************************************************************");
-        LOGGER.info("Sending eventPacket with id=" + id);
-        LOGGER.info(outgoingData.toString());
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("***************************************************************************");
+            LOGGER.fine("Sending eventPacket with id=" + id);
+            LOGGER.fine(outgoingData.toString());
+        }
 
         final byte[] dataBytes = toByteArray(outgoingData);
         final int length = HEADER_SIZE + dataBytes.length;
@@ -80,6 +89,7 @@ class JDWPStream implements JDWPSender {
         out.writeByte(outgoingData.getCommandSetId());
         out.writeByte(outgoingData.getCommandId());
         out.write(dataBytes);
+        out.flush();
     }
 
     private byte[] toByteArray(OutgoingData outgoingData) {
@@ -104,7 +114,9 @@ class JDWPStream implements JDWPSender {
      */
     public synchronized <IncomingData_Type extends IncomingData, OutgoingData_Type extends OutgoingData> void send(ReplyPacket<IncomingData_Type, OutgoingData_Type> packet) throws IOException {
 
-        LOGGER.info("Sending reply packet: " + packet);
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Sending reply packet: " + packet);
+        }
         final byte[] dataBytes = toByteArray(packet.getData());
         final int length = HEADER_SIZE + dataBytes.length;
         out.writeInt(length);
@@ -112,6 +124,10 @@ class JDWPStream implements JDWPSender {
         out.writeByte(packet.getFlags());
         out.writeShort(packet.getErrorCode());
         out.write(dataBytes);
+        if (in.available() == 0) {
+            // No further command is pending: the client may be waiting for this reply.
+            out.flush();
+        }
     }
 
     /**
@@ -122,6 +138,7 @@ class JDWPStream implements JDWPSender {
     public void handshake() throws IOException {
         if (readAndCheckStringAsBytes(HANDSHAKE)) {
             writeStringAsBytes(HANDSHAKE);
+            out.flush();
         } else {
             throw new IOException("JDWP handshake failed");
         }
@@ -163,7 +180,7 @@ class JDWPStream implements JDWPSender {
         final byte commandSetId = in.readByte();
         final byte commandId = in.readByte();
         final byte[] data = new byte[length - HEADER_SIZE];
-        in.read(data);
+        in.readFully(data);
 
         final CommandHandler<? extends IncomingData, ? extends OutgoingData> handler = registry.findCommandHandler(commandSetId, commandId);
         if (handler == null) {
@@ -182,8 +199,10 @@ class JDWPStream implements JDWPSender {
             incomingData.read(new JDWPInputStream(new ByteArrayInputStream(data), handlerDownCast, incomingData));
             final IncomingPacket<? extends IncomingData, ? extends OutgoingData> p = createIncomingPacket(length, id, flags, commandSetId, commandId, incomingData, handler);
 
-            LOGGER.info("#####################################################################################");
-            LOGGER.info(CommandHandler.Static.getCommandName(handler) + ": " + p);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("#####################################################################################");
+                LOGGER.fine(CommandHandler.Static.getCommandName(handler) + ": " + p);
+            }
             return p;
 
         } catch (JDWPException e) {
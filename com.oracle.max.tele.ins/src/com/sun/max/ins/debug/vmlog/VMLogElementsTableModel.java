@@ -172,7 +172,7 @@ abstract class VMLogElementsTableModel extends InspectorTableModel {
     @Override
     public void refresh() {
         nextId = teleVMLog.nextID();
-        if (nextId != lastNextId) {
+        if (hasNewRecords()) {
             // Some new records.
             modelSpecificRefresh();
 
@@ -181,6 +181,14 @@ abstract class VMLogElementsTableModel extends InspectorTableModel {
         super.refresh();
     }
 
+    /**
+     * Determines if the VM may have logged records since the last {@link #refresh}.
+     * Default assumes that every record advances the {@link VMLog} {@code nextID} field.
+     */
+    protected boolean hasNewRecords() {
+        return nextId != lastNextId;
+    }
+
     /**
      * Is this header value well-formed?
      * @param header
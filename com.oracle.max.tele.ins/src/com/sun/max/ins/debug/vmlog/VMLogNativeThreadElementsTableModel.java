@@ -39,6 +39,10 @@ import com.sun.max.vm.log.nat.thread.*;
  * Fixed/Variable length records stored in a per thread native circular buffer.
  * The main task in this code is to recreate the illusion of a shared, global,
  * log buffer, with monotonically increasing ids.
+ *
+ * If the ids are {@linkplain VMLogNativeThread#VMLogTimestamps timestamps} they do not advance
+ * the {@link VMLog} {@code nextID} field, may repeat within a thread and may wrap, so ids are only
+ * ever compared with {@link VMLogNativeThread#idBefore(int, int)}.
  */
 class VMLogNativeThreadElementsTableModel extends VMLogNativeElementsTableModel {
 
@@ -55,8 +59,17 @@ class VMLogNativeThreadElementsTableModel extends VMLogNativeElementsTableModel
         super(inspection, teleVMLog);
     }
 
+    /**
+     * Always scans the thread buffers, as timestamp ids do not advance the {@code nextID} field.
+     */
+    @Override
+    protected boolean hasNewRecords() {
+        return true;
+    }
+
     @Override
     protected void modelSpecificRefresh() {
+        boolean added = false;
         // look at every active thread's buffer for new records
         for (MaxThread thread : vm().state().threads()) {
             MaxThreadVMLog threadVmLog = thread.vmLog();
@@ -69,7 +82,13 @@ class VMLogNativeThreadElementsTableModel extends VMLogNativeElementsTableModel
                 threadVMLogs.put(threadVmLog, threadLogRecordCache);
             }
 
-            int threadLastId = threadLogRecordCache.size() == 0 ? -1 : threadLogRecordCache.get(threadLogRecordCache.size() - 1).getId();
+            int cached = threadLogRecordCache.size();
+            int threadLastId = cached == 0 ? 0 : threadLogRecordCache.get(cached - 1).getId();
+            // records logged with the same timestamp share an id; count those already cached
+            int lastIdSeen = 0;
+            while (lastIdSeen < cached && threadLogRecordCache.get(cached - 1 - lastIdSeen).getId() == threadLastId) {
+                lastIdSeen++;
+            }
 
             Pointer logBuffer = threadVmLog.start().asPointer();
             int size = threadVmLog.size();
@@ -84,28 +103,54 @@ class VMLogNativeThreadElementsTableModel extends VMLogNativeElementsTableModel
                 // variable length records can cause holes
                 if (!Record.isFree(header)) {
                     int sharedId = vm().memoryIO().readInt(recordAddress, VMLogNativeThread.ID_OFFSET);
-                    if (sharedId > threadLastId) {
+                    if (cached == 0 || VMLogNativeThread.idBefore(threadLastId, sharedId)) {
                         threadLogRecordCache.add(getRecordFromVM(sharedId));
+                        added = true;
+                    } else if (sharedId == threadLastId) {
+                        if (lastIdSeen == 0) {
+                            threadLogRecordCache.add(getRecordFromVM(sharedId));
+                            added = true;
+                        } else {
+                            lastIdSeen--;
+                        }
                     }
                 }
                 offset = (offset + nativeRecordSize(recordAddress)) % size;
             } while (offset != nextOffset);
         }
 
-        int sortedCacheSize = 0;
-        for (ArrayList<TeleHostedLogRecord> threadLogRecordCache : threadVMLogs.values()) {
-            sortedCacheSize += threadLogRecordCache.size();
+        recordAddress = Pointer.zero();
+        if (added || sortedCache == null) {
+            sortedCache = mergeById(threadVMLogs.values());
+            logRecordCache = Arrays.asList(sortedCache);
+        }
+    }
+
+    /**
+     * Merges per-thread record lists, each already in id order, into a single array in id order.
+     * This mirrors the merged flush in the VM; a plain sort would misorder ids that have wrapped.
+     */
+    private static TeleHostedLogRecord[] mergeById(Collection<ArrayList<TeleHostedLogRecord>> threadLogRecordCaches) {
+        @SuppressWarnings("unchecked")
+        ArrayList<TeleHostedLogRecord>[] lists = threadLogRecordCaches.toArray(new ArrayList[threadLogRecordCaches.size()]);
+        int[] indices = new int[lists.length];
+        int size = 0;
+        for (ArrayList<TeleHostedLogRecord> list : lists) {
+            size += list.size();
         }
-        sortedCache = new TeleHostedLogRecord[sortedCacheSize];
-        sortedCacheSize = 0;
-        for (ArrayList<TeleHostedLogRecord> threadLogRecordCache : threadVMLogs.values()) {
-            for (TeleHostedLogRecord r : threadLogRecordCache) {
-                sortedCache[sortedCacheSize++] = r;
+        TeleHostedLogRecord[] result = new TeleHostedLogRecord[size];
+        for (int n = 0; n < size; n++) {
+            int min = -1;
+            for (int i = 0; i < lists.length; i++) {
+                if (indices[i] < lists[i].size()) {
+                    if (min < 0 || VMLogNativeThread.idBefore(lists[i].get(indices[i]).getId(), lists[min].get(indices[min]).getId())) {
+                        min = i;
+                    }
+                }
             }
+            result[n] = lists[min].get(indices[min]++);
         }
-        Arrays.sort(sortedCache);
-        recordAddress = Pointer.zero();
-        logRecordCache = Arrays.asList(sortedCache);
+        return result;
     }
 
     @Override
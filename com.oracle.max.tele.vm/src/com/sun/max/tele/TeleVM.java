@@ -1905,6 +1905,12 @@ public abstract class TeleVM implements MaxVM {
 
         private final Set<JdwpCodeLocation> breakpointLocations = new HashSet<JdwpCodeLocation>();
 
+        /**
+         * The threads of the VM as of the process epoch {@link #allThreadsEpoch}.
+         */
+        private ThreadProvider[] allThreads;
+        private long allThreadsEpoch = -1L;
+
         public VMAccessImpl() {
             javaProviderFactory = new JavaProviderFactory(this, null);
         }
@@ -2151,9 +2157,13 @@ public abstract class TeleVM implements MaxVM {
         }
 
         public ThreadProvider[] getAllThreads() {
-            final Collection<TeleNativeThread> threads = teleProcess().threads();
-            final ThreadProvider[] threadProviders = new ThreadProvider[threads.size()];
-            return threads.toArray(threadProviders);
+            final long epoch = teleProcess().epoch();
+            if (allThreads == null || allThreadsEpoch != epoch) {
+                final Collection<TeleNativeThread> threads = teleProcess().threads();
+                allThreads = threads.toArray(new ThreadProvider[threads.size()]);
+                allThreadsEpoch = epoch;
+            }
+            return allThreads.clone();
         }
 
         public String[] getBootClassPath() {
@@ -2202,18 +2212,14 @@ public abstract class TeleVM implements MaxVM {
             // Try to find a matching class actor that lives within the VM based on
             // the signature.
             final List<ReferenceTypeProvider> result = new LinkedList<ReferenceTypeProvider>();
-            for (TypeDescriptor typeDescriptor : TeleVM.this.classes().typeDescriptors()) {
-                if (typeDescriptor.toString().equals(signature)) {
-                    final TeleClassActor teleClassActor = TeleVM.this.classes().findTeleClassActor(typeDescriptor);
-
-                    // Do not include array types, there should always be faked in
-                    // order to be able to call newInstance on them. Arrays that are
-                    // created this way then do
-                    // not really live within the VM, but on the JDWP server side.
-                    if (!(teleClassActor instanceof TeleArrayClassActor)) {
-                        result.add(teleClassActor);
-                    }
-                }
+            final TeleClassActor teleClassActor = TeleVM.this.classes().findTeleClassActor(JavaTypeDescriptor.parseTypeDescriptor(signature));
+
+            // Do not include array types, there should always be faked in
+            // order to be able to call newInstance on them. Arrays that are
+            // created this way then do
+            // not really live within the VM, but on the JDWP server side.
+            if (teleClassActor != null && !(teleClassActor instanceof TeleArrayClassActor)) {
+                result.add(teleClassActor);
             }
 
             // If no class living in the VM was found, try to lookup Java class
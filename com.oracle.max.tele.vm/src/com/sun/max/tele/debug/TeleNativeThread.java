@@ -111,6 +111,12 @@ public abstract class TeleNativeThread extends AbstractVmHolder
     private VmTargetBreakpoint breakpoint;
     private FrameProvider[] frameCache;
 
+    /**
+     * The JDWP {@linkplain #getName() name} of this thread, valid for the process epoch {@link #nameEpoch}.
+     */
+    private String name;
+    private long nameEpoch = -1L;
+
     /**
      * This thread's {@linkplain VmThread#id() identifier}.
      */
@@ -802,7 +808,13 @@ public abstract class TeleNativeThread extends AbstractVmHolder
     }
 
     public String getName() {
-        return toString();
+        // The name includes remote state such as the VM thread name and registers: only read it once per epoch.
+        final long epoch = teleProcess().epoch();
+        if (name == null || nameEpoch != epoch) {
+            name = toString();
+            nameEpoch = epoch;
+        }
+        return name;
     }
 
     public void interrupt() {
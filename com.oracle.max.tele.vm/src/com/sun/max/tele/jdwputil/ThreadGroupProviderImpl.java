@@ -37,6 +37,12 @@ public class ThreadGroupProviderImpl implements ThreadGroupProvider {
     private final TeleVM vm;
     private final boolean containsJavaThreads;
 
+    /**
+     * The threads of this group as of the process epoch {@link #threadChildrenEpoch}.
+     */
+    private ThreadProvider[] threadChildren;
+    private long threadChildrenEpoch = -1L;
+
     public ThreadGroupProviderImpl(TeleVM vm, boolean b) {
         this.vm = vm;
         this.containsJavaThreads = b;
@@ -51,13 +57,18 @@ public class ThreadGroupProviderImpl implements ThreadGroupProvider {
     }
 
     public ThreadProvider[] getThreadChildren() {
-        final List<ThreadProvider> result = new LinkedList<ThreadProvider>();
-        for (TeleNativeThread t : vm.teleProcess().threads()) {
-            if (t.isJava() == containsJavaThreads) {
-                result.add(t);
+        final long epoch = vm.teleProcess().epoch();
+        if (threadChildren == null || threadChildrenEpoch != epoch) {
+            final List<ThreadProvider> result = new LinkedList<ThreadProvider>();
+            for (TeleNativeThread t : vm.teleProcess().threads()) {
+                if (t.isJava() == containsJavaThreads) {
+                    result.add(t);
+                }
             }
+            threadChildren = result.toArray(new ThreadProvider[result.size()]);
+            threadChildrenEpoch = epoch;
         }
-        return result.toArray(new ThreadProvider[result.size()]);
+        return threadChildren.clone();
     }
 
     public ThreadGroupProvider[] getThreadGroupChildren() {
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2007, 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.tele.object;
+
+import static com.sun.max.platform.Platform.*;
+
+import java.nio.*;
+
+import com.sun.max.tele.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.type.*;
+import com.sun.max.vm.value.*;
+
+/**
+ * A local copy of the elements of an array in VM memory, read in chunks of {@link #CHUNK_BYTES} bytes with a single
+ * transfer per chunk and decoded only when an element is requested. This avoids the many word-sized reads that
+ * element by element access would otherwise issue when browsing a large array.
+ * <p>
+ * An image is only valid for the {@linkplain com.sun.max.tele.debug.TeleProcess#epoch() epoch} and array origin for which it was created:
+ * the VM may write to any array between two stops, not only during GC, so the image makes no attempt to keep
+ * unchanged chunks across epochs.
+ */
+final class TeleArrayImage {
+
+    /**
+     * The number of bytes read in a single transfer. Must be a multiple of the largest element width.
+     */
+    static final int CHUNK_BYTES = 64 * 1024;
+
+    private final TeleVM vm;
+    private final Kind kind;
+    private final int width;
+    private final int length;
+    private final Address elementsStart;
+    private final long epoch;
+    private final ByteBuffer[] chunks;
+
+    TeleArrayImage(TeleVM vm, Kind kind, int length, Address elementsStart, long epoch) {
+        this.vm = vm;
+        this.kind = kind;
+        this.width = kind.isReference ? platform().wordWidth().numberOfBytes : kind.width.numberOfBytes;
+        this.length = length;
+        this.elementsStart = elementsStart;
+        this.epoch = epoch;
+        final long nBytes = (long) length * width;
+        this.chunks = new ByteBuffer[(int) ((nBytes + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+    }
+
+    /**
+     * Determines if this image describes the current contents of an array at a given location.
+     */
+    boolean isValid(Address elementsStart, long epoch) {
+        return this.epoch == epoch && this.elementsStart.equals(elementsStart);
+    }
+
+    /**
+     * Gets the chunk holding an element, reading it from VM memory if necessary.
+     */
+    private ByteBuffer chunkFor(int index) {
+        final long offset = (long) index * width;
+        final int chunkIndex = (int) (offset / CHUNK_BYTES);
+        ByteBuffer chunk = chunks[chunkIndex];
+        if (chunk == null) {
+            final long chunkStart = (long) chunkIndex * CHUNK_BYTES;
+            final int chunkLength = (int) Math.min(CHUNK_BYTES, (long) length * width - chunkStart);
+            final byte[] bytes = new byte[chunkLength];
+            vm.memoryIO().readBytes(elementsStart.plus(chunkStart), bytes);
+            chunk = ByteBuffer.wrap(bytes).order(platform().endianness().asByteOrder());
+            chunks[chunkIndex] = chunk;
+        }
+        return chunk;
+    }
+
+    private int positionOf(int index) {
+        return (int) (((long) index * width) % CHUNK_BYTES);
+    }
+
+    /**
+     * Gets the raw value of a word or reference element.
+     */
+    Address readWord(int index) {
+        final ByteBuffer chunk = chunkFor(index);
+        final int position = positionOf(index);
+        return width == 8 ? Address.fromLong(chunk.getLong(position)) : Address.fromLong(chunk.getInt(position) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Decodes a primitive or word element.
+     *
+     * @throws IllegalArgumentException if this is an image of a reference array
+     */
+    Value readValue(int index) {
+        final ByteBuffer chunk = chunkFor(index);
+        final int position = positionOf(index);
+        switch (kind.asEnum) {
+            case BYTE:
+                return ByteValue.from(chunk.get(position));
+            case BOOLEAN:
+                return BooleanValue.from(chunk.get(position) != 0);
+            case SHORT:
+                return ShortValue.from(chunk.getShort(position));
+            case CHAR:
+                return CharValue.from(chunk.getChar(position));
+            case INT:
+                return IntValue.from(chunk.getInt(position));
+            case FLOAT:
+                return FloatValue.from(chunk.getFloat(position));
+            case LONG:
+                return LongValue.from(chunk.getLong(position));
+            case DOUBLE:
+                return DoubleValue.from(chunk.getDouble(position));
+            case WORD:
+                return new WordValue(readWord(index));
+            default:
+                throw new IllegalArgumentException("no primitive decoding for " + kind);
+        }
+    }
+}
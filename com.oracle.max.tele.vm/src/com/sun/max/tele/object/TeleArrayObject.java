@@ -28,8 +28,11 @@ import java.util.logging.*;
 
 import com.sun.max.jdwp.vm.proxy.*;
 import com.sun.max.tele.*;
+import com.sun.max.tele.data.*;
 import com.sun.max.tele.reference.*;
+import com.sun.max.tele.reference.LocalObjectRemoteReferenceManager.LocalObjectRemoteReference;
 import com.sun.max.tele.util.*;
+import com.sun.max.tele.value.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.actor.member.*;
 import com.sun.max.vm.layout.*;
@@ -53,11 +56,25 @@ public class TeleArrayObject extends TeleObject implements ArrayProvider {
 
     private String maxineRole = null;
 
+    /**
+     * A bulk copy of the elements, created on demand and discarded once the VM has run.
+     */
+    private TeleArrayImage image = null;
+
     protected TeleArrayObject(TeleVM vm, RemoteReference reference, Kind componentKind, SpecificLayout layout) {
         super(vm, reference, layout);
         this.componentKind = componentKind;
     }
 
+    /**
+     * Discards the image of the elements, which is stale once the VM has run.
+     */
+    @Override
+    protected boolean updateObjectCache(long epoch, StatsPrinter statsPrinter) {
+        image = null;
+        return super.updateObjectCache(epoch, statsPrinter);
+    }
+
     public ObjectKind kind() {
         return ObjectKind.ARRAY;
     }
@@ -126,7 +143,38 @@ public class TeleArrayObject extends TeleObject implements ArrayProvider {
         if (index < 0 || index >= length()) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        return reference().readArrayAsValue(componentKind(), index);
+        final TeleArrayImage image = image();
+        if (image == null) {
+            return reference().readArrayAsValue(componentKind(), index);
+        }
+        if (componentKind().isReference) {
+            try {
+                return TeleReferenceValue.from(vm(), vm().referenceScheme().makeElementReference(image.readWord(index)));
+            } catch (DataIOError err) {
+                TeleWarning.message("TeleArrayObject: Can't access reference array element " + index + " of " + this);
+                return TeleReferenceValue.zero(vm());
+            }
+        }
+        return image.readValue(index);
+    }
+
+    /**
+     * Gets a bulk copy of the elements that reflects the current state of the VM, creating it if necessary.
+     *
+     * @return the image of this array's elements or {@code null} if the elements should be read one at a time,
+     * which is the case for local objects and for arrays that are not live.
+     */
+    private TeleArrayImage image() {
+        if (reference() instanceof LocalObjectRemoteReference || !status().isLive()) {
+            image = null;
+            return null;
+        }
+        final Address elementsStart = origin().plus(arrayOffsetFromOrigin());
+        final long epoch = vm().teleProcess().epoch();
+        if (image == null || !image.isValid(elementsStart, epoch)) {
+            image = new TeleArrayImage(vm(), componentKind(), length(), elementsStart, epoch);
+        }
+        return image;
     }
 
     /**
@@ -146,7 +194,11 @@ public class TeleArrayObject extends TeleObject implements ArrayProvider {
         if (index < 0 || index >= length()) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        return reference().readArrayAsRemoteReference(index);
+        final TeleArrayImage image = image();
+        if (image == null) {
+            return reference().readArrayAsRemoteReference(index);
+        }
+        return vm().referenceScheme().makeElementReference(image.readWord(index));
     }
 
     @Override
@@ -997,7 +997,18 @@ public final class RemoteReferenceScheme extends AbstractVMScheme implements Ref
             final Object[] array = (Object[]) toJava(remoteRef);
             return fromJava(array[index]);
         }
-        final Address elementValueOrigin = Layout.getWord(remoteRef, index).asAddress();
+        return makeElementReference(Layout.getWord(remoteRef, index).asAddress());
+    }
+
+    /**
+     * Determines if a word already read from a reference array element in VM memory points at a live object (possibly
+     * via a forwarder), and if so creates a new {@link RemoteReference} for the live object. Returns
+     * {@link Reference#zero()} if the word's value does not point to an object.
+     *
+     * @param elementValueOrigin the value of a reference array element
+     * @return a reference to the object pointed to by the value, traversing a forwarder if needed.
+     */
+    public RemoteReference makeElementReference(Address elementValueOrigin) {
         if (elementValueOrigin.isZero()) {
             return zero;
         }
@@ -84,6 +84,12 @@ public final class VmClassAccess extends AbstractVmHolder implements MaxClasses,
     // ClassID of a {@link ClassActor} in the VM -> reference to the ClassActor
     private final Map<Integer, RemoteReference> idToClassActorReference = new HashMap<Integer, RemoteReference>();
 
+    /**
+     * Surrogates for all the entries in {@link #idToClassActorReference}, created on demand and discarded
+     * whenever an entry is added.
+     */
+    private ReferenceTypeProvider[] teleClassActors = null;
+
     /**
      * ClassID Mapping.
      */
@@ -371,12 +377,15 @@ public final class VmClassAccess extends AbstractVmHolder implements MaxClasses,
      * @return surrogates for all {@link ClassActor}s loaded in the VM.
      */
     public ReferenceTypeProvider[] teleClassActors() {
-        final ReferenceTypeProvider[] result = new ReferenceTypeProvider[idToClassActorReference.size()];
-        int index = 0;
-        for (RemoteReference classActorReference : idToClassActorReference.values()) {
-            result[index++] = (TeleClassActor) objects().makeTeleObject(classActorReference);
+        if (teleClassActors == null) {
+            final ReferenceTypeProvider[] result = new ReferenceTypeProvider[idToClassActorReference.size()];
+            int index = 0;
+            for (RemoteReference classActorReference : idToClassActorReference.values()) {
+                result[index++] = (TeleClassActor) objects().makeTeleObject(classActorReference);
+            }
+            teleClassActors = result;
         }
-        return result;
+        return teleClassActors.clone();
     }
 
     /**
@@ -466,6 +475,7 @@ public final class VmClassAccess extends AbstractVmHolder implements MaxClasses,
     private void addToRegistry(final RemoteReference classActorReference) throws ClassFormatError {
         final int id = fields().ClassActor_id.readInt(classActorReference);
         idToClassActorReference.put(id, classActorReference);
+        teleClassActors = null;
         final RemoteReference typeDescriptorReference = fields().ClassActor_typeDescriptor.readRemoteReference(classActorReference);
         final RemoteReference stringReference = fields().Descriptor_string.readRemoteReference(typeDescriptorReference);
         String typeDescriptorString = null;
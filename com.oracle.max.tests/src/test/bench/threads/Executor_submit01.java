@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+/*
+ * @Harness: java
+ * @Runs: 0 = true
+ */
+package test.bench.threads;
+
+import java.util.concurrent.*;
+
+import test.bench.util.*;
+
+/**
+ * Measures the throughput of a {@link ThreadPoolExecutor} executing a batch of trivial tasks.
+ * The hand-off of tasks between the submitting thread and the workers is dominated by
+ * {@link java.util.concurrent.locks.LockSupport#park()} and {@link java.util.concurrent.locks.LockSupport#unpark(Thread)}.
+ */
+public class Executor_submit01  extends RunBench {
+    static final int TASKS = 100;
+    static final int WORKERS = 4;
+    static ExecutorService executor;
+
+    protected Executor_submit01() {
+        super(new Bench(), new EncapBench());
+    }
+
+    public static boolean test(int i) {
+        executor = Executors.newFixedThreadPool(WORKERS);
+        try {
+            return new Executor_submit01().runBench();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static class Task implements Runnable {
+        final CountDownLatch latch;
+
+        Task(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        public void run() {
+            latch.countDown();
+        }
+    }
+
+    static class Bench extends MicroBenchmark {
+
+        @Override
+        public long run() throws Exception {
+            final CountDownLatch latch = new CountDownLatch(TASKS);
+            for (int i = 0; i < TASKS; i++) {
+                executor.execute(new Task(latch));
+            }
+            latch.await();
+            return defaultResult;
+        }
+    }
+
+    static class EncapBench extends MicroBenchmark {
+
+        @Override
+        public long run() throws Exception {
+            final CountDownLatch latch = new CountDownLatch(TASKS);
+            for (int i = 0; i < TASKS; i++) {
+                new Task(latch).run();
+            }
+            latch.await();
+            return defaultResult;
+        }
+    }
+
+    // for running stand-alone
+    public static void main(String[] args) {
+        test(0);
+    }
+}
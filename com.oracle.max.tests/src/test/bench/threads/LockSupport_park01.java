@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+/*
+ * @Harness: java
+ * @Runs: 0 = true
+ */
+package test.bench.threads;
+
+import java.util.concurrent.locks.*;
+
+import test.bench.util.*;
+
+/**
+ * Measures the round trip latency of handing control back and forth between two threads
+ * with {@link LockSupport#park()} and {@link LockSupport#unpark(Thread)}.
+ */
+public class LockSupport_park01  extends RunBench {
+    static int count;
+    static volatile boolean done;
+    static volatile int turn;
+    static volatile Thread caller;
+    static Thread partner;
+
+    protected LockSupport_park01() {
+        super(new Bench(), new EncapBench());
+    }
+
+    public static boolean test(int i) {
+        partner = new Thread(new Partner());
+        partner.setDaemon(true);
+        partner.start();
+        final boolean result = new LockSupport_park01().runBench();
+        done = true;
+        LockSupport.unpark(partner);
+        return result;
+    }
+
+    static class Bench extends MicroBenchmark {
+
+        @Override
+        public long run() {
+            caller = Thread.currentThread();
+            turn = 1;
+            LockSupport.unpark(partner);
+            while (turn != 0) {
+                LockSupport.park();
+            }
+            count++;
+            return defaultResult;
+        }
+    }
+
+    static class EncapBench extends MicroBenchmark {
+
+        @Override
+        public long run() {
+            caller = Thread.currentThread();
+            turn = 0;
+            count++;
+            return defaultResult;
+        }
+    }
+
+    static class Partner implements Runnable {
+        public void run() {
+            while (!done) {
+                if (turn == 1) {
+                    turn = 0;
+                    LockSupport.unpark(caller);
+                } else {
+                    LockSupport.park();
+                }
+            }
+        }
+    }
+
+    // for running stand-alone
+    public static void main(String[] args) {
+        test(0);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.output;
+
+/**
+ * Keeps a thread blocked in native code while another thread runs several GCs, then checks the objects referenced
+ * only from the Java frames of the blocked thread. A VM may reuse the stack reference map of a thread that stays
+ * in native code from one GC to the next. In the second variant, the native code calls back into Java code between
+ * the GCs, which must invalidate any such map.
+ */
+public class JNIBlockedAcrossGC {
+
+    static {
+        System.loadLibrary("javatest");
+    }
+
+    private static final int GCS = 3;
+
+    /**
+     * Waits until {@code count} GCs have been {@linkplain #setGCsDone(int) reported}, or for at most 30 seconds.
+     * If {@code upcall} is {@code true}, {@link #upcall()} is called once after the first GC.
+     *
+     * @return the number of GCs reported
+     */
+    private static native int waitForGCs(int count, boolean upcall);
+
+    private static native boolean isBlockedAcrossGC();
+
+    private static native boolean isUpcallDone();
+
+    private static native void setGCsDone(int count);
+
+    static Object[] garbage;
+
+    private static void allocateGarbage() {
+        garbage = new Object[1000];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = new int[16];
+        }
+    }
+
+    /**
+     * Called from native code.
+     */
+    static void upcall() {
+        allocateGarbage();
+        System.gc();
+    }
+
+    private static void test(String name, final boolean upcall) throws InterruptedException {
+        setGCsDone(0);
+        final Thread collector = new Thread() {
+            @Override
+            public void run() {
+                while (!isBlockedAcrossGC()) {
+                    Thread.yield();
+                }
+                for (int gc = 1; gc <= GCS; gc++) {
+                    if (upcall && gc == 2) {
+                        while (!isUpcallDone()) {
+                            Thread.yield();
+                        }
+                    }
+                    allocateGarbage();
+                    System.gc();
+                    setGCsDone(gc);
+                }
+            }
+        };
+        // Young objects referenced only from this frame while it is blocked in native code
+        final int[] ints = new int[100];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = i * i;
+        }
+        final Object[] objects = new Object[10];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new StringBuilder(name).append(i);
+        }
+        final StringBuilder builder = new StringBuilder(name);
+
+        collector.start();
+        final int gcs = waitForGCs(GCS, upcall);
+        collector.join();
+
+        boolean intsOk = true;
+        for (int i = 0; i < ints.length; i++) {
+            intsOk &= ints[i] == i * i;
+        }
+        boolean objectsOk = true;
+        for (int i = 0; i < objects.length; i++) {
+            objectsOk &= objects[i].toString().equals(name + i);
+        }
+        System.out.println(name + ": gcs=" + gcs + " ints=" + intsOk + " objects=" + objectsOk + " builder=" + builder);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        test("blocked", false);
+        test("upcall", true);
+    }
+}
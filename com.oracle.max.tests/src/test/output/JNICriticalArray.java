@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.output;
+
+/**
+ * Updates arrays through {@code GetPrimitiveArrayCritical} and checks that the updates are visible after
+ * {@code ReleasePrimitiveArrayCritical}. If the VM hands out a copy of the elements, the native code triggers
+ * a GC before the release so that a young array is moved while the copy is outstanding. Run this with both
+ * {@code -XX:+OptimizeJNICritical} and {@code -XX:-OptimizeJNICritical}.
+ */
+public class JNICriticalArray {
+
+    static {
+        System.loadLibrary("javatest");
+    }
+
+    private static native int addCritical(int[] array, int delta);
+
+    static void collectGarbage() {
+        System.gc();
+    }
+
+    private static long sum(int[] array) {
+        long sum = 0;
+        for (int value : array) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static int[] newArray(int length) {
+        final int[] array = new int[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = i;
+        }
+        return array;
+    }
+
+    private static void test(String name, int[] array, int delta) {
+        final long expected = sum(array) + (long) delta * array.length;
+        final int length = addCritical(array, delta);
+        final long actual = sum(array);
+        System.out.println(name + ": length=" + length + " sum=" + actual + (actual == expected ? "" : " expected=" + expected));
+    }
+
+    public static void main(String[] args) {
+        // Survives a few collections, so is likely to be old if the heap is generational
+        final int[] oldArray = newArray(1000);
+        System.gc();
+        System.gc();
+        for (int i = 0; i < 5; i++) {
+            test("young" + i, newArray(1000 + i), i + 1);
+            test("old" + i, oldArray, i + 1);
+        }
+        test("empty", new int[0], 1);
+    }
+}
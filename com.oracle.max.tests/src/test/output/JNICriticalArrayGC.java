@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.output;
+
+/**
+ * Holds a critical section on a young array while another thread allocates and runs GCs, then updates the array
+ * through the critical pointer. The updates must be visible after {@code ReleasePrimitiveArrayCritical}, i.e., the
+ * array must not have been moved by the GCs. A VM that blocks GC while a critical section is held makes the GC
+ * thread wait; the native code then gives up waiting after a while so that the test completes with the same output.
+ */
+public class JNICriticalArrayGC {
+
+    static {
+        System.loadLibrary("javatest");
+    }
+
+    private static native int addCriticalAcrossGC(int[] array, int delta);
+
+    private static native boolean isCriticalHeld();
+
+    private static native void setGCDone(boolean done);
+
+    static Object[] garbage;
+
+    private static long sum(int[] array) {
+        long sum = 0;
+        for (int value : array) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static void test(String name, int length, final int delta) throws InterruptedException {
+        final int[] array = new int[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = i;
+        }
+        final long expected = sum(array) + (long) delta * length;
+        setGCDone(false);
+        final Thread collector = new Thread() {
+            @Override
+            public void run() {
+                while (!isCriticalHeld()) {
+                    Thread.yield();
+                }
+                for (int i = 0; i < 3; i++) {
+                    // Fill the nursery around the held array
+                    garbage = new Object[1000];
+                    for (int j = 0; j < garbage.length; j++) {
+                        garbage[j] = new int[16];
+                    }
+                    System.gc();
+                }
+                setGCDone(true);
+            }
+        };
+        collector.start();
+        final int result = addCriticalAcrossGC(array, delta);
+        collector.join();
+        final long actual = sum(array);
+        System.out.println(name + ": length=" + result + " sum=" + actual + (actual == expected ? "" : " expected=" + expected));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            test("young" + i, 1000 + i, i + 1);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.output;
+
+import java.lang.management.*;
+import java.util.*;
+
+import javax.management.*;
+
+/**
+ * Registers the platform beans in the platform MBean server and reads the attributes of the garbage collector beans
+ * through it, as JConsole does. This fails if a platform bean is not a compliant MXBean.
+ */
+public class PlatformMBeans {
+
+    public static void main(String[] args) throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final Set<ObjectName> names = server.queryNames(new ObjectName(ManagementFactory.GARBAGE_COLLECTOR_MXBEAN_DOMAIN_TYPE + ",*"), null);
+        System.out.println("garbage collectors registered: " + !names.isEmpty());
+        System.gc();
+        boolean attributesRead = true;
+        for (ObjectName name : names) {
+            final Long count = (Long) server.getAttribute(name, "CollectionCount");
+            final Long time = (Long) server.getAttribute(name, "CollectionTime");
+            final String[] pools = (String[]) server.getAttribute(name, "MemoryPoolNames");
+            attributesRead &= count >= 0 && time >= 0 && pools != null;
+        }
+        System.out.println("garbage collector attributes read: " + attributesRead);
+        System.out.println("memory bean registered: " + server.isRegistered(new ObjectName(ManagementFactory.MEMORY_MXBEAN_NAME)));
+    }
+}
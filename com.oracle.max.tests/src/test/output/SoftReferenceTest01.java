@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.output;
+
+import java.lang.ref.*;
+
+/**
+ * Tests that an object that is both weakly and softly reachable, through a recently used soft reference, is kept
+ * alive by a GC and that the weak reference is neither cleared nor enqueued, whichever reference was created first.
+ */
+public class SoftReferenceTest01 {
+    public static void main(String[] args) {
+        final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+        Object referent1 = new Object();
+        final WeakReference<Object> weak1 = new WeakReference<Object>(referent1, queue);
+        final SoftReference<Object> soft1 = new SoftReference<Object>(referent1);
+
+        Object referent2 = new Object();
+        final SoftReference<Object> soft2 = new SoftReference<Object>(referent2);
+        final WeakReference<Object> weak2 = new WeakReference<Object>(referent2, queue);
+
+        referent1 = null;
+        referent2 = null;
+        System.gc();
+
+        test(weak1, soft1);
+        test(weak2, soft2);
+        System.out.println(queue.poll() == null);
+    }
+
+    private static void test(WeakReference<Object> weak, SoftReference<Object> soft) {
+        final Object referent = soft.get();
+        System.out.println(referent != null);
+        System.out.println(weak.get() == referent);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.output;
+
+import java.lang.management.*;
+
+/**
+ * Reads the bytes allocated by the current thread through {@code com.sun.management.ThreadMXBean}, which
+ * depends on the VM reporting the thread allocated memory optional support.
+ */
+public class ThreadAllocatedBytes {
+
+    static byte[][] arrays;
+
+    public static void main(String[] args) {
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.out.println("supported: " + bean.isThreadAllocatedMemorySupported());
+        System.out.println("enabled: " + bean.isThreadAllocatedMemoryEnabled());
+        final long id = Thread.currentThread().getId();
+        final long before = bean.getThreadAllocatedBytes(id);
+        arrays = new byte[100][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = new byte[10000];
+        }
+        final long after = bean.getThreadAllocatedBytes(id);
+        System.out.println("counted: " + (after - before >= 100 * 10000));
+    }
+}
@@ -186,7 +186,7 @@ public class JJVMTIAgentAdapter extends JJVMTIAgentAdapterChecker implements JJV
         if (vmThread == null) {
             throw new JJVMTIException(JVMTI_ERROR_THREAD_NOT_ALIVE);
         }
-        FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceVmOperation.invoke(vmThread);
+        FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceHandshake.invoke(vmThread);
         return stackTraceVisitor.stackElements.size();
     }
 
@@ -55,7 +55,7 @@ public class JVMTICode {
     private static void checkDeOptForEvent(JVMTI.Env jvmtiEnv, VmThread vmThread) {
         long codeEventSettings = JVMTIEvents.codeEventSettings(jvmtiEnv, vmThread);
         if (codeEventSettings != 0) {
-            FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceVmOperation.invoke(vmThread);
+            FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceHandshake.invoke(vmThread);
             // we only deopt the top frame, which means we need to handle leaving the frame later.
             // if we are in thread termination, stack may be empty
             if (stackTraceVisitor.stackElements.size() > 0) {
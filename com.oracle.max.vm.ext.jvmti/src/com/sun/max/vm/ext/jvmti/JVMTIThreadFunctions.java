@@ -208,7 +208,7 @@ public class JVMTIThreadFunctions {
             frameInfo[i] = new FrameInfo();
         }
         JavaThreadListStackTraceVisitor stackTraceVisitor = new JavaThreadListStackTraceVisitor(vmThread, startDepth, maxFrameCount, frameInfo);
-        SingleThreadStackTraceVmOperation.invoke(vmThread, stackTraceVisitor);
+        SingleThreadStackTraceHandshake.invoke(vmThread, stackTraceVisitor);
         if (stackTraceVisitor.frameBufferIndex < frameInfo.length) {
             FrameInfo[] newFrameInfo = new FrameInfo[stackTraceVisitor.frameBufferIndex];
             System.arraycopy(frameInfo, 0, newFrameInfo, 0, stackTraceVisitor.frameBufferIndex);
@@ -223,7 +223,7 @@ public class JVMTIThreadFunctions {
             return JVMTI_ERROR_THREAD_NOT_ALIVE;
         }
         NativeThreadListStackTraceVisitor stackTraceVisitor = new NativeThreadListStackTraceVisitor(vmThread, startDepth, maxFrameCount, frameBuffer);
-        new SingleThreadStackTraceVmOperation(vmThread, stackTraceVisitor).submit();
+        SingleThreadStackTraceHandshake.invoke(vmThread, stackTraceVisitor);
         countPtr.setInt(stackTraceVisitor.frameBufferIndex);
         return JVMTI_ERROR_NONE;
     }
@@ -597,36 +597,24 @@ public class JVMTIThreadFunctions {
     }
 
     /**
-     * Invokes a {@link FindAppFramesStackTraceVisitor} on a single thread in a {@link VmOperation}.
-     * N.B. To workaround a limitation in {@link VmOperation} where a GC cannot be run during the
-     * {@link VmOperation} unless all threads are stopped, we run this as a multi-thread operation
-     * even though that is not strictly necessary. Typically everything is stopped anyway.
-     *
-     * The case where the current thread is making the request is handled specially as no
-     * {@link VmOperation}is necessary, just the stack walk.
+     * Invokes a {@link FindAppFramesStackTraceVisitor} on a single thread in a {@link Handshake}.
+     * Only the thread whose stack is walked is stopped.
      */
-    static class SingleThreadStackTraceVmOperation extends VmOperation {
+    static class SingleThreadStackTraceHandshake extends Handshake {
         FindAppFramesStackTraceVisitor stackTraceVisitor;
-        VmThread vmThread;
 
         /**
-         * Create a {@link VmOperation} that runs the given {@link BaseStackTraceVisitor} on the given thread.
+         * Create a {@link Handshake} that runs the given {@link BaseStackTraceVisitor} on the given thread.
          * @param vmThread
          * @param stackTraceVisitor
          */
-        private SingleThreadStackTraceVmOperation(VmThread vmThread, FindAppFramesStackTraceVisitor stackTraceVisitor) {
-            super("JVMTISingleStackTrace", null, Mode.Safepoint);
-            this.vmThread = vmThread;
+        private SingleThreadStackTraceHandshake(VmThread vmThread, FindAppFramesStackTraceVisitor stackTraceVisitor) {
+            super("JVMTISingleStackTrace", vmThread);
             this.stackTraceVisitor = stackTraceVisitor;
         }
 
         @Override
-        protected boolean operateOnThread(VmThread vmThread) {
-            return vmThread == this.vmThread;
-        }
-
-        @Override
-        public void doThread(VmThread vmThread, Pointer ip, Pointer sp, Pointer fp) {
+        protected void doThread(VmThread vmThread, Pointer ip, Pointer sp, Pointer fp) {
             stackTraceVisitor.walk(new VmStackFrameWalker(vmThread.tla()), ip, sp, fp);
         }
 
@@ -641,13 +629,13 @@ public class JVMTIThreadFunctions {
                 stackTraceVisitor.walk(new VmStackFrameWalker(vmThread.tla()), Address.fromLong(here()).asPointer(),
                                 getAbiStackPointer(), getCpuFramePointer());
             } else {
-                new SingleThreadStackTraceVmOperation(vmThread, stackTraceVisitor).submit();
+                new SingleThreadStackTraceHandshake(vmThread, stackTraceVisitor).execute();
             }
             return stackTraceVisitor;
         }
 
         static FindAppFramesStackTraceVisitor invoke(VmThread vmThread) {
-            return SingleThreadStackTraceVmOperation.invoke(vmThread, new FindAppFramesStackTraceVisitor());
+            return SingleThreadStackTraceHandshake.invoke(vmThread, new FindAppFramesStackTraceVisitor());
         }
     }
 
@@ -861,7 +849,7 @@ public class JVMTIThreadFunctions {
         if (vmThread == null) {
             return JVMTI_ERROR_THREAD_NOT_ALIVE;
         }
-        FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceVmOperation.invoke(vmThread);
+        FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceHandshake.invoke(vmThread);
         countPtr.setInt(stackTraceVisitor.stackElements.size());
         return JVMTI_ERROR_NONE;
     }
@@ -904,7 +892,7 @@ public class JVMTIThreadFunctions {
         if (depth < 0) {
             return JVMTI_ERROR_ILLEGAL_ARGUMENT;
         }
-        FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceVmOperation.invoke(vmThread);
+        FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceHandshake.invoke(vmThread);
         if (depth < stackTraceVisitor.stackElements.size()) {
             methodActorLocation.methodActor = stackTraceVisitor.getStackElement(depth).classMethodActor;
             methodActorLocation.location = stackTraceVisitor.getStackElement(depth).bci;
@@ -956,7 +944,7 @@ public class JVMTIThreadFunctions {
         if (depth < 0) {
             return JVMTI_ERROR_ILLEGAL_ARGUMENT;
         }
-        FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceVmOperation.invoke(vmThread);
+        FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceHandshake.invoke(vmThread);
         if (depth < stackTraceVisitor.stackElements.size()) {
             StackElement se = stackTraceVisitor.getStackElement(depth);
             addFramePopId(vmThread, se.frameIndex);
@@ -1040,7 +1028,7 @@ public class JVMTIThreadFunctions {
         boolean framePop = !framePopMap.isEmpty(); // fast conservative check
         boolean methodExitSet = JVMTIEvents.isEventSet(JVMTIEvents.E.METHOD_EXIT);
         if (framePop || methodExitSet) {
-            FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceVmOperation.invoke(vmThread);
+            FindAppFramesStackTraceVisitor stackTraceVisitor = SingleThreadStackTraceHandshake.invoke(vmThread);
             if (framePop && stackTraceVisitor.stackElements.size() > 1) {
                 framePop = findFramePopId(vmThread, stackTraceVisitor.getStackElement(0).frameIndex); // accurate
                 if (framePop) {
@@ -1238,7 +1226,7 @@ public class JVMTIThreadFunctions {
             return JVMTI_ERROR_THREAD_NOT_ALIVE;
         }
         GetSetStackTraceVisitor stackTraceVisitor = new GetSetStackTraceVisitor(depth, slot, typedData, isSet);
-        SingleThreadStackTraceVmOperation.invoke(vmThread, stackTraceVisitor);
+        SingleThreadStackTraceHandshake.invoke(vmThread, stackTraceVisitor);
         return stackTraceVisitor.returnCode;
     }
 
@@ -86,6 +86,11 @@ public class MaxTargetMethod extends TargetMethod implements Cloneable {
      */
     private int[] exceptionHandlerBCIs;
 
+    /**
+     * Cache of lookups in the exception handler table. Only allocated if there is an exception handler table.
+     */
+    private ExceptionHandlerCache exceptionHandlerCache;
+
     /**
      * Debug info.
      */
@@ -203,6 +208,7 @@ public class MaxTargetMethod extends TargetMethod implements Cloneable {
             exceptionPositionsToCatchPositions = new int[ciTargetMethod.exceptionHandlers.size() * 2];
             exceptionClassActors = new ClassActor[ciTargetMethod.exceptionHandlers.size()];
             exceptionHandlerBCIs = new int[ciTargetMethod.exceptionHandlers.size()];
+            exceptionHandlerCache = new ExceptionHandlerCache();
 
             int z = 0;
             for (ExceptionHandler handler : ciTargetMethod.exceptionHandlers) {
@@ -272,25 +278,34 @@ public class MaxTargetMethod extends TargetMethod implements Cloneable {
     }
 
     private CodePointer throwAddressToCatchAddress(CodePointer throwAddress, Throwable exception, CatchExceptionInfo info) {
-        final int exceptionPos = throwAddress.minus(codeStart()).toInt();
         int count = getExceptionHandlerCount();
-        for (int i = 0; i < count; i++) {
-            int codePos = getExceptionPosAt(i);
-            int catchPos = getCatchPosAt(i);
-            ClassActor catchType = getCatchTypeAt(i);
-
-            if (codePos == exceptionPos && checkType(exception, catchType)) {
-                if (info != null) {
-                    info.bci = getHandlerBCIAt(i);
+        if (count == 0) {
+            return CodePointer.zero();
+        }
+        final int exceptionPos = throwAddress.minus(codeStart()).toInt();
+        final ClassActor exceptionClass = ObjectAccess.readClassActor(exception);
+        int handler = exceptionHandlerCache.lookup(exceptionPos, exceptionClass);
+        if (handler == ExceptionHandlerCache.NOT_CACHED) {
+            handler = ExceptionHandlerCache.NO_HANDLER;
+            for (int i = 0; i < count; i++) {
+                if (getExceptionPosAt(i) == exceptionPos && checkType(exceptionClass, getCatchTypeAt(i))) {
+                    handler = i;
+                    break;
                 }
-                return codeAt(catchPos);
             }
+            exceptionHandlerCache.record(exceptionPos, exceptionClass, handler);
+        }
+        if (handler == ExceptionHandlerCache.NO_HANDLER) {
+            return CodePointer.zero();
+        }
+        if (info != null) {
+            info.bci = getHandlerBCIAt(handler);
         }
-        return CodePointer.zero();
+        return codeAt(getCatchPosAt(handler));
     }
 
-    private boolean checkType(Throwable exception, ClassActor catchType) {
-        return catchType == null || catchType.isAssignableFrom(ObjectAccess.readClassActor(exception));
+    private boolean checkType(ClassActor exceptionClass, ClassActor catchType) {
+        return catchType == null || catchType.isAssignableFrom(exceptionClass);
     }
 
     /**
@@ -353,6 +353,9 @@ public class T1X extends RuntimeCompiler.DefaultNameAdapter implements RuntimeCo
                 vmtiT1X.initialize(phase);
             }
         }
+        if (phase == Phase.RUNNING && T1XOptions.BackgroundRefMaps && !T1XOptions.EagerRefMaps) {
+            T1XRefMapFinalizer.instance.ensureStarted();
+        }
         if (phase == Phase.TERMINATING) {
 
             if (T1XOptions.PrintMetrics) {
@@ -274,6 +274,19 @@ public abstract class T1XCompilation {
      */
     CiExceptionHandler[] handlers;
 
+    /**
+     * The BCIs that are the target of a branch or switch instruction or the entry of an exception handler.
+     * This is only computed if {@linkplain #canForwardStores() store forwarding} is enabled.
+     */
+    boolean[] jumpTargetBCIs;
+
+    /**
+     * The kind of the value produced by the previous bytecode that is held in {@link #scratch} instead of having been
+     * pushed to the operand stack, or {@code null} if the operand stack is in memory. The value is only ever forwarded
+     * from a load or constant followed by a store to a local that is not a jump target.
+     */
+    Kind forwardedValue;
+
     protected MethodProfile.Builder methodProfileBuilder;
 
     /**
@@ -337,6 +350,10 @@ public abstract class T1XCompilation {
         initFrame(method, codeAttribute);
 
         initHandlers(method, code);
+
+        if (canForwardStores()) {
+            jumpTargetBCIs = jumpTargets(code, handlers);
+        }
     }
 
     static void startTimer(T1XTimer timer) {
@@ -363,6 +380,94 @@ public abstract class T1XCompilation {
         }
     }
 
+    /**
+     * Computes the BCIs in some bytecode that are the target of a branch or switch instruction or the entry
+     * of an exception handler.
+     *
+     * @param code the bytecode
+     * @param handlers the exception handlers of the bytecode, which may be {@code null}
+     * @return a map from BCI to whether the BCI is a jump target
+     */
+    public static boolean[] jumpTargets(byte[] code, CiExceptionHandler[] handlers) {
+        boolean[] jumpTargetBCIs = new boolean[code.length];
+        if (handlers != null) {
+            for (CiExceptionHandler handler : handlers) {
+                jumpTargetBCIs[handler.handlerBCI()] = true;
+            }
+        }
+        BytecodeStream s = new BytecodeStream(code);
+        while (s.currentBCI() < s.endBCI()) {
+            int opcode = s.currentBC();
+            switch (opcode) {
+                case Bytecodes.GOTO_W:
+                case Bytecodes.JSR_W:
+                    jumpTargetBCIs[s.readFarBranchDest()] = true;
+                    break;
+                case Bytecodes.TABLESWITCH:
+                case Bytecodes.LOOKUPSWITCH: {
+                    BytecodeSwitch sw = opcode == Bytecodes.TABLESWITCH ? new BytecodeTableSwitch(s, s.currentBCI()) : new BytecodeLookupSwitch(s, s.currentBCI());
+                    jumpTargetBCIs[sw.defaultTarget()] = true;
+                    for (int i = 0; i < sw.numberOfCases(); i++) {
+                        jumpTargetBCIs[sw.targetAt(i)] = true;
+                    }
+                    break;
+                }
+                default:
+                    if (Bytecodes.isBranch(opcode)) {
+                        jumpTargetBCIs[s.readBranchDest()] = true;
+                    }
+            }
+            s.next();
+        }
+        return jumpTargetBCIs;
+    }
+
+    /**
+     * Determines if the value of a load or constant may be forwarded in {@link #scratch} to a store that follows it.
+     * Subclasses that emit code observing the operand stack at every bytecode boundary must override
+     * this to return {@code false}.
+     */
+    protected boolean canForwardStores() {
+        return T1XOptions.ForwardStores;
+    }
+
+    /**
+     * Determines if the value about to be produced by the current bytecode can be kept in {@link #scratch}
+     * instead of being pushed.
+     */
+    boolean forwardToNextStore() {
+        return jumpTargetBCIs != null && isForwardableStore(codeAttribute.code(), stream.nextBCI(), jumpTargetBCIs);
+    }
+
+    /**
+     * Determines if the value produced by the bytecode preceding a given BCI can be forwarded to the bytecode at
+     * the BCI in a register. This is the case if the bytecode at the BCI stores to a local variable and
+     * cannot be reached other than by falling through from the preceding bytecode.
+     *
+     * @param code the bytecode
+     * @param bci the BCI of the bytecode following the one producing the value
+     * @param jumpTargetBCIs the {@linkplain #jumpTargets jump targets} in {@code code}
+     */
+    public static boolean isForwardableStore(byte[] code, int bci, boolean[] jumpTargetBCIs) {
+        if (bci >= code.length || jumpTargetBCIs[bci]) {
+            return false;
+        }
+        int opcode = code[bci] & 0xff;
+        if (opcode == Bytecodes.WIDE) {
+            opcode = code[bci + 1] & 0xff;
+        }
+        switch (opcode) {
+            case Bytecodes.ISTORE: case Bytecodes.ISTORE_0: case Bytecodes.ISTORE_1: case Bytecodes.ISTORE_2: case Bytecodes.ISTORE_3:
+            case Bytecodes.FSTORE: case Bytecodes.FSTORE_0: case Bytecodes.FSTORE_1: case Bytecodes.FSTORE_2: case Bytecodes.FSTORE_3:
+            case Bytecodes.LSTORE: case Bytecodes.LSTORE_0: case Bytecodes.LSTORE_1: case Bytecodes.LSTORE_2: case Bytecodes.LSTORE_3:
+            case Bytecodes.DSTORE: case Bytecodes.DSTORE_0: case Bytecodes.DSTORE_1: case Bytecodes.DSTORE_2: case Bytecodes.DSTORE_3:
+            case Bytecodes.ASTORE: case Bytecodes.ASTORE_0: case Bytecodes.ASTORE_1: case Bytecodes.ASTORE_2: case Bytecodes.ASTORE_3:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Initializes {@link #frame} and {@link #synchronizedReceiver}.
      */
@@ -381,6 +486,8 @@ public abstract class T1XCompilation {
         stream = null;
         handlerBCIs = null;
         handlers = null;
+        jumpTargetBCIs = null;
+        forwardedValue = null;
         syncHandlerStartPos = -1;
         syncHandlerEndPos = -1;
         syncRefMapStartPos = -1;
@@ -1373,52 +1480,82 @@ public abstract class T1XCompilation {
 
     protected void do_oconst(Object value) {
         assignObject(scratch, value);
+        if (forwardToNextStore()) {
+            forwardedValue = Kind.REFERENCE;
+            return;
+        }
         incStack(1);
         pokeObject(scratch, 0);
     }
 
     protected void do_iconst(int value) {
         assignInt(scratch, value);
+        if (forwardToNextStore()) {
+            forwardedValue = Kind.INT;
+            return;
+        }
         incStack(1);
         pokeInt(scratch, 0);
     }
 
     protected void do_dconst(double value) {
         assignLong(scratch, Double.doubleToRawLongBits(value));
+        if (forwardToNextStore()) {
+            forwardedValue = Kind.DOUBLE;
+            return;
+        }
         incStack(2);
         pokeLong(scratch, 0);
     }
 
     protected void do_fconst(float value) {
         assignInt(scratch, Float.floatToRawIntBits(value));
+        if (forwardToNextStore()) {
+            forwardedValue = Kind.FLOAT;
+            return;
+        }
         incStack(1);
         pokeInt(scratch, 0);
     }
 
     protected void do_lconst(long value) {
         assignLong(scratch, value);
+        if (forwardToNextStore()) {
+            forwardedValue = Kind.LONG;
+            return;
+        }
         incStack(2);
         pokeLong(scratch, 0);
     }
 
     protected void do_load(int index, Kind kind) {
+        boolean forward = forwardToNextStore();
+        if (forward) {
+            forwardedValue = kind;
+        }
         switch(kind.asEnum) {
             case INT:
             case FLOAT:
                 loadInt(scratch, index);
-                incStack(1);
-                pokeInt(scratch, 0);
+                if (!forward) {
+                    incStack(1);
+                    pokeInt(scratch, 0);
+                }
                 break;
             case REFERENCE:
                 loadWord(scratch, index);
-                incStack(1);
-                pokeWord(scratch, 0);
+                if (!forward) {
+                    incStack(1);
+                    pokeWord(scratch, 0);
+                }
                 break;
             case LONG:
             case DOUBLE:
                 loadLong(scratch, index);
-                incStack(2);
-                pokeLong(scratch, 0);
+                if (!forward) {
+                    incStack(2);
+                    pokeLong(scratch, 0);
+                }
                 break;
             default:
                 throw new InternalError("Unexpected kind: " + kind);
@@ -1426,22 +1563,34 @@ public abstract class T1XCompilation {
     }
 
     protected void do_store(int index, Kind kind) {
+        boolean forward = forwardedValue != null;
+        if (forward) {
+            assert forwardedValue.stackSlots == kind.stackSlots : "forwarded " + forwardedValue + " stored as " + kind + errorSuffix();
+            forwardedValue = null;
+            T1XMetrics.StoresForwarded++;
+        }
         switch(kind.asEnum) {
             case INT:
             case FLOAT:
-                peekInt(scratch, 0);
-                decStack(1);
+                if (!forward) {
+                    peekInt(scratch, 0);
+                    decStack(1);
+                }
                 storeInt(scratch, index);
                 break;
             case REFERENCE:
-                peekWord(scratch, 0);
-                decStack(1);
+                if (!forward) {
+                    peekWord(scratch, 0);
+                    decStack(1);
+                }
                 storeWord(scratch, index);
                 break;
             case LONG:
             case DOUBLE:
-                peekLong(scratch, 0);
-                decStack(2);
+                if (!forward) {
+                    peekLong(scratch, 0);
+                    decStack(2);
+                }
                 storeLong(scratch, index);
                 break;
             default:
@@ -35,6 +35,10 @@ public class T1XMetrics {
     public static int BytecodesCompiled;
     public static int CodeBytesEmitted;
     public static int Bailouts;
+    public static int RefMapsFinalizedEagerly;
+    public static int RefMapsFinalizedInBackground;
+    public static int RefMapsFinalizedLazily;
+    public static int StoresForwarded;
 
     public static void print() {
         TTY.printFields(T1XMetrics.class);
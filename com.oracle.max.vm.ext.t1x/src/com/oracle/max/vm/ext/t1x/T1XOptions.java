@@ -38,8 +38,12 @@ public final class T1XOptions {
 
     public static boolean EagerRefMaps                       = ____;
 
+    public static boolean BackgroundRefMaps                  = true;
+
     public static boolean TraceMethods                       = ____;
 
+    public static boolean ForwardStores                      = ____;
+
     /**
      * See {@link Filter#Filter(String, Object)}.
      */
@@ -77,6 +81,14 @@ public final class T1XOptions {
                 "Generate ref maps for methods compiled by T1X at compile time " +
                 "instead of lazily during a GC.");
 
+        map.put("BackgroundRefMaps",
+                "Generate ref maps for methods compiled by T1X on a background thread soon after " +
+                "compilation instead of lazily during a GC.");
+
+        map.put("ForwardStores",
+                "Keep the value produced by a load or constant in a register when it is " +
+                "immediately stored to a local variable, instead of going through the operand stack.");
+
         map.put("TraceMethods",
                 "Trace calls to T1X compiled methods.");
         map.put("PrintJsrRetRewrites",
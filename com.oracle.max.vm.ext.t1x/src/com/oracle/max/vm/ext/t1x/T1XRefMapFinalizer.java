@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2011, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.max.vm.ext.t1x;
+
+import java.util.*;
+
+/**
+ * A daemon thread that finalizes the {@linkplain T1XTargetMethod#finalizeReferenceMaps() reference maps} of
+ * T1X methods shortly after they are compiled. Without it, the maps of a method are built the first time
+ * a frame of the method is scanned, which is usually during a GC pause. A method whose maps are still
+ * pending when a GC scans one of its frames is finalized by the GC as before and counted in
+ * {@link T1XMetrics#RefMapsFinalizedLazily}.
+ */
+public final class T1XRefMapFinalizer implements Runnable {
+
+    /**
+     * A method whose reference maps may still need to be finalized.
+     */
+    public interface Method {
+        /**
+         * @see com.sun.max.vm.compiler.target.TargetMethod#isWiped()
+         */
+        boolean isWiped();
+
+        /**
+         * Finalizes the reference maps of this method unless that has already been done.
+         *
+         * @return {@code true} if the maps were finalized by the current thread
+         */
+        boolean finalizeReferenceMapsIfPending();
+    }
+
+    /**
+     * Methods compiled while this many methods are already waiting are left to the GC.
+     */
+    private static final int MAX_PENDING = 4096;
+
+    /**
+     * The finalizer used by T1X.
+     */
+    static final T1XRefMapFinalizer instance = new T1XRefMapFinalizer("T1XRefMapFinalizer", MAX_PENDING);
+
+    private final String name;
+    private final int maxPending;
+    private final LinkedList<Method> pending = new LinkedList<Method>();
+
+    private volatile Thread thread;
+
+    /**
+     * The number of methods whose maps were finalized by this finalizer.
+     */
+    private volatile int finalized;
+
+    /**
+     * Creates a finalizer whose thread is not yet started.
+     *
+     * @param name the name of the finalizer thread
+     * @param maxPending the maximum number of methods waiting to be finalized
+     */
+    public T1XRefMapFinalizer(String name, int maxPending) {
+        this.name = name;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Starts the finalizer thread if it is not already running.
+     */
+    public synchronized void ensureStarted() {
+        if (thread == null) {
+            final Thread t = new Thread(this, name);
+            t.setDaemon(true);
+            t.start();
+            thread = t;
+        }
+    }
+
+    /**
+     * Queues a method whose reference maps have not yet been finalized.
+     *
+     * @return {@code true} if the method was queued, {@code false} if the thread is not running or its queue is full
+     */
+    public boolean enqueue(Method method) {
+        if (thread == null) {
+            return false;
+        }
+        synchronized (pending) {
+            if (pending.size() >= maxPending) {
+                return false;
+            }
+            pending.add(method);
+            pending.notify();
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of methods whose maps were finalized by this finalizer.
+     */
+    public int finalized() {
+        return finalized;
+    }
+
+    public void run() {
+        while (true) {
+            Method method;
+            synchronized (pending) {
+                while (pending.isEmpty()) {
+                    try {
+                        pending.wait();
+                    } catch (InterruptedException e) {
+                        // do nothing.
+                    }
+                }
+                method = pending.poll();
+            }
+            if (!method.isWiped() && method.finalizeReferenceMapsIfPending()) {
+                finalized++;
+                if (this == instance) {
+                    T1XMetrics.RefMapsFinalizedInBackground++;
+                }
+            }
+        }
+    }
+}
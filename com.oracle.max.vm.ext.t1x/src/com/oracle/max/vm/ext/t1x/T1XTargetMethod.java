@@ -70,7 +70,7 @@ import com.sun.max.vm.type.*;
 /**
  * A target method generated by T1X.
  */
-public class T1XTargetMethod extends TargetMethod {
+public class T1XTargetMethod extends TargetMethod implements T1XRefMapFinalizer.Method {
 
     static final int SYNC_METHOD_CATCH_TYPE_CPI = -1;
 
@@ -160,6 +160,11 @@ public class T1XTargetMethod extends TargetMethod {
 
     public final CiExceptionHandler[] handlers;
 
+    /**
+     * Cache of lookups in {@link #handlers}. Only allocated if there are handlers.
+     */
+    private final ExceptionHandlerCache handlerCache;
+
     /**
      * The code annotations (if any) recorded when compiling this T1X method.
      */
@@ -202,6 +207,7 @@ public class T1XTargetMethod extends TargetMethod {
         setSafepoints(safepointsBuilder.safepoints, safepointsBuilder.directCallees);
         refMaps = safepointsBuilder.refMaps;
         handlers = initHandlers(comp);
+        handlerCache = handlers.length == 0 ? null : new ExceptionHandlerCache();
 
         if (comp.methodProfileBuilder != null) {
             comp.methodProfileBuilder.finish(this);
@@ -241,6 +247,9 @@ public class T1XTargetMethod extends TargetMethod {
             final ReferenceMapInterpreter interpreter = ReferenceMapInterpreter.from(referenceMapEditor.blockFrames());
             if (interpreter.performsAllocation() || T1XOptions.EagerRefMaps || T1XOptions.PrintCFGToFile) {
                 finalizeReferenceMaps();
+                T1XMetrics.RefMapsFinalizedEagerly++;
+            } else if (install && !MaxineVM.isHosted()) {
+                T1XRefMapFinalizer.instance.enqueue(this);
             }
         }
 
@@ -572,6 +581,17 @@ public class T1XTargetMethod extends TargetMethod {
      */
     @Override
     public void finalizeReferenceMaps() {
+        finalizeReferenceMapsIfPending();
+    }
+
+    /**
+     * Ensures that the reference maps for this method are finalized.
+     *
+     * @return {@code true} if the maps were finalized by the current thread, {@code false} if they were already
+     *         finalized or were finalized by another thread
+     * @see #finalizeReferenceMaps()
+     */
+    public boolean finalizeReferenceMapsIfPending() {
         Object object = this.refMapEditor.get();
         if (object != null) {
             T1XReferenceMapEditor referenceMapEditor = null;
@@ -594,6 +614,7 @@ public class T1XTargetMethod extends TargetMethod {
                 if (mustReenableSafepoints) {
                     SafepointPoll.enable();
                 }
+                return true;
             } else if (result != null) {
                 FatalError.check(result instanceof VmThread, "expected VmThread instance");
                 if (VmThread.current() == result) {
@@ -607,6 +628,7 @@ public class T1XTargetMethod extends TargetMethod {
                 }
             }
         }
+        return false;
     }
 
     @Override
@@ -633,40 +655,64 @@ public class T1XTargetMethod extends TargetMethod {
     private CodePointer throwAddressToCatchAddress(CodePointer ip, Throwable exception, CatchExceptionInfo info) {
         if (handlers.length != 0) {
             final int exceptionPos = posFor(ip);
-            int exceptionBCI = bciForPos(exceptionPos);
-            if (exceptionBCI != -1) {
-                for (CiExceptionHandler e : handlers) {
-                    if (e.catchTypeCPI != SYNC_METHOD_CATCH_TYPE_CPI) {
-                        if (e.startBCI <= exceptionBCI && exceptionBCI < e.endBCI) {
-                            ClassActor catchType = (ClassActor) e.catchType;
-                            if (catchType == null || catchType.isAssignableFrom(ObjectAccess.readClassActor(exception))) {
-                                int handlerPos = posForBci(e.handlerBCI());
-                                checkHandler(exceptionPos, exceptionBCI, e.handlerBCI, handlerPos);
-                                if (info != null) {
-                                    info.bci = e.handlerBCI();
-                                }
-                                return codeAt(handlerPos);
-
-                            }
-                        }
-                    }
-                }
+            final ClassActor exceptionClass = ObjectAccess.readClassActor(exception);
+            int handler = handlerCache.lookup(exceptionPos, exceptionClass);
+            if (handler == ExceptionHandlerCache.NOT_CACHED) {
+                handler = findHandler(exceptionPos, exceptionClass);
+                handlerCache.record(exceptionPos, exceptionClass, handler);
             }
-            if (handlers[handlers.length - 1].catchTypeCPI == SYNC_METHOD_CATCH_TYPE_CPI) {
-                CiExceptionHandler syncMethodHandler = handlers[handlers.length - 1];
-                if (syncMethodHandler.startBCI <= exceptionPos && exceptionPos < syncMethodHandler.endBCI) {
-                    int handlerPos = syncMethodHandler.handlerBCI;
-                    checkHandler(exceptionPos, exceptionBCI, -1, handlerPos);
+            if (handler != ExceptionHandlerCache.NO_HANDLER) {
+                CiExceptionHandler e = handlers[handler];
+                if (e.catchTypeCPI == SYNC_METHOD_CATCH_TYPE_CPI) {
+                    // the handler BCI of the synchronized method handler is a code position
+                    int handlerPos = e.handlerBCI;
+                    checkHandler(exceptionPos, -1, handlerPos);
                     return codeAt(handlerPos);
                 }
+                int handlerPos = posForBci(e.handlerBCI());
+                checkHandler(exceptionPos, e.handlerBCI, handlerPos);
+                if (info != null) {
+                    info.bci = e.handlerBCI();
+                }
+                return codeAt(handlerPos);
             }
         }
         return CodePointer.zero();
     }
 
-    void checkHandler(int excPos, int excBCI, int handlerBCI, int handlerPos) {
+    /**
+     * Searches {@link #handlers} for the handler of an exception.
+     *
+     * @return the index of the handler in {@link #handlers} or {@link ExceptionHandlerCache#NO_HANDLER}
+     */
+    private int findHandler(int exceptionPos, ClassActor exceptionClass) {
+        int exceptionBCI = bciForPos(exceptionPos);
+        if (exceptionBCI != -1) {
+            for (int i = 0; i < handlers.length; i++) {
+                CiExceptionHandler e = handlers[i];
+                if (e.catchTypeCPI != SYNC_METHOD_CATCH_TYPE_CPI) {
+                    if (e.startBCI <= exceptionBCI && exceptionBCI < e.endBCI) {
+                        ClassActor catchType = (ClassActor) e.catchType;
+                        if (catchType == null || catchType.isAssignableFrom(exceptionClass)) {
+                            return i;
+                        }
+                    }
+                }
+            }
+        }
+        int last = handlers.length - 1;
+        if (handlers[last].catchTypeCPI == SYNC_METHOD_CATCH_TYPE_CPI) {
+            CiExceptionHandler syncMethodHandler = handlers[last];
+            if (syncMethodHandler.startBCI <= exceptionPos && exceptionPos < syncMethodHandler.endBCI) {
+                return last;
+            }
+        }
+        return ExceptionHandlerCache.NO_HANDLER;
+    }
+
+    void checkHandler(int excPos, int handlerBCI, int handlerPos) {
         if (handlerPos <= 0 || handlerPos >= code().length) {
-            FatalError.unexpected("Bad handler for exception at pos " + excPos + " (bci: " + excBCI + ") in " + this + ": handler pos " + handlerPos + " (bci: " + handlerBCI + ")");
+            FatalError.unexpected("Bad handler for exception at pos " + excPos + " (bci: " + bciForPos(excPos) + ") in " + this + ": handler pos " + handlerPos + " (bci: " + handlerBCI + ")");
         }
     }
 
@@ -757,7 +803,9 @@ public class T1XTargetMethod extends TargetMethod {
 
     @Override
     public void prepareReferenceMap(StackFrameCursor current, StackFrameCursor callee, FrameReferenceMapVisitor preparer) {
-        finalizeReferenceMaps();
+        if (finalizeReferenceMapsIfPending()) {
+            T1XMetrics.RefMapsFinalizedLazily++;
+        }
 
         CiCalleeSaveLayout csl = callee.csl();
         Pointer csa = callee.csa();
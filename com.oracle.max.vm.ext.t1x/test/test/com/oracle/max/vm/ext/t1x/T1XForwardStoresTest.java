@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.oracle.max.vm.ext.t1x;
+
+import static com.sun.cri.bytecode.Bytecodes.*;
+
+import com.oracle.max.vm.ext.t1x.*;
+import com.sun.cri.ci.*;
+import com.sun.max.ide.*;
+
+/**
+ * Tests the analysis that decides when {@linkplain T1XOptions#ForwardStores store forwarding} may forward the value
+ * produced by a bytecode to a following store in a register. A store that can be reached by a branch, a switch or
+ * an exception must read its value from the operand stack.
+ */
+public class T1XForwardStoresTest extends MaxTestCase {
+
+    public T1XForwardStoresTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(T1XForwardStoresTest.class);
+    }
+
+    private static byte[] code(int... bytes) {
+        final byte[] code = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            code[i] = (byte) bytes[i];
+        }
+        return code;
+    }
+
+    private static boolean isForwardableStore(byte[] code, int bci, CiExceptionHandler... handlers) {
+        return T1XCompilation.isForwardableStore(code, bci, T1XCompilation.jumpTargets(code, handlers));
+    }
+
+    public void test_straightLine() {
+        final byte[] code = code(
+            ICONST_1,               // 0
+            ISTORE_1,               // 1
+            ALOAD_0,                // 2
+            ASTORE_2,               // 3
+            LLOAD, 4,               // 4
+            LSTORE, 6,              // 6
+            ILOAD_1,                // 8
+            IRETURN);               // 9
+        assertTrue(isForwardableStore(code, 1));
+        assertTrue(isForwardableStore(code, 3));
+        assertTrue(isForwardableStore(code, 6));
+        // Not a store
+        assertFalse(isForwardableStore(code, 2));
+        assertFalse(isForwardableStore(code, 9));
+        // Nothing follows the last bytecode
+        assertFalse(isForwardableStore(code, code.length));
+    }
+
+    public void test_wideStore() {
+        final byte[] code = code(
+            ICONST_0,               // 0
+            WIDE, ISTORE, 1, 0,     // 1
+            WIDE, ILOAD, 1, 0,      // 5
+            IRETURN);               // 9
+        assertTrue(isForwardableStore(code, 1));
+        assertFalse(isForwardableStore(code, 5));
+    }
+
+    public void test_branchTarget() {
+        final byte[] code = code(
+            ICONST_0,               // 0
+            ISTORE_1,               // 1
+            ILOAD_1,                // 2
+            ISTORE_2,               // 3: loop head
+            ILOAD_1,                // 4
+            ISTORE_2,               // 5
+            ILOAD_2,                // 6
+            IFNE, 0xff, 0xfd,       // 7: to 4
+            GOTO, 0xff, 0xf9,       // 10: to 3
+            RETURN);                // 13
+        final boolean[] targets = T1XCompilation.jumpTargets(code, null);
+        assertTrue(targets[3]);
+        assertTrue(targets[4]);
+        assertTrue(isForwardableStore(code, 1));
+        // The store at the target of the backward goto may be reached with the value on the stack
+        assertFalse(isForwardableStore(code, 3));
+        // The store after the target of the conditional branch is only reached from the load at the target
+        assertTrue(isForwardableStore(code, 5));
+    }
+
+    public void test_farBranchTarget() {
+        final byte[] code = code(
+            GOTO_W, 0, 0, 0, 6,     // 0: to 6
+            ICONST_0,               // 5
+            ISTORE_1,               // 6
+            RETURN);                // 7
+        assertTrue(T1XCompilation.jumpTargets(code, null)[6]);
+        assertFalse(isForwardableStore(code, 6));
+    }
+
+    public void test_switchTargets() {
+        final byte[] code = code(
+            ILOAD_0,                // 0
+            TABLESWITCH, 0, 0,      // 1: padded to 4
+            0, 0, 0, 19,            // 4: default to 20
+            0, 0, 0, 0,             // 8: low
+            0, 0, 0, 0,             // 12: high
+            0, 0, 0, 20,            // 16: case 0 to 21
+            ICONST_0,               // 20
+            ISTORE_1,               // 21
+            ICONST_1,               // 22
+            ISTORE_2,               // 23
+            RETURN);                // 24
+        final boolean[] targets = T1XCompilation.jumpTargets(code, null);
+        assertTrue(targets[20]);
+        assertTrue(targets[21]);
+        assertFalse(isForwardableStore(code, 21));
+        assertTrue(isForwardableStore(code, 23));
+    }
+
+    public void test_exceptionHandlerEntry() {
+        final byte[] code = code(
+            ACONST_NULL,            // 0
+            ASTORE_1,               // 1
+            ALOAD_1,                // 2
+            ATHROW,                 // 3
+            ASTORE_2,               // 4: handler entry
+            RETURN);                // 5
+        final CiExceptionHandler handler = new CiExceptionHandler(2, 4, 4, 0, null);
+        assertTrue(isForwardableStore(code, 1, handler));
+        assertFalse(isForwardableStore(code, 4, handler));
+        // Without the handler, the store is not a jump target
+        assertTrue(isForwardableStore(code, 4));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.oracle.max.vm.ext.t1x;
+
+import java.util.concurrent.*;
+
+import com.oracle.max.vm.ext.t1x.*;
+import com.sun.max.ide.*;
+
+/**
+ * Tests that methods queued on a {@link T1XRefMapFinalizer} have their reference maps finalized by its thread.
+ */
+public class T1XRefMapFinalizerTest extends MaxTestCase {
+
+    public T1XRefMapFinalizerTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(T1XRefMapFinalizerTest.class);
+    }
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /**
+     * A method whose maps are finalized the first time they are requested.
+     */
+    static class TestMethod implements T1XRefMapFinalizer.Method {
+        final boolean wiped;
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release;
+        volatile boolean finalized;
+
+        TestMethod(boolean wiped, CountDownLatch release) {
+            this.wiped = wiped;
+            this.release = release;
+        }
+
+        public boolean isWiped() {
+            return wiped;
+        }
+
+        public synchronized boolean finalizeReferenceMapsIfPending() {
+            entered.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InternalError();
+                }
+            }
+            if (finalized) {
+                return false;
+            }
+            finalized = true;
+            return true;
+        }
+    }
+
+    private static void awaitFinalized(T1XRefMapFinalizer finalizer, int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (finalizer.finalized() < count) {
+            assertTrue("timed out waiting for finalization", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    public void test_notStarted() {
+        final T1XRefMapFinalizer finalizer = new T1XRefMapFinalizer("test_notStarted", 4);
+        final TestMethod method = new TestMethod(false, null);
+        assertFalse(finalizer.enqueue(method));
+        assertFalse(method.finalized);
+    }
+
+    public void test_finalize() throws InterruptedException {
+        final T1XRefMapFinalizer finalizer = new T1XRefMapFinalizer("test_finalize", 16);
+        finalizer.ensureStarted();
+        finalizer.ensureStarted();
+        final TestMethod[] methods = new TestMethod[10];
+        for (int i = 0; i < methods.length; i++) {
+            methods[i] = new TestMethod(false, null);
+            assertTrue(finalizer.enqueue(methods[i]));
+        }
+        awaitFinalized(finalizer, methods.length);
+        for (TestMethod method : methods) {
+            assertTrue(method.finalized);
+        }
+
+        // A method finalized by another thread (e.g. the GC) in the meantime is not counted again
+        final TestMethod method = new TestMethod(false, null);
+        method.finalizeReferenceMapsIfPending();
+        assertTrue(finalizer.enqueue(method));
+        final TestMethod marker = new TestMethod(false, null);
+        assertTrue(finalizer.enqueue(marker));
+        awaitFinalized(finalizer, methods.length + 1);
+        assertTrue(marker.finalized);
+        assertEquals(methods.length + 1, finalizer.finalized());
+    }
+
+    public void test_wipedMethodIsSkipped() throws InterruptedException {
+        final T1XRefMapFinalizer finalizer = new T1XRefMapFinalizer("test_wipedMethodIsSkipped", 16);
+        finalizer.ensureStarted();
+        final TestMethod wiped = new TestMethod(true, null);
+        final TestMethod live = new TestMethod(false, null);
+        assertTrue(finalizer.enqueue(wiped));
+        assertTrue(finalizer.enqueue(live));
+        awaitFinalized(finalizer, 1);
+        assertTrue(live.finalized);
+        assertFalse(wiped.finalized);
+    }
+
+    public void test_boundedQueue() throws InterruptedException {
+        final T1XRefMapFinalizer finalizer = new T1XRefMapFinalizer("test_boundedQueue", 2);
+        finalizer.ensureStarted();
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestMethod blocking = new TestMethod(false, release);
+        assertTrue(finalizer.enqueue(blocking));
+        assertTrue(blocking.entered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // The finalizer thread is busy, so the queue fills up
+        final TestMethod first = new TestMethod(false, null);
+        final TestMethod second = new TestMethod(false, null);
+        final TestMethod rejected = new TestMethod(false, null);
+        assertTrue(finalizer.enqueue(first));
+        assertTrue(finalizer.enqueue(second));
+        assertFalse(finalizer.enqueue(rejected));
+
+        release.countDown();
+        awaitFinalized(finalizer, 3);
+        assertTrue(first.finalized);
+        assertTrue(second.finalized);
+        assertFalse(rejected.finalized);
+    }
+}
@@ -104,6 +104,12 @@ public class VMAT1XCompilation extends AMD64T1XCompilation {
     }
 
 
+    @Override
+    protected boolean canForwardStores() {
+        // advice and breakpoint code may observe the operand stack at every bytecode
+        return false;
+    }
+
     @Override
     protected void beginBytecode(int opcode) {
         super.beginBytecode(opcode);
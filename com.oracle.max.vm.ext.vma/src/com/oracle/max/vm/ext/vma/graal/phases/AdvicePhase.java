@@ -34,21 +34,84 @@ import com.oracle.max.vm.ext.graal.*;
 import com.oracle.max.vm.ext.graal.nodes.*;
 import com.oracle.max.vm.ext.vma.*;
 import com.oracle.max.vm.ext.vma.graal.nodes.*;
+import com.oracle.max.vm.ext.vma.run.java.*;
 
 /**
  * Phase adds requested {@link AdviceNode} nodes to the graph.
+ * <p>
+ * The bytecode filters ({@code -XX:VMAConfig}, {@code -XX:VMABI}, {@code -XX:VMABX}) are applied here, at compile
+ * time, so a node is only advised if advice is enabled for one of the bytecodes it can originate from. The generated
+ * advice is additionally guarded inline by {@link com.oracle.max.vm.ext.vma.runtime.AdviceGuard}.
  */
 public class AdvicePhase extends Phase {
     private static final Map<NodeClass, EnumSet<AdviceMode>> nodeMap = new HashMap<>();
+
+    /**
+     * The bytecodes from which the nodes in {@link #nodeMap} originate.
+     */
+    private static final Map<NodeClass, VMABytecodes[]> nodeBytecodes = new HashMap<>();
+
+    private static final VMABytecodes[] ARRAY_LOADS = {VMABytecodes.IALOAD, VMABytecodes.LALOAD, VMABytecodes.FALOAD,
+        VMABytecodes.DALOAD, VMABytecodes.AALOAD, VMABytecodes.BALOAD, VMABytecodes.CALOAD, VMABytecodes.SALOAD};
+    private static final VMABytecodes[] ARRAY_STORES = {VMABytecodes.IASTORE, VMABytecodes.LASTORE, VMABytecodes.FASTORE,
+        VMABytecodes.DASTORE, VMABytecodes.AASTORE, VMABytecodes.BASTORE, VMABytecodes.CASTORE, VMABytecodes.SASTORE};
+    private static final VMABytecodes[] RETURNS = {VMABytecodes.IRETURN, VMABytecodes.LRETURN, VMABytecodes.FRETURN,
+        VMABytecodes.DRETURN, VMABytecodes.ARETURN, VMABytecodes.RETURN};
+    private static final VMABytecodes[] INVOKES = {VMABytecodes.INVOKEVIRTUAL, VMABytecodes.INVOKESPECIAL,
+        VMABytecodes.INVOKESTATIC, VMABytecodes.INVOKEINTERFACE};
+    private static final VMABytecodes[] IFS = {VMABytecodes.IFEQ, VMABytecodes.IFNE, VMABytecodes.IFLT, VMABytecodes.IFGE,
+        VMABytecodes.IFGT, VMABytecodes.IFLE, VMABytecodes.IF_ICMPEQ, VMABytecodes.IF_ICMPNE, VMABytecodes.IF_ICMPLT,
+        VMABytecodes.IF_ICMPGE, VMABytecodes.IF_ICMPGT, VMABytecodes.IF_ICMPLE, VMABytecodes.IF_ACMPEQ,
+        VMABytecodes.IF_ACMPNE, VMABytecodes.IFNULL, VMABytecodes.IFNONNULL};
+    private static final VMABytecodes[] GETS = {VMABytecodes.GETFIELD, VMABytecodes.GETSTATIC};
+    private static final VMABytecodes[] PUTS = {VMABytecodes.PUTFIELD, VMABytecodes.PUTSTATIC};
+
+    static {
+        nodeBytecodes.put(NodeClass.get(LoadIndexedNode.class), ARRAY_LOADS);
+        nodeBytecodes.put(NodeClass.get(NewArrayNode.class), new VMABytecodes[] {VMABytecodes.NEWARRAY, VMABytecodes.ANEWARRAY});
+        nodeBytecodes.put(NodeClass.get(StoreIndexedNode.class), ARRAY_STORES);
+        nodeBytecodes.put(NodeClass.get(NewMultiArrayNode.class), new VMABytecodes[] {VMABytecodes.MULTIANEWARRAY});
+        nodeBytecodes.put(NodeClass.get(NewInstanceNode.class), new VMABytecodes[] {VMABytecodes.NEW});
+        nodeBytecodes.put(NodeClass.get(StartNode.class), new VMABytecodes[] {VMABytecodes.MENTRY});
+        nodeBytecodes.put(NodeClass.get(ReturnNode.class), RETURNS);
+        nodeBytecodes.put(NodeClass.get(InvokeWithExceptionNode.class), INVOKES);
+        nodeBytecodes.put(NodeClass.get(ArrayLengthNode.class), new VMABytecodes[] {VMABytecodes.ARRAYLENGTH});
+        nodeBytecodes.put(NodeClass.get(IfNode.class), IFS);
+        nodeBytecodes.put(NodeClass.get(UnresolvedLoadFieldNode.class), GETS);
+        nodeBytecodes.put(NodeClass.get(LoadFieldNode.class), GETS);
+        nodeBytecodes.put(NodeClass.get(StoreFieldNode.class), PUTS);
+        nodeBytecodes.put(NodeClass.get(UnresolvedStoreFieldNode.class), PUTS);
+    }
+
+    /**
+     * Determines if advice in a given mode is enabled for any of the bytecodes a node may originate from.
+     */
+    private static boolean isAdvised(Node node, AdviceMode adviceMode) {
+        VMABytecodes[] bytecodes = nodeBytecodes.get(node.getNodeClass());
+        if (bytecodes == null) {
+            return true;
+        }
+        if (node instanceof AccessFieldNode) {
+            // the static and instance forms can be told apart
+            return VMAOptions.isAdvised(((AccessFieldNode) node).isStatic() ? bytecodes[1] : bytecodes[0], adviceMode);
+        }
+        for (VMABytecodes bytecode : bytecodes) {
+            if (VMAOptions.isAdvised(bytecode, adviceMode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void run(StructuredGraph graph) {
         for (Node node: GraphOrder.forwardGraph(graph)) {
             EnumSet<AdviceMode> set = nodeMap.get(node.getNodeClass());
             if (set != null) {
-                if (set.contains(AdviceMode.BEFORE)) {
+                if (set.contains(AdviceMode.BEFORE) && isAdvised(node, AdviceMode.BEFORE)) {
                     insertBefore((FixedNode) node, graph.add(new AdviceNode(AdviceMode.BEFORE)));
                 }
-                if (set.contains(AdviceMode.AFTER)) {
+                if (set.contains(AdviceMode.AFTER) && isAdvised(node, AdviceMode.AFTER)) {
                     insertAfter((FixedWithNextNode) node, graph.add(new AdviceNode(AdviceMode.AFTER)));
                 }
             }
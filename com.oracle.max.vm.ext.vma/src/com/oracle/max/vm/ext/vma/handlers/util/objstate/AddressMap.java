@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.max.vm.ext.vma.handlers.util.objstate;
+
+import java.util.concurrent.atomic.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.vm.*;
+
+/**
+ * An open addressing hash map from object addresses (non-zero, word aligned {@code long} keys) to {@code long}
+ * values, guarded by a spin lock. Its capacity is a power of two and the entries are {@linkplain #processEntries
+ * rekeyed} in place during a GC, so that the map costs {@linkplain #footprint() 16 bytes per slot} and nothing more.
+ * <p>
+ * The lookup and update methods are {@link INLINE} and do not poll for safepoints, so that a caller that
+ * derives a key from an object address with safepoint polls disabled keeps them disabled until the table has
+ * been accessed. The lock is thus never held while the GC runs.
+ */
+public class AddressMap {
+
+    /**
+     * Maps the key of an entry to its key after a GC.
+     */
+    public interface Relocation {
+        /**
+         * @return the new key for {@code key} or zero if the entry is to be removed
+         */
+        long relocate(long key);
+    }
+
+    public static final int INITIAL_CAPACITY = 1 << 12;
+    private static final int LOAD_FACTOR_PERCENT = 60;
+
+    /**
+     * The keys of the entries. Zero denotes an empty slot.
+     */
+    private long[] keys;
+    private long[] values;
+    private int count;
+
+    private final AtomicBoolean lock = new AtomicBoolean();
+
+    @INLINE
+    private static int indexFor(long key, int mask) {
+        return (int) (((key >>> 3) * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    @INLINE
+    private void lock() {
+        while (!lock.compareAndSet(false, true)) {
+            Intrinsics.pause();
+        }
+    }
+
+    @INLINE
+    private void unlock() {
+        lock.set(false);
+    }
+
+    /**
+     * Gets the number of entries.
+     */
+    public final int size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of slots, zero if the table has not yet been allocated.
+     */
+    public final int capacity() {
+        final long[] k = keys;
+        return k == null ? 0 : k.length;
+    }
+
+    /**
+     * Gets the number of bytes taken by the slots of the table.
+     */
+    public final long footprint() {
+        return 16L * capacity();
+    }
+
+    /**
+     * Gets the value for a key, zero if it has none.
+     */
+    @INLINE
+    public final long get(long key) {
+        lock();
+        long result = 0;
+        final long[] k = keys;
+        if (k != null) {
+            final int mask = k.length - 1;
+            for (int i = indexFor(key, mask); k[i] != 0; i = (i + 1) & mask) {
+                if (k[i] == key) {
+                    result = values[i];
+                    break;
+                }
+            }
+        }
+        unlock();
+        return result;
+    }
+
+    /**
+     * Sets the value for a key if that does not take the table above its load factor.
+     *
+     * @return {@code false} if the table must be {@linkplain #grow() grown} first
+     */
+    @INLINE
+    public final boolean tryPut(long key, long value) {
+        lock();
+        final long[] k = keys;
+        if (k == null) {
+            unlock();
+            return false;
+        }
+        final int mask = k.length - 1;
+        int i = indexFor(key, mask);
+        while (k[i] != 0) {
+            if (k[i] == key) {
+                values[i] = value;
+                unlock();
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        if ((count + 1) * 100 > k.length * LOAD_FACTOR_PERCENT) {
+            unlock();
+            return false;
+        }
+        k[i] = key;
+        values[i] = value;
+        count++;
+        unlock();
+        return true;
+    }
+
+    /**
+     * Allocates arrays of twice the current capacity and moves the entries into them.
+     */
+    public final void grow() {
+        final long[] current = keys;
+        final int capacity = current == null ? INITIAL_CAPACITY : current.length * 2;
+        install(new long[capacity], new long[capacity]);
+    }
+
+    @NO_SAFEPOINT_POLLS("the lock must not be held while the GC runs")
+    private void install(long[] newKeys, long[] newValues) {
+        lock();
+        if (keys == null || keys.length < newKeys.length) {
+            if (keys != null) {
+                rehash(keys, values, newKeys, newValues);
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+        // else another thread has grown the table in the meantime
+        unlock();
+    }
+
+    @INLINE
+    @NO_SAFEPOINT_POLLS("the lock must not be held while the GC runs")
+    private static void rehash(long[] fromKeys, long[] fromValues, long[] toKeys, long[] toValues) {
+        final int mask = toKeys.length - 1;
+        for (int j = 0; j < fromKeys.length; j++) {
+            final long key = fromKeys[j];
+            if (key != 0) {
+                int i = indexFor(key, mask);
+                while (toKeys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                toKeys[i] = key;
+                toValues[i] = fromValues[j];
+            }
+        }
+    }
+
+    /**
+     * Rekeys the table in place, dropping or rekeying each entry as specified by a given relocation.
+     * This must only be called while all mutator threads are stopped (i.e. during a GC) and does not allocate.
+     * <p>
+     * The first pass stores the new key of each live entry with its low bit set, marking the entry as pending. The
+     * second pass inserts each pending entry, taking the first slot on its probe path that is either empty or pending
+     * and carrying on with the pending entry it displaces. The probe path of an inserted entry thus only ever crosses
+     * inserted entries, which stay in place, so every inserted entry can still be found once the pass is complete.
+     */
+    public final void processEntries(Relocation relocation) {
+        assert !lock.get() : "table locked during GC";
+        final long[] k = keys;
+        if (k == null) {
+            return;
+        }
+        final long[] v = values;
+        final int mask = k.length - 1;
+        int live = 0;
+        for (int j = 0; j < k.length; j++) {
+            if (k[j] != 0) {
+                final long key = relocation.relocate(k[j]);
+                assert (key & 1) == 0 : "unaligned key";
+                if (key != 0) {
+                    k[j] = key | 1;
+                    live++;
+                } else {
+                    k[j] = 0;
+                }
+            }
+        }
+        for (int j = 0; j < k.length; j++) {
+            if ((k[j] & 1) == 0) {
+                continue;
+            }
+            long key = k[j] & ~1L;
+            long value = v[j];
+            k[j] = 0;
+            int i = indexFor(key, mask);
+            while (true) {
+                final long slotKey = k[i];
+                if (slotKey == 0) {
+                    k[i] = key;
+                    v[i] = value;
+                    break;
+                }
+                if ((slotKey & 1) != 0) {
+                    final long slotValue = v[i];
+                    k[i] = key;
+                    v[i] = value;
+                    key = slotKey & ~1L;
+                    value = slotValue;
+                    i = indexFor(key, mask);
+                } else {
+                    i = (i + 1) & mask;
+                }
+            }
+        }
+        count = live;
+    }
+}
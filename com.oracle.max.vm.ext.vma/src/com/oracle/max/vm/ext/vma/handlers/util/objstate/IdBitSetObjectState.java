@@ -25,4 +25,13 @@ package com.oracle.max.vm.ext.vma.handlers.util.objstate;
 
 public abstract class IdBitSetObjectState extends ObjectState implements ObjectId, ObjectBitSet {
 
+    protected IdBitSetObjectState() {
+    }
+
+    /**
+     * @see ObjectState#ObjectState(boolean)
+     */
+    protected IdBitSetObjectState(boolean sparse) {
+        super(sparse);
+    }
 }
@@ -22,17 +22,55 @@
  */
 package com.oracle.max.vm.ext.vma.handlers.util.objstate;
 
+import com.sun.max.program.*;
 import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
 import com.sun.max.vm.layout.xohm.*;
 import com.sun.max.vm.reference.*;
 
 /**
  * The basic implementation of state used by handlers for storing
  * miscellaneous data about an object. The state is stored as a single
- * {@link Word} value in a VMA-specific word in the object header.
- * The value must not be a reference, as this word is not scanned by the GC.
+ * {@link Word} value in a VMA-specific word in the object header, which requires
+ * the active layout to be the {@link XOhmLayoutScheme}.
+ * <p>
+ * A <i>sparse</i> state, i.e. one that only a small fraction of the objects are given, may also be used with other
+ * layouts. It is then stored in an {@linkplain ObjectStateTable address-keyed side table} that the GC keeps up to date.
+ * An entry of the table costs between 27 and 54 bytes, depending on the load of the table, against the 8 bytes the
+ * header word adds to every object. The table is thus only the smaller of the two if fewer than one object in seven
+ * (one in three when the table is full) has a state, and {@link ObjectStateAdapter}, which gives an id to every object
+ * it sees, requires the XOhm layout.
+ * <p>
+ * The value must not be a reference, as neither location is scanned by the GC.
  */
 public abstract class ObjectState {
+
+    /**
+     * The side table used when the active layout has no VMA-specific header word, {@code null} otherwise.
+     */
+    private final ObjectStateTable table;
+
+    /**
+     * Creates a state stored in the VMA-specific header word of the XOhm layout.
+     */
+    protected ObjectState() {
+        this(false);
+    }
+
+    /**
+     * Creates a state stored in the VMA-specific header word of the XOhm layout if that is the active layout, and
+     * otherwise in a side table if {@code sparse} is {@code true}.
+     *
+     * @param sparse specifies if only a small fraction of the objects will be given a state
+     */
+    protected ObjectState(boolean sparse) {
+        if (VMConfiguration.activeConfig().layoutScheme().generalLayout instanceof XOhmGeneralLayout) {
+            table = null;
+        } else {
+            ProgramError.check(sparse, "object state for every object requires the XOhm layout scheme (-layout=com.sun.max.vm.layout.xohm)");
+            table = new ObjectStateTable();
+        }
+    }
     /**
      * Read and return the state value for {@code obj}. assert: {@code obj != null}.
      */
@@ -44,6 +82,9 @@ public abstract class ObjectState {
      * Variant using a {@link Reference}.
      */
     public Word readState(Reference objRef) {
+        if (table != null) {
+            return table.get(objRef);
+        }
         return XOhmGeneralLayout.Static.readXtra(objRef, 0);
     }
 
@@ -58,6 +99,10 @@ public abstract class ObjectState {
      * Variant using a {@link Reference}.
      */
     public void writeState(Reference objRef, Word state) {
+        if (table != null) {
+            table.put(objRef, state);
+            return;
+        }
         XOhmGeneralLayout.Static.writeXtra(objRef, 0, state);
     }
 }
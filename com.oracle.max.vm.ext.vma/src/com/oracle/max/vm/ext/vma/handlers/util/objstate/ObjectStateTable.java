@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.max.vm.ext.vma.handlers.util.objstate;
+
+import com.sun.max.annotate.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.reference.*;
+
+/**
+ * A side table of {@link ObjectState} values keyed by object address, used for a sparse state when the active layout
+ * does not provide the VMA-specific header word. Only objects that have been given a state occupy an entry.
+ * <p>
+ * The table is a {@linkplain SpecialReferenceManager.WeakTable weak table}: during each GC the entries of dead
+ * objects are dropped and the entries of moved objects are rekeyed in place, so that the GC does not allocate.
+ * <p>
+ * An object's address can only be used as a key while the object cannot move. All accesses are therefore made with
+ * safepoint polls disabled, under the spin lock of the {@link AddressMap}, which is consequently never held while
+ * the GC runs. The lock serializes all threads that access the table, which is acceptable only because a sparse
+ * state is rarely accessed; a state accessed on every allocation or field access must use the header word.
+ */
+final class ObjectStateTable extends AddressMap implements SpecialReferenceManager.WeakTable, AddressMap.Relocation {
+
+    /**
+     * The GC whose weak entries are being processed.
+     */
+    private SpecialReferenceManager.GC gc;
+    private boolean relocate;
+
+    ObjectStateTable() {
+        SpecialReferenceManager.registerWeakTable(this);
+    }
+
+    /**
+     * Gets the state of an object, zero if it has none.
+     */
+    @NO_SAFEPOINT_POLLS("object address is used as the key")
+    Word get(Reference objRef) {
+        return Address.fromLong(get(objRef.toOrigin().toLong()));
+    }
+
+    /**
+     * Sets the state of an object.
+     */
+    void put(Reference objRef, Word state) {
+        while (!tryPut(objRef, state.asAddress().toLong())) {
+            grow();
+        }
+    }
+
+    /**
+     * Sets the state of an object if that does not take the table above its load factor.
+     *
+     * @return {@code false} if the table must be grown first
+     */
+    @NO_SAFEPOINT_POLLS("object address is used as the key")
+    private boolean tryPut(Reference objRef, long value) {
+        return tryPut(objRef.toOrigin().toLong(), value);
+    }
+
+    @Override
+    public void processWeakEntries(SpecialReferenceManager.GC gc) {
+        this.gc = gc;
+        this.relocate = gc.mayRelocateLiveObjects();
+        processEntries(this);
+        this.gc = null;
+    }
+
+    public long relocate(long key) {
+        final Reference ref = Reference.fromOrigin(Pointer.fromLong(key));
+        if (!gc.isReachable(ref)) {
+            return 0;
+        }
+        return relocate ? gc.preserve(ref).toOrigin().toLong() : key;
+    }
+}
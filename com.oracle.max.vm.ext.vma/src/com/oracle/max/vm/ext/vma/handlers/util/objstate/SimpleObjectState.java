@@ -48,6 +48,16 @@ public class SimpleObjectState extends IdBitSetObjectState {
     private static final long SHIFTED_BITMASK_MASK = SIGNEXTEND;
     private static final long SIGNBIT = 1L << (BITMASK_SHIFT - 1);
 
+    public SimpleObjectState() {
+    }
+
+    /**
+     * @see ObjectState#ObjectState(boolean)
+     */
+    public SimpleObjectState(boolean sparse) {
+        super(sparse);
+    }
+
     @Override
     public ObjectID assignId(Object obj) {
         return assignId(Reference.fromJava(obj));
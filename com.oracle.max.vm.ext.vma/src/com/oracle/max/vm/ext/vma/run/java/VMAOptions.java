@@ -533,6 +533,13 @@ public class VMAOptions {
         return bytecodeApply[opcode];
     }
 
+    /**
+     * Determines if advice is applied to a bytecode in a given mode.
+     */
+    public static boolean isAdvised(VMABytecodes bytecode, AdviceMode adviceMode) {
+        return bytecodeApply[bytecode.ordinal()][adviceMode.ordinal()];
+    }
+
     @VMLoggerInterface
     private interface VMALoggerInterface {
         void bytecodeSetting(@VMLogParam(name = "bytecode") VMABytecodes bytecode,
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2011, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.max.vm.ext.vma.runtime;
+
+import com.oracle.max.vm.ext.vma.run.java.*;
+import com.sun.max.annotate.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.thread.*;
+import com.sun.max.vm.thread.VmThreadLocal.Nature;
+
+/**
+ * The inline guards evaluated by compiled advice before calling into {@link VMAStaticBytecodeAdvice}.
+ * Every guard checks that advising is enabled for the current thread. With {@code -XX:VMASampleEvery=N}, only every
+ * Nth sampled event of a thread is delivered to the handler. The count is kept in a thread local so the guards
+ * neither synchronize nor call out of line.
+ * <p>
+ * Sampling is per bytecode, not per event: the after advice of a bytecode whose before advice is also delivered
+ * ({@code adviseAfterLoad}, {@code adviseAfterArrayLoad}) uses {@link #isSampledAfter()} and so follows the decision
+ * taken for its before advice. Advice that handlers rely on seeing in full is never sampled and uses
+ * {@link #isAdvised()}: allocation ({@code adviseAfterNew}, {@code adviseAfterNewArray},
+ * {@code adviseAfterMultiNewArray}), so that every object a handler sees used was first seen allocated; method entry,
+ * return and throw, so that handlers tracking activations stay balanced; and monitor enter and exit.
+ */
+public final class AdviceGuard {
+
+    private static int VMASampleEvery;
+    static {
+        VMOptions.addFieldOption("-XX:", "VMASampleEvery", AdviceGuard.class,
+            "only deliver every Nth sampled bytecode of a thread to the handler (compiled advice only); " +
+            "allocation, method entry/exit and monitor advice is always delivered", MaxineVM.Phase.PRISTINE);
+    }
+
+    /**
+     * The number of sampled events the current thread skips before the next one is delivered. It equals
+     * {@code VMASampleEvery - 1} exactly when the last sampled event was delivered.
+     */
+    private static final VmThreadLocal VMA_SAMPLE_SKIP
+        = new VmThreadLocal("VMA_SAMPLE_SKIP", false, "VMA: events to skip before the next sampled event", Nature.Single);
+
+    private AdviceGuard() {
+    }
+
+    /**
+     * Determines if advising is enabled for the current thread. This is the guard for advice that is never sampled.
+     */
+    @INLINE
+    public static boolean isAdvised() {
+        return !VmThread.currentTLA().getWord(VMAJavaRunScheme.VM_ADVISING.index).isZero();
+    }
+
+    /**
+     * Determines if the current sampled event should be delivered to the handler, counting it against the sample
+     * interval.
+     */
+    @INLINE
+    public static boolean isSampled() {
+        final Pointer tla = VmThread.currentTLA();
+        if (tla.getWord(VMAJavaRunScheme.VM_ADVISING.index).isZero()) {
+            return false;
+        }
+        if (VMASampleEvery <= 1) {
+            return true;
+        }
+        final Pointer etla = VmThreadLocal.ETLA.load(tla);
+        final long skip = VMA_SAMPLE_SKIP.load(etla).asAddress().toLong();
+        if (skip > 0) {
+            VMA_SAMPLE_SKIP.store(etla, Address.fromLong(skip - 1));
+            return false;
+        }
+        VMA_SAMPLE_SKIP.store(etla, Address.fromLong(VMASampleEvery - 1));
+        return true;
+    }
+
+    /**
+     * Determines if the after advice of a bytecode should be delivered to the handler. The decision is the one
+     * {@link #isSampled()} took for the before advice of the same bytecode, no other advised event of the thread
+     * coming in between; the interval is not counted down again. If only the after advice is enabled, it follows the
+     * last sampled event of the thread instead.
+     */
+    @INLINE
+    public static boolean isSampledAfter() {
+        final Pointer tla = VmThread.currentTLA();
+        if (tla.getWord(VMAJavaRunScheme.VM_ADVISING.index).isZero()) {
+            return false;
+        }
+        if (VMASampleEvery <= 1) {
+            return true;
+        }
+        final Pointer etla = VmThreadLocal.ETLA.load(tla);
+        return VMA_SAMPLE_SKIP.load(etla).asAddress().toLong() == VMASampleEvery - 1;
+    }
+}
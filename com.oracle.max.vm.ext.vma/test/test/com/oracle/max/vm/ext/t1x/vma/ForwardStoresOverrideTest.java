@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.oracle.max.vm.ext.t1x.vma;
+
+import java.lang.reflect.*;
+
+import com.oracle.max.vm.ext.t1x.*;
+import com.oracle.max.vm.ext.t1x.amd64.*;
+import com.oracle.max.vm.ext.t1x.jvmti.amd64.*;
+import com.oracle.max.vm.ext.t1x.vma.*;
+import com.sun.max.ide.*;
+import com.sun.max.lang.*;
+
+/**
+ * Tests that the T1X variants whose per-bytecode code observes the operand stack never enable
+ * {@linkplain T1XOptions#ForwardStores store forwarding}, whatever the value of the option.
+ */
+public class ForwardStoresOverrideTest extends MaxTestCase {
+
+    public ForwardStoresOverrideTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(ForwardStoresOverrideTest.class);
+    }
+
+    private boolean savedForwardStores;
+
+    @Override
+    public void setUp() {
+        savedForwardStores = T1XOptions.ForwardStores;
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        T1XOptions.ForwardStores = savedForwardStores;
+        super.tearDown();
+    }
+
+    /**
+     * Calls {@code canForwardStores()} on an uninitialized instance of a compilation class, as constructing
+     * one requires a fully initialized compiler.
+     */
+    private static boolean canForwardStores(Class<? extends T1XCompilation> compilationClass) throws Exception {
+        final Method method = T1XCompilation.class.getDeclaredMethod("canForwardStores");
+        method.setAccessible(true);
+        return (Boolean) method.invoke(ObjectUtils.allocateInstance(compilationClass));
+    }
+
+    public void test_disabled() throws Exception {
+        T1XOptions.ForwardStores = false;
+        assertFalse(canForwardStores(AMD64T1XCompilation.class));
+        assertFalse(canForwardStores(JVMTI_AMD64T1XCompilation.class));
+        assertFalse(canForwardStores(VMAT1XCompilation.class));
+    }
+
+    public void test_enabled() throws Exception {
+        T1XOptions.ForwardStores = true;
+        assertTrue(canForwardStores(AMD64T1XCompilation.class));
+        assertFalse(canForwardStores(JVMTI_AMD64T1XCompilation.class));
+        assertFalse(canForwardStores(VMAT1XCompilation.class));
+    }
+}
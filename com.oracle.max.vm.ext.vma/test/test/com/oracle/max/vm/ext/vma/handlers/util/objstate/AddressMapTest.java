@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.oracle.max.vm.ext.vma.handlers.util.objstate;
+
+import java.util.*;
+
+import com.oracle.max.vm.ext.vma.handlers.util.objstate.*;
+import com.sun.max.ide.*;
+
+/**
+ * Tests the {@link AddressMap} underlying the VMA object state side table, including the rekeying of entries
+ * performed for objects that die or move during a GC.
+ */
+public class AddressMapTest extends MaxTestCase {
+
+    public AddressMapTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(AddressMapTest.class);
+    }
+
+    /**
+     * Gets the (word aligned) address of the {@code n}th test object.
+     */
+    private static long address(int n) {
+        return 0x10000000L + n * 24L;
+    }
+
+    private static void put(AddressMap map, long key, long value) {
+        while (!map.tryPut(key, value)) {
+            map.grow();
+        }
+    }
+
+    public void test_putAndGet() {
+        final AddressMap map = new AddressMap();
+        assertEquals(0L, map.get(address(1)));
+        assertFalse(map.tryPut(address(1), 1));
+
+        put(map, address(1), 11);
+        put(map, address(2), 22);
+        assertEquals(2, map.size());
+        assertEquals(11L, map.get(address(1)));
+        assertEquals(22L, map.get(address(2)));
+        assertEquals(0L, map.get(address(3)));
+
+        put(map, address(1), 111);
+        assertEquals(2, map.size());
+        assertEquals(111L, map.get(address(1)));
+    }
+
+    public void test_grow() {
+        final AddressMap map = new AddressMap();
+        final int n = AddressMap.INITIAL_CAPACITY * 3;
+        for (int i = 1; i <= n; i++) {
+            put(map, address(i), i);
+        }
+        assertEquals(n, map.size());
+        assertTrue(map.capacity() > AddressMap.INITIAL_CAPACITY * 4);
+        for (int i = 1; i <= n; i++) {
+            assertEquals(i, map.get(address(i)));
+        }
+        assertEquals(0L, map.get(address(n + 1)));
+    }
+
+    public void test_processEntriesWithRelocation() {
+        final AddressMap map = new AddressMap();
+        final int n = 5000;
+        for (int i = 1; i <= n; i++) {
+            put(map, address(i), i);
+        }
+        final int capacity = map.capacity();
+        final long delta = 0x40000000L;
+
+        // Objects with an odd number die, the others move
+        final Set<Long> relocated = new HashSet<Long>();
+        map.processEntries(new AddressMap.Relocation() {
+            public long relocate(long key) {
+                assertTrue(relocated.add(key));
+                final int i = (int) ((key - address(0)) / 24);
+                return i % 2 == 1 ? 0 : key + delta;
+            }
+        });
+        assertEquals(n, relocated.size());
+        assertEquals(n / 2, map.size());
+        assertEquals(capacity, map.capacity());
+        for (int i = 1; i <= n; i++) {
+            assertEquals(0L, map.get(address(i)));
+            assertEquals(i % 2 == 1 ? 0L : i, map.get(address(i) + delta));
+        }
+
+        // The next GC moves the objects back, which collides the new keys with the current ones
+        map.processEntries(new AddressMap.Relocation() {
+            public long relocate(long key) {
+                return key - delta;
+            }
+        });
+        assertEquals(n / 2, map.size());
+        for (int i = 2; i <= n; i += 2) {
+            assertEquals(i, map.get(address(i)));
+        }
+
+        // The map remains usable after rekeying
+        put(map, address(1), 1);
+        assertEquals(1L, map.get(address(1)));
+        assertEquals(n / 2 + 1, map.size());
+    }
+
+    public void test_processEntriesKeepsPendingEntries() {
+        final AddressMap map = new AddressMap();
+        final int n = AddressMap.INITIAL_CAPACITY / 2;
+        for (int i = 1; i <= n; i++) {
+            put(map, address(i), i);
+        }
+
+        // Each object moves to the address of another, so most inserted entries displace pending ones
+        map.processEntries(new AddressMap.Relocation() {
+            public long relocate(long key) {
+                final int i = (int) ((key - address(0)) / 24);
+                return address(n + 1 - i);
+            }
+        });
+        assertEquals(n, map.size());
+        for (int i = 1; i <= n; i++) {
+            assertEquals(n + 1 - i, map.get(address(i)));
+        }
+    }
+
+    public void test_footprint() {
+        final AddressMap map = new AddressMap();
+        assertEquals(0L, map.footprint());
+        final int n = 100000;
+        for (int i = 1; i <= n; i++) {
+            put(map, address(i), i);
+        }
+        // As the table doubles when 60% full, an entry costs between 16 / 0.6 and 16 / 0.3 bytes
+        assertEquals(16L * map.capacity(), map.footprint());
+        assertTrue(map.footprint() <= n * 16L / 0.3);
+    }
+}
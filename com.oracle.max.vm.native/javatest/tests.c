@@ -26,6 +26,7 @@
 #include "os.h"
 
 #include <pthread.h>
+#include <unistd.h>
 #include "jni.h"
 
 JNIEXPORT void JNICALL
@@ -116,3 +117,129 @@ Java_test_output_AttachThread_callHelloWorldOnAttachedThread(JNIEnv *env, jclass
     pthread_create(&thread_id, &attributes, thread_function, arguments);
     pthread_attr_destroy(&attributes);
 }
+
+JNIEXPORT jint JNICALL
+Java_test_output_JNICriticalArray_addCritical(JNIEnv *env, jclass clazz, jintArray array, jint delta) {
+    jboolean isCopy = JNI_FALSE;
+    jint length = (*env)->GetArrayLength(env, array);
+    jint *elements = (jint *) (*env)->GetPrimitiveArrayCritical(env, array, &isCopy);
+    int i;
+    if (elements == NULL) {
+        return -1;
+    }
+    for (i = 0; i < length; i++) {
+        elements[i] += delta;
+    }
+    if (isCopy) {
+        /* The array is neither pinned nor is GC disabled: let a GC move it before it is released.
+         * Calling back into Java is normally not allowed in a critical region but is safe with a copy. */
+        jmethodID mid = (*env)->GetStaticMethodID(env, clazz, "collectGarbage", "()V");
+        if (mid == NULL) {
+            return -1;
+        }
+        (*env)->CallStaticVoidMethod(env, clazz, mid);
+    }
+    (*env)->ReleasePrimitiveArrayCritical(env, array, elements, 0);
+    return length;
+}
+
+static volatile jboolean criticalHeld = JNI_FALSE;
+static volatile jboolean gcDone = JNI_FALSE;
+
+JNIEXPORT jint JNICALL
+Java_test_output_JNICriticalArrayGC_addCriticalAcrossGC(JNIEnv *env, jclass clazz, jintArray array, jint delta) {
+    jboolean isCopy = JNI_FALSE;
+    jint length = (*env)->GetArrayLength(env, array);
+    jint *elements = (jint *) (*env)->GetPrimitiveArrayCritical(env, array, &isCopy);
+    int i;
+    int waited;
+    if (elements == NULL) {
+        return -1;
+    }
+    criticalHeld = JNI_TRUE;
+    /* Wait for another thread to run GCs while the array is held. Give up after 5 seconds
+     * in case GCs are blocked until the critical section is released. */
+    for (waited = 0; !gcDone && waited < 5000; waited++) {
+        usleep(1000);
+    }
+    for (i = 0; i < length; i++) {
+        elements[i] += delta;
+    }
+    (*env)->ReleasePrimitiveArrayCritical(env, array, elements, 0);
+    criticalHeld = JNI_FALSE;
+    return length;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_test_output_JNICriticalArrayGC_isCriticalHeld(JNIEnv *env, jclass clazz) {
+    return criticalHeld;
+}
+
+JNIEXPORT void JNICALL
+Java_test_output_JNICriticalArrayGC_setGCDone(JNIEnv *env, jclass clazz, jboolean done) {
+    gcDone = done;
+}
+
+static volatile jboolean blockedInNative = JNI_FALSE;
+static volatile jboolean nativeReleased = JNI_FALSE;
+
+JNIEXPORT void JNICALL
+Java_test_vm_output_Handshakes_blockInNative(JNIEnv *env, jclass clazz) {
+    int waited;
+    blockedInNative = JNI_TRUE;
+    /* Give up after 30 seconds so that a hung test still terminates. */
+    for (waited = 0; !nativeReleased && waited < 30000; waited++) {
+        usleep(1000);
+    }
+    blockedInNative = JNI_FALSE;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_test_vm_output_Handshakes_isBlockedInNative(JNIEnv *env, jclass clazz) {
+    return blockedInNative;
+}
+
+JNIEXPORT void JNICALL
+Java_test_vm_output_Handshakes_releaseNative(JNIEnv *env, jclass clazz) {
+    nativeReleased = JNI_TRUE;
+}
+
+static volatile jint gcsDone = 0;
+static volatile jboolean blockedAcrossGC = JNI_FALSE;
+static volatile jboolean upcallDone = JNI_FALSE;
+
+JNIEXPORT jint JNICALL
+Java_test_output_JNIBlockedAcrossGC_waitForGCs(JNIEnv *env, jclass clazz, jint count, jboolean upcall) {
+    int waited;
+    upcallDone = JNI_FALSE;
+    blockedAcrossGC = JNI_TRUE;
+    /* Give up after 30 seconds in case GCs are blocked. */
+    for (waited = 0; gcsDone < count && waited < 30000; waited++) {
+        if (upcall && !upcallDone && gcsDone >= 1) {
+            jmethodID mid = (*env)->GetStaticMethodID(env, clazz, "upcall", "()V");
+            if (mid == NULL) {
+                return -1;
+            }
+            (*env)->CallStaticVoidMethod(env, clazz, mid);
+            upcallDone = JNI_TRUE;
+        }
+        usleep(1000);
+    }
+    blockedAcrossGC = JNI_FALSE;
+    return gcsDone;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_test_output_JNIBlockedAcrossGC_isBlockedAcrossGC(JNIEnv *env, jclass clazz) {
+    return blockedAcrossGC;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_test_output_JNIBlockedAcrossGC_isUpcallDone(JNIEnv *env, jclass clazz) {
+    return upcallDone;
+}
+
+JNIEXPORT void JNICALL
+Java_test_output_JNIBlockedAcrossGC_setGCsDone(JNIEnv *env, jclass clazz, jint count) {
+    gcsDone = count;
+}
@@ -210,3 +210,31 @@ void log_print_double(double d) {
 	// TODO: fprintf may not produce exactly the same format of floating point numbers
 	log_print_format("%lf", d);
 }
+
+#if !os_MAXVE
+static FILE *binaryStream = NULL;
+#endif
+
+jboolean log_binary_open(const char *path) {
+#if !os_MAXVE
+    if (binaryStream == NULL) {
+        binaryStream = fopen(path, "wb");
+        if (binaryStream == NULL) {
+            log_println("Could not open file for binary VMLog output: %s", path);
+            return JNI_FALSE;
+        }
+    }
+    return JNI_TRUE;
+#else
+    return JNI_FALSE;
+#endif
+}
+
+void log_binary_write(Address buffer, int length) {
+#if !os_MAXVE
+    if (binaryStream != NULL && length > 0) {
+        fwrite((const void *) buffer, 1, (size_t) length, binaryStream);
+        fflush(binaryStream);
+    }
+#endif
+}
@@ -55,6 +55,12 @@ extern void log_print_float(float f);
 extern void log_print_double(double d);
 extern void log_flush(void);
 
+/**
+ * Support for dumping a VMLog in binary form to a file separate from the log stream.
+ */
+extern jboolean log_binary_open(const char *path);
+extern void log_binary_write(Address buffer, int length);
+
 #if os_WINDOWS
 #define NEWLINE_STRING "\r\n"
 #else
@@ -22,6 +22,7 @@
  */
 #include "virtualMemory.h"
 #include "log.h"
+#include "isa.h"
 
 #if defined(MAXVE)
 #include <maxve.h>
@@ -32,6 +33,9 @@
 #include <string.h>
 #include <sys/mman.h>
 
+#include <stdio.h>
+#include <pthread.h>
+
 #include "jni.h"
 #include "unistd.h"
 
@@ -123,6 +127,138 @@ Address virtualMemory_mapFileAtFixedAddress(Address address, Size size, jint fd,
     return check_mmap_result(mmap((void *) address, (size_t) size, PROT, MAP_PRIVATE | MAP_FIXED, fd, (off_t) offset));
 }
 
+/*
+ * Advises the OS to back a range of memory with (transparent) huge pages.
+ * Returns false if the platform doesn't support it or the advice failed.
+ */
+jboolean virtualMemory_adviseHugePages(Address address, Size size) {
+#if os_LINUX && defined(MADV_HUGEPAGE)
+    if (madvise((void *) address, (size_t) size, MADV_HUGEPAGE) != 0) {
+#if log_LOADER
+        log_println("virtualMemory_adviseHugePages(address=%p, size=%p) failed: %s", address, size, strerror(errno));
+#endif
+        return JNI_FALSE;
+    }
+    return JNI_TRUE;
+#else
+    return JNI_FALSE;
+#endif
+}
+
+static Size hugePageSize = 0;
+
+#if os_LINUX && defined(MADV_HUGEPAGE)
+/*
+ * Determines if the kernel supports transparent huge pages and they are not disabled.
+ */
+static jboolean transparentHugePagesEnabled(void) {
+    char mode[128];
+    jboolean enabled = JNI_FALSE;
+    FILE *f = fopen("/sys/kernel/mm/transparent_hugepage/enabled", "r");
+    if (f != NULL) {
+        if (fgets(mode, sizeof(mode), f) != NULL && strstr(mode, "[never]") == NULL) {
+            enabled = JNI_TRUE;
+        }
+        fclose(f);
+    }
+    return enabled;
+}
+#endif
+
+/*
+ * Gets the size of the huge pages used for transparent huge page support, or 0 if not supported.
+ */
+Size virtualMemory_getHugePageSize(void) {
+#if os_LINUX && defined(MADV_HUGEPAGE)
+    if (hugePageSize == 0) {
+        FILE *f = fopen("/sys/kernel/mm/transparent_hugepage/hpage_pmd_size", "r");
+        unsigned long size = 0;
+        if (f != NULL) {
+            if (fscanf(f, "%lu", &size) != 1) {
+                size = 0;
+            }
+            fclose(f);
+        }
+#if isa_AMD64
+        if (size == 0 && transparentHugePagesEnabled()) {
+            /* Older kernels don't report the size: use the size of a PMD-mapped page on x86-64 */
+            size = 2 * 1024 * 1024;
+        }
+#endif
+        hugePageSize = (Size) size;
+    }
+    return hugePageSize;
+#else
+    return 0;
+#endif
+}
+
+typedef struct {
+    Address start;
+    Address end;
+    Size pageSize;
+} PreTouchRange;
+
+static void *preTouch(void *arg) {
+    PreTouchRange *range = (PreTouchRange *) arg;
+    Address page;
+    for (page = range->start; page < range->end; page += range->pageSize) {
+        /* Atomically add zero so that the page is written to without changing its content */
+        __sync_fetch_and_add((volatile int *) page, 0);
+    }
+    return NULL;
+}
+
+#define MAX_PRETOUCH_THREADS 16
+/* Don't bother starting threads to touch less than this amount of memory per thread */
+#define MIN_PRETOUCH_SIZE_PER_THREAD (16 * 1024 * 1024)
+
+/*
+ * Touches every page of a committed range of memory so that the page faults are taken now rather than on first use.
+ * The range is split among up to one thread per online processor.
+ */
+void virtualMemory_preTouch(Address address, Size size, Size pageSize) {
+    PreTouchRange ranges[MAX_PRETOUCH_THREADS];
+    pthread_t threads[MAX_PRETOUCH_THREADS];
+    jboolean started[MAX_PRETOUCH_THREADS];
+    long numThreads = sysconf(_SC_NPROCESSORS_ONLN);
+    long i;
+    Size chunk;
+
+    if (pageSize == 0) {
+        pageSize = (Size) sysconf(_SC_PAGESIZE);
+    }
+
+    if (numThreads > MAX_PRETOUCH_THREADS) {
+        numThreads = MAX_PRETOUCH_THREADS;
+    }
+    if ((Size) numThreads > size / MIN_PRETOUCH_SIZE_PER_THREAD) {
+        numThreads = size / MIN_PRETOUCH_SIZE_PER_THREAD;
+    }
+    if (numThreads < 1) {
+        numThreads = 1;
+    }
+    chunk = ((size / numThreads) + pageSize - 1) & ~(pageSize - 1);
+    for (i = 0; i < numThreads; i++) {
+        ranges[i].start = address + i * chunk;
+        ranges[i].end = i == numThreads - 1 ? address + size : address + (i + 1) * chunk;
+        ranges[i].pageSize = pageSize;
+    }
+    for (i = 1; i < numThreads; i++) {
+        started[i] = pthread_create(&threads[i], NULL, preTouch, &ranges[i]) == 0;
+        if (!started[i]) {
+            /* Touch the range on this thread instead */
+            preTouch(&ranges[i]);
+        }
+    }
+    preTouch(&ranges[0]);
+    for (i = 1; i < numThreads; i++) {
+        if (started[i]) {
+            pthread_join(threads[i], NULL);
+        }
+    }
+}
+
 // end of conditional exclusion of mmap stuff not available (or used) on MAXVE
 #endif // MAXVE
 
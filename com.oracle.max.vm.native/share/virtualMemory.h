@@ -44,6 +44,10 @@ extern Address virtualMemory_allocateIn31BitSpace(Size size, int type);
 extern Address virtualMemory_allocatePrivateAnon(Address address, Size size, jboolean reserveSwap, jboolean protNone, int type);
 extern Address virtualMemory_deallocate(Address start, Size size, int type);
 
+extern jboolean virtualMemory_adviseHugePages(Address address, Size size);
+extern Size virtualMemory_getHugePageSize(void);
+extern void virtualMemory_preTouch(Address address, Size size, Size pageSize);
+
 extern unsigned int virtualMemory_getPageSize(void);
 extern Size virtualMemory_getPhysicalMemorySize(void);
 
@@ -21,6 +21,8 @@
  * questions.
  */
 
+#include <string.h>
+
 #include "jmm.h"
 
 static void jmm_reserved() {
@@ -31,6 +33,12 @@ static jint jmm_GetVersion(JNIEnv *env) {
 }
 
 static jint jmm_GetOptionalSupport(JNIEnv *env, jmmOptionalSupport* support) {
+    if (support == NULL) {
+        return -1;
+    }
+    memset(support, 0, sizeof(jmmOptionalSupport));
+    /* Backed by GetThreadAllocatedMemory. Heap schemes that don't track allocation report -1 bytes. */
+    support->isThreadAllocatedMemorySupported = 1;
     return 0;
 }
 
@@ -46,7 +54,7 @@ struct jmmInterface_1_ jmm_interface = {
     /* jmm_GetMemoryManagers */ NULL,
     /* jmm_GetMemoryPoolUsage */ NULL,
     /* jmm_GetPeakMemoryPoolUsage */ NULL,
-    (void *) jmm_reserved,
+    /* jmm_GetThreadAllocatedMemory */ NULL,
     /* jmm_GetMemoryUsage */ NULL,
     /* jmm_GetLongAttribute */ NULL,
     /* jmm_GetBoolAttribute */ NULL,
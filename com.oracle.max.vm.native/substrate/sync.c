@@ -23,6 +23,7 @@
 
 #include <string.h>
 #include <stdlib.h>
+#include <sys/time.h>
 
 #include "condition.h"
 #include "log.h"
@@ -108,3 +109,117 @@ jboolean nativeConditionNotify(Condition condition, jboolean all) {
     }
     return condition_notify(condition);
 }
+
+/**
+ * A per-thread parker implementing the semantics of sun.misc.Unsafe.park/unpark.
+ * The 'permit' field must be at offset 0 as it is accessed directly from Java
+ * (see OSMonitor.Parker.park()).
+ */
+typedef struct {
+    volatile jint permit;
+    mutex_Struct mutex;
+    condition_Struct condition;
+} parker_Struct;
+
+typedef parker_Struct *Parker;
+
+jint nativeParkerSize(void) {
+    return sizeof(parker_Struct);
+}
+
+void nativeParkerInitialize(Parker parker) {
+    parker->permit = 0;
+    mutex_initialize(&parker->mutex);
+    condition_initialize(&parker->condition);
+}
+
+#if (os_DARWIN || os_LINUX)
+/**
+ * Computes the absolute deadline for a timed park.
+ *
+ * @param isAbsolute specifies if 'time' is a deadline in milliseconds since the epoch or a relative timeout in nanoseconds
+ */
+static void compute_park_abstime(struct timespec *abstime, jboolean isAbsolute, jlong time) {
+    if (isAbsolute) {
+        abstime->tv_sec = time / 1000;
+        abstime->tv_nsec = (time % 1000) * 1000000;
+    } else {
+        struct timeval now;
+        int status = gettimeofday(&now, NULL);
+        c_ASSERT(status == 0);
+        jlong seconds = time / 1000000000;
+        if (seconds > 50000000) { // see man cond_timedwait(3T)
+            seconds = 50000000;
+        }
+        abstime->tv_sec = now.tv_sec + seconds;
+        long nsec = now.tv_usec * 1000 + (time % 1000000000);
+        if (nsec >= 1000000000) {
+            abstime->tv_sec += 1;
+            nsec -= 1000000000;
+        }
+        abstime->tv_nsec = nsec;
+    }
+}
+#else
+static jlong currentTimeMillis(void) {
+    struct timeval now;
+    int status = gettimeofday(&now, NULL);
+    c_ASSERT(status == 0);
+    return ((jlong) now.tv_sec) * 1000 + now.tv_usec / 1000;
+}
+#endif
+
+/**
+ * Blocks the current thread until the permit of 'parker' is available, the deadline expires, the thread is
+ * interrupted or it wakes up spuriously. The permit is consumed on return.
+ *
+ * @param isAbsolute specifies if 'time' is a deadline in milliseconds since the epoch or a relative timeout in nanoseconds
+ * @param time the deadline or timeout. A relative timeout of 0 means no timeout.
+ */
+JNIEXPORT void JNICALL
+Java_com_sun_max_vm_runtime_OSMonitor_nativeParkerPark(JNIEnv *env, jclass c, Parker parker, jboolean isAbsolute, jlong time) {
+    if (__sync_lock_test_and_set(&parker->permit, 0) > 0) {
+        return;
+    }
+    if (time < 0 || (isAbsolute && time == 0)) {
+        return;
+    }
+    if (mutex_try_enter(&parker->mutex) != 0) {
+        // Another thread is unparking this thread: no need to block
+        return;
+    }
+    if (parker->permit > 0) {
+        parker->permit = 0;
+        mutex_exit(&parker->mutex);
+        return;
+    }
+    if (time == 0) {
+        condition_wait(&parker->condition, &parker->mutex);
+    } else {
+#if (os_DARWIN || os_LINUX)
+        struct timespec abstime;
+        compute_park_abstime(&abstime, isAbsolute, time);
+        pthread_cond_timedwait(&parker->condition, &parker->mutex, &abstime);
+#else
+        jlong millis = isAbsolute ? time - currentTimeMillis() : (time + 999999) / 1000000;
+        if (millis > 0) {
+            condition_timedWait(&parker->condition, &parker->mutex, millis);
+        }
+#endif
+    }
+    parker->permit = 0;
+    mutex_exit(&parker->mutex);
+}
+
+/**
+ * Makes the permit of 'parker' available, unblocking the thread parked on it (if any).
+ */
+void nativeParkerUnpark(Parker parker) {
+    mutex_enter(&parker->mutex);
+    jint s = parker->permit;
+    parker->permit = 1;
+    mutex_exit(&parker->mutex);
+    if (s < 1) {
+        condition_notify(&parker->condition);
+    }
+}
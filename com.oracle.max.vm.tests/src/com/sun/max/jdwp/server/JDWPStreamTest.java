@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.jdwp.server;
+
+import java.io.*;
+
+import com.sun.max.ide.*;
+import com.sun.max.jdwp.data.*;
+
+/**
+ * Tests the buffering of replies by {@link JDWPStream}. This test lives in the package of {@link JDWPStream} as
+ * the stream is package private.
+ */
+public class JDWPStreamTest extends MaxTestCase {
+
+    public JDWPStreamTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(JDWPStreamTest.class);
+    }
+
+    private static final int PACKET_SIZE = 11;
+
+    /**
+     * A registry without handlers: every command is received with no data and can be answered with an error code.
+     */
+    private static final CommandHandlerRegistry EMPTY_REGISTRY = new CommandHandlerRegistry() {
+        public CommandHandler<? extends IncomingData, ? extends OutgoingData> findCommandHandler(byte commandSetId, byte commandId) {
+            return null;
+        }
+
+        public void addCommandHandler(CommandHandler<? extends IncomingData, ? extends OutgoingData> handler) {
+        }
+    };
+
+    private static byte[] commands(int count) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        for (int id = 1; id <= count; id++) {
+            out.writeInt(PACKET_SIZE);
+            out.writeInt(id);
+            out.writeByte(0);
+            out.writeByte(1);
+            out.writeByte(1);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void reply(JDWPStream stream) throws IOException, JDWPIncomingPacketException {
+        final IncomingPacket<? extends IncomingData, ? extends OutgoingData> packet = stream.receive(EMPTY_REGISTRY);
+        stream.send(new ReplyPacket<IncomingData, OutgoingData>(cast(packet), (short) 0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IncomingPacket<IncomingData, OutgoingData> cast(IncomingPacket<? extends IncomingData, ? extends OutgoingData> packet) {
+        return (IncomingPacket<IncomingData, OutgoingData>) packet;
+    }
+
+    /**
+     * The replies to a burst of pipelined commands are held back until the last command of the burst is answered.
+     */
+    public void test_pipelinedRepliesAreFlushedTogether() throws Exception {
+        final ByteArrayOutputStream socket = new ByteArrayOutputStream();
+        final JDWPStream stream = new JDWPStream(new ByteArrayInputStream(commands(3)), socket);
+        reply(stream);
+        assertEquals(0, socket.size());
+        reply(stream);
+        assertEquals(0, socket.size());
+        reply(stream);
+        assertEquals(3 * PACKET_SIZE, socket.size());
+
+        final DataInputStream replies = new DataInputStream(new ByteArrayInputStream(socket.toByteArray()));
+        for (int id = 1; id <= 3; id++) {
+            assertEquals(PACKET_SIZE, replies.readInt());
+            assertEquals(id, replies.readInt());
+            assertEquals((byte) 0x80, replies.readByte());
+            assertEquals(0, replies.readShort());
+        }
+    }
+
+    /**
+     * A reply to a command that is not followed by another one is written at once, as the client may be waiting.
+     */
+    public void test_singleReplyIsFlushed() throws Exception {
+        final ByteArrayOutputStream socket = new ByteArrayOutputStream();
+        final JDWPStream stream = new JDWPStream(new ByteArrayInputStream(commands(1)), socket);
+        reply(stream);
+        assertEquals(PACKET_SIZE, socket.size());
+    }
+}
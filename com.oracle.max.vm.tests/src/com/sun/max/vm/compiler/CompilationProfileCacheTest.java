@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.compiler;
+
+import java.io.*;
+
+import com.sun.max.ide.*;
+
+/**
+ * Tests that the methods recorded in a {@link CompilationProfileCache} are found again by the next run of the VM,
+ * which loads the saved profile. This test lives in the package of {@link CompilationProfileCache} as the profile
+ * is only accessed by the {@link CompilationBroker}.
+ */
+public class CompilationProfileCacheTest extends MaxTestCase {
+
+    public CompilationProfileCacheTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(CompilationProfileCacheTest.class);
+    }
+
+    private static final String HOT = "java.lang.String.hashCode()int";
+    private static final String OTHER = "java.util.HashMap.get(java.lang.Object)java.lang.Object";
+
+    private static final long HOT_CRC = CompilationProfileCache.crc(new byte[] {0x2a, (byte) 0xb4, 0x00, 0x01, (byte) 0xac});
+    private static final long OTHER_CRC = CompilationProfileCache.crc(new byte[] {0x2a, (byte) 0xb0});
+
+    private File file;
+
+    @Override
+    public void setUp() throws IOException {
+        CompilationProfileCache.clear();
+        file = File.createTempFile("compilation", ".profile");
+        file.delete();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        CompilationProfileCache.clear();
+        file.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Simulates the end of a run followed by the start of a new one.
+     */
+    private void restart() {
+        CompilationProfileCache.save(file);
+        CompilationProfileCache.clear();
+        CompilationProfileCache.load(file);
+    }
+
+    public void test_recordedMethodsAreHotInNextRun() {
+        CompilationProfileCache.recordHot(HOT, HOT_CRC);
+        CompilationProfileCache.recordHot(OTHER, OTHER_CRC);
+        assertTrue(CompilationProfileCache.wasHot(HOT, HOT_CRC));
+        restart();
+        assertTrue(file.exists());
+        assertTrue(CompilationProfileCache.wasHot(HOT, HOT_CRC));
+        assertTrue(CompilationProfileCache.wasHot(OTHER, OTHER_CRC));
+        assertFalse(CompilationProfileCache.wasHot("java.lang.String.length()int", HOT_CRC));
+    }
+
+    public void test_changedBytecodeIsNotHot() {
+        CompilationProfileCache.recordHot(HOT, HOT_CRC);
+        restart();
+        assertFalse(CompilationProfileCache.wasHot(HOT, OTHER_CRC));
+    }
+
+    public void test_rerecordedMethodReplacesEntry() {
+        CompilationProfileCache.recordHot(HOT, HOT_CRC);
+        restart();
+        CompilationProfileCache.recordHot(HOT, OTHER_CRC);
+        restart();
+        assertFalse(CompilationProfileCache.wasHot(HOT, HOT_CRC));
+        assertTrue(CompilationProfileCache.wasHot(HOT, OTHER_CRC));
+    }
+
+    public void test_unchangedProfileIsNotRewritten() {
+        CompilationProfileCache.recordHot(HOT, HOT_CRC);
+        restart();
+        assertTrue(file.delete());
+        CompilationProfileCache.recordHot(HOT, HOT_CRC);
+        CompilationProfileCache.save(file);
+        assertFalse(file.exists());
+    }
+
+    public void test_saveReplacesFileWithoutLeavingTemporaryFiles() throws IOException {
+        final PrintWriter writer = new PrintWriter(new FileWriter(file));
+        writer.println("# Maxine compilation profile");
+        writer.println(OTHER + " " + Long.toHexString(OTHER_CRC));
+        writer.close();
+        CompilationProfileCache.recordHot(HOT, HOT_CRC);
+        restart();
+        assertTrue(CompilationProfileCache.wasHot(HOT, HOT_CRC));
+        assertFalse(CompilationProfileCache.wasHot(OTHER, OTHER_CRC));
+        for (String name : file.getAbsoluteFile().getParentFile().list()) {
+            assertFalse(name, name.startsWith(file.getName()) && name.endsWith(".tmp"));
+        }
+    }
+
+    public void test_malformedLinesAreIgnored() throws IOException {
+        final PrintWriter writer = new PrintWriter(new FileWriter(file));
+        writer.println("# Maxine compilation profile");
+        writer.println();
+        writer.println("noCrc");
+        writer.println(OTHER + " notHex");
+        writer.println(HOT + " " + Long.toHexString(HOT_CRC));
+        writer.close();
+        CompilationProfileCache.load(file);
+        assertTrue(CompilationProfileCache.wasHot(HOT, HOT_CRC));
+        assertFalse(CompilationProfileCache.wasHot(OTHER, OTHER_CRC));
+    }
+}
@@ -117,6 +117,7 @@ public class MaxineTesterConfiguration {
         output(Classes.forName("test.output.WeakReferenceTest03"),                  RAND_ALL);
         output(Classes.forName("test.output.WeakReferenceTest03_01"),            RAND_ALL);
         output(Classes.forName("test.output.WeakReferenceTest04"),                  RAND_ALL);
+        output(Classes.forName("test.output.SoftReferenceTest01"),                  RAND_ALL);
         output(Classes.forName("test.output.GCTest8"),                                       RAND_ALL);
         output(Classes.forName("test.output.CatchOutOfMemory"),                     RAND_ALL);
 
@@ -297,6 +298,7 @@ public class MaxineTesterConfiguration {
         maxvmConfig("cc250k", "-Xms2g", "-Xmx2g", "-XX:ReservedBaselineCodeCacheSize=250k");
         maxvmConfig("baseline", "-Xms2g", "-Xmx2g", "-Xbaseline");
         maxvmConfig("opt", "-Xms2g", "-Xmx2g", "-Xopt");
+        maxvmConfig("noJNICritical", "-Xms2g", "-Xmx2g", "-XX:-OptimizeJNICritical");
         maxvmConfig("mx256m", "-Xmx256m");
         maxvmConfig("mx512m", "-Xmx512m");
 
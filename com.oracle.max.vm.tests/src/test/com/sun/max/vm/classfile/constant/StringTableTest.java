@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.sun.max.vm.classfile.constant;
+
+import java.lang.ref.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.sun.max.ide.*;
+import com.sun.max.vm.classfile.constant.*;
+
+/**
+ * Tests for {@link StringTable}.
+ */
+public class StringTableTest extends MaxTestCase {
+
+    public StringTableTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(StringTableTest.class);
+    }
+
+    /**
+     * Creates a string that is not a symbol and is not shared with any other caller.
+     */
+    private static String unique(String prefix, int i) {
+        return new String(prefix + "-" + i + "-" + StringTableTest.class.getName());
+    }
+
+    public void test_canonicalize() {
+        final StringTable table = new StringTable(4, 4);
+        final List<String> canonical = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            final String s = unique("canonicalize", i);
+            assertSame(s, table.canonicalize(s));
+            canonical.add(s);
+        }
+        assertEquals(1000, table.size());
+        for (int i = 0; i < 1000; i++) {
+            final String copy = unique("canonicalize", i);
+            assertNotSame(copy, canonical.get(i));
+            assertSame(canonical.get(i), table.canonicalize(copy));
+        }
+        assertEquals(1000, table.size());
+    }
+
+    public void test_concurrentCanonicalize() throws Exception {
+        final StringTable table = new StringTable(2, 2);
+        final int nThreads = 8;
+        final int nStrings = 2000;
+        final String[][] results = new String[nThreads][nStrings];
+        final CyclicBarrier barrier = new CyclicBarrier(nThreads);
+        final Thread[] threads = new Thread[nThreads];
+        final Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < nThreads; t++) {
+            final int id = t;
+            threads[t] = new Thread("StringTableTest-" + t) {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await();
+                        // Threads visit the strings in different orders to maximize racing insertions and rehashes
+                        for (int i = 0; i < nStrings; i++) {
+                            final int index = (id & 1) == 0 ? i : nStrings - 1 - i;
+                            results[id][index] = table.canonicalize(unique("concurrent", index));
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failure) {
+                            failure[0] = e;
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure[0] != null) {
+            throw new Exception(failure[0]);
+        }
+        for (int i = 0; i < nStrings; i++) {
+            final String s = results[0][i];
+            assertEquals(unique("concurrent", i), s);
+            for (int t = 1; t < nThreads; t++) {
+                assertSame(s, results[t][i]);
+            }
+        }
+        assertEquals(nStrings, table.size());
+    }
+
+    /**
+     * The maximum number of GCs {@link #collect} runs before giving up.
+     */
+    private static final int MAX_GCS = 50;
+
+    /**
+     * Runs the GC until the referents of all of {@code refs} have been cleared. Each round also allocates some
+     * garbage, so that a GC happens even if {@link System#gc()} is ignored.
+     *
+     * @return {@code false} if some referent was not cleared within {@link #MAX_GCS} GCs
+     */
+    private static boolean collect(List<? extends Reference<?>> refs) {
+        for (int i = 0; i < MAX_GCS; i++) {
+            boolean cleared = true;
+            for (Reference<?> ref : refs) {
+                if (ref.get() != null) {
+                    cleared = false;
+                    break;
+                }
+            }
+            if (cleared) {
+                return true;
+            }
+            System.gc();
+            for (int j = 0; j < 16; j++) {
+                final byte[] garbage = new byte[1 << 20];
+                garbage[j] = (byte) j;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Interns {@code n} unique strings in a table, leaving no strong reference to them in the caller's frame.
+     *
+     * @return weak references to the interned strings
+     */
+    private static List<WeakReference<String>> intern(StringTable table, String prefix, int n) {
+        final List<WeakReference<String>> refs = new ArrayList<WeakReference<String>>();
+        for (int i = 0; i < n; i++) {
+            final String s = unique(prefix, i);
+            assertSame(s, table.canonicalize(s));
+            refs.add(new WeakReference<String>(s));
+        }
+        return refs;
+    }
+
+    public void test_collectedEntries() {
+        final StringTable table = new StringTable(1, 4);
+        final int n = 1000;
+        final List<WeakReference<String>> refs = intern(table, "collected", n);
+        assertEquals(n, table.size());
+        // The table must be the only holder of the interned strings, and it only holds them weakly
+        assertTrue("interned strings not collected after " + MAX_GCS + " GCs", collect(refs));
+
+        // An equal string interned after the canonical instance was collected becomes the new canonical instance
+        final List<String> live = new ArrayList<String>();
+        for (int i = 0; i < n; i++) {
+            final String s = unique("collected", i);
+            assertSame(s, table.canonicalize(s));
+            live.add(s);
+        }
+
+        // The cleared entries are removed as the table is updated
+        assertTrue("cleared entries not removed: size = " + table.size(), table.size() < 2 * n);
+        for (int i = 0; i < n; i++) {
+            assertSame(live.get(i), table.canonicalize(unique("collected", i)));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.sun.max.vm.compiler.target;
+
+import static com.sun.max.vm.compiler.target.ExceptionHandlerCache.*;
+
+import com.sun.max.ide.*;
+import com.sun.max.vm.compiler.target.*;
+
+/**
+ * Tests for {@link ExceptionHandlerCache}.
+ */
+public class ExceptionHandlerCacheTest extends MaxTestCase {
+
+    public ExceptionHandlerCacheTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(ExceptionHandlerCacheTest.class);
+    }
+
+    public void test_hits() {
+        final ExceptionHandlerCache cache = new ExceptionHandlerCache();
+        cache.record(0, 0, 0);
+        assertEquals(0, cache.lookup(0, 0));
+
+        cache.record(10, 5, 3);
+        assertEquals(3, cache.lookup(10, 5));
+
+        // Negative results are cached too
+        cache.record(11, 5, NO_HANDLER);
+        assertEquals(NO_HANDLER, cache.lookup(11, 5));
+
+        // The largest values that fit in an entry
+        final int maxPos = (1 << 20) - 1;
+        final int maxId = (1 << 24) - 1;
+        cache.record(maxPos, maxId, maxPos - 2);
+        assertEquals(maxPos - 2, cache.lookup(maxPos, maxId));
+
+        // Recording a different result for the same key replaces the previous one
+        cache.record(10, 5, 7);
+        assertEquals(7, cache.lookup(10, 5));
+    }
+
+    public void test_misses() {
+        final ExceptionHandlerCache cache = new ExceptionHandlerCache();
+        for (int pos = 0; pos < 100; pos++) {
+            assertEquals(NOT_CACHED, cache.lookup(pos, pos));
+        }
+
+        cache.record(10, 5, 3);
+        assertEquals(NOT_CACHED, cache.lookup(10, 6));
+        assertEquals(NOT_CACHED, cache.lookup(11, 5));
+        assertEquals(NOT_CACHED, cache.lookup(10, 5 + (1 << 20)));
+
+        // Lookups that do not fit in an entry are not cached
+        cache.record(1 << 20, 5, 3);
+        assertEquals(NOT_CACHED, cache.lookup(1 << 20, 5));
+        cache.record(10, 1 << 24, 3);
+        assertEquals(NOT_CACHED, cache.lookup(10, 1 << 24));
+        cache.record(12, 5, (1 << 20) - 1);
+        assertEquals(NOT_CACHED, cache.lookup(12, 5));
+        cache.record(-1, 5, 3);
+        assertEquals(NOT_CACHED, cache.lookup(-1, 5));
+        cache.record(10, -1, 3);
+        assertEquals(NOT_CACHED, cache.lookup(10, -1));
+    }
+
+    public void test_eviction() {
+        final ExceptionHandlerCache cache = new ExceptionHandlerCache();
+        final int n = 100;
+        for (int i = 0; i < n; i++) {
+            cache.record(i * 4, i, i);
+            assertEquals(i, cache.lookup(i * 4, i));
+        }
+        int hits = 0;
+        for (int i = 0; i < n; i++) {
+            final int handler = cache.lookup(i * 4, i);
+            if (handler != NOT_CACHED) {
+                // An entry is never confused with an entry for another key
+                assertEquals(i, handler);
+                hits++;
+            }
+        }
+        assertTrue(hits > 0);
+        assertTrue(hits < n);
+    }
+
+    public void test_invalidation() {
+        final ExceptionHandlerCache cache = new ExceptionHandlerCache();
+        for (int i = 0; i < 16; i++) {
+            cache.record(i, i, i);
+        }
+        cache.invalidate();
+        for (int i = 0; i < 16; i++) {
+            assertEquals(NOT_CACHED, cache.lookup(i, i));
+        }
+        cache.record(3, 3, NO_HANDLER);
+        assertEquals(NO_HANDLER, cache.lookup(3, 3));
+    }
+}
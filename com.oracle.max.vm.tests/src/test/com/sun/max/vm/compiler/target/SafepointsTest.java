@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.sun.max.vm.compiler.target;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import com.sun.max.ide.*;
+import com.sun.max.vm.compiler.target.*;
+
+/**
+ * Tests for {@link Safepoints#indexOf(int)}, which caches its last result.
+ */
+public class SafepointsTest extends MaxTestCase {
+
+    public SafepointsTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(SafepointsTest.class);
+    }
+
+    private static final int SAFEPOINTS = 100;
+    private static final int STRIDE = 7;
+
+    /**
+     * Creates safepoints at every {@link #STRIDE}th position, starting at position 3.
+     */
+    private static Safepoints createSafepoints() {
+        final int[] safepoints = new int[SAFEPOINTS];
+        for (int i = 0; i < SAFEPOINTS; i++) {
+            safepoints[i] = Safepoints.make(3 + i * STRIDE);
+        }
+        return new Safepoints(safepoints);
+    }
+
+    private static int expectedIndexOf(int pos) {
+        return pos >= 3 && (pos - 3) % STRIDE == 0 && (pos - 3) / STRIDE < SAFEPOINTS ? (pos - 3) / STRIDE : -1;
+    }
+
+    public void test_indexOf() {
+        final Safepoints safepoints = createSafepoints();
+        final int maxPos = 3 + SAFEPOINTS * STRIDE;
+        for (int pos = 0; pos <= maxPos; pos++) {
+            // The second lookup of the same position hits the cache
+            assertEquals(expectedIndexOf(pos), safepoints.indexOf(pos));
+            assertEquals(expectedIndexOf(pos), safepoints.indexOf(pos));
+        }
+        // Alternate between positions, including misses
+        for (int pos = 0; pos <= maxPos; pos++) {
+            assertEquals(expectedIndexOf(pos), safepoints.indexOf(pos));
+            assertEquals(expectedIndexOf(maxPos - pos), safepoints.indexOf(maxPos - pos));
+        }
+        assertEquals(-1, Safepoints.NO_SAFEPOINTS.indexOf(3));
+        assertEquals(-1, Safepoints.NO_SAFEPOINTS.indexOf(-1));
+    }
+
+    /**
+     * Several threads looking up different positions of the same safepoints must each get the right index,
+     * however their updates of the cached result interleave.
+     */
+    public void test_concurrentIndexOf() throws InterruptedException {
+        final Safepoints safepoints = createSafepoints();
+        final int maxPos = 3 + SAFEPOINTS * STRIDE;
+        final AtomicInteger failures = new AtomicInteger();
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final Random random = new Random(t);
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000000; i++) {
+                        final int pos = random.nextInt(maxPos + 1);
+                        if (safepoints.indexOf(pos) != expectedIndexOf(pos)) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.sun.max.vm.heap;
+
+import static com.sun.max.vm.heap.HeapSchemeWithTLAB.*;
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import junit.framework.*;
+import test.com.sun.max.vm.*;
+
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * Tests the per-thread allocation accounting of {@link HeapSchemeWithTLAB#allocatedBytes(Pointer)} across TLAB refills,
+ * TLAB resets and allocations made outside of a TLAB. The thread locals operated on are in a block of native memory.
+ */
+public class TLABAllocatedBytesTest extends VmTestCase {
+
+    public static Test suite() {
+        final TestSuite suite = new TestSuite(TLABAllocatedBytesTest.class.getSimpleName());
+        suite.addTestSuite(TLABAllocatedBytesTest.class);
+        return new VmTestSetup(suite);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(TLABAllocatedBytesTest.suite());
+    }
+
+    public TLABAllocatedBytesTest(String name) {
+        super(name);
+    }
+
+    private static final Size TLAB_SIZE = Size.fromInt(4096);
+
+    private Pointer etla;
+    private Pointer heap;
+
+    @Override
+    public void setUp() {
+        final Size tlaSize = VmThreadLocal.tlaSize();
+        etla = Memory.mustAllocate(tlaSize);
+        Memory.clearWords(etla, tlaSize.dividedBy(Word.size()).toInt());
+        etla.writeWord(ETLA.offset, etla);
+        heap = Memory.mustAllocate(TLAB_SIZE.times(4));
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        Memory.deallocate(heap);
+        Memory.deallocate(etla);
+        super.tearDown();
+    }
+
+    /**
+     * Simulates a fill or refill of the TLAB the way {@link HeapSchemeWithTLAB#refillTLAB} does.
+     */
+    private void refill(Pointer tlab) {
+        final Pointer allocationMark = TLAB_MARK.load(etla);
+        if (!allocationMark.isZero()) {
+            retireTLAB(etla, allocationMark);
+        }
+        startTLAB(etla, tlab);
+        TLAB_TOP.store(etla, tlab.plus(TLAB_SIZE));
+        TLAB_MARK.store(etla, tlab);
+    }
+
+    /**
+     * Simulates a fast path allocation from the current TLAB.
+     */
+    private Pointer allocate(int size) {
+        final Pointer cell = TLAB_MARK.load(etla);
+        TLAB_MARK.store(etla, cell.plus(size));
+        return cell;
+    }
+
+    /**
+     * Simulates a reset of the TLAB the way {@link HeapSchemeWithTLAB.ResetTLAB} does.
+     */
+    private void reset() {
+        retireTLAB(etla, TLAB_MARK.load(etla));
+        TLAB_TOP.store(etla, Address.zero());
+        TLAB_MARK.store(etla, Address.zero());
+    }
+
+    public void test_noTLAB() {
+        assertEquals(0L, allocatedBytes(etla));
+        countSlowPathAllocation(etla, heap, Size.fromInt(48));
+        assertEquals(48L, allocatedBytes(etla));
+    }
+
+    public void test_refill() {
+        refill(heap);
+        allocate(16);
+        allocate(32);
+        assertEquals(48L, allocatedBytes(etla));
+
+        // Allocations from a refilled TLAB add to those of the retired one
+        refill(heap.plus(TLAB_SIZE));
+        assertEquals(48L, allocatedBytes(etla));
+        allocate(24);
+        assertEquals(72L, allocatedBytes(etla));
+
+        // A refill that does not follow an allocation leaves the count unchanged
+        refill(heap.plus(TLAB_SIZE.times(2)));
+        refill(heap.plus(TLAB_SIZE.times(3)));
+        assertEquals(72L, allocatedBytes(etla));
+    }
+
+    public void test_slowPathAllocation() {
+        refill(heap);
+        allocate(16);
+
+        // A cell carved from the current TLAB by the slow path is counted by the TLAB
+        final Pointer cell = allocate(64);
+        countSlowPathAllocation(etla, cell, Size.fromInt(64));
+        assertEquals(80L, allocatedBytes(etla));
+
+        // A cell allocated outside of the current TLAB is counted separately, before or after it
+        countSlowPathAllocation(etla, heap.plus(TLAB_SIZE.times(2)), Size.fromInt(1024));
+        assertEquals(1104L, allocatedBytes(etla));
+        countSlowPathAllocation(etla, TLAB_MARK.load(etla), Size.fromInt(8));
+        assertEquals(1112L, allocatedBytes(etla));
+
+        // A cell in the TLAB the slow path refilled is counted once
+        refill(heap.plus(TLAB_SIZE));
+        countSlowPathAllocation(etla, allocate(40), Size.fromInt(40));
+        assertEquals(1152L, allocatedBytes(etla));
+    }
+
+    public void test_reset() {
+        refill(heap);
+        allocate(128);
+        reset();
+        assertEquals(128L, allocatedBytes(etla));
+
+        // Resetting a thread without a TLAB changes nothing
+        reset();
+        assertEquals(128L, allocatedBytes(etla));
+
+        // Allocation resumes from a fresh TLAB after the reset
+        refill(heap.plus(TLAB_SIZE));
+        allocate(8);
+        assertEquals(136L, allocatedBytes(etla));
+        countSlowPathAllocation(etla, heap, Size.fromInt(16));
+        assertEquals(152L, allocatedBytes(etla));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.sun.max.vm.heap.gcx;
+
+import java.lang.reflect.*;
+
+import com.sun.max.ide.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.heap.gcx.*;
+
+/**
+ * Tests for the goal driven resizing decisions of {@link GenSSHeapSizingPolicy}.
+ * The goals are enabled by setting the fields of their options directly.
+ */
+public class GenSSHeapSizingPolicyTest extends MaxTestCase {
+
+    public GenSSHeapSizingPolicyTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(GenSSHeapSizingPolicyTest.class);
+    }
+
+    private static final long MILLIS = 1000000L;
+
+    private GenSSHeapSizingPolicy policy;
+
+    @Override
+    public void setUp() {
+        setOption("MaxGCPauseMillis", 0);
+        setOption("GCTimeRatio", 0);
+        policy = new GenSSHeapSizingPolicy();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        setOption("MaxGCPauseMillis", 0);
+        setOption("GCTimeRatio", 0);
+        super.tearDown();
+    }
+
+    private static void setOption(String name, int value) {
+        try {
+            Field field = GenSSHeapSizingPolicy.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.setInt(null, value);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void initialize(int initMBytes, int maxMBytes) {
+        policy.initialize(Size.M.times(initMBytes), Size.M.times(maxMBytes), 12);
+    }
+
+    /**
+     * Reports collections that take all but a small fraction of the elapsed time.
+     */
+    private void missThroughputGoal() {
+        policy.notifyCollection(1000, 2000);
+        policy.notifyCollection(2100, 3100);
+    }
+
+    public void test_pauseGoalShrinksYoungGen() {
+        setOption("MaxGCPauseMillis", 10);
+        initialize(63, 64);
+        final Size youngGenSize = policy.youngGenSize();
+        final Size oldGenSize = policy.oldGenSize();
+        policy.notifyMinorCollection(0, 40 * MILLIS);
+        assertTrue(policy.resizeAfterMinorGC());
+        assertTrue(policy.youngGenSize().lessThan(youngGenSize));
+        assertTrue(policy.oldGenSize().greaterThan(oldGenSize));
+    }
+
+    public void test_throughputGoalGrowsHeapAfterMinorGC() {
+        setOption("GCTimeRatio", 1);
+        initialize(32, 64);
+        final Size heapSize = policy.heapSize();
+        missThroughputGoal();
+        assertTrue(policy.resizeAfterMinorGC());
+        assertEquals(heapSize.plus(heapSize.dividedBy(5)), policy.heapSize());
+        // The decision started a new measurement period with no GC time in it.
+        assertFalse(policy.resizeAfterMinorGC());
+    }
+
+    /**
+     * A minor collection must not shrink the old generation. A decision that would is deferred to the next full collection
+     * with no side effect, so the time measured for the throughput goal is still accounted for then.
+     */
+    public void test_deferredMinorResizeKeepsThroughputPeriod() {
+        setOption("MaxGCPauseMillis", 10);
+        initialize(63, 64);
+        policy.notifyMinorCollection(0, 40 * MILLIS);
+        assertTrue(policy.resizeAfterMinorGC());
+        // Pauses well below the goal call for a larger young generation.
+        for (int i = 0; i < 10; i++) {
+            policy.notifyMinorCollection(0, MILLIS);
+        }
+        setOption("GCTimeRatio", 1);
+        missThroughputGoal();
+        final Size heapSize = policy.heapSize();
+        final Size youngGenSize = policy.youngGenSize();
+        final Size oldGenSize = policy.oldGenSize();
+        // Growing the heap to its maximum doesn't make up for the larger young generation.
+        assertFalse(policy.resizeAfterMinorGC());
+        assertEquals(heapSize, policy.heapSize());
+        assertEquals(youngGenSize, policy.youngGenSize());
+        assertEquals(oldGenSize, policy.oldGenSize());
+
+        // Half of the old generation free is within the free space ratios, so only the throughput goal grows the heap.
+        assertTrue(policy.resizeAfterFullGC(Size.zero(), oldGenSize.dividedBy(2), false, Size.zero()));
+        assertTrue(policy.heapSize().greaterThan(heapSize));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.sun.max.vm.heap.gcx.rset.ctbl;
+
+import static com.sun.max.vm.heap.gcx.rset.ctbl.CardState.*;
+
+import java.util.*;
+
+import com.sun.max.ide.*;
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.heap.gcx.rset.ctbl.*;
+
+/**
+ * Tests for the card scanning methods {@link CardTable#first(int, int, CardState)} and
+ * {@link CardTable#firstNot(int, int, CardState)}, which skip whole words of cards. The results
+ * are compared against a card-by-card scan.
+ */
+public class CardTableTest extends MaxTestCase {
+
+    public CardTableTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(CardTableTest.class);
+    }
+
+    /**
+     * Number of cards in the table: several words worth of cards plus a partial word.
+     */
+    private static final int CARDS = 5 * 8 + 3;
+
+    private CardTable cardTable;
+    private Pointer storage;
+    private Pointer cards;
+
+    @Override
+    public void setUp() {
+        storage = Memory.mustAllocate(Size.fromInt(CARDS + 2 * Word.size()));
+        // Word align the first card so that the word boundaries of the table are known
+        cards = storage.roundedUpBy(Word.size());
+        cardTable = new CardTable();
+        cardTable.initialize(Address.zero(), Address.fromLong((long) CARDS << CardTableRSet.LOG2_CARD_SIZE), cards);
+        fill(CLEAN_CARD);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        Memory.deallocate(storage);
+        super.tearDown();
+    }
+
+    private void fill(CardState cardState) {
+        for (int i = 0; i < CARDS; i++) {
+            set(i, cardState);
+        }
+    }
+
+    private void set(int index, CardState cardState) {
+        cards.setByte(index, cardState.value());
+    }
+
+    private CardState get(int index) {
+        return cards.getByte(index) == CLEAN_CARD.value() ? CLEAN_CARD : DIRTY_CARD;
+    }
+
+    private int expectedFirst(int start, int end, CardState cardState) {
+        for (int i = start; i < end; i++) {
+            if (get(i) == cardState) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private int expectedFirstNot(int start, int end, CardState cardState) {
+        return expectedFirst(start, end, cardState.other());
+    }
+
+    /**
+     * Checks both scanning methods for both card states on every sub-range of the table,
+     * which covers all alignments of the start and end of a range with respect to words.
+     */
+    private void checkAllRanges() {
+        for (int start = 0; start <= CARDS; start++) {
+            for (int end = start; end <= CARDS; end++) {
+                for (CardState cardState : CardState.values()) {
+                    final String range = "[" + start + ", " + end + ") " + cardState;
+                    assertEquals("first " + range, expectedFirst(start, end, cardState), cardTable.first(start, end, cardState));
+                    assertEquals("firstNot " + range, expectedFirstNot(start, end, cardState), cardTable.firstNot(start, end, cardState));
+                }
+            }
+        }
+    }
+
+    public void test_allClean() {
+        fill(CLEAN_CARD);
+        assertEquals(CARDS, cardTable.first(0, CARDS, DIRTY_CARD));
+        assertEquals(CARDS, cardTable.firstNot(0, CARDS, CLEAN_CARD));
+        assertEquals(0, cardTable.first(0, CARDS, CLEAN_CARD));
+        checkAllRanges();
+    }
+
+    public void test_allDirty() {
+        fill(DIRTY_CARD);
+        assertEquals(CARDS, cardTable.first(0, CARDS, CLEAN_CARD));
+        assertEquals(CARDS, cardTable.firstNot(0, CARDS, DIRTY_CARD));
+        assertEquals(0, cardTable.first(0, CARDS, DIRTY_CARD));
+        checkAllRanges();
+    }
+
+    public void test_emptyRange() {
+        fill(DIRTY_CARD);
+        for (int i = 0; i <= CARDS; i++) {
+            assertEquals(i, cardTable.first(i, i, DIRTY_CARD));
+            assertEquals(i, cardTable.firstNot(i, i, CLEAN_CARD));
+        }
+    }
+
+    /**
+     * A single card in the other state at every position, in particular at the first and last byte of words.
+     */
+    public void test_singleCard() {
+        for (CardState background : CardState.values()) {
+            for (int i = 0; i < CARDS; i++) {
+                fill(background);
+                set(i, background.other());
+                assertEquals(i, cardTable.first(0, CARDS, background.other()));
+                assertEquals(i, cardTable.firstNot(0, CARDS, background));
+                checkAllRanges();
+            }
+        }
+    }
+
+    /**
+     * Cards on either side of every word boundary.
+     */
+    public void test_wordBoundaries() {
+        final int wordSize = Word.size();
+        for (int boundary = wordSize; boundary < CARDS; boundary += wordSize) {
+            fill(CLEAN_CARD);
+            set(boundary - 1, DIRTY_CARD);
+            set(boundary, DIRTY_CARD);
+            assertEquals(boundary - 1, cardTable.first(0, CARDS, DIRTY_CARD));
+            assertEquals(boundary, cardTable.first(boundary, CARDS, DIRTY_CARD));
+            assertEquals(boundary + 1, cardTable.firstNot(boundary - 1, CARDS, DIRTY_CARD));
+            checkAllRanges();
+        }
+    }
+
+    public void test_random() {
+        final Random random = new Random(42);
+        for (int n = 0; n < 20; n++) {
+            for (int i = 0; i < CARDS; i++) {
+                // Mostly clean cards, as in a real card table
+                set(i, random.nextInt(8) == 0 ? DIRTY_CARD : CLEAN_CARD);
+            }
+            checkAllRanges();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.sun.max.vm.verifier;
+
+import java.io.*;
+import java.util.*;
+
+import junit.framework.*;
+import test.com.sun.max.vm.*;
+
+import com.sun.max.vm.verifier.*;
+import com.sun.max.vm.verifier.VerificationCache.ResultTable;
+
+/**
+ * Tests the recording, lookup and persistence of {@link VerificationCache} results.
+ */
+public class VerificationCacheTest extends VmTestCase {
+
+    public static Test suite() {
+        final TestSuite suite = new TestSuite(VerificationCacheTest.class.getSimpleName());
+        suite.addTestSuite(VerificationCacheTest.class);
+        return new VmTestSetup(suite);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(VerificationCacheTest.suite());
+    }
+
+    public VerificationCacheTest(String name) {
+        super(name);
+    }
+
+    private static final String DIGEST_A = "a9993e364706816aba3e25717850c26c9cd0d89d";
+    private static final String DIGEST_B = "da39a3ee5e6b4b0d3255bfef95601890afd80709";
+
+    private static String[] assumptions(String... strings) {
+        return strings;
+    }
+
+    public void test_digest() throws UnsupportedEncodingException {
+        final byte[] bytes = "xxabcyy".getBytes("US-ASCII");
+        assertEquals(DIGEST_A, VerificationCache.digest(bytes, 2, 3));
+        assertEquals(DIGEST_B, VerificationCache.digest(bytes, 0, 0));
+    }
+
+    public void test_recordAndLookup() {
+        final ResultTable table = new ResultTable();
+        assertTrue(table.isEmpty());
+        assertTrue(table.get(DIGEST_A).isEmpty());
+
+        final String[] result = assumptions("Ljava/lang/Object;", "Ljava/lang/Object;#0", "LFoo;", DIGEST_B + ",Ljava/lang/Object;#0");
+        assertTrue(table.add(DIGEST_A, result));
+        assertFalse(table.add(DIGEST_A, result.clone()));
+
+        final List<String[]> results = table.get(DIGEST_A);
+        assertEquals(1, results.size());
+        assertTrue(Arrays.equals(result, results.get(0)));
+        assertTrue(table.get(DIGEST_B).isEmpty());
+
+        // The returned list is a copy
+        results.clear();
+        assertEquals(1, table.get(DIGEST_A).size());
+    }
+
+    public void test_resultsPerClassfileLimit() {
+        final ResultTable table = new ResultTable();
+        for (int i = 0; i < VerificationCache.MAX_RESULTS_PER_CLASSFILE; i++) {
+            assertTrue(table.add(DIGEST_A, assumptions("LFoo;", "hierarchy" + i)));
+        }
+        assertFalse(table.add(DIGEST_A, assumptions("LFoo;", "one too many")));
+        assertEquals(VerificationCache.MAX_RESULTS_PER_CLASSFILE, table.get(DIGEST_A).size());
+        assertTrue(table.add(DIGEST_B, assumptions("LFoo;", "other class file")));
+    }
+
+    public void test_writeAndRead() throws IOException {
+        final ResultTable table = new ResultTable();
+        table.add(DIGEST_A, assumptions("LFoo;", "h1"));
+        table.add(DIGEST_A, assumptions("LFoo;", "h2", "LBar;", "h3"));
+        table.add(DIGEST_B, assumptions());
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.write(new DataOutputStream(bytes));
+
+        final ResultTable copy = new ResultTable();
+        final String[] existing = assumptions("LFoo;", "existing");
+        copy.add(DIGEST_B, existing);
+        assertTrue(copy.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+
+        final List<String[]> a = table.get(DIGEST_A);
+        final List<String[]> copyA = copy.get(DIGEST_A);
+        assertEquals(a.size(), copyA.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertTrue(Arrays.equals(a.get(i), copyA.get(i)));
+        }
+
+        // Results already present are not replaced
+        assertEquals(1, copy.get(DIGEST_B).size());
+        assertTrue(Arrays.equals(existing, copy.get(DIGEST_B).get(0)));
+    }
+
+    public void test_readCorruptedFile() throws IOException {
+        final ResultTable table = new ResultTable();
+        table.add(DIGEST_A, assumptions("LFoo;", "h1"));
+        table.add(DIGEST_B, assumptions("LBar;", "h2"));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.write(new DataOutputStream(bytes));
+        final byte[] data = bytes.toByteArray();
+
+        // Change the last character of the last hierarchy string, which is followed by the checksum of its entry
+        data[data.length - 9]++;
+        final ResultTable copy = new ResultTable();
+        try {
+            copy.read(new DataInputStream(new ByteArrayInputStream(data)));
+            fail("corrupted entry was read");
+        } catch (IOException e) {
+            // expected
+        }
+        // No entry of a corrupted file is added, including those that match their checksum
+        assertTrue(copy.isEmpty());
+
+        // A truncated file is rejected too
+        try {
+            copy.read(new DataInputStream(new ByteArrayInputStream(Arrays.copyOf(bytes.toByteArray(), data.length - 4))));
+            fail("truncated file was read");
+        } catch (IOException e) {
+            // expected
+        }
+        assertTrue(copy.isEmpty());
+    }
+
+    public void test_readForeignFile() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeLong(0L);
+        out.writeInt(0);
+
+        final ResultTable table = new ResultTable();
+        assertFalse(table.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        assertTrue(table.isEmpty());
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.vm.output;
+
+import java.lang.management.*;
+
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.runtime.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * Tests {@linkplain Handshake handshakes} with a target thread spinning in Java code, a target thread blocked in native
+ * code and a handshake during which a GC runs. Also exercises the handshakes performed by the VM for biased lock
+ * revocation and single thread stack traces. On the reference VM only the latter run and the output is the same.
+ */
+public class Handshakes {
+
+    static {
+        System.loadLibrary("javatest");
+    }
+
+    /**
+     * Blocks in native code until {@link #releaseNative()} is called, or for at most 30 seconds.
+     */
+    private static native void blockInNative();
+
+    private static native boolean isBlockedInNative();
+
+    private static native void releaseNative();
+
+    private static final boolean isMaxine = System.getProperty("java.vm.name").startsWith("Maxine");
+
+    private static volatile boolean stop;
+
+    static class Spinner extends Thread {
+        volatile long counter;
+        Spinner() {
+            super("Spinner");
+            setDaemon(true);
+        }
+        @Override
+        public void run() {
+            while (!stop) {
+                counter++;
+            }
+        }
+    }
+
+    static class NativeBlocker extends Thread {
+        NativeBlocker() {
+            super("NativeBlocker");
+            setDaemon(true);
+        }
+        @Override
+        public void run() {
+            blockInNative();
+        }
+    }
+
+    /**
+     * Records the frame and progress of the target thread. Optionally runs a GC while the handshake is performed.
+     */
+    static class TestHandshake extends Handshake {
+        final Spinner spinner;
+        final boolean gc;
+        boolean performed;
+        boolean hasFrame;
+        boolean frozen;
+
+        TestHandshake(Thread target, boolean gc) {
+            super("Test", VmThread.fromJava(target));
+            this.spinner = target instanceof Spinner ? (Spinner) target : null;
+            this.gc = gc;
+        }
+
+        @Override
+        protected void doThread(VmThread vmThread, Pointer ip, Pointer sp, Pointer fp) {
+            performed = vmThread == thread();
+            hasFrame = !ip.isZero() && !sp.isZero();
+            final long counter = spinner == null ? 0 : spinner.counter;
+            if (gc) {
+                // The GC thaws all other threads when it completes; the target must stay frozen.
+                System.gc();
+            }
+            frozen = spinner == null || spinner.counter == counter;
+        }
+    }
+
+    private static String handshake(Thread target, boolean gc) {
+        if (!isMaxine) {
+            return "true";
+        }
+        final TestHandshake handshake = new TestHandshake(target, gc);
+        final boolean executed = handshake.execute();
+        return String.valueOf(executed && handshake.performed && handshake.hasFrame && handshake.frozen);
+    }
+
+    /**
+     * Waits for a spinner to make progress, which shows that it was thawed.
+     */
+    private static boolean resumed(Spinner spinner) throws InterruptedException {
+        final long counter = spinner.counter;
+        for (int i = 0; i < 5000 && spinner.counter == counter; i++) {
+            Thread.sleep(1);
+        }
+        return spinner.counter != counter;
+    }
+
+    private static boolean hasFrame(StackTraceElement[] trace, String methodName) {
+        for (StackTraceElement element : trace) {
+            if (element.getMethodName().equals(methodName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static volatile boolean released;
+    private static volatile boolean acquired;
+
+    /**
+     * Locks an object from a second thread while the thread that locked it first is alive. With a biased monitor scheme
+     * the bias is revoked by a handshake with the first thread, either after it has released the object or while
+     * it still holds it.
+     */
+    private static boolean contend(final boolean held) throws InterruptedException {
+        final Object lock = new Object();
+        released = false;
+        acquired = false;
+        final Thread owner = new Thread() {
+            @Override
+            public void run() {
+                synchronized (lock) {
+                    while (held && !released) {
+                        Thread.yield();
+                    }
+                }
+                while (!released) {
+                    Thread.yield();
+                }
+            }
+        };
+        owner.start();
+        Thread.sleep(100);
+        final Thread contender = new Thread() {
+            @Override
+            public void run() {
+                synchronized (lock) {
+                    acquired = true;
+                }
+            }
+        };
+        contender.start();
+        Thread.sleep(100);
+        released = true;
+        contender.join();
+        owner.join();
+        return acquired;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final Spinner spinner = new Spinner();
+        spinner.start();
+        while (spinner.counter == 0) {
+            Thread.yield();
+        }
+        final NativeBlocker blocker = new NativeBlocker();
+        blocker.start();
+        while (!isBlockedInNative()) {
+            Thread.yield();
+        }
+
+        System.out.println("spinning: " + handshake(spinner, false));
+        System.out.println("spinning resumed: " + resumed(spinner));
+        System.out.println("native: " + handshake(blocker, false));
+        System.out.println("spinning with gc: " + handshake(spinner, true));
+        System.out.println("spinning with gc resumed: " + resumed(spinner));
+        System.out.println("native with gc: " + handshake(blocker, true));
+
+        System.out.println("revoke released: " + contend(false));
+        System.out.println("revoke held: " + contend(true));
+
+        final ThreadInfo info = ManagementFactory.getThreadMXBean().getThreadInfo(spinner.getId(), Integer.MAX_VALUE);
+        System.out.println("thread info: " + (info != null && hasFrame(info.getStackTrace(), "run")));
+        System.out.println("stack trace: " + hasFrame(spinner.getStackTrace(), "run"));
+        System.out.println("native stack trace: " + hasFrame(blocker.getStackTrace(), "blockInNative"));
+
+        stop = true;
+        releaseNative();
+        spinner.join();
+        blocker.join();
+        System.out.println("done.");
+    }
+}
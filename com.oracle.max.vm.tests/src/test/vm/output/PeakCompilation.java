@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.vm.output;
+
+import static com.sun.max.vm.MaxineVM.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.lang.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.compiler.RuntimeCompiler.Nature;
+import com.sun.max.vm.compiler.target.*;
+import com.sun.max.vm.compiler.target.amd64.*;
+
+/**
+ * Checks that direct calls linked to optimized code enter the code that replaces it. If the VM runs with a
+ * {@code -XX:PeakCompiler}, the replacement is produced by the peak compilation thread, otherwise the method is
+ * recompiled and replaced directly.
+ */
+public class PeakCompilation {
+
+    public static void main(String[] args) throws Throwable {
+        boolean isMaxine = System.getProperty("java.vm.name").startsWith("Maxine");
+        boolean linkedToOld = true;
+        boolean linkedToNew = true;
+        int result;
+        if (isMaxine) {
+            ClassMethodActor hotMethod = ClassMethodActor.fromJava(Classes.getDeclaredMethod(PeakCompilation.class, "hot", int.class));
+            ClassMethodActor callerMethod = ClassMethodActor.fromJava(Classes.getDeclaredMethod(PeakCompilation.class, "caller", int.class));
+            TargetMethod oldMethod = hotMethod.makeTargetMethod(Nature.OPT);
+            TargetMethod callerCode = callerMethod.makeTargetMethod(Nature.OPT);
+            result = caller(2);
+            linkedToOld = callTarget(callerCode, hotMethod) == oldMethod;
+
+            if (vm().compilationBroker.schedulePeakCompilation(hotMethod)) {
+                long deadline = System.currentTimeMillis() + 10000;
+                while (hotMethod.currentTargetMethod() == oldMethod && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+            } else {
+                TargetMethod newMethod = vm().compilationBroker.compile(hotMethod, Nature.OPT, false, true);
+                vm().compilationBroker.replaceOptimizedCode(hotMethod, oldMethod, newMethod);
+            }
+            TargetMethod newMethod = hotMethod.currentTargetMethod();
+            result += caller(3);
+            linkedToNew = newMethod != oldMethod && callTarget(callerCode, hotMethod) == newMethod;
+        } else {
+            result = caller(2) + caller(3);
+        }
+        System.out.println("linked to optimized code: " + linkedToOld);
+        System.out.println("relinked to replacing code: " + linkedToNew);
+        System.out.println("result: " + result);
+    }
+
+    /**
+     * Gets the code entered by the direct call to {@code callee} in {@code caller}.
+     */
+    private static TargetMethod callTarget(TargetMethod caller, ClassMethodActor callee) {
+        Safepoints safepoints = caller.safepoints();
+        for (int i = safepoints.nextDirectCall(0); i >= 0; i = safepoints.nextDirectCall(i + 1)) {
+            int callPos = safepoints.causePosAt(i);
+            if (caller.callSiteToCallee(caller.codeAt(callPos)) == callee) {
+                CodePointer target = AMD64TargetMethodUtil.readCall32Target(caller, callPos);
+                return target.toTargetMethod();
+            }
+        }
+        return null;
+    }
+
+    @NEVER_INLINE
+    private static int caller(int n) {
+        return hot(n) + 1;
+    }
+
+    @NEVER_INLINE
+    private static int hot(int n) {
+        return n * 10;
+    }
+}
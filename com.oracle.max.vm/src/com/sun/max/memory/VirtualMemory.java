@@ -50,6 +50,15 @@ public final class VirtualMemory {
         VMOptions.addFieldOption("-XX:", "TraceAnonOperations", VirtualMemory.class, "TraceAnonOperations", Phase.PRISTINE);
     }
 
+    private static boolean UseTransparentHugePages = false;
+    private static boolean AlwaysPreTouch = false;
+    static {
+        VMOptions.addFieldOption("-XX:", "UseTransparentHugePages", VirtualMemory.class,
+            "Advise the OS to back the heap, its side tables and the code regions with transparent huge pages.", Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "AlwaysPreTouch", VirtualMemory.class,
+            "Touch every page of the heap committed at VM startup instead of on first use.", Phase.PRISTINE);
+    }
+
     public enum Type {
         HEAP,   // for the garbage collected heap
         STACK,  // for thread stacks
@@ -71,6 +80,9 @@ public final class VirtualMemory {
         allocateMemoryTime.start();
         final Pointer allocated = virtualMemory_allocate(size, type.ordinal());
         allocateMemoryTime.stop();
+        if (!allocated.isZero()) {
+            adviseHugePages(allocated, size, type);
+        }
         return allocated;
     }
 
@@ -105,6 +117,9 @@ public final class VirtualMemory {
         allocateAtFixedAddressTime.start();
         final boolean allocated = virtualMemory_allocateAtFixedAddress(address, size, type.ordinal());
         allocateAtFixedAddressTime.stop();
+        if (allocated) {
+            adviseHugePages(address, size, type);
+        }
         return allocated;
     }
 
@@ -209,9 +224,61 @@ public final class VirtualMemory {
         commitMemoryTime.start();
         final Pointer committed = virtualMemory_allocatePrivateAnon(address, size, true, false, type.ordinal());
         commitMemoryTime.stop();
-        return committed.equals(address);
+        if (!committed.equals(address)) {
+            return false;
+        }
+        adviseHugePages(address, size, type);
+        // Only the heap committed at startup is pre-touched. Heap committed later may be committed by a GC, and
+        // touching it there would stretch the pause (and hold up the other threads) by the time spent page faulting.
+        if (AlwaysPreTouch && type == Type.HEAP && MaxineVM.isPrimordialOrPristine()) {
+            // Touch every base page: memory advised to use huge pages may still be (partly) backed by base pages.
+            virtualMemory_preTouch(address, size, Size.fromInt(Platform.platform().pageSize));
+        }
+        return true;
+    }
+
+    /**
+     * Determines if heap, side table and code memory is advised to be backed by transparent huge pages.
+     */
+    public static boolean useTransparentHugePages() {
+        return UseTransparentHugePages && !hugePageSize().isZero();
+    }
+
+    /**
+     * Gets the size of the pages used to back memory with transparent huge pages.
+     *
+     * @return the huge page size or zero if the platform does not support transparent huge pages
+     */
+    public static Size hugePageSize() {
+        return virtualMemory_getHugePageSize();
+    }
+
+    /**
+     * Advises the OS to back a range of memory with transparent huge pages if {@code -XX:+UseTransparentHugePages}
+     * is enabled and the memory is heap, side table or code memory. Only the part of the range aligned
+     * to the huge page size can actually be backed by huge pages.
+     */
+    private static void adviseHugePages(Address address, Size size, Type type) {
+        if (UseTransparentHugePages && type != Type.STACK) {
+            if (!virtualMemory_adviseHugePages(address, size) && TraceAnonOperations) {
+                traceRange("adviseHugePages failed", address, size);
+            }
+        }
     }
 
+    @C_FUNCTION
+    private static native boolean virtualMemory_adviseHugePages(Address address, Size size);
+
+    @C_FUNCTION
+    private static native Size virtualMemory_getHugePageSize();
+
+    /**
+     * Touches every page of a range of memory, on up to one native thread per processor. This is a C function as it
+     * is only called while the VM is starting, before there are other threads to hold up.
+     */
+    @C_FUNCTION
+    private static native void virtualMemory_preTouch(Address address, Size size, Size pageSize);
+
     public static boolean uncommitMemory(Address address, Size size, Type type) {
         if (address.isZero()) {
             return false;
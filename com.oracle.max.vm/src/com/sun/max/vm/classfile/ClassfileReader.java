@@ -60,6 +60,7 @@ import com.sun.max.vm.ti.*;
 import com.sun.max.vm.type.*;
 import com.sun.max.vm.type.ClassRegistry.Property;
 import com.sun.max.vm.value.*;
+import com.sun.max.vm.verifier.*;
 
 /**
  * Reads a class file to create a corresponding {@link ClassActor}.
@@ -1628,6 +1629,9 @@ public final class ClassfileReader {
         final ClassActor definedClassActor = ClassRegistry.define(classActor);
 
         if (!MaxineVM.isHosted()) {
+            if (definedClassActor == classActor) {
+                VerificationCache.recordClassfile(classActor, bytes, offset, length);
+            }
             // Maxine is unable to usefully distinguish CLASS_LOAD and CLASS_PREPARE events which, for example, JVMTI distinguishes,
             // as we need a ClassActor in order to create a Class object, so we just have the one event.
             VMTI.handler().classLoad(definedClassActor);
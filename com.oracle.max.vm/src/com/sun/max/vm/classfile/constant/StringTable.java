@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.classfile.constant;
+
+import java.lang.ref.*;
+
+import com.sun.max.vm.*;
+
+/**
+ * The table of strings canonicalized by {@link String#intern()}.
+ * <p>
+ * Entries are {@linkplain WeakReference weak references} and so an interned string that is no longer
+ * reachable is reclaimed by the GC. The {@linkplain SymbolTable symbols} hold strong references to their
+ * strings which keeps the entries for string literals alive for as long as the symbol table exists.
+ * <p>
+ * The table is split into segments, each with its own lock. Lookups of existing entries are lock-free.
+ * An entry chain is never mutated once published: inserting prepends a new entry and removal of
+ * cleared entries copies the part of the chain preceding them. A lookup that races with an insertion
+ * may miss the new entry, in which case it is retried under the segment lock.
+ * <p>
+ * Interned strings that are also symbols must be the {@code String} object held by the symbol,
+ * as that is the object to which string literals resolve. To this end, a string not yet in this table is
+ * first looked up in the symbol table and, conversely, {@link SymbolTable#makeSymbol(String)} obtains the
+ * string for a new symbol from this table.
+ */
+public final class StringTable {
+
+    static final class Entry extends WeakReference<String> {
+        final int hash;
+        final Entry next;
+
+        Entry(String value, int hash, Entry next) {
+            super(value);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    static final class Segment {
+        /**
+         * The hash buckets. Only replaced (when growing) while holding the lock on this segment.
+         */
+        volatile Entry[] table;
+
+        /**
+         * The number of entries in this segment, including those whose referent may have been cleared.
+         */
+        int count;
+
+        Segment(int capacity) {
+            table = new Entry[capacity];
+        }
+
+        /**
+         * Looks up an entry without locking.
+         */
+        String get(String value, int hash) {
+            Entry[] tab = table;
+            for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next) {
+                if (e.hash == hash) {
+                    String s = e.get();
+                    if (s != null && s.equals(value)) {
+                        return s;
+                    }
+                }
+            }
+            return null;
+        }
+
+        synchronized String put(String value, int hash) {
+            Entry[] tab = table;
+            int index = hash & (tab.length - 1);
+            Entry first = tab[index];
+            boolean hasCleared = false;
+            for (Entry e = first; e != null; e = e.next) {
+                String s = e.get();
+                if (s == null) {
+                    hasCleared = true;
+                } else if (e.hash == hash && s.equals(value)) {
+                    return s;
+                }
+            }
+            if (hasCleared) {
+                first = expunge(first);
+            }
+            tab[index] = new Entry(value, hash, first);
+            if (++count > tab.length * LOAD_FACTOR_PERCENT / 100) {
+                rehash();
+            }
+            return value;
+        }
+
+        /**
+         * Removes the cleared entries in a chain by copying the live entries.
+         *
+         * @return the new head of the chain
+         */
+        private Entry expunge(Entry first) {
+            Entry head = null;
+            for (Entry e = first; e != null; e = e.next) {
+                String s = e.get();
+                if (s == null) {
+                    count--;
+                } else {
+                    head = new Entry(s, e.hash, head);
+                }
+            }
+            return head;
+        }
+
+        /**
+         * Removes all cleared entries and doubles the table size if it is still too full.
+         */
+        private void rehash() {
+            Entry[] oldTable = table;
+            int live = 0;
+            for (Entry first : oldTable) {
+                for (Entry e = first; e != null; e = e.next) {
+                    if (e.get() != null) {
+                        live++;
+                    }
+                }
+            }
+            int capacity = oldTable.length;
+            while (live > capacity * LOAD_FACTOR_PERCENT / 100) {
+                capacity <<= 1;
+            }
+            Entry[] newTable = new Entry[capacity];
+            for (Entry first : oldTable) {
+                for (Entry e = first; e != null; e = e.next) {
+                    String s = e.get();
+                    if (s != null) {
+                        int index = e.hash & (capacity - 1);
+                        newTable[index] = new Entry(s, e.hash, newTable[index]);
+                    }
+                }
+            }
+            count = live;
+            table = newTable;
+        }
+    }
+
+    private static final int LOAD_FACTOR_PERCENT = 75;
+
+    /**
+     * Number of segments in the global table. Must be a power of 2.
+     */
+    private static final int SEGMENTS = 32;
+
+    /**
+     * Initial number of buckets per segment in the global table. Must be a power of 2.
+     */
+    private static final int INITIAL_SEGMENT_CAPACITY = 256;
+
+    /**
+     * The table backing {@link String#intern()}.
+     */
+    private static final StringTable global = new StringTable(SEGMENTS, INITIAL_SEGMENT_CAPACITY);
+
+    private final Segment[] segments;
+
+    /**
+     * Creates a string table. Only the table used by {@link #intern(String)} is
+     * related to {@link String#intern()}; other instances exist so that the table can be exercised in isolation.
+     *
+     * @param segmentCount the number of segments, which must be a power of 2
+     * @param segmentCapacity the initial number of buckets per segment, which must be a power of 2
+     */
+    public StringTable(int segmentCount, int segmentCapacity) {
+        assert Integer.bitCount(segmentCount) == 1 && Integer.bitCount(segmentCapacity) == 1;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Spreads the bits of a string hash so that strings differing only in their low bits are
+     * distributed across segments.
+     */
+    private static int hash(String value) {
+        int h = value.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        return h ^ (h >>> 7) ^ (h >>> 4);
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 24) & (segments.length - 1)];
+    }
+
+    /**
+     * Gets the canonical instance of a given string in this table, adding {@code value} if the table
+     * does not yet contain an equal string.
+     */
+    public String canonicalize(String value) {
+        final int hash = hash(value);
+        final Segment segment = segmentFor(hash);
+        String s = segment.get(value, hash);
+        if (s != null) {
+            return s;
+        }
+        // The symbol table lock must not be acquired while holding a segment lock
+        // as makeSymbol() calls this method while holding the symbol table lock.
+        final Utf8Constant symbol = SymbolTable.lookupSymbol(value);
+        return segment.put(symbol == null ? value : symbol.toString(), hash);
+    }
+
+    /**
+     * Gets the number of entries in this table, including those whose string has been reclaimed
+     * but have not yet been removed.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the canonical instance of a given string.
+     */
+    public static String intern(String value) {
+        if (MaxineVM.isHosted()) {
+            return value.intern();
+        }
+        return global.canonicalize(value);
+    }
+
+    /**
+     * Gets the number of entries in the table backing {@link String#intern()}, including those whose
+     * string has been reclaimed but have not yet been removed.
+     */
+    public static int length() {
+        return global.size();
+    }
+}
@@ -101,14 +101,21 @@ public final class SymbolTable {
                 // String interning is implemented with another data structure when running hosted
                 utf8 = new Utf8ConstantEntry(value.intern());
             } else {
-                utf8 = new Utf8ConstantEntry(value);
+                // Use the canonical string for the symbol so that string literals
+                // are identical to strings previously interned with String.intern()
+                utf8 = new Utf8ConstantEntry(StringTable.intern(value));
             }
             symbolTable.put(value, utf8);
         }
         return utf8;
     }
 
+    /**
+     * Gets the canonical instance of a given string without creating a symbol for it.
+     *
+     * @see StringTable#intern(String)
+     */
     public static String intern(String value) {
-        return makeSymbol(value).toString();
+        return StringTable.intern(value);
     }
 }
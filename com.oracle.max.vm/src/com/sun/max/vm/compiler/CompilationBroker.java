@@ -44,6 +44,7 @@ import com.sun.max.vm.actor.holder.*;
 import com.sun.max.vm.actor.member.*;
 import com.sun.max.vm.code.*;
 import com.sun.max.vm.compiler.RuntimeCompiler.Nature;
+import com.sun.max.vm.compiler.deps.*;
 import com.sun.max.vm.compiler.target.*;
 import com.sun.max.vm.compiler.target.amd64.*;
 import com.sun.max.vm.heap.*;
@@ -87,6 +88,18 @@ public class CompilationBroker {
      */
     private HashMap<String, RuntimeCompiler> altCompilers = new HashMap<String, RuntimeCompiler>();
 
+    /**
+     * The peak tier compiler selected by {@link #PeakCompiler}, {@code null} if there are only two tiers.
+     */
+    private RuntimeCompiler peakCompiler;
+
+    /**
+     * The methods waiting to be recompiled by the {@link #peakCompiler}.
+     */
+    private final LinkedList<ClassMethodActor> peakPending = new LinkedList<ClassMethodActor>();
+
+    private PeakCompilationThread peakCompilationThread;
+
     private static boolean opt;
     private static boolean GCOnRecompilation;
     private static boolean FailOverCompilation = true;
@@ -103,6 +116,25 @@ public class CompilationBroker {
         addFieldOption("-XX:", "AddCompiler", CompilationBroker.class, "Add a compiler, Name:Class");
     }
 
+    /**
+     * Name of the {@linkplain #addCompiler added} compiler used as the peak tier. When set, the optimizing compiler
+     * becomes a fast intermediate tier and the hottest methods are recompiled by the peak compiler in the background.
+     */
+    private static String PeakCompiler;
+    private static int PeakCompileWindow = 1000;
+    private static int PeakCompileQueueLimit = 4;
+    static {
+        addFieldOption("-XX:", "PeakCompiler", CompilationBroker.class,
+            "Name of an added compiler (see -XX:AddCompiler) that recompiles the hottest methods in the background, " +
+            "e.g. -XX:AddCompiler=Graal:com.oracle.max.vm.ext.graal.MaxGraal -XX:PeakCompiler=Graal.");
+        addFieldOption("-XX:", "PeakCompileWindow", CompilationBroker.class,
+            "A method is promoted to the peak compiler if its baseline version reaches the recompilation threshold " +
+            "within this many milliseconds.");
+        addFieldOption("-XX:", "PeakCompileQueueLimit", CompilationBroker.class,
+            "Maximum number of methods waiting for the peak compiler. Hot methods found while the queue is full stay " +
+            "with the optimizing compiler.");
+    }
+
     @RESET
     static String CompileCommand;
     static {
@@ -320,6 +352,13 @@ public class CompilationBroker {
 
             if (RCT != 0 && baselineCompiler != null) {
                 MethodInstrumentation.enable(RCT);
+                if (PeakCompiler != null) {
+                    peakCompiler = altCompilers.get(PeakCompiler);
+                    if (peakCompiler == null || peakCompiler.nature() != Nature.OPT) {
+                        Log.println("Peak compiler " + PeakCompiler + " is not an added optimizing compiler, ignoring -XX:PeakCompiler");
+                        peakCompiler = null;
+                    }
+                }
             }
 
             if (BACKGROUND_COMPILATION) {
@@ -329,6 +368,13 @@ public class CompilationBroker {
                 compilationThread.start();
             }
         } else if (phase == Phase.RUNNING) {
+            if (peakCompiler != null) {
+                peakCompilationThread = new PeakCompilationThread();
+                peakCompilationThread.start();
+            }
+            if (CompilationProfileCache.isEnabled()) {
+                CompilationProfileCache.initialize();
+            }
             if (PrintCodeCacheMetrics != 0) {
                 Runtime.getRuntime().addShutdownHook(new Thread("CodeCacheMetricsPrinter") {
                     @Override
@@ -424,7 +470,11 @@ public class CompilationBroker {
                     return tm;
                 } else {
                     // return result from other thread (which will have send the VMTI event)
-                    return compilation.get();
+                    TargetMethod tm = compilation.get();
+                    if (tm != null) {
+                        return tm;
+                    }
+                    // the other thread abandoned its compilation, compile the method in this thread
                 }
             } catch (Throwable t) {
                 if (VMOptions.verboseOption.verboseCompilation) {
@@ -435,6 +485,9 @@ public class CompilationBroker {
                     Log.unlock(lockDisabledSafepoints);
                 }
                 if (failFast) {
+                    if (doCompile) {
+                        compilation.abandon();
+                    }
                     throw t;
                 }
                 if (!FailOverCompilation || retryRun || (baselineCompiler == null) || (isHosted() && compilation.compiler == optimizingCompiler)) {
@@ -474,8 +527,13 @@ public class CompilationBroker {
                 reason = "nature:baseline";
                 assert compiler != null;
             } else if (nature == Nature.OPT) {
-                reason = "nature:opt";
-                compiler = optimizingCompiler;
+                if (peakCompiler != null && Thread.currentThread() == peakCompilationThread) {
+                    reason = "tier:peak";
+                    compiler = peakCompiler;
+                } else {
+                    reason = "nature:opt";
+                    compiler = optimizingCompiler;
+                }
             } else {
                 // The -XX:CompileCommand is only considered if a specific nature was not specified
                 String compilerName = compilerFor(cma);
@@ -507,6 +565,10 @@ public class CompilationBroker {
                             // compile VM extensions with the opt compiler (cf isHosted)
                             reason = "vm";
                             compiler = optimizingCompiler;
+                        } else if (!isDeopt && defaultCompiler == baselineCompiler && CompilationProfileCache.isEnabled() && CompilationProfileCache.wasHot(cma)) {
+                            // the method was hot in a previous run: skip the baseline warm-up
+                            reason = "profile";
+                            compiler = optimizingCompiler;
                         } else {
                             compiler = defaultCompiler;
                         }
@@ -596,6 +658,10 @@ public class CompilationBroker {
                 logCounterOverflow(mpo, "");
                 try {
                     newMethod = vm().compilationBroker.compile(cma, Nature.OPT);
+                    if (CompilationProfileCache.isEnabled()) {
+                        CompilationProfileCache.recordHot(cma);
+                    }
+                    vm().compilationBroker.considerPeakCompilation(mpo, cma);
                 } catch (InternalError e) {
                     if (VMOptions.verboseOption.verboseCompilation) {
                         e.printStackTrace(Log.out);
@@ -621,24 +687,7 @@ public class CompilationBroker {
                 Address from = oldMethod.getEntryPoint(VTABLE_ENTRY_POINT).toAddress();
                 Address to = newMethod.getEntryPoint(VTABLE_ENTRY_POINT).toAddress();
 
-                // Simply overwrite all vtable slots containing 'oldMethod' with 'newMethod'.
-                // These updates can be made atomically without need for a lock.
-                Hub hub = ObjectAccess.readHub(receiver);
-                for (int i = 0; i < hub.vTableLength(); i++) {
-                    int index = Hub.vTableStartIndex() + i;
-                    if (hub.getWord(index).equals(from)) {
-                        logDispatchTablePatch(cma, from, to, hub, index, "vtable");
-                        hub.setWord(index, to);
-                    }
-                }
-
-                for (int i = 0; i < hub.iTableLength; i++) {
-                    int index = hub.iTableStartIndex + i;
-                    if (hub.getWord(index).equals(from)) {
-                        logDispatchTablePatch(cma, from, to, hub, index, "itable");
-                        hub.setWord(index, to);
-                    }
-                }
+                patchDispatchTables(cma, from, to, ObjectAccess.readHub(receiver));
             }
 
             // Look for a static call to 'oldMethod' and patch it.
@@ -652,6 +701,84 @@ public class CompilationBroker {
         }
     }
 
+    /**
+     * Overwrites all dispatch table slots of a hub containing {@code from} with {@code to}.
+     * These updates can be made atomically without need for a lock.
+     */
+    private static void patchDispatchTables(ClassMethodActor cma, Address from, Address to, Hub hub) {
+        for (int i = 0; i < hub.vTableLength(); i++) {
+            int index = Hub.vTableStartIndex() + i;
+            if (hub.getWord(index).equals(from)) {
+                logDispatchTablePatch(cma, from, to, hub, index, "vtable");
+                hub.setWord(index, to);
+            }
+        }
+
+        for (int i = 0; i < hub.iTableLength; i++) {
+            int index = hub.iTableStartIndex + i;
+            if (hub.getWord(index).equals(from)) {
+                logDispatchTablePatch(cma, from, to, hub, index, "itable");
+                hub.setWord(index, to);
+            }
+        }
+    }
+
+    /**
+     * Queues a method for recompilation by the {@linkplain #PeakCompiler peak compiler} after its baseline
+     * version overflowed the recompilation threshold and was replaced by optimized code. The optimizing
+     * compiler's code does not maintain a {@link MethodProfile}, so the decision is taken now. The only counter a
+     * baseline profile maintains is {@link MethodProfile#entryCount}, which overflows exactly once, so a method is
+     * promoted if its baseline profile consumed the {@link #RCT} counts within {@link #PeakCompileWindow} milliseconds
+     * of being created and the peak compiler queue is not full.
+     *
+     * @param mpo the profile of the baseline method that overflowed
+     * @param cma the method that was just recompiled by the optimizing compiler
+     */
+    protected void considerPeakCompilation(MethodProfile mpo, ClassMethodActor cma) {
+        if (peakCompilationThread == null || mpo.creationTime == 0) {
+            return;
+        }
+        long elapsedMillis = (System.nanoTime() - mpo.creationTime) / 1000000;
+        if (elapsedMillis > PeakCompileWindow) {
+            return;
+        }
+        synchronized (peakPending) {
+            if (peakPending.contains(cma)) {
+                logCounterOverflow(mpo, "Not promoted to peak tier because it is already queued");
+                return;
+            }
+            if (peakPending.size() >= PeakCompileQueueLimit) {
+                logCounterOverflow(mpo, "Not promoted to peak tier because the peak compilation queue is full");
+                return;
+            }
+            logCounterOverflow(mpo, "Promoted to peak tier after " + elapsedMillis + " ms");
+            peakPending.add(cma);
+            peakPending.notify();
+        }
+    }
+
+    /**
+     * Queues a method for recompilation by the {@linkplain #PeakCompiler peak compiler} regardless of its profile.
+     *
+     * @param cma the method to recompile
+     * @return {@code false} if there is no peak tier or its queue is full
+     */
+    public boolean schedulePeakCompilation(ClassMethodActor cma) {
+        if (peakCompilationThread == null) {
+            return false;
+        }
+        synchronized (peakPending) {
+            if (!peakPending.contains(cma)) {
+                if (peakPending.size() >= PeakCompileQueueLimit) {
+                    return false;
+                }
+                peakPending.add(cma);
+                peakPending.notify();
+            }
+            return true;
+        }
+    }
+
     public static void logCounterOverflow(MethodProfile mpo, String msg) {
         if (VMOptions.verboseOption.verboseCompilation) {
             boolean lockDisabledSafepoints = Log.lock();
@@ -783,6 +910,132 @@ public class CompilationBroker {
         }
     }
 
+    /**
+     * The daemon thread that recompiles the methods queued by {@link CompilationBroker#considerPeakCompilation}
+     * with the {@linkplain CompilationBroker#peakCompiler peak compiler}. Once a method has been compiled, the
+     * optimized code it replaces is {@linkplain CompilationBroker#replaceOptimizedCode replaced} for both
+     * dispatch table and direct calls.
+     */
+    protected class PeakCompilationThread extends Thread {
+
+        protected PeakCompilationThread() {
+            super("peak-compile");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                ClassMethodActor cma;
+                synchronized (peakPending) {
+                    while (peakPending.isEmpty()) {
+                        try {
+                            peakPending.wait();
+                        } catch (InterruptedException e) {
+                            // do nothing.
+                        }
+                    }
+                    cma = peakPending.peek();
+                }
+                try {
+                    compileOne(cma);
+                } finally {
+                    synchronized (peakPending) {
+                        peakPending.poll();
+                    }
+                }
+            }
+        }
+
+        private void compileOne(final ClassMethodActor cma) {
+            final TargetMethod oldMethod = Compilations.currentTargetMethod(cma.compiledState, Nature.OPT);
+            if (oldMethod == null || cma.compiledState instanceof Compilation) {
+                return;
+            }
+            TargetMethod newMethod;
+            try {
+                if (GCOnRecompilation) {
+                    System.gc();
+                }
+                newMethod = compile(cma, Nature.OPT, false, true);
+            } catch (Throwable t) {
+                if (VMOptions.verboseOption.verboseCompilation) {
+                    boolean lockDisabledSafepoints = Log.lock();
+                    Log.printCurrentThread(false);
+                    Log.println(": Peak compilation of " + cma + " by " + peakCompiler + " failed, staying with optimized code");
+                    Log.unlock(lockDisabledSafepoints);
+                }
+                return;
+            }
+            if (newMethod != oldMethod) {
+                replaceOptimizedCode(cma, oldMethod, newMethod);
+            }
+        }
+    }
+
+    /**
+     * Makes the callers of {@code oldMethod} use {@code newMethod}, a later optimized compilation of {@code cma}.
+     * The dispatch table entries of the holder of {@code cma} and its subclasses that refer to {@code oldMethod}
+     * are patched to {@code newMethod}, and the entry points of {@code oldMethod} are redirected to the
+     * {@linkplain Stubs#staticTrampoline() static trampoline} so that direct calls to it are re-linked to
+     * {@code newMethod} the next time they are made. Activations of {@code oldMethod} already on a stack
+     * run to completion.
+     *
+     * @param cma the method that was recompiled
+     * @param oldMethod the optimized code being replaced
+     * @param newMethod the {@linkplain Compilations#currentTargetMethod current} optimized code of {@code cma}
+     */
+    public void replaceOptimizedCode(ClassMethodActor cma, TargetMethod oldMethod, TargetMethod newMethod) {
+        logPatching(cma, oldMethod, newMethod);
+        DependenciesManager.classHierarchyLock.writeLock().lock();
+        try {
+            new ReplaceOptimizedCode(cma, oldMethod, newMethod).submit();
+        } finally {
+            DependenciesManager.classHierarchyLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The safepoint operation performing {@link CompilationBroker#replaceOptimizedCode}. Both the dispatch
+     * tables and the entry points are patched with all threads stopped, so that no thread can pick up a
+     * dispatch table entry referring to {@code oldMethod} once its entry points lead to the static trampoline,
+     * which only resolves direct call sites.
+     */
+    static final class ReplaceOptimizedCode extends VmOperation {
+
+        private final ClassMethodActor cma;
+        private final TargetMethod oldMethod;
+        private final TargetMethod newMethod;
+
+        ReplaceOptimizedCode(ClassMethodActor cma, TargetMethod oldMethod, TargetMethod newMethod) {
+            super("ReplaceOptimizedCode", null, Mode.Safepoint);
+            this.cma = cma;
+            this.oldMethod = oldMethod;
+            this.newMethod = newMethod;
+        }
+
+        @Override
+        protected void doIt() {
+            if (oldMethod.invalidated() != null) {
+                // deoptimization already redirected the old code and reset its dispatch table entries
+                return;
+            }
+            if (cma instanceof VirtualMethodActor) {
+                final Address from = oldMethod.getEntryPoint(VTABLE_ENTRY_POINT).toAddress();
+                final Address to = newMethod.getEntryPoint(VTABLE_ENTRY_POINT).toAddress();
+                patchDispatchTables(cma, from, to, cma.holder().dynamicHub());
+                cma.holder().allSubclassesDo(new ClassActor.Closure() {
+                    @Override
+                    public boolean doClass(ClassActor subclass) {
+                        patchDispatchTables(cma, from, to, subclass.dynamicHub());
+                        return true;
+                    }
+                });
+            }
+            oldMethod.redirectTo(vm().stubs.staticTrampoline());
+        }
+    }
+
     /**
      * Helper class for patching any direct call sites on the stack corresponding to a target method
      * being replaced by a recompiled version.
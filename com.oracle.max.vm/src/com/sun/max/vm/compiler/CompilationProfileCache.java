@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.compiler;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.member.*;
+
+/**
+ * A persistent record of the methods that were recompiled by the optimizing compiler during
+ * a previous run of the VM. When the file named by {@code -XX:CompilationProfile} exists at startup,
+ * every method listed in it whose bytecode is unchanged is compiled directly with the optimizing compiler
+ * the first time it is compiled, skipping the baseline warm-up phase. The profile is (re)written on VM exit.
+ * <p>
+ * Entries are keyed by the fully qualified method signature (including the return type, so that bridge methods
+ * are distinguished from the methods they bridge to) and validated against a CRC32 of the method's bytecode. Assumptions
+ * about the class hierarchy are not persisted; they are recomputed by the compiler and validated by the
+ * {@linkplain com.sun.max.vm.compiler.deps.DependenciesManager dependencies manager} when the new code is installed.
+ */
+public final class CompilationProfileCache {
+
+    private static String CompilationProfile;
+    static {
+        VMOptions.addFieldOption("-XX:", "CompilationProfile", CompilationProfileCache.class,
+            "File recording the methods recompiled by the optimizing compiler. Methods listed in this file " +
+            "are compiled with the optimizing compiler first on subsequent runs.");
+    }
+
+    private static final String HEADER = "# Maxine compilation profile";
+
+    /**
+     * Map from method to the CRC32 of its bytecode.
+     */
+    private static final HashMap<String, Long> entries = new HashMap<String, Long>();
+
+    private static boolean dirty;
+
+    private CompilationProfileCache() {
+    }
+
+    /**
+     * Determines if this cache has been enabled with the {@code -XX:CompilationProfile} option.
+     */
+    public static boolean isEnabled() {
+        return CompilationProfile != null;
+    }
+
+    /**
+     * Loads the profile file (if it exists) and registers a shutdown hook to save it on exit.
+     * This must be called in the {@link MaxineVM.Phase#RUNNING} phase as it requires the JDK I/O classes.
+     */
+    static void initialize() {
+        final File file = new File(CompilationProfile);
+        if (file.exists()) {
+            load(file);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread("CompilationProfileWriter") {
+            @Override
+            public void run() {
+                save(file);
+            }
+        });
+    }
+
+    /**
+     * Determines if {@code cma} was recompiled by the optimizing compiler in a previous run and its bytecode has not
+     * changed since.
+     */
+    static boolean wasHot(ClassMethodActor cma) {
+        return wasHot(key(cma), crc(cma.code()));
+    }
+
+    /**
+     * Determines if the method identified by {@code key} is in the profile with the bytecode CRC {@code crc}.
+     */
+    static boolean wasHot(String key, long crc) {
+        Long recorded;
+        synchronized (entries) {
+            recorded = entries.get(key);
+        }
+        return recorded != null && recorded.longValue() == crc;
+    }
+
+    /**
+     * Records that {@code cma} has been recompiled by the optimizing compiler.
+     */
+    static void recordHot(ClassMethodActor cma) {
+        recordHot(key(cma), crc(cma.code()));
+    }
+
+    /**
+     * Records the method identified by {@code key} with the bytecode CRC {@code crc}.
+     */
+    static void recordHot(String key, long crc) {
+        final Long value = Long.valueOf(crc);
+        synchronized (entries) {
+            if (!value.equals(entries.put(key, value))) {
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Discards all entries, as if no profile had been loaded or recorded.
+     */
+    static void clear() {
+        synchronized (entries) {
+            entries.clear();
+            dirty = false;
+        }
+    }
+
+    private static String key(ClassMethodActor cma) {
+        return cma.format("%H.%n(%P)%R");
+    }
+
+    static long crc(byte[] code) {
+        final CRC32 crc = new CRC32();
+        if (code != null) {
+            crc.update(code);
+        }
+        return crc.getValue();
+    }
+
+    static void load(File file) {
+        final HashMap<String, Long> loaded = new HashMap<String, Long>();
+        try {
+            final BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.length() == 0 || line.startsWith("#")) {
+                        continue;
+                    }
+                    final int space = line.lastIndexOf(' ');
+                    if (space <= 0) {
+                        Log.println("Ignoring malformed line in compilation profile " + file + ": " + line);
+                        continue;
+                    }
+                    try {
+                        loaded.put(line.substring(0, space), Long.valueOf(line.substring(space + 1), 16));
+                    } catch (NumberFormatException e) {
+                        Log.println("Ignoring malformed line in compilation profile " + file + ": " + line);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            Log.println("Error reading compilation profile " + file + ": " + e);
+        }
+        synchronized (entries) {
+            entries.putAll(loaded);
+        }
+        if (VMOptions.verboseOption.verboseCompilation) {
+            Log.println("Loaded " + loaded.size() + " entries from compilation profile " + file);
+        }
+    }
+
+    /**
+     * Writes the profile to a temporary file in the directory of {@code file} and renames it over {@code file},
+     * so that VMs sharing the profile never read a partially written one.
+     */
+    static void save(File file) {
+        synchronized (entries) {
+            if (!dirty) {
+                return;
+            }
+            File tmp = null;
+            try {
+                tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+                final PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(tmp)));
+                try {
+                    writer.println(HEADER);
+                    for (Map.Entry<String, Long> e : entries.entrySet()) {
+                        writer.println(e.getKey() + " " + Long.toHexString(e.getValue()));
+                    }
+                } finally {
+                    writer.close();
+                }
+                if (writer.checkError()) {
+                    throw new IOException("write to " + tmp + " failed");
+                }
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("could not rename " + tmp + " to " + file);
+                }
+                tmp = null;
+            } catch (IOException e) {
+                Log.println("Error writing compilation profile " + file + ": " + e);
+            } finally {
+                if (tmp != null) {
+                    tmp.delete();
+                }
+            }
+        }
+    }
+}
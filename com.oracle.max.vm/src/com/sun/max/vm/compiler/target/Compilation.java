@@ -81,7 +81,7 @@ public class Compilation {
 
     /**
      * State of this compilation. If {@code true}, then this compilation has finished and the target
-     * method is available.
+     * method is available, unless the compilation was {@linkplain #abandon() abandoned}.
      */
     public boolean done;
 
@@ -143,7 +143,7 @@ public class Compilation {
     /**
      * Gets the result of this compilation, blocking if necessary.
      *
-     * @return the target method that resulted from this compilation
+     * @return the target method that resulted from this compilation, or {@code null} if the compilation was {@linkplain #abandon() abandoned}
      */
     public TargetMethod get() {
         synchronized (classMethodActor) {
@@ -166,11 +166,26 @@ public class Compilation {
             if (interrupted) {
                 Thread.currentThread().interrupt();
             }
-            assert result != null;
             return result;
         }
     }
 
+    /**
+     * Abandons this compilation after it failed. The compiled state of the method is restored to the one this
+     * compilation started from, unless another compilation has replaced it since, and the threads waiting for
+     * the result of this compilation are woken up. Must be called by the compiling thread.
+     */
+    public void abandon() {
+        assert compilingThread == Thread.currentThread() && result == null;
+        synchronized (classMethodActor) {
+            if (classMethodActor.compiledState == this) {
+                classMethodActor.compiledState = prevCompilations;
+            }
+            done = true;
+            classMethodActor.notifyAll();
+        }
+    }
+
     /**
      * Gets the result of this compilation, blocking for a maximum amount of time.
      *
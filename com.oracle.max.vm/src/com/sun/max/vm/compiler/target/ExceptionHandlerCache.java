@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.compiler.target;
+
+import com.sun.max.annotate.*;
+import com.sun.max.vm.actor.holder.*;
+
+/**
+ * A small direct-mapped cache of exception handler lookups for a target method. It maps a pair
+ * (exception position, exception class) to the index of the matching entry in the target method's
+ * exception handler table (or to {@link #NO_HANDLER} if no entry matches).
+ * <p>
+ * The cache is used while unwinding the stack, where allocation is not permitted. Each entry is
+ * therefore encoded in a single {@code long} so that entries can be read and written by multiple threads
+ * without locking and without ever observing a partially written entry. The layout of an entry is:
+ * <pre>
+ *   63                  40 39                20 19                 0
+ *  +----------------------+--------------------+--------------------+
+ *  |  exception class id  |   exception pos    |  handler index + 2 |
+ *  +----------------------+--------------------+--------------------+
+ * </pre>
+ * A lookup whose values do not fit this layout is simply not cached. A zero entry is empty.
+ */
+public final class ExceptionHandlerCache {
+
+    /**
+     * Result of {@link #lookup} when the exception position is not covered by a handler for the exception class.
+     */
+    public static final int NO_HANDLER = -1;
+
+    /**
+     * Result of {@link #lookup} when there is no cache entry for the exception position and class.
+     */
+    public static final int NOT_CACHED = -2;
+
+    private static final int SIZE = 8;
+    private static final int FIELD_BITS = 20;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+    private static final int ID_BITS = 64 - 2 * FIELD_BITS;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private final long[] entries = new long[SIZE];
+
+    @INLINE
+    private static int indexFor(int pos, int id) {
+        return (pos ^ (pos >>> 4) ^ (id * 31)) & (SIZE - 1);
+    }
+
+    /**
+     * Looks up the handler for an exception.
+     *
+     * @param pos the code position at which the exception occurred
+     * @param exceptionClass the exact class of the exception
+     * @return the index of the handler table entry, {@link #NO_HANDLER} or {@link #NOT_CACHED}
+     */
+    public int lookup(int pos, ClassActor exceptionClass) {
+        return lookup(pos, exceptionClass.id);
+    }
+
+    /**
+     * Looks up the handler for an exception.
+     *
+     * @param pos the code position at which the exception occurred
+     * @param id the {@linkplain ClassActor#id identifier} of the exact class of the exception
+     * @return the index of the handler table entry, {@link #NO_HANDLER} or {@link #NOT_CACHED}
+     */
+    public int lookup(int pos, int id) {
+        final long entry = entries[indexFor(pos, id)];
+        if (entry != 0 && (entry >>> (2 * FIELD_BITS)) == id && ((int) (entry >>> FIELD_BITS) & FIELD_MASK) == pos) {
+            return ((int) entry & FIELD_MASK) - 2;
+        }
+        return NOT_CACHED;
+    }
+
+    /**
+     * Records the result of a handler lookup.
+     *
+     * @param pos the code position at which the exception occurred
+     * @param exceptionClass the exact class of the exception
+     * @param handlerIndex the index of the matching handler table entry or {@link #NO_HANDLER}
+     */
+    public void record(int pos, ClassActor exceptionClass, int handlerIndex) {
+        record(pos, exceptionClass.id, handlerIndex);
+    }
+
+    /**
+     * Records the result of a handler lookup.
+     *
+     * @param pos the code position at which the exception occurred
+     * @param id the {@linkplain ClassActor#id identifier} of the exact class of the exception
+     * @param handlerIndex the index of the matching handler table entry or {@link #NO_HANDLER}
+     */
+    public void record(int pos, int id, int handlerIndex) {
+        final int value = handlerIndex + 2;
+        if (id < 0 || id > ID_MASK || pos < 0 || pos > FIELD_MASK || value > FIELD_MASK) {
+            return;
+        }
+        entries[indexFor(pos, id)] = ((long) id << (2 * FIELD_BITS)) | ((long) pos << FIELD_BITS) | value;
+    }
+
+    /**
+     * Removes all entries from this cache.
+     */
+    public void invalidate() {
+        for (int i = 0; i < SIZE; i++) {
+            entries[i] = 0L;
+        }
+    }
+}
@@ -145,6 +145,18 @@ public final class Safepoints {
 
     private final int[] safepoints;
 
+    /**
+     * The result of the last {@link #indexOf(int)} lookup, with the code position in the high 32 bits
+     * and the safepoint index in the low 32 bits. Walking a deep or recursive stack repeatedly looks up the
+     * same few call sites. The reference map at the safepoint is then read directly by index from the target
+     * method, so no further per-frame cache is kept.
+     * <p>
+     * Any number of threads may race to update this entry. This is safe as each thread writes a pair computed from the
+     * immutable {@link #safepoints} array, and both values are held in a single volatile {@code long} so that a reader
+     * never sees the position of one pair with the index of another.
+     */
+    private volatile long lastLookup = -1L;
+
     public static final Safepoints NO_SAFEPOINTS = new Safepoints();
 
     /**
@@ -258,6 +270,16 @@ public final class Safepoints {
      *         such safepoint exists
      */
     public int indexOf(int pos) {
+        final long last = lastLookup;
+        if ((int) (last >>> 32) == pos) {
+            return (int) last;
+        }
+        final int index = search(pos);
+        lastLookup = ((long) pos << 32) | (index & 0xFFFFFFFFL);
+        return index;
+    }
+
+    private int search(int pos) {
         // Use binary search since safepoints are sorted by position
         int left = 0;
         int right = safepoints.length;
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.heap;
+
+import static com.sun.max.vm.intrinsics.Infopoints.*;
+import static com.sun.max.vm.runtime.VMRegister.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.compiler.target.*;
+import com.sun.max.vm.runtime.*;
+import com.sun.max.vm.stack.*;
+import com.sun.max.vm.thread.*;
+import com.sun.max.vm.thread.VmThreadLocal.Nature;
+
+/**
+ * A low overhead sampler of allocation sites. Each time a thread has allocated another
+ * {@code -XX:AllocationSampleInterval} bytes, the next trip through the allocation slow path (i.e. a TLAB refill
+ * or an allocation outside of a TLAB) records the top frames of the thread's stack, starting with the first
+ * frame that is not VM code. The bytes allocated since the thread's previous sample are attributed to that site.
+ * <p>
+ * Samples are taken while an uninitialized cell is live and so no allocation can be performed. Sites are
+ * therefore aggregated in fixed size tables keyed by the raw {@linkplain TargetMethod target method} and code position
+ * of each frame. The sites are mapped to source positions and printed, ordered by allocated bytes, at VM exit.
+ * A sample is dropped if another thread is recording a sample at the same time or if the tables are full.
+ */
+public final class AllocationSampler {
+
+    private static Size AllocationSampleInterval = Size.zero();
+    private static int AllocationSampleDepth = 4;
+    static {
+        VMOptions.addFieldOption("-XX:", "AllocationSampleInterval", AllocationSampler.class,
+            "Record the allocation site every time a thread has allocated this many bytes (0 disables sampling). " +
+            "The allocation sites are printed at VM exit.", MaxineVM.Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "AllocationSampleDepth", AllocationSampler.class,
+            "The number of frames recorded for an allocation site.", MaxineVM.Phase.PRISTINE);
+    }
+
+    /**
+     * Thread-local holding the {@linkplain HeapSchemeWithTLAB#allocatedBytes(Pointer) allocated bytes} count at which
+     * the thread takes its next sample.
+     */
+    private static final VmThreadLocal NEXT_ALLOCATION_SAMPLE
+        = new VmThreadLocal("NEXT_ALLOCATION_SAMPLE", false, "AllocationSampler: allocated bytes at which to take next allocation sample", Nature.Single);
+
+    /**
+     * Maximum number of distinct allocation sites. Must be a power of 2.
+     */
+    private static final int MAX_SITES = 4096;
+
+    private static int depth;
+    private static long interval;
+
+    /**
+     * The frames of each site. The frames of site {@code s} are at indexes {@code [s * depth .. (s + 1) * depth)}
+     * of {@link #siteMethods} and {@link #sitePositions}. A site with fewer frames is terminated by a {@code null} method.
+     */
+    private static TargetMethod[] siteMethods;
+    private static int[] sitePositions;
+    private static long[] siteBytes;
+    private static int[] siteSamples;
+    private static int[] siteHashes;
+
+    private static int droppedSamples;
+
+    /**
+     * Guards the tables, {@link #visitor} and {@link #walker}. Samples are dropped rather than waiting for this lock.
+     */
+    private static final AtomicBoolean lock = new AtomicBoolean();
+
+    private static final SiteVisitor visitor = new SiteVisitor();
+
+    /**
+     * The walker used for all samples. The walkers of the sampled thread cannot be used as the thread may be in
+     * the middle of a walk with one of them (e.g. dumping or inspecting its stack) when it allocates.
+     */
+    private static VmStackFrameWalker walker;
+
+    private AllocationSampler() {
+    }
+
+    /**
+     * Scratch space for the frames of the sample being taken.
+     */
+    static final class SiteVisitor extends RawStackFrameVisitor {
+        TargetMethod[] methods;
+        int[] positions;
+        int count;
+        int hash;
+
+        @Override
+        public boolean visitFrame(StackFrameCursor current, StackFrameCursor callee) {
+            final TargetMethod tm = current.targetMethod();
+            if (tm == null || tm.classMethodActor == null) {
+                // native code, stubs, adapters etc
+                return true;
+            }
+            if (count == 0 && isVmMethod(tm.classMethodActor)) {
+                // skip the allocation path through the VM
+                return true;
+            }
+            final int pos = tm.posFor(current.vmIP());
+            methods[count] = tm;
+            positions[count] = pos;
+            hash = hash * 31 + tm.classMethodActor.holder().id * 17 + tm.classMethodActor.memberIndex() * 7 + pos;
+            count++;
+            return count < depth;
+        }
+
+        void reset() {
+            for (int i = 0; i < count; i++) {
+                methods[i] = null;
+            }
+            count = 0;
+            hash = 0;
+        }
+    }
+
+    private static boolean isVmMethod(ClassMethodActor method) {
+        return method.holder().typeDescriptor.string.startsWith("Lcom/sun/max/");
+    }
+
+    /**
+     * Determines if allocation sampling is enabled.
+     */
+    @INLINE
+    public static boolean isEnabled() {
+        return siteMethods != null;
+    }
+
+    /**
+     * Allocates the tables if sampling was requested. This must be called once allocation is possible.
+     */
+    static void initialize() {
+        if (AllocationSampleInterval.isZero() || AllocationSampleDepth <= 0) {
+            return;
+        }
+        depth = AllocationSampleDepth;
+        interval = AllocationSampleInterval.toLong();
+        visitor.methods = new TargetMethod[depth];
+        visitor.positions = new int[depth];
+        walker = new VmStackFrameWalker(Pointer.zero());
+        sitePositions = new int[MAX_SITES * depth];
+        siteBytes = new long[MAX_SITES];
+        siteSamples = new int[MAX_SITES];
+        siteHashes = new int[MAX_SITES];
+        siteMethods = new TargetMethod[MAX_SITES * depth];
+    }
+
+    /**
+     * Takes a sample for the current thread if it has allocated at least {@link #AllocationSampleInterval} bytes since
+     * its last sample. This must not allocate as it is called from the allocation slow path. It is called after
+     * the cell being allocated has been carved out but before it is initialized, so safepoints are
+     * {@linkplain SafepointPoll#disable() disabled} while walking the stack: a GC must not see the uninitialized cell.
+     *
+     * @param etla the thread locals of the current thread
+     * @param allocatedBytes the {@linkplain HeapSchemeWithTLAB#allocatedBytes(Pointer) total bytes} allocated by the current thread
+     * @param size the size of the allocation being performed
+     */
+    @NEVER_INLINE
+    @NO_SAFEPOINT_POLLS("object allocation and initialization must be atomic")
+    public static void sample(Pointer etla, long allocatedBytes, Size size) {
+        final long next = NEXT_ALLOCATION_SAMPLE.load(etla).asAddress().toLong();
+        if (allocatedBytes < next) {
+            return;
+        }
+        NEXT_ALLOCATION_SAMPLE.store(etla, Address.fromLong(allocatedBytes + interval));
+        final long bytes = next == 0 ? allocatedBytes : allocatedBytes - next + interval;
+        if (!lock.compareAndSet(false, true)) {
+            droppedSamples++;
+            return;
+        }
+        final boolean wasDisabled = SafepointPoll.disable();
+        try {
+            visitor.reset();
+            walker.setTLA(etla);
+            walker.inspect(Pointer.fromLong(here()), getCpuStackPointer(), getCpuFramePointer(), visitor);
+            if (visitor.count != 0) {
+                record(bytes);
+            }
+        } finally {
+            lock.set(false);
+            if (!wasDisabled) {
+                SafepointPoll.enable();
+            }
+        }
+    }
+
+    private static void record(long bytes) {
+        final int hash = visitor.hash;
+        int site = hash & (MAX_SITES - 1);
+        for (int probe = 0; probe < MAX_SITES; probe++) {
+            if (siteSamples[site] == 0) {
+                // new site
+                final int base = site * depth;
+                for (int i = 0; i < visitor.count; i++) {
+                    siteMethods[base + i] = visitor.methods[i];
+                    sitePositions[base + i] = visitor.positions[i];
+                }
+                siteHashes[site] = hash;
+                siteBytes[site] = bytes;
+                siteSamples[site] = 1;
+                return;
+            }
+            if (siteHashes[site] == hash && matches(site)) {
+                siteBytes[site] += bytes;
+                siteSamples[site]++;
+                return;
+            }
+            site = (site + 1) & (MAX_SITES - 1);
+        }
+        droppedSamples++;
+    }
+
+    private static boolean matches(int site) {
+        final int base = site * depth;
+        for (int i = 0; i < depth; i++) {
+            final TargetMethod tm = i < visitor.count ? visitor.methods[i] : null;
+            if (siteMethods[base + i] != tm) {
+                return false;
+            }
+            if (tm == null) {
+                return true;
+            }
+            if (sitePositions[base + i] != visitor.positions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prints the recorded allocation sites to the {@link Log} stream, ordered by the bytes attributed to them.
+     */
+    static void print() {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.set(true);
+        final ArrayList<Integer> sites = new ArrayList<Integer>();
+        long totalBytes = 0;
+        for (int site = 0; site < MAX_SITES; site++) {
+            if (siteSamples[site] != 0) {
+                sites.add(site);
+                totalBytes += siteBytes[site];
+            }
+        }
+        Collections.sort(sites, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                final long diff = siteBytes[b] - siteBytes[a];
+                return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+            }
+        });
+        Log.println();
+        Log.print("Allocation sites (");
+        Log.print(sites.size());
+        Log.print(" sites, ");
+        Log.print(totalBytes);
+        Log.print(" sampled bytes, ");
+        Log.print(droppedSamples);
+        Log.println(" dropped samples):");
+        for (int site : sites) {
+            Log.print(siteBytes[site]);
+            Log.print(" bytes (");
+            Log.print(siteBytes[site] * 100 / Math.max(totalBytes, 1));
+            Log.print("%), ");
+            Log.print(siteSamples[site]);
+            Log.println(" samples");
+            final int base = site * depth;
+            for (int i = 0; i < depth && siteMethods[base + i] != null; i++) {
+                final TargetMethod tm = siteMethods[base + i];
+                final int pos = sitePositions[base + i];
+                final int count = tm.forEachCodePos(new TargetMethod.CodePosClosure() {
+                    public boolean doCodePos(ClassMethodActor method, int bci) {
+                        Log.println("\tat " + method.original().toStackTraceElement(bci));
+                        return true;
+                    }
+                }, tm.codeAt(pos));
+                if (count == 0) {
+                    Log.print("\tat ");
+                    Log.printMethod(tm, false);
+                    Log.print("+");
+                    Log.println(pos);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.heap;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+
+/**
+ * Continuously accumulated GC and safepoint metrics, enabled with {@code -XX:+CollectGCMetrics}.
+ * <p>
+ * Times are accumulated in {@linkplain Histogram histograms} with power of 2 nanosecond buckets. The histograms
+ * are preallocated, and those keyed by VM operation are taken from a fixed size table, so that recording never
+ * allocates. Apart from {@link #countTLABRefill()}, metrics are only recorded by the VM operation thread
+ * while mutator threads are frozen, and so need no synchronization.
+ * <p>
+ * The metrics are available through {@link com.sun.max.vm.management.MemoryManagement#getGCMetrics()}.
+ * With {@code -XX:GCMetricsDumpInterval=<ms>} a daemon thread also appends a
+ * {@linkplain #dump(DataOutputStream) binary snapshot} to {@code -XX:GCMetricsDumpFile} at that interval.
+ */
+public final class GCMetrics {
+
+    private static boolean CollectGCMetrics;
+    private static int GCMetricsDumpInterval;
+    private static String GCMetricsDumpFile = "maxvm.gcmetrics";
+    static {
+        VMOptions.addFieldOption("-XX:", "CollectGCMetrics", GCMetrics.class,
+            "Accumulate histograms of safepoint synchronization and GC phase times.", MaxineVM.Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "GCMetricsDumpInterval", GCMetrics.class,
+            "Interval (ms) at which a binary snapshot of the GC metrics is appended to GCMetricsDumpFile (0 disables dumping). " +
+            "Implies -XX:+CollectGCMetrics.", MaxineVM.Phase.STARTING);
+        VMOptions.addFieldOption("-XX:", "GCMetricsDumpFile", GCMetrics.class,
+            "File to which GC metrics snapshots are written.", MaxineVM.Phase.STARTING);
+    }
+
+    public static final int MAGIC = 0x4743544D; // "GCTM"
+    public static final int VERSION = 1;
+
+    /**
+     * A histogram of durations (or sizes) with buckets for each power of 2.
+     * Bucket {@code i} counts the values {@code v} with {@code 2^i <= v < 2^(i+1)}, bucket 0 also counts zero.
+     */
+    public static final class Histogram {
+        public static final int BUCKETS = 64;
+
+        private String name;
+        private final long[] buckets = new long[BUCKETS];
+        private long count;
+        private long total;
+        private long max;
+
+        Histogram(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        @INLINE
+        public void record(long value) {
+            final int bucket = value <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(value);
+            buckets[bucket]++;
+            count++;
+            total += value;
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long total() {
+            return total;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public long[] buckets() {
+            return buckets.clone();
+        }
+    }
+
+    /**
+     * Maximum number of histograms. The table is sized for the GC phases plus a generous number of VM operation types;
+     * operations beyond that are not recorded.
+     */
+    private static final int MAX_HISTOGRAMS = 64;
+
+    private static final Histogram[] histograms = new Histogram[MAX_HISTOGRAMS];
+    private static int histogramCount;
+
+    /**
+     * The VM operation class for each histogram of safepoint synchronization times, {@code null} for other histograms.
+     */
+    private static final ClassActor[] operationClasses = new ClassActor[MAX_HISTOGRAMS];
+
+    /**
+     * Spare histograms for the VM operation types, created at image build time.
+     */
+    private static final Histogram[] spareHistograms = new Histogram[MAX_HISTOGRAMS];
+    static {
+        for (int i = 0; i < MAX_HISTOGRAMS; i++) {
+            spareHistograms[i] = new Histogram(null);
+        }
+    }
+
+    public static final Histogram pauseTimes = registerHistogram("GC pause");
+
+    private static long promotedBytes;
+    private static long evacuatedBytes;
+    private static long cardsScanned;
+    private static final AtomicLong tlabRefills = new AtomicLong();
+
+    private GCMetrics() {
+    }
+
+    /**
+     * Registers a histogram. This should only be called during image building, typically from a static initializer.
+     */
+    public static synchronized Histogram registerHistogram(String name) {
+        final Histogram histogram = new Histogram(name);
+        histograms[histogramCount++] = histogram;
+        return histogram;
+    }
+
+    @INLINE
+    public static boolean isEnabled() {
+        return CollectGCMetrics;
+    }
+
+    /**
+     * Records the time taken to bring the threads targeted by a VM operation to a safepoint.
+     *
+     * @param operationClass the class of the VM operation
+     * @param nanos the time from requesting the threads to freeze until they were all frozen
+     */
+    public static void recordSafepointSync(ClassActor operationClass, long nanos) {
+        for (int i = 0; i < histogramCount; i++) {
+            if (operationClasses[i] == operationClass) {
+                histograms[i].record(nanos);
+                return;
+            }
+        }
+        if (histogramCount < MAX_HISTOGRAMS) {
+            final Histogram histogram = spareHistograms[histogramCount];
+            histogram.name = operationClass.name.string;
+            operationClasses[histogramCount] = operationClass;
+            histograms[histogramCount] = histogram;
+            histogramCount++;
+            histogram.record(nanos);
+        }
+    }
+
+    public static void recordEvacuation(Size promoted, Size evacuated) {
+        promotedBytes += promoted.toLong();
+        evacuatedBytes += evacuated.toLong();
+    }
+
+    @INLINE
+    public static void countCardsScanned(int cards) {
+        cardsScanned += cards;
+    }
+
+    public static void countTLABRefill() {
+        tlabRefills.incrementAndGet();
+    }
+
+    public static long promotedBytes() {
+        return promotedBytes;
+    }
+
+    public static long evacuatedBytes() {
+        return evacuatedBytes;
+    }
+
+    public static long cardsScanned() {
+        return cardsScanned;
+    }
+
+    public static long tlabRefills() {
+        return tlabRefills.get();
+    }
+
+    /**
+     * Gets the histograms that have been registered or created so far.
+     */
+    public static Histogram[] histograms() {
+        return Arrays.copyOf(histograms, histogramCount);
+    }
+
+    /**
+     * Writes a snapshot of the metrics. The format is: {@link #MAGIC}, {@link #VERSION}, a timestamp
+     * ({@link System#currentTimeMillis()}), the promoted bytes, evacuated bytes, cards scanned and TLAB refill
+     * counters, the number of histograms and then each histogram as its name (UTF), count, total, max and
+     * {@link Histogram#BUCKETS} bucket counts.
+     */
+    public static void dump(DataOutputStream out) throws IOException {
+        final Histogram[] snapshot = histograms();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.writeLong(promotedBytes);
+        out.writeLong(evacuatedBytes);
+        out.writeLong(cardsScanned);
+        out.writeLong(tlabRefills());
+        out.writeInt(snapshot.length);
+        for (Histogram histogram : snapshot) {
+            out.writeUTF(histogram.name);
+            out.writeLong(histogram.count);
+            out.writeLong(histogram.total);
+            out.writeLong(histogram.max);
+            for (long bucket : histogram.buckets) {
+                out.writeLong(bucket);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Starts the dumping thread if {@code -XX:GCMetricsDumpInterval} was specified.
+     */
+    public static void startDumper() {
+        if (GCMetricsDumpInterval > 0) {
+            CollectGCMetrics = true;
+            new Dumper().start();
+        }
+    }
+
+    private static final class Dumper extends Thread {
+        Dumper() {
+            super("GCMetricsDumper");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(GCMetricsDumpFile)));
+                while (true) {
+                    Thread.sleep(GCMetricsDumpInterval);
+                    dump(out);
+                }
+            } catch (IOException e) {
+                Log.println("Error writing GC metrics to " + GCMetricsDumpFile + ": " + e);
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+}
@@ -390,7 +390,12 @@ public final class Heap {
         if (verbose()) {
             VmThread.current().gcRequest.printBeforeGC();
         }
-        final boolean result = heapScheme().collectGarbage();
+        boolean result = heapScheme().collectGarbage();
+        if (!result && !VmThread.current().gcRequest.explicit) {
+            // Softly reachable objects must be reclaimed before giving up on the request
+            SpecialReferenceManager.clearAllSoftReferencesOnNextGC();
+            result = heapScheme().collectGarbage();
+        }
         if (verbose()) {
             VmThread.current().gcRequest.printAfterGC(result);
         }
@@ -513,8 +518,7 @@ public final class Heap {
     @INLINE
     public static boolean useDirectPointer(Object object) {
         HeapScheme heapScheme = heapScheme();
-        if (heapScheme.supportsPinning(PIN_SUPPORT_FLAG.CAN_NEST)) {
-            heapScheme.pin(object);
+        if (heapScheme.supportsPinning(PIN_SUPPORT_FLAG.CAN_NEST) && heapScheme.pin(object)) {
             return true;
         }
         if (OptimizeJNICritical) {
@@ -524,18 +528,29 @@ public final class Heap {
         return false;
     }
 
+    /**
+     * Releases an object for which {@link #useDirectPointer(Object)} was called.
+     *
+     * @param direct the value returned by {@link #useDirectPointer(Object)} for the object. This must be recorded by
+     *            the caller: an object that was not pinned may have moved since, so the outcome cannot be inferred
+     *            from the object's location.
+     * @return {@code direct}
+     */
     @INLINE
-    public static boolean releasedDirectPointer(Object object) {
+    public static boolean releasedDirectPointer(Object object, boolean direct) {
+        if (!direct) {
+            return false;
+        }
         HeapScheme heapScheme = VMConfiguration.vmConfig().heapScheme();
-        if (heapScheme.supportsPinning(PIN_SUPPORT_FLAG.CAN_NEST)) {
+        // A queryable heap scheme may have refused to pin the object, in which case GC was disabled instead.
+        // Neither a pinned object nor any object while GC is disabled can move, so its location tells which.
+        if (heapScheme.supportsPinning(PIN_SUPPORT_FLAG.CAN_NEST) &&
+                        (!heapScheme.supportsPinning(PIN_SUPPORT_FLAG.IS_QUERYABLE) || heapScheme.isPinned(object))) {
             heapScheme.unpin(object);
-            return true;
-        }
-        if (OptimizeJNICritical) {
+        } else {
             enableGC();
-            return true;
         }
-        return false;
+        return true;
     }
 
     /**
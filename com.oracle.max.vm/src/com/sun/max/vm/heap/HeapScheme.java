@@ -406,6 +406,14 @@ public interface HeapScheme extends VMScheme {
      */
     boolean usesTLAB();
 
+    /**
+     * Gets the total number of bytes allocated in the heap by a given thread.
+     *
+     * @param vmThread a live thread
+     * @return the number of bytes allocated by {@code vmThread} or -1 if this heap scheme does not track allocation per thread
+     */
+    long threadAllocatedBytes(VmThread vmThread);
+
     /**
      * Object alignment required by the heap manager (in number of bytes).
      * @return number of bytes.
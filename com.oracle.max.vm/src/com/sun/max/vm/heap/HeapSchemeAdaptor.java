@@ -58,7 +58,7 @@ public abstract class HeapSchemeAdaptor extends AbstractVMScheme implements Heap
         VMOptions.addFieldOption("-XX:", "DisableExplicitGC", HeapSchemeAdaptor.class, "Tells whether System.gc() forces a full GC", MaxineVM.Phase.PRISTINE);
     }
 
-    public class GarbageCollectorMXBeanAdaptor extends MemoryManagerMXBeanAdaptor implements GarbageCollectorMXBean  {
+    public class GarbageCollectorMXBeanAdaptor extends MemoryManagerMXBeanAdaptor implements GarbageCollectorMXBean, GCMetricsAttributes  {
         public GarbageCollectorMXBeanAdaptor(String name) {
             super(name);
         }
@@ -75,6 +75,66 @@ public abstract class HeapSchemeAdaptor extends AbstractVMScheme implements Heap
             return accumulatedGCTime;
         }
 
+        public boolean isGCMetricsEnabled() {
+            return GCMetrics.isEnabled();
+        }
+
+        public long getPromotedBytes() {
+            return GCMetrics.promotedBytes();
+        }
+
+        public long getEvacuatedBytes() {
+            return GCMetrics.evacuatedBytes();
+        }
+
+        public long getCardsScanned() {
+            return GCMetrics.cardsScanned();
+        }
+
+        public long getTLABRefills() {
+            return GCMetrics.tlabRefills();
+        }
+
+        public String[] getHistogramNames() {
+            final GCMetrics.Histogram[] histograms = GCMetrics.histograms();
+            final String[] result = new String[histograms.length];
+            for (int i = 0; i < histograms.length; i++) {
+                result[i] = histograms[i].name();
+            }
+            return result;
+        }
+
+        public long[] getHistogramCounts() {
+            final GCMetrics.Histogram[] histograms = GCMetrics.histograms();
+            final long[] result = new long[histograms.length];
+            for (int i = 0; i < histograms.length; i++) {
+                result[i] = histograms[i].count();
+            }
+            return result;
+        }
+
+        public long[] getHistogramTotals() {
+            final GCMetrics.Histogram[] histograms = GCMetrics.histograms();
+            final long[] result = new long[histograms.length];
+            for (int i = 0; i < histograms.length; i++) {
+                result[i] = histograms[i].total();
+            }
+            return result;
+        }
+
+        public long[] getHistogramMaxima() {
+            final GCMetrics.Histogram[] histograms = GCMetrics.histograms();
+            final long[] result = new long[histograms.length];
+            for (int i = 0; i < histograms.length; i++) {
+                result[i] = histograms[i].max();
+            }
+            return result;
+        }
+
+        public long[] getHistogramBuckets(int index) {
+            return GCMetrics.histograms()[index].buckets();
+        }
+
         @Override
         public ObjectName getObjectName() {
             try {
@@ -259,6 +319,10 @@ public abstract class HeapSchemeAdaptor extends AbstractVMScheme implements Heap
         // nothing by default
     }
 
+    public long threadAllocatedBytes(VmThread vmThread) {
+        return -1L;
+    }
+
     @INLINE
     public boolean usesTLAB() {
         return false;
@@ -137,6 +137,80 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
     private static final VmThreadLocal ALLOCATION_DISABLED
         = new VmThreadLocal(TLAB_DISABLED_THREAD_LOCAL_NAME, false, "HeapSchemeWithTLAB: disables per thread allocation if non-zero");
 
+    /**
+     * Thread-local variable holding the start of the current TLAB, zero if there is none. The bytes allocated
+     * from the current TLAB are those between this address and {@link #TLAB_MARK}.
+     */
+    private static final VmThreadLocal TLAB_START
+        = new VmThreadLocal("TLAB_START", false, "HeapSchemeWithTLAB: start of current TLAB, zero if not used", Nature.Single);
+
+    /**
+     * Thread-local count of the bytes allocated by a thread in retired TLABs and outside of TLABs.
+     *
+     * @see #allocatedBytes(Pointer)
+     */
+    private static final VmThreadLocal ALLOCATED_BYTES
+        = new VmThreadLocal("ALLOCATED_BYTES", false, "HeapSchemeWithTLAB: bytes allocated in retired TLABs and outside TLABs", Nature.Single);
+
+    /**
+     * Adds the bytes allocated from a TLAB that is being retired to the {@linkplain #ALLOCATED_BYTES allocation count}
+     * of a thread.
+     *
+     * @param etla the thread locals of the thread
+     * @param allocationMark the final allocation mark of the TLAB
+     */
+    @INLINE
+    public static void retireTLAB(Pointer etla, Pointer allocationMark) {
+        final Pointer tlabStart = TLAB_START.load(etla);
+        if (!tlabStart.isZero() && allocationMark.greaterEqual(tlabStart)) {
+            ALLOCATED_BYTES.store(etla, ALLOCATED_BYTES.load(etla).asAddress().plus(allocationMark.minus(tlabStart)));
+        }
+        TLAB_START.store(etla, Address.zero());
+    }
+
+    /**
+     * Records the start of a thread's new TLAB, from which bytes are counted until the TLAB is {@linkplain #retireTLAB retired}.
+     *
+     * @param etla the thread locals of the thread
+     * @param tlab the start of the new TLAB
+     */
+    @INLINE
+    public static void startTLAB(Pointer etla, Pointer tlab) {
+        TLAB_START.store(etla, tlab);
+    }
+
+    /**
+     * Adds a cell allocated by the slow path to the {@linkplain #ALLOCATED_BYTES allocation count} of a thread
+     * if it was not allocated from the thread's current TLAB, whose bytes are counted when it is retired.
+     *
+     * @param etla the thread locals of the thread
+     * @param cell the allocated cell
+     * @param size the size of the cell
+     */
+    @INLINE
+    public static void countSlowPathAllocation(Pointer etla, Pointer cell, Size size) {
+        if (cell.lessThan(TLAB_START.load(etla)) || cell.greaterEqual(TLAB_MARK.load(etla))) {
+            // The cell was allocated outside of the current TLAB
+            ALLOCATED_BYTES.store(etla, ALLOCATED_BYTES.load(etla).asAddress().plus(size));
+        }
+    }
+
+    /**
+     * Gets the total number of bytes allocated in the heap by a thread. The value is approximate when
+     * read for a thread other than the current one, as that thread may be allocating concurrently.
+     *
+     * @param etla the thread locals of the thread
+     */
+    public static long allocatedBytes(Pointer etla) {
+        long allocated = ALLOCATED_BYTES.load(etla).asAddress().toLong();
+        final Pointer tlabStart = TLAB_START.load(etla);
+        final Pointer allocationMark = TLAB_MARK.load(etla);
+        if (!tlabStart.isZero() && allocationMark.greaterEqual(tlabStart)) {
+            allocated += allocationMark.minus(tlabStart).toLong();
+        }
+        return allocated;
+    }
+
     /**
      * A procedure for resetting the TLAB of a thread.
      */
@@ -171,6 +245,7 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
                 }
             }
             doBeforeReset(etla, tlabMark, tlabTop);
+            retireTLAB(etla, tlabMark);
             TLAB_TOP.store(etla, Address.zero());
             TLAB_MARK.store(etla, Address.zero());
         }
@@ -262,10 +337,13 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
             if (initialTlabSize.lessThan(0)) {
                 FatalError.unexpected("Specified TLAB size is too small");
             }
+        } else if (phase == MaxineVM.Phase.STARTING) {
+            AllocationSampler.initialize();
         } else if (phase == MaxineVM.Phase.TERMINATING) {
             if (PrintTLABStats) {
                 globalTlabStats.printTLABStats();
             }
+            AllocationSampler.print();
         }
     }
 
@@ -350,13 +428,18 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
             globalTlabStats.leftover += oldTop.minus(allocationMark).toLong();
             // It is a refill, not an initial fill. So invoke handler.
             doBeforeTLABRefill(allocationMark, oldTop);
+            retireTLAB(etla, allocationMark);
         } else {
             ProgramError.check(CUSTOM_ALLOCATION_ENABLED.load(etla).isZero(),
                 "Must not refill TLAB when in custom allocator is set");
         }
 
+        startTLAB(etla, tlab);
         TLAB_TOP.store(etla, tlabTop);
         TLAB_MARK.store(etla, tlab);
+        if (GCMetrics.isEnabled()) {
+            GCMetrics.countTLABRefill();
+        }
         if (logTLAB()) {
             VmThread vmThread = UnsafeCast.asVmThread(VM_THREAD.loadRef(etla).toJava());
             logger.logRefill(vmThread, tlabTop, tlabTop, tlab.plus(initialTlabSize), initialTlabSize.toInt());
@@ -365,8 +448,13 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
 
     @INLINE
     protected final void fastRefillTLAB(Pointer etla, Pointer tlab, Size size) {
+        retireTLAB(etla, TLAB_MARK.load(etla));
+        startTLAB(etla, tlab);
         TLAB_TOP.store(etla, tlab.plus(size));
         TLAB_MARK.store(etla, tlab);
+        if (GCMetrics.isEnabled()) {
+            GCMetrics.countTLABRefill();
+        }
     }
 
     /**
@@ -458,7 +546,17 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
         }
         globalTlabStats.tlabOverflowCount++;
         // This path will always be taken if TLAB allocation is not enabled.
-        return handleTLABOverflow(size, etla, oldAllocationMark, tlabEnd);
+        final Pointer cell = handleTLABOverflow(size, etla, oldAllocationMark, tlabEnd);
+        countSlowPathAllocation(etla, cell, size);
+        if (AllocationSampler.isEnabled()) {
+            AllocationSampler.sample(etla, allocatedBytes(etla), size);
+        }
+        return cell;
+    }
+
+    @Override
+    public long threadAllocatedBytes(VmThread vmThread) {
+        return allocatedBytes(ETLA.load(vmThread.tla()));
     }
 
     @NEVER_INLINE
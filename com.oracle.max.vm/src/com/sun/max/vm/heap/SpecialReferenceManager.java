@@ -198,9 +198,74 @@ public class SpecialReferenceManager {
         }
     }
 
+    /**
+     * An alias type for accessing the fields in java.lang.ref.SoftReference without having to use reflection.
+     */
+    static class JLRSRAlias {
+        /**
+         * The value of {@link SpecialReferenceManager#clock} when the soft reference was created or last
+         * {@linkplain java.lang.ref.SoftReference#get() accessed}.
+         */
+        @ALIAS(declaringClass = java.lang.ref.SoftReference.class)
+        long timestamp;
+    }
+
     @INTRINSIC(UNSAFE_CAST)
     public static native JLRRAlias asJLRRAlias(Object o);
 
+    @INTRINSIC(UNSAFE_CAST)
+    static native JLRSRAlias asJLRSRAlias(Object o);
+
+    /**
+     * The number of milliseconds a soft reference is kept alive after its last access, per free megabyte in the heap.
+     */
+    private static int SoftRefLRUPolicyMSPerMB = 1000;
+    static {
+        VMOptions.addFieldOption("-XX:", "SoftRefLRUPolicyMSPerMB", SpecialReferenceManager.class,
+            "Number of milliseconds per MB of free heap that a softly reachable object is kept alive after it was last accessed.");
+    }
+
+    /**
+     * The maximum time (in milliseconds) since its last access for which a softly reachable referent is preserved.
+     * This is derived from the free space in the heap at the end of the last GC.
+     */
+    private static long softReferenceMaxInterval;
+
+    /**
+     * Forces the next GC to clear all softly reachable referents, regardless of when they were last accessed.
+     */
+    private static boolean clearAllSoftReferences;
+
+    /**
+     * Requests that the next GC clear all softly reachable referents. This must be done before
+     * an {@link OutOfMemoryError} is thrown.
+     */
+    public static void clearAllSoftReferencesOnNextGC() {
+        clearAllSoftReferences = true;
+    }
+
+    /**
+     * Determines if the referent of a soft reference whose referent is not otherwise reachable should be cleared.
+     * This implements a least recently used policy: a soft reference that was accessed within the last
+     * {@link #softReferenceMaxInterval} milliseconds has its referent preserved.
+     */
+    private static boolean isSoftReferenceExpired(java.lang.ref.Reference ref) {
+        if (clearAllSoftReferences) {
+            return true;
+        }
+        return clock - asJLRSRAlias(ref).timestamp > softReferenceMaxInterval;
+    }
+
+    /**
+     * Advances the soft reference {@linkplain #clock clock} and recomputes the soft reference retention interval
+     * based on the current free heap space. This must be called at the end of every garbage collection.
+     */
+    public static void updateSoftReferencePolicy() {
+        clock = System.currentTimeMillis();
+        softReferenceMaxInterval = (Heap.reportFreeSpace() >> 20) * SoftRefLRUPolicyMSPerMB;
+        clearAllSoftReferences = false;
+    }
+
     @INTRINSIC(UNSAFE_CAST)
     public static native java.lang.ref.Reference asJLRR(Object o);
 
@@ -239,6 +304,39 @@ public class SpecialReferenceManager {
         }
     }
 
+    /**
+     * Preserves the referents of the discovered soft references that have not {@linkplain #isSoftReferenceExpired
+     * expired}, along with everything reachable from them. This is done before any weak reference is cleared or any
+     * final or phantom reference is enqueued, as an object that is softly reachable is neither weakly, finalizer nor
+     * phantom reachable, wherever its references appear in the discovered list. References discovered while
+     * preserving are processed in turn. The discovered list itself is left intact.
+     *
+     * @param gc interface to the GC implementation
+     */
+    private static void preserveSoftReferents(GC gc) {
+        java.lang.ref.Reference head = discoveredList;
+        java.lang.ref.Reference end = sentinel;
+        do {
+            for (java.lang.ref.Reference ref = head; ref != end; ref = asJLRRAlias(ref).discovered) {
+                if (ref instanceof java.lang.ref.SoftReference) {
+                    final JLRRAlias refAlias = asJLRRAlias(ref);
+                    final Reference referent = Reference.fromJava(refAlias.referent);
+                    if (!referent.isZero() && !gc.isReachable(referent) && !isSoftReferenceExpired(ref)) {
+                        // The soft reference was accessed recently: keep its referent alive for now.
+                        // The following line MUST run the mutator write barrier
+                        refAlias.referent = gc.preserve(referent).toJava();
+                    }
+                }
+            }
+            if (head == discoveredList) {
+                // No further special references were discovered
+                break;
+            }
+            end = head;
+            head = discoveredList;
+        } while (true);
+    }
+
     /**
      * Processes the special reference objects that were {@linkplain #discoverSpecialReference(Pointer) discovered}
      * during heap scanning.
@@ -252,8 +350,6 @@ public class SpecialReferenceManager {
      * @param gc interface to the GC implementation
      */
     public static void processDiscoveredSpecialReferences(GC gc) {
-        java.lang.ref.Reference head = discoveredList;
-        java.lang.ref.Reference end = sentinel;
         final boolean updateReachableReferent = gc.mayRelocateLiveObjects();
 
         if (specialReferenceLogger.enabled()) {
@@ -262,6 +358,11 @@ public class SpecialReferenceManager {
                             Reference.fromJava(JDK_java_lang_ref_ReferenceQueue.ENQUEUED).toOrigin());
         }
 
+        preserveSoftReferents(gc);
+
+        java.lang.ref.Reference head = discoveredList;
+        java.lang.ref.Reference end = sentinel;
+
         // Process the discovered list until it is empty (new elements may be
         // prepended while processing).
         do {
@@ -277,7 +378,13 @@ public class SpecialReferenceManager {
                     // Do not add 'ref' to the pending list as weak references
                     // with already null referents are not added to ReferenceQueues
                 } else if (!gc.isReachable(referent)) {
-                    if (refAlias.queue == null) {
+                    if (ref instanceof java.lang.ref.SoftReference && !isSoftReferenceExpired(ref)) {
+                        // Only a soft reference discovered while preserving the referent of a final
+                        // reference below gets here, all others were handled by preserveSoftReferents().
+                        // The following line MUST run the mutator write barrier
+                        refAlias.referent = gc.preserve(referent).toJava();
+                        preserved = true;
+                    } else if (refAlias.queue == null) {
                         // This can only occur if there is a GC in the constructor for java.lang.ref.Reference
                         // between the initialization of 'referent' and 'queue'.
                         Log.println("WARNING: cannot add weak reference with null 'queue' field to pending list");
@@ -339,6 +446,37 @@ public class SpecialReferenceManager {
             end = head;
             head = discoveredList;
         } while (true);
+
+        for (int i = 0; i < weakTableCount; i++) {
+            weakTables[i].processWeakEntries(gc);
+        }
+    }
+
+    /**
+     * A table that refers to objects weakly without the cost of a {@link java.lang.ref.WeakReference} per object,
+     * typically by keying entries with the object's address. The GC calls {@link #processWeakEntries} on each
+     * {@linkplain #registerWeakTable registered} table after it has processed the discovered special references.
+     */
+    public interface WeakTable {
+        /**
+         * Removes the entries for objects that are not {@linkplain GC#isReachable reachable} and, if the
+         * GC {@linkplain GC#mayRelocateLiveObjects() may relocate objects}, updates the remaining entries with the
+         * {@linkplain GC#preserve new location} of their objects. This must not allocate.
+         */
+        void processWeakEntries(GC gc);
+    }
+
+    private static final int MAX_WEAK_TABLES = 8;
+    private static final WeakTable[] weakTables = new WeakTable[MAX_WEAK_TABLES];
+    private static volatile int weakTableCount;
+
+    /**
+     * Registers a table whose entries are processed during every GC.
+     */
+    public static synchronized void registerWeakTable(WeakTable table) {
+        FatalError.check(weakTableCount < MAX_WEAK_TABLES, "too many weak tables");
+        weakTables[weakTableCount] = table;
+        weakTableCount++;
     }
 
     @ALIAS(declaringClassName = "java.lang.ref.Finalizer")
@@ -379,6 +517,7 @@ public class SpecialReferenceManager {
     public static void initialize(Phase phase) {
         if (phase == Phase.PRISTINE) {
             clock = System.currentTimeMillis();
+            softReferenceMaxInterval = (Heap.maxSizeLong() >> 20) * SoftRefLRUPolicyMSPerMB;
             discoveredList = sentinel;
             JLRRAlias sentinelAlias = asJLRRAlias(sentinel);
             sentinelAlias.discovered = sentinel;
@@ -28,7 +28,8 @@ import com.sun.max.vm.reference.*;
 import com.sun.max.vm.runtime.*;
 
 /**
- * Simple debug  utility class to atomically count pin/unpin requests and track unbalanced pinned requests.
+ * Simple utility class to atomically count pin/unpin requests and track unbalanced pinned requests.
+ * Used for debugging by non-moving heap schemes, and to pin the regions of a nursery (see {@link NoAgingRegionalizedNursery}).
  */
 public final class AtomicPinCounter {
     private volatile int pinnedCounter = 0;
@@ -38,6 +39,14 @@ public final class AtomicPinCounter {
         return ClassActor.fromJava(AtomicPinCounter.class).findLocalInstanceFieldActor("pinnedCounter").offset();
     }
 
+    /**
+     * Indicates whether there are outstanding pin requests.
+     */
+    @INLINE
+    public boolean isPinned() {
+        return pinnedCounter > 0;
+    }
+
     public void increment() {
         int newValue;
         int oldValue;
@@ -26,7 +26,11 @@ import com.sun.max.annotate.*;
 import com.sun.max.util.timer.*;
 import com.sun.max.vm.heap.*;
 
-
+/**
+ * Timers for the operations of an evacuation. Timing is enabled by {@link Heap#logGCTime()}, in which case the
+ * times are logged by the heap scheme, or by {@link GCMetrics#isEnabled()}, in which case each operation's
+ * time in nanoseconds is also added to its {@link GCMetrics.Histogram}.
+ */
 public final class EvacuationTimers {
     public enum TIMED_OPERATION {
         TOTAL,
@@ -40,6 +44,8 @@ public final class EvacuationTimers {
         WEAK_REF,
         EPILOGUE;
         public final TimerMetric timer = new TimerMetric(new SingleUseTimer(HeapScheme.GC_TIMING_CLOCK));
+        public final GCMetrics.Histogram histogram = GCMetrics.registerHistogram("GC phase " + name());
+        long startNanos;
     }
 
     private boolean trackTime = false;
@@ -48,7 +54,7 @@ public final class EvacuationTimers {
     }
 
     public void resetTrackTime() {
-        trackTime = Heap.logGCTime();
+        trackTime = Heap.logGCTime() || GCMetrics.isEnabled();
     }
 
     @INLINE
@@ -59,12 +65,16 @@ public final class EvacuationTimers {
     public void start(TIMED_OPERATION timedOp) {
         if (trackTime) {
             timedOp.timer.start();
+            timedOp.startNanos = System.nanoTime();
         }
     }
 
     public void stop(TIMED_OPERATION timedOp) {
         if (trackTime) {
             timedOp.timer.stop();
+            if (GCMetrics.isEnabled()) {
+                timedOp.histogram.record(System.nanoTime() - timedOp.startNanos);
+            }
         }
     }
 }
@@ -75,6 +75,12 @@ public abstract class Evacuator extends PointerIndexVisitor implements CellVisit
 
     private boolean refDiscoveryEnabled = true;
 
+    /**
+     * Indicates whether the evacuated space retained some of its cells in place for the current evacuation.
+     * See {@link #updateRSetForRetainedRef(Pointer, int, Pointer)}.
+     */
+    private boolean retainsCells = false;
+
     private GCOperation currentGCOperation;
 
     private EvacuationTimers timers;
@@ -120,6 +126,10 @@ public abstract class Evacuator extends PointerIndexVisitor implements CellVisit
         refDiscoveryEnabled = false;
     }
 
+    final void setRetainsCells(boolean retainsCells) {
+        this.retainsCells = retainsCells;
+    }
+
     @INLINE
     private void updateReferenceArray(Pointer refArrayOrigin, final int firstIndex, final int length) {
         for (int index = firstIndex; index < length; index++) {
@@ -200,6 +210,19 @@ public abstract class Evacuator extends PointerIndexVisitor implements CellVisit
         // default is doing nothing.
     }
 
+    /**
+     * Remembered set updates to apply to a reference to a cell that is outside of the evacuated area, when the evacuated space retains some
+     * of its cells in place. Only called if {@link #setRetainsCells(boolean)} was set for the current evacuation.
+     * Default is to do nothing.
+     *
+     * @param refHolderOrigin origin of the reference holder
+     * @param wordIndex word index relative to the reference holder's origin where the reference is stored.
+     * @param origin origin of the referenced cell
+     */
+    void updateRSetForRetainedRef(Pointer refHolderOrigin, int wordIndex, Pointer origin) {
+        // default is doing nothing.
+    }
+
 
     /**
      * Evacuate a cell of the evacuated area if not already done, and return the reference to the evacuated cell new location.
@@ -272,6 +295,8 @@ public abstract class Evacuator extends PointerIndexVisitor implements CellVisit
             final Reference forwardRef = MaxineVM.isDebug() ? getForwardRef(origin, refHolderOrigin.plusWords(wordIndex)) : getForwardRef(origin);
             refHolderOrigin.setReference(wordIndex, forwardRef);
             updateRSet(refHolderOrigin, wordIndex, forwardRef);
+        } else if (retainsCells) {
+            updateRSetForRetainedRef(refHolderOrigin, wordIndex, origin);
         }
     }
 
@@ -413,7 +413,7 @@ public class EvacuatorToCardSpace extends Evacuator {
     }
 
     @Override
-    final protected void evacuateReachables() {
+    protected void evacuateReachables() {
         updateSurvivorRanges();
         while (!survivorRanges.isEmpty()) {
             final Pointer start = survivorRanges.start();
@@ -41,6 +41,7 @@ import com.sun.max.vm.runtime.*;
  * old generation semi-space. The size of the young generation is computed as a percentage of this effective heap size.
  *
  * Resizing decision takes place after every full collection, and operates in two mode: normal and degraded.
+ * The goals described below are also evaluated after minor collections.
  * During normal mode, the young generation is always sized to the specified maximum percentage of the heap size.
  * Heap size changes are driven by min/max ratio of free space in the old generation: if free space drops below a minimum threshold, the heap is increased;
  *  if it increases above a max threshold, the heap is shrunk.
@@ -50,6 +51,15 @@ import com.sun.max.vm.runtime.*;
  * and re-distribute this space to the old generation (equally among the semi-space). This is similar to Appel's generational collector.
  *
  * An out of memory situation occurs when the minimum size for a young generation is met.
+ *
+ * In normal mode, two optional goals further adjust the generations at every resizing decision, including those taken after a minor
+ * collection (which never shrink the old generation):
+ * <ul>
+ * <li>a pause time goal for minor collections ({@code -XX:MaxGCPauseMillis}): the young generation percentage is scaled down
+ * when the average minor pause exceeds the goal, and moved back toward its maximum when pauses are well below the goal;</li>
+ * <li>a throughput goal ({@code -XX:GCTimeRatio}): the heap is grown when the time spent in GC since the last decision exceeds
+ * {@code 1 / (1 + GCTimeRatio)} of the elapsed time.</li>
+ * </ul>
  */
 public final class GenSSHeapSizingPolicy implements GenHeapSizingPolicy {
     /**
@@ -61,10 +71,20 @@ public final class GenSSHeapSizingPolicy implements GenHeapSizingPolicy {
      * The percentage is only change when entering degraded mode (wherein the size of the young generation is decreased to give up more space to the old generation).
      */
     private static int YoungGenHeapPercent = 40;
+    /**
+     * Knob for specifying a goal for the duration of minor collections, in milliseconds. Zero means no goal.
+     */
+    private static int MaxGCPauseMillis = 0;
+    /**
+     * Knob for specifying a throughput goal: the ratio of mutator time to GC time. Zero means no goal.
+     */
+    private static int GCTimeRatio = 0;
 
     static {
         VMOptions.addFieldOption("-XX:", "DisableHeapShrink", GenSSHeapSizingPolicy.class, "Disable shrinking the heap when true", Phase.PRISTINE);
         VMOptions.addFieldOption("-XX:", "YoungGenHeapPercent", GenSSHeapSizingPolicy.class, "Percentage of heap size that must be used by young gen", Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "MaxGCPauseMillis", GenSSHeapSizingPolicy.class, "Goal for the duration of minor collections, in milliseconds (0 = no goal)", Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "GCTimeRatio", GenSSHeapSizingPolicy.class, "Grow the heap when more than 1/(1+GCTimeRatio) of the time is spent in GC (0 = no goal)", Phase.PRISTINE);
     }
 
      /**
@@ -157,6 +177,26 @@ public final class GenSSHeapSizingPolicy implements GenHeapSizingPolicy {
      */
     private Size heapSize;
 
+    /**
+     * Decaying average of the duration of minor collections, in nanoseconds.
+     */
+    private long avgMinorPauseNanos;
+
+    /**
+     * Time spent in GC since the last resizing decision, in nanoseconds.
+     */
+    private long gcNanos;
+
+    /**
+     * Time spent running the mutator since the last resizing decision, in nanoseconds.
+     */
+    private long mutatorNanos;
+
+    /**
+     * End time of the last collection, as given by {@link System#nanoTime()}.
+     */
+    private long lastGCEndNanos;
+
     private Size alignUp(Size size) {
         Size alignment = unitSize.minus(1);
         return size.plus(alignment).and(alignment.not());
@@ -263,6 +303,10 @@ public final class GenSSHeapSizingPolicy implements GenHeapSizingPolicy {
     }
 
     public Size youngGenSize() {
+        return youngGenSize(heapSize, youngGenHeapPercentage);
+    }
+
+    private Size youngGenSize(Size heapSize, int youngGenHeapPercentage) {
         Size size = percent(heapSize, youngGenHeapPercentage);
         return alignUp(size.lessThan(MinYoungGenSize) ? MinYoungGenSize : size);
     }
@@ -424,6 +468,8 @@ public final class GenSSHeapSizingPolicy implements GenHeapSizingPolicy {
     /**
      * Recompute heap and generation size based on information provided.
      * The new heap and generation sizes can be consulted using the methods {@link #heapSize()} {@link #youngGenSize()} {@link #oldGenSize()}.
+     * The free space ratios and the goals are reconciled into a single decision: the heap is not shrunk when the throughput goal
+     * calls for growing it, and growth for the throughput goal is only what the free space ratios didn't already provide.
      *
      * @param estimatedEvacuation estimation of the amount of bytes that will be evacuated in the next minor collection
      * @param oldGenFreeSpace free space in the old generation
@@ -432,6 +478,157 @@ public final class GenSSHeapSizingPolicy implements GenHeapSizingPolicy {
      * @return true if the policy requires changes of generation and heap sizes.
      */
     public boolean resizeAfterFullGC(Size estimatedEvacuation, Size oldGenFreeSpace, boolean oldGenMutatorOverflow, Size oldSpaceRequestedBytes) {
+        final Size previousHeapSize = heapSize;
+        final boolean growForThroughput = throughputGoalMissed();
+        final boolean resized = resizeForFreeSpace(estimatedEvacuation, oldGenFreeSpace, oldGenMutatorOverflow, oldSpaceRequestedBytes, !growForThroughput);
+        return resizeForGoals(previousHeapSize, growForThroughput) || resized;
+    }
+
+    /**
+     * Recompute heap and generation sizes for the goals after a minor collection that doesn't require a full collection.
+     * As the old generation is still in use at this point, a decision that would shrink it is deferred to the next full collection.
+     * The young generation is empty, so it can be resized either way.
+     *
+     * @return true if the policy requires changes of generation and heap sizes.
+     */
+    public boolean resizeAfterMinorGC() {
+        if (!normalMode || outOfMemory || minorEvacuationOverflow) {
+            return false;
+        }
+        final Size previousYoungGenSize = youngGenSize();
+        final Size previousOldGenSize = oldGenSize();
+        // Decide before resizing, as resizing logs the changes and starts a new throughput measurement period.
+        final int newYoungGenHeapPercentage = youngGenHeapPercentageForPauseGoal();
+        final Size newHeapSize = heapSizeForThroughputGoal(heapSize, isThroughputGoalMissed());
+        if (newHeapSize.minus(youngGenSize(newHeapSize, newYoungGenHeapPercentage)).lessThan(previousOldGenSize)) {
+            return false;
+        }
+        if (!resizeForGoals(heapSize, throughputGoalMissed())) {
+            return false;
+        }
+        return !youngGenSize().equals(previousYoungGenSize) || !oldGenSize().equals(previousOldGenSize);
+    }
+
+    /**
+     * Record the duration of a minor collection.
+     *
+     * @param startNanos start of the minor collection, as given by {@link System#nanoTime()}
+     * @param endNanos end of the minor collection, as given by {@link System#nanoTime()}
+     */
+    public void notifyMinorCollection(long startNanos, long endNanos) {
+        final long pause = endNanos - startNanos;
+        avgMinorPauseNanos = avgMinorPauseNanos == 0L ? pause : (3 * avgMinorPauseNanos + pause) / 4;
+    }
+
+    /**
+     * Record the duration of a collection (a minor collection possibly followed by a full collection).
+     *
+     * @param startNanos start of the collection, as given by {@link System#nanoTime()}
+     * @param endNanos end of the collection, as given by {@link System#nanoTime()}
+     */
+    public void notifyCollection(long startNanos, long endNanos) {
+        if (lastGCEndNanos != 0L) {
+            mutatorNanos += startNanos - lastGCEndNanos;
+        }
+        gcNanos += endNanos - startNanos;
+        lastGCEndNanos = endNanos;
+    }
+
+    /**
+     * Determines if the time spent in GC since the last evaluation of the throughput goal exceeds the goal, and starts a new
+     * measurement period.
+     */
+    private boolean throughputGoalMissed() {
+        final boolean missed = isThroughputGoalMissed();
+        gcNanos = 0L;
+        mutatorNanos = 0L;
+        return missed;
+    }
+
+    /**
+     * Determines if the time spent in GC since the last evaluation of the throughput goal exceeds the goal.
+     */
+    private boolean isThroughputGoalMissed() {
+        final long totalTime = gcNanos + mutatorNanos;
+        return GCTimeRatio > 0 && totalTime > 0L && gcNanos * (1L + GCTimeRatio) > totalTime;
+    }
+
+    /**
+     * Computes the young generation percentage called for by the pause time goal.
+     */
+    private int youngGenHeapPercentageForPauseGoal() {
+        if (MaxGCPauseMillis == 0 || avgMinorPauseNanos == 0L) {
+            return youngGenHeapPercentage;
+        }
+        final long goalNanos = MaxGCPauseMillis * 1000000L;
+        int newYoungGenHeapPercentage = youngGenHeapPercentage;
+        if (avgMinorPauseNanos > goalNanos) {
+            // Minor pauses grow with the amount of survivors, and hence with the size of the young generation.
+            newYoungGenHeapPercentage = (int) (youngGenHeapPercentage * goalNanos / avgMinorPauseNanos);
+        } else if (avgMinorPauseNanos < goalNanos / 2) {
+            newYoungGenHeapPercentage = youngGenHeapPercentage + Math.max(1, youngGenHeapPercentage / 4);
+        }
+        // The young generation must not be smaller than its minimum size, or the old generation would exceed its reserved space.
+        final int minYoungGenHeapPercentage = Math.max(MinYoungGenPercent, minYoungGenSize().times(100).dividedBy(heapSize).toInt() + 1);
+        return Math.max(minYoungGenHeapPercentage, Math.min(youngGenMaxHeapPercentage, newYoungGenHeapPercentage));
+    }
+
+    /**
+     * Computes the heap size called for by the throughput goal. This is never smaller than the current heap size.
+     *
+     * @param previousHeapSize the heap size before the current resizing decision
+     * @param growForThroughput specifies if the throughput goal was missed
+     */
+    private Size heapSizeForThroughputGoal(Size previousHeapSize, boolean growForThroughput) {
+        if (!growForThroughput || heapSize.greaterEqual(maxHeapSize)) {
+            return heapSize;
+        }
+        Size delta = alignUp(previousHeapSize.dividedBy(5));
+        if (delta.lessThan(minHeapDeltaBytes)) {
+            delta = minHeapDeltaBytes;
+        }
+        Size newHeapSize = previousHeapSize.plus(delta);
+        if (newHeapSize.greaterThan(maxHeapSize)) {
+            newHeapSize = maxHeapSize;
+        }
+        // Only grow by what the free space ratios didn't already provide.
+        return newHeapSize.greaterThan(heapSize) ? newHeapSize : heapSize;
+    }
+
+    /**
+     * Adjust the young generation percentage to the pause time goal and the heap size to the throughput goal.
+     * This only takes place in normal mode.
+     *
+     * @param previousHeapSize the heap size before the current resizing decision
+     * @param growForThroughput specifies if the throughput goal was missed
+     * @return true if the policy requires changes of generation and heap sizes.
+     */
+    private boolean resizeForGoals(Size previousHeapSize, boolean growForThroughput) {
+        if (!normalMode || outOfMemory) {
+            return false;
+        }
+        boolean resized = false;
+        final int newYoungGenHeapPercentage = youngGenHeapPercentageForPauseGoal();
+        if (newYoungGenHeapPercentage != youngGenHeapPercentage) {
+            youngGenHeapPercentage = newYoungGenHeapPercentage;
+            if (logger.enabled()) {
+                logger.logChangeYoungPercent(heapSize.toLong(), youngGenSize().toLong(), oldGenSize().toLong(), youngGenHeapPercentage);
+            }
+            resized = true;
+        }
+        final Size newHeapSize = heapSizeForThroughputGoal(previousHeapSize, growForThroughput);
+        if (newHeapSize.greaterThan(heapSize)) {
+            final Size delta = newHeapSize.minus(heapSize);
+            heapSize = newHeapSize;
+            if (logger.enabled()) {
+                logger.logGrowHeap(heapSize.toLong(), youngGenSize().toLong(), oldGenSize().toLong(), delta.toLong());
+            }
+            resized = true;
+        }
+        return resized;
+    }
+
+    private boolean resizeForFreeSpace(Size estimatedEvacuation, Size oldGenFreeSpace, boolean oldGenMutatorOverflow, Size oldSpaceRequestedBytes, boolean allowShrink) {
         minorEvacuationOverflow = false;
         final Size usedSpace = oldGenSize().minus(oldGenFreeSpace);
         Size freeHeapSpace = heapSize.minus(usedSpace);
@@ -442,7 +639,7 @@ public final class GenSSHeapSizingPolicy implements GenHeapSizingPolicy {
         // Trying to be smarter requires providing here the actual size requested by the mutator.
         if (!(oldGenMutatorOverflow || outOfMemory) && freeHeapSpace.greaterThan(maxFreeHeapSpace) && maxFreeHeapSpace.greaterEqual(estimatedEvacuation)) {
             if (normalMode) {
-                if (disableHeapShrink) {
+                if (disableHeapShrink || !allowShrink) {
                     return false;
                 }
                 Size newHeapSize = alignUp(usedSpace.plus(maxFreeHeapSpace));
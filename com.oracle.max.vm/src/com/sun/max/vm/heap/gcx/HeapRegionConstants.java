@@ -23,6 +23,7 @@
 package com.sun.max.vm.heap.gcx;
 
 import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
 import com.sun.max.platform.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.MaxineVM.Phase;
@@ -102,6 +103,7 @@ public final class HeapRegionConstants {
      * The minimum region size, and the one used by default, is specified by the {@link #DefaultHeapRegionSize} option.
      * The maximum region size is specified by the {@link #MaxHeapRegionSize} option.
      * The maximum length of the {@link RegionTable}  is specified by {@value #MaxNumberOfRegions} option.
+     * When {@linkplain VirtualMemory#useTransparentHugePages() transparent huge pages} are used, regions are at least as large as a huge page.
      *
      * @param maxHeapSize the maximum heap size specified at VM startup
      */
@@ -120,6 +122,13 @@ public final class HeapRegionConstants {
                 regionSize = MaxHeapRegionSize;
             }
         }
+        if (VirtualMemory.useTransparentHugePages()) {
+            // Align regions to huge pages so that a region never shares a huge page with another.
+            final Size hugePageSize = VirtualMemory.hugePageSize();
+            if (regionSize.lessThan(hugePageSize) && hugePageSize.isAligned(Platform.platform().pageSize)) {
+                regionSize = hugePageSize;
+            }
+        }
         initializeConstants(regionSize.toInt());
     }
 }
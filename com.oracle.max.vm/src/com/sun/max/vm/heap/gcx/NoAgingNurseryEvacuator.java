@@ -28,6 +28,7 @@ import com.sun.max.vm.*;
 import com.sun.max.vm.MaxineVM.Phase;
 import com.sun.max.vm.heap.*;
 import com.sun.max.vm.heap.gcx.rset.ctbl.*;
+import com.sun.max.vm.reference.*;
 import com.sun.max.vm.runtime.*;
 
 
@@ -113,10 +114,82 @@ public class NoAgingNurseryEvacuator extends EvacuatorToCardSpace {
     private final DirtyCardEvacuationClosure heapSpaceDirtyCardClosure;
     private final BootRegionDirtyCardEvacuationClosure bootRegionDirtyCardClosure;
 
+    /**
+     * The evacuated space if it may retain some of its cells in place, null otherwise.
+     */
+    private final NoAgingRegionalizedNursery pinningNursery;
+
     public NoAgingNurseryEvacuator(EvacuatingSpace fromSpace, HeapSpace toSpace, EvacuationBufferProvider evacuationBufferProvider, CardTableRSet rset, String name) {
         super(fromSpace, toSpace, evacuationBufferProvider, rset, name);
         this.heapSpaceDirtyCardClosure = new DirtyCardEvacuationClosure();
         this.bootRegionDirtyCardClosure = new BootRegionDirtyCardEvacuationClosure();
+        this.pinningNursery = fromSpace instanceof NoAgingRegionalizedNursery ? (NoAgingRegionalizedNursery) fromSpace : null;
+    }
+
+    /**
+     * Indicates whether the nursery retains cells in place for the current evacuation.
+     */
+    private boolean retaining;
+
+    @Override
+    protected void doBeforeEvacuation() {
+        super.doBeforeEvacuation();
+        retaining = pinningNursery != null && pinningNursery.hasRetainedCells();
+        setRetainsCells(retaining);
+    }
+
+    @Override
+    protected void doAfterEvacuation() {
+        if (retaining) {
+            pinningNursery.releaseUnmarkedRetainedCells();
+        }
+        super.doAfterEvacuation();
+    }
+
+    /**
+     * A reference to a retained cell marks it as live; the cell is scanned by {@link #evacuateReachables()}.
+     * A reference from the old generation or the boot region to a retained cell is still a reference to the nursery. Its card
+     * was cleaned before being visited and must be dirtied again so that the reference is found at the next evacuation.
+     */
+    @Override
+    void updateRSetForRetainedRef(Pointer refHolderOrigin, int wordIndex, Pointer origin) {
+        if (pinningNursery.contains(origin)) {
+            pinningNursery.markRetained(origin);
+            if (toSpace.contains(refHolderOrigin) || Heap.bootHeapRegion.contains(refHolderOrigin)) {
+                rset.record(Reference.fromOrigin(refHolderOrigin), 0, wordIndex);
+            }
+        }
+    }
+
+    @Override
+    public boolean isReachable(Reference ref) {
+        final Pointer origin = ref.toOrigin();
+        if (retaining && pinningNursery.contains(origin) && !inEvacuatedArea(origin)) {
+            return pinningNursery.isMarkedRetained(origin);
+        }
+        return super.isReachable(ref);
+    }
+
+    @Override
+    public Reference preserve(Reference ref) {
+        final Pointer origin = ref.toOrigin();
+        if (retaining && pinningNursery.contains(origin) && !inEvacuatedArea(origin)) {
+            pinningNursery.markRetained(origin);
+            return ref;
+        }
+        return super.preserve(ref);
+    }
+
+    /**
+     * Evacuates the cells reachable from the survivor ranges and from the marked retained cells, until neither has anything left to scan.
+     * Retained cells are scanned only once they are reached, so the cells referenced only from dead retained cells are not evacuated.
+     */
+    @Override
+    protected void evacuateReachables() {
+        super.evacuateReachables();
+        while (retaining && pinningNursery.visitUnscannedMarkedCells(this)) {
+            super.evacuateReachables();
+        }
     }
 
     @Override
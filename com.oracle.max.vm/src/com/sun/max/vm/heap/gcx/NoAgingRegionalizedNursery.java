@@ -27,21 +27,41 @@ import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
 import com.sun.max.vm.heap.*;
 import com.sun.max.vm.heap.HeapScheme.GCRequest;
+import com.sun.max.vm.layout.*;
+import com.sun.max.vm.reference.*;
 import com.sun.max.vm.runtime.*;
 
 /**
  * A simple nursery implementation that allocates objects in a single contiguous space and evacuate all survivors to the next generation on minor collections.
  * The next generation is responsible for keeping a reserve large enough to accommodate the worst-case evacuation.
+ * <p>
+ * Objects can be pinned at region granularity: each region of the nursery has an {@link AtomicPinCounter}. A collection evacuates
+ * all cells but those overlapping a pinned region, which are retained in place. Retained cells are marked when reached by the evacuation and only
+ * marked cells are scanned for references to evacuated cells; unmarked retained cells are dead and are formatted as dark matter after the evacuation.
+ * The space left free by a collection is then made of the ranges between the retained cells, which the allocator is refilled with in
+ * address order. A pinned region therefore never disables collection; it only takes away the space it retains until the next collection after it is unpinned.
  */
 public final class NoAgingRegionalizedNursery implements HeapSpace {
 
     final class NurseryRefiller extends Refiller {
         @Override
         public Address allocateRefill(Size requestedSize, Pointer startOfSpaceLeft, Size spaceLeft) {
+            // The nursery must be parsable up to the allocation hand if cells are retained at the next GC.
+            if (!spaceLeft.isZero() && startOfSpaceLeft.isNotZero()) {
+                DarkMatter.format(startOfSpaceLeft, spaceLeft);
+            }
+            final Address chunk = takeFreeRange(requestedSize);
+            if (chunk.isNotZero()) {
+                return chunk;
+            }
             GCRequest.setGCRequest(requestedSize);
             if (!Heap.collectGarbage()) {
                 throw new OutOfMemoryError();
             }
+            if (freeRangesCount == 0) {
+                // All regions of the nursery are pinned.
+                throw new OutOfMemoryError();
+            }
             // We're out of safepoint. The current thread hold the refill lock and will do the refill of the allocator.
             return Address.zero();
         }
@@ -74,11 +94,66 @@ public final class NoAgingRegionalizedNursery implements HeapSpace {
     private HeapRegionList uncommitedNurseryRegionsList;
 
     /**
-     * Atomic bump pointer allocator over the nursery space. The current bounds and size of the nursery are obtained from the allocator's start and end addresses.
+     * Atomic bump pointer allocator over the nursery space. The allocator is refilled with the {@linkplain #freeRanges free ranges}
+     * of the nursery in address order.
      */
     @INSPECTED
     private final AtomicBumpPointerAllocator<NurseryRefiller> allocator = new AtomicBumpPointerAllocator<NurseryRefiller>(new NurseryRefiller());
 
+    /**
+     * Start of the committed space of the nursery.
+     */
+    private Address start;
+
+    /**
+     * End of the committed space of the nursery.
+     */
+    private Address end;
+
+    /**
+     * Pin counters of the regions of the nursery, indexed by the position of the region in the nursery.
+     */
+    private AtomicPinCounter[] regionPinCounters;
+
+    /**
+     * Ranges of cells retained in place by the last GC because they overlap a pinned region, in increasing address order.
+     * Each range is stored as a pair of start and end addresses.
+     */
+    private long[] retainedRanges;
+
+    /**
+     * Number of ranges in {@link #retainedRanges}.
+     */
+    private int retainedRangesCount;
+
+    /**
+     * Mark bitmap for the retained cells, with one bit per word of the nursery. A retained cell is marked by setting the bit
+     * of its first word, and is scanned by setting the bit of its second word (a cell is at least two words long).
+     * Only the bits covering the retained ranges are cleared before a GC.
+     */
+    private long[] retainedMarks;
+
+    /**
+     * Number of retained cells marked but not scanned yet.
+     */
+    private int unscannedMarkedCount;
+
+    /**
+     * Ranges of the nursery left free by the last GC, i.e., the nursery minus the {@linkplain #retainedRanges retained ranges}, in increasing
+     * address order. Each range is stored as a pair of start and end addresses.
+     */
+    private long[] freeRanges;
+
+    /**
+     * Number of ranges in {@link #freeRanges}.
+     */
+    private int freeRangesCount;
+
+    /**
+     * Index of the first free range not handed out to the allocator yet.
+     */
+    private int nextFreeRange;
+
     private final SpaceBounds bounds;
 
     public NoAgingRegionalizedNursery(HeapAccount<? extends HeapAccountOwner> heapAccount, int regionTag) {
@@ -87,11 +162,13 @@ public final class NoAgingRegionalizedNursery implements HeapSpace {
         this.bounds = new SpaceBounds() {
             @Override
             Address lowestAddress() {
-                return allocator.start();
+                return start;
             }
             @Override
             boolean isIn(Address address) {
-                return address.greaterEqual(lowestAddress()) && address.lessEqual(highestAddress());
+                // Cells retained in place are not part of the evacuated area.
+                return address.greaterEqual(start) && address.lessThan(end) &&
+                    (retainedRangesCount == 0 || !isRetained(address));
             }
 
             @Override
@@ -100,7 +177,7 @@ public final class NoAgingRegionalizedNursery implements HeapSpace {
             }
             @Override
             Address highestAddress() {
-                return allocator.hardLimit();
+                return end;
             }
         };
     }
@@ -112,7 +189,8 @@ public final class NoAgingRegionalizedNursery implements HeapSpace {
     public void initialize(GenHeapSizingPolicy genSizingPolicy) {
         nurseryRegionsList = HeapRegionList.RegionListUse.OWNERSHIP.createList();
         uncommitedNurseryRegionsList = HeapRegionList.RegionListUse.OWNERSHIP.createList();
-        if (!heapAccount.allocateContiguous(HeapRegionConstants.numberOfRegions(genSizingPolicy.maxYoungGenSize()), nurseryRegionsList, false, false, regionTag)) {
+        final int numRegions = HeapRegionConstants.numberOfRegions(genSizingPolicy.maxYoungGenSize());
+        if (!heapAccount.allocateContiguous(numRegions, nurseryRegionsList, false, false, regionTag)) {
             FatalError.unexpected("Couldn't allocate contiguous range to the nursery");
         }
         int regionID = nurseryRegionsList.head();
@@ -123,13 +201,283 @@ public final class NoAgingRegionalizedNursery implements HeapSpace {
         while (nurseryRegionsList.tail() != lastCommittedRegion) {
             uncommitedNurseryRegionsList.prepend(nurseryRegionsList.removeTail());
         }
-        allocator.initialize(RegionTable.theRegionTable().regionAddress(nurseryRegionsList.head()), genSizingPolicy.initialYoungGenSize(), Size.fromInt(HeapRegionConstants.regionSizeInBytes));
+        regionPinCounters = new AtomicPinCounter[numRegions];
+        for (int i = 0; i < numRegions; i++) {
+            regionPinCounters[i] = new AtomicPinCounter();
+        }
+        // There can't be more retained ranges than pinned regions, and one more free range than retained ranges.
+        retainedRanges = new long[2 * numRegions];
+        freeRanges = new long[2 * (numRegions + 1)];
+        retainedMarks = new long[(numRegions << HeapRegionConstants.log2RegionSizeInWords) >> 6];
+
+        start = RegionTable.theRegionTable().regionAddress(nurseryRegionsList.head());
+        end = start.plus(genSizingPolicy.initialYoungGenSize());
+        freeRanges[0] = start.toLong();
+        freeRanges[1] = end.toLong();
+        freeRangesCount = 1;
+        nextFreeRange = 1;
+        allocator.initialize(start, genSizingPolicy.initialYoungGenSize(), Size.fromInt(HeapRegionConstants.regionSizeInBytes));
     }
 
     public Pointer allocate(Size size) {
         return allocator.allocateCleared(size);
     }
 
+    @INLINE
+    private int regionIndex(Address address) {
+        return address.minus(start).unsignedShiftedRight(HeapRegionConstants.log2RegionSizeInBytes).toInt();
+    }
+
+    /**
+     * Pins the nursery region holding the specified cell. A region stays pinned until {@link #unpin(Pointer)} has been called
+     * as many times as this method. Cells overlapping a pinned region are not moved by GC. The caller must ensure that
+     * no GC can take place between obtaining the origin and pinning its region.
+     *
+     * @param origin origin of a cell of the nursery
+     */
+    public void pin(Pointer origin) {
+        regionPinCounters[regionIndex(origin)].increment();
+    }
+
+    /**
+     * Releases a pin obtained with {@link #pin(Pointer)}.
+     *
+     * @param origin origin of a cell of the nursery
+     */
+    public void unpin(Pointer origin) {
+        regionPinCounters[regionIndex(origin)].decrement();
+    }
+
+    /**
+     * Indicates whether the region holding the specified cell is pinned.
+     *
+     * @param origin origin of a cell of the nursery
+     */
+    public boolean isPinned(Pointer origin) {
+        return regionPinCounters[regionIndex(origin)].isPinned();
+    }
+
+    private boolean hasPinnedRegions() {
+        final int numRegions = regionIndex(end.minus(1)) + 1;
+        for (int i = 0; i < numRegions; i++) {
+            if (regionPinCounters[i].isPinned()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean overlapsPinnedRegion(Address cellStart, Address cellEnd) {
+        final int lastRegion = regionIndex(cellEnd.minus(1));
+        for (int i = regionIndex(cellStart); i <= lastRegion; i++) {
+            if (regionPinCounters[i].isPinned()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether an address of the nursery points to a cell retained in place by the last GC.
+     */
+    boolean isRetained(Address address) {
+        final long a = address.toLong();
+        for (int i = 0; i < retainedRangesCount << 1; i += 2) {
+            if (a < retainedRanges[i]) {
+                return false;
+            }
+            if (a < retainedRanges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether the last GC retained cells in place.
+     */
+    boolean hasRetainedCells() {
+        return retainedRangesCount > 0;
+    }
+
+    @INLINE
+    private int markBitIndex(Address cell) {
+        return cell.minus(start).unsignedShiftedRight(Word.widthValue().log2numberOfBytes).toInt();
+    }
+
+    @INLINE
+    private boolean isMarkBitSet(int bitIndex) {
+        return (retainedMarks[bitIndex >> 6] & (1L << (bitIndex & 63))) != 0L;
+    }
+
+    @INLINE
+    private void setMarkBit(int bitIndex) {
+        retainedMarks[bitIndex >> 6] |= 1L << (bitIndex & 63);
+    }
+
+    /**
+     * Marks a retained cell as reached by the current evacuation.
+     *
+     * @param origin origin of a retained cell
+     * @return true if the cell wasn't marked already
+     */
+    boolean markRetained(Pointer origin) {
+        final int bitIndex = markBitIndex(Layout.originToCell(origin));
+        if (isMarkBitSet(bitIndex)) {
+            return false;
+        }
+        setMarkBit(bitIndex);
+        unscannedMarkedCount++;
+        return true;
+    }
+
+    /**
+     * Indicates whether a retained cell was reached by the current evacuation.
+     *
+     * @param origin origin of a retained cell
+     */
+    boolean isMarkedRetained(Pointer origin) {
+        return isMarkBitSet(markBitIndex(Layout.originToCell(origin)));
+    }
+
+    @INLINE
+    private Pointer nextCell(Pointer cell, Word heapFreeChunkHubOrigin) {
+        final Pointer origin = Layout.cellToOrigin(cell);
+        if (Layout.readHubReference(origin).toOrigin().equals(heapFreeChunkHubOrigin)) {
+            return cell.plus(HeapFreeChunk.getFreechunkSize(cell));
+        }
+        return cell.plus(Layout.size(origin));
+    }
+
+    /**
+     * Applies a visitor to the retained cells marked but not scanned yet, and records them as scanned.
+     * The visitor may mark more retained cells; these are visited too if they follow the one being visited.
+     *
+     * @param visitor a visitor that scans a cell
+     * @return true if any cell was visited
+     */
+    boolean visitUnscannedMarkedCells(CellVisitor visitor) {
+        if (unscannedMarkedCount == 0) {
+            return false;
+        }
+        final Word heapFreeChunkHubOrigin = Reference.fromJava(HeapFreeChunk.heapFreeChunkHub()).toOrigin();
+        for (int i = 0; i < retainedRangesCount << 1 && unscannedMarkedCount > 0; i += 2) {
+            final Pointer rangeEnd = Pointer.fromLong(retainedRanges[i + 1]);
+            Pointer cell = Pointer.fromLong(retainedRanges[i]);
+            while (cell.lessThan(rangeEnd)) {
+                final int bitIndex = markBitIndex(cell);
+                if (isMarkBitSet(bitIndex) && !isMarkBitSet(bitIndex + 1)) {
+                    setMarkBit(bitIndex + 1);
+                    unscannedMarkedCount--;
+                    visitor.visitCell(cell);
+                }
+                cell = nextCell(cell, heapFreeChunkHubOrigin);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Formats the retained cells the current evacuation didn't reach as dark matter. Their references may point to cells that were
+     * evacuated, and they must not be scanned again. The space they occupy is reclaimed once their regions are unpinned.
+     */
+    void releaseUnmarkedRetainedCells() {
+        final Word heapFreeChunkHubOrigin = Reference.fromJava(HeapFreeChunk.heapFreeChunkHub()).toOrigin();
+        for (int i = 0; i < retainedRangesCount << 1; i += 2) {
+            final Pointer rangeEnd = Pointer.fromLong(retainedRanges[i + 1]);
+            Pointer cell = Pointer.fromLong(retainedRanges[i]);
+            while (cell.lessThan(rangeEnd)) {
+                final Word hubOrigin = Layout.readHubReference(Layout.cellToOrigin(cell)).toOrigin();
+                final Pointer nextCell = nextCell(cell, heapFreeChunkHubOrigin);
+                if (!isMarkBitSet(markBitIndex(cell)) && !hubOrigin.equals(heapFreeChunkHubOrigin) && !DarkMatter.isDarkMatterHub(hubOrigin)) {
+                    DarkMatter.format(cell, nextCell);
+                }
+                cell = nextCell;
+            }
+        }
+    }
+
+    /**
+     * Finds the cells overlapping a pinned region by walking the nursery, which must be parsable.
+     * The leading and trailing fillers of a range of such cells are not retained.
+     */
+    private void findRetainedCells() {
+        retainedRangesCount = 0;
+        unscannedMarkedCount = 0;
+        if (!hasPinnedRegions()) {
+            return;
+        }
+        final Word heapFreeChunkHubOrigin = Reference.fromJava(HeapFreeChunk.heapFreeChunkHub()).toOrigin();
+        Address retainedStart = Address.zero();
+        Address retainedEnd = Address.zero();
+        Pointer cell = start.asPointer();
+        while (cell.lessThan(end)) {
+            final Pointer origin = Layout.cellToOrigin(cell);
+            final Word hubOrigin = Layout.readHubReference(origin).toOrigin();
+            final boolean isFreeChunk = hubOrigin.equals(heapFreeChunkHubOrigin);
+            final Pointer nextCell = cell.plus(isFreeChunk ? HeapFreeChunk.getFreechunkSize(cell) : Layout.size(origin));
+            if (overlapsPinnedRegion(cell, nextCell)) {
+                if (!isFreeChunk && !DarkMatter.isDarkMatterHub(hubOrigin)) {
+                    if (retainedStart.isZero()) {
+                        retainedStart = cell;
+                    }
+                    retainedEnd = nextCell;
+                }
+            } else if (retainedStart.isNotZero()) {
+                addRetainedRange(retainedStart, retainedEnd);
+                retainedStart = Address.zero();
+            }
+            cell = nextCell;
+        }
+        if (retainedStart.isNotZero()) {
+            addRetainedRange(retainedStart, retainedEnd);
+        }
+    }
+
+    private void addRetainedRange(Address rangeStart, Address rangeEnd) {
+        final int i = retainedRangesCount << 1;
+        retainedRanges[i] = rangeStart.toLong();
+        retainedRanges[i + 1] = rangeEnd.toLong();
+        retainedRangesCount++;
+        // Clear the marks of the range. The bits of cells outside of a retained range are never read.
+        final int lastMarkWord = markBitIndex(rangeEnd.minus(1)) >> 6;
+        for (int w = markBitIndex(rangeStart) >> 6; w <= lastMarkWord; w++) {
+            retainedMarks[w] = 0L;
+        }
+    }
+
+    private void addFreeRange(Address rangeStart, Address rangeEnd) {
+        if (rangeEnd.greaterThan(rangeStart)) {
+            final int i = freeRangesCount << 1;
+            freeRanges[i] = rangeStart.toLong();
+            freeRanges[i + 1] = rangeEnd.toLong();
+            freeRangesCount++;
+        }
+    }
+
+    /**
+     * Takes the next free range large enough to allocate a cell of the specified size from. The free ranges skipped are formatted
+     * as dark matter so as to keep the nursery parsable.
+     *
+     * @param size a size in bytes
+     * @return the start of a range formatted as a {@link HeapFreeChunk}, or zero if no range is left
+     */
+    private Address takeFreeRange(Size size) {
+        final Size minRangeSize = size.plus(BaseAtomicBumpPointerAllocator.headroom());
+        while (nextFreeRange < freeRangesCount) {
+            final int i = nextFreeRange << 1;
+            nextFreeRange++;
+            final Address rangeStart = Address.fromLong(freeRanges[i]);
+            final Size rangeSize = Address.fromLong(freeRanges[i + 1]).minus(rangeStart).asSize();
+            if (rangeSize.greaterEqual(minRangeSize)) {
+                HeapFreeChunk.format(rangeStart, rangeSize);
+                return rangeStart;
+            }
+            DarkMatter.format(rangeStart, rangeSize);
+        }
+        return Address.zero();
+    }
+
     @Override
     public Size increaseSize(Size delta) {
         // TODO
@@ -146,12 +494,12 @@ public final class NoAgingRegionalizedNursery implements HeapSpace {
 
     @Override
     public Size totalSpace() {
-        return allocator.size();
+        return end.minus(start).asSize();
     }
 
     @Override
     public Size capacity() {
-        return Size.fromInt(HeapRegionConstants.regionSizeInBytes).times(uncommitedNurseryRegionsList.size()).plus(allocator.size());
+        return Size.fromInt(HeapRegionConstants.regionSizeInBytes).times(uncommitedNurseryRegionsList.size()).plus(totalSpace());
     }
 
     @Override
@@ -162,7 +510,7 @@ public final class NoAgingRegionalizedNursery implements HeapSpace {
     }
 
     public void retireTLAB(Pointer start, Size size) {
-        FatalError.check(allocator.inCurrentContiguousChunk(start), "Retired TLAB Space must be in allocating space");
+        FatalError.check(contains(start), "Retired TLAB Space must be in nursery");
         if (!allocator.retireTop(start, size)) {
             DarkMatter.format(start, size);
         }
@@ -170,35 +518,81 @@ public final class NoAgingRegionalizedNursery implements HeapSpace {
 
     @Override
     public boolean contains(Address address) {
-        return allocator.inCurrentContiguousChunk(address);
+        return address.greaterEqual(start) && address.lessThan(end);
     }
 
+    /**
+     * Makes the whole nursery parsable and finds the cells to retain in place.
+     */
     @Override
     public void doBeforeGC() {
         allocator.doBeforeGC();
+        while (nextFreeRange < freeRangesCount) {
+            final int i = nextFreeRange << 1;
+            DarkMatter.format(Address.fromLong(freeRanges[i]), Address.fromLong(freeRanges[i + 1]));
+            nextFreeRange++;
+        }
+        findRetainedCells();
     }
 
+    /**
+     * Computes the free ranges left by the retained cells and refills the allocator with the first one.
+     */
     @Override
     public void doAfterGC() {
+        freeRangesCount = 0;
+        nextFreeRange = 0;
+        Address freeStart = start;
+        for (int i = 0; i < retainedRangesCount << 1; i += 2) {
+            addFreeRange(freeStart, Address.fromLong(retainedRanges[i]));
+            freeStart = Address.fromLong(retainedRanges[i + 1]);
+        }
+        addFreeRange(freeStart, end);
         if (MaxineVM.isDebug()) {
-            allocator.zap();
+            final Word deadMark = HeapFreeChunk.deadSpaceMark();
+            for (int i = 0; i < freeRangesCount << 1; i += 2) {
+                Pointer p = Pointer.fromLong(freeRanges[i]);
+                final Pointer rangeEnd = Pointer.fromLong(freeRanges[i + 1]);
+                while (p.lessThan(rangeEnd)) {
+                    p.setWord(deadMark);
+                    p = p.plusWords(1);
+                }
+            }
+        }
+        final Address chunk = takeFreeRange(Size.zero());
+        if (chunk.isZero()) {
+            allocator.clear();
+        } else {
+            allocator.refill(chunk, HeapFreeChunk.getFreechunkSize(chunk));
         }
-        allocator.reset();
     }
 
     @Override
     public Size freeSpace() {
-        return allocator.freeSpace();
+        Size freeSpace = allocator.freeSpace();
+        for (int i = nextFreeRange << 1; i < freeRangesCount << 1; i += 2) {
+            freeSpace = freeSpace.plus(Address.fromLong(freeRanges[i + 1]).minus(Address.fromLong(freeRanges[i])).asSize());
+        }
+        return freeSpace;
     }
 
     @Override
     public Size usedSpace() {
-        return allocator.usedSpace();
+        return totalSpace().minus(freeSpace());
     }
 
     @Override
     public void visit(CellRangeVisitor visitor) {
-        visitor.visitCells(allocator.start(), allocator.top);
+        final Address top = allocator.unsafeTop();
+        if (top.isNotZero()) {
+            visitor.visitCells(start, top);
+        }
+        // Retained cells past the allocation hand
+        for (int i = 0; i < retainedRangesCount << 1; i += 2) {
+            if (top.lessEqual(Address.fromLong(retainedRanges[i]))) {
+                visitor.visitCells(Address.fromLong(retainedRanges[i]), Address.fromLong(retainedRanges[i + 1]));
+            }
+        }
     }
 
     @Override
@@ -139,7 +139,8 @@ public final class NoEvacuatedSpaceReferenceVerifier extends PointerIndexVisitor
 
     private void checkNoRef(Pointer pointer, int wordIndex) {
         final Pointer cell = pointer.getReference(wordIndex).toOrigin();
-        if (evacuatedSpace.contains(cell)) {
+        // Cells the evacuated space retained in place (if any) are outside its bounds.
+        if (evacuatedSpace.contains(cell) && evacuatedSpace.bounds().isIn(cell)) {
             Log.print("Reference in ");
             Log.print(pointer);
             Log.print(" at ");
@@ -137,6 +137,7 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
         noYoungReferencesVerifier = new NoEvacuatedSpaceReferenceVerifier(cardTableRSet, youngSpace);
         fotVerifier = new FOTVerifier(cardTableRSet);
         genCollection = new GenCollection();
+        pinningSupportFlags = PIN_SUPPORT_FLAG.makePinSupportFlags(true, true, true);
     }
 
     @Override
@@ -307,6 +308,8 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.RECLAIMING);
             oldSpace.sweep(heapMarker, false);
             oldSpace.doAfterGC();
+            // Refill the nursery allocator with the space left free by the nursery evacuation.
+            youngSpace.doAfterGC();
             youngSpaceEvacuator.doAfterGC();
             fullCollectionCount++;
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.MUTATING);
@@ -387,14 +390,42 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
         return oldSpace.usedSpace().plus(youngSpace.usedSpace());
     }
 
+    /**
+     * Pin an object. The old generation is a non-moving mark-sweep space and objects outside the heap regions
+     * (boot image, code) never move, so such objects are pinned without any bookkeeping. Objects in the nursery are
+     * pinned by pinning the nursery region holding them: the nursery evacuation retains in place the cells overlapping a pinned region.
+     */
     @Override
     public boolean pin(Object object) {
-        return false;
+        // The object must not be moved between reading its location and pinning its region.
+        final boolean wasDisabled = SafepointPoll.disable();
+        final Pointer origin = Reference.fromJava(object).toOrigin();
+        if (youngSpace.contains(origin)) {
+            youngSpace.pin(origin);
+        }
+        if (!wasDisabled) {
+            SafepointPoll.enable();
+        }
+        return true;
     }
 
     @Override
     public void unpin(Object object) {
-        throw new UnsupportedOperationException();
+        // A pinned object doesn't move, so its location is the one it was pinned at.
+        final Pointer origin = Reference.fromJava(object).toOrigin();
+        if (youngSpace.contains(origin)) {
+            youngSpace.unpin(origin);
+        }
+    }
+
+    /**
+     * Indicates whether an object cannot be moved. This is the case of objects outside of the nursery, and of
+     * nursery objects in a pinned region.
+     */
+    @Override
+    public boolean isPinned(Object object) {
+        final Pointer origin = Reference.fromJava(object).toOrigin();
+        return !youngSpace.contains(origin) || youngSpace.isPinned(origin);
     }
 
     @INLINE
@@ -37,4 +37,11 @@ public enum CardState {
     public byte value() {
         return value;
     }
+
+    /**
+     * The other card state.
+     */
+    public CardState other() {
+        return this == CLEAN_CARD ? DIRTY_CARD : CLEAN_CARD;
+    }
 }
@@ -24,6 +24,7 @@ package com.sun.max.vm.heap.gcx.rset.ctbl;
 
 import static com.sun.max.vm.heap.gcx.rset.ctbl.CardState.*;
 
+import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 /**
  * Card table implementation, when cards can have two states only: clean and dirty (@see {@link CardState}).
@@ -93,6 +94,9 @@ public final class CardTable extends  Log2RegionToByteMapTable {
      * @param coveredAddress an address in heap covered by the card table
      */
     void dirtyCovered(Address coveredAddress) {
+        if (CardTableRSet.ConditionalCardMark && unsafeGet(coveredAddress) == DIRTY_CARD.value()) {
+            return;
+        }
         unsafeSet(coveredAddress, DIRTY_CARD.value());
     }
 
@@ -103,21 +107,23 @@ public final class CardTable extends  Log2RegionToByteMapTable {
      * @param cardState a card state
     * @return the index to the first card in the specified state, or the end index if none of the cards in the range are set to that state.
     */
-    int first(int start, int end, CardState cardState) {
-        // This may be optimized with special support from the compiler to exploit cpu-specific instruction for string ops (e.g.).
-        // We may also get rid of the limit test by making the end of the range looking like a marked card.
-        // e.g.:   tmp = limit.getByte(); limit.setByte(1);  loop; limit.setByte(tmp); This could be factor over multiple call of firstNonZero...
-        final Pointer first = tableAddress.plus(start);
+    public int first(int start, int end, CardState cardState) {
+        // Cards have two states, so a word whose bytes are all in the other state has no card in the specified state.
+        // Whole words of such cards are skipped at once, which is the common case when looking for dirty cards.
         final Pointer limit = tableAddress.plus(end);
         final byte cardValue = cardState.value;
-        Pointer cursor = first;
-        while (cursor.getByte() != cardValue) {
-            cursor = cursor.plus(1);
-            if (cursor.greaterEqual(limit)) {
-                return end;
+        final Word skippedWord = replicated(cardState.other());
+        Pointer cursor = tableAddress.plus(start);
+        while (cursor.lessThan(limit)) {
+            if (cursor.isWordAligned() && cursor.plus(Word.size()).lessEqual(limit) && cursor.getWord().equals(skippedWord)) {
+                cursor = cursor.plus(Word.size());
+            } else if (cursor.getByte() == cardValue) {
+                return cursor.minus(tableAddress).toInt();
+            } else {
+                cursor = cursor.plus(1);
             }
         }
-        return cursor.minus(tableAddress).toInt();
+        return end;
     }
 
 
@@ -128,23 +134,30 @@ public final class CardTable extends  Log2RegionToByteMapTable {
      * @param cardState a card state
     * @return the index to the first card in a state different than the specified state, or the end index if  all the cards in the range have that state.
     */
-    int firstNot(int start, int end, CardState cardState) {
-        // This may be optimized with special support from the compiler to exploit cpu-specific instruction for string ops (e.g.).
-        // We may also get rid of the limit test by making the end of the range looking like a marked card.
-        // e.g.:   tmp = limit.getByte(); limit.setByte(1);  loop; limit.setByte(tmp); This could be factor over multiple call of firstNonZero...
-        final Pointer first = tableAddress.plus(start);
+    public int firstNot(int start, int end, CardState cardState) {
         final Pointer limit = tableAddress.plus(end);
         final byte cardValue = cardState.value;
-        Pointer cursor = first;
-        while (cursor.getByte() == cardValue) {
-            cursor = cursor.plus(1);
-            if (cursor.greaterEqual(limit)) {
-                return end;
+        final Word skippedWord = replicated(cardState);
+        Pointer cursor = tableAddress.plus(start);
+        while (cursor.lessThan(limit)) {
+            if (cursor.isWordAligned() && cursor.plus(Word.size()).lessEqual(limit) && cursor.getWord().equals(skippedWord)) {
+                cursor = cursor.plus(Word.size());
+            } else if (cursor.getByte() != cardValue) {
+                return cursor.minus(tableAddress).toInt();
+            } else {
+                cursor = cursor.plus(1);
             }
         }
-        return cursor.minus(tableAddress).toInt();
+        return end;
     }
 
+    /**
+     * A word with all its bytes set to the value of the specified card state.
+     */
+    @INLINE
+    private static Word replicated(CardState cardState) {
+        return Address.fromLong(0x0101010101010101L * (cardState.value & 0xff));
+    }
 
  /**
      * Set all cards completely covered by the specified range to the specified card state.
@@ -30,6 +30,7 @@ import com.sun.cri.ci.CiAddress.Scale;
 import com.sun.cri.ci.*;
 import com.sun.cri.xir.*;
 import com.sun.cri.xir.CiXirAssembler.XirConstant;
+import com.sun.cri.xir.CiXirAssembler.XirLabel;
 import com.sun.cri.xir.CiXirAssembler.XirOperand;
 import com.sun.max.annotate.*;
 import com.sun.max.memory.*;
@@ -72,6 +73,14 @@ public final class CardTableRSet extends DeadSpaceListener implements HeapManage
 
     private static boolean TraceCardTableRSet = false;
 
+    /**
+     * Only dirty a card in the write barrier if it isn't already dirty. This adds a load to the barrier but avoids
+     * repeatedly writing to card table cache lines shared by threads updating objects on nearby cards.
+     * As the write barrier is generated when building the boot image, this is set with the {@code -conditional-card-mark}
+     * option of the {@linkplain com.sun.max.vm.hosted.BootImageGenerator boot image generator}.
+     */
+    public static boolean ConditionalCardMark;
+
     static {
         if (MaxineVM.isDebug()) {
             VMOptions.addFieldOption("-XX:", "TraceCardTableRSet", CardTableRSet.class, "Enables CardTableRSet Debugging Traces", Phase.PRISTINE);
@@ -251,7 +260,7 @@ public final class CardTableRSet extends DeadSpaceListener implements HeapManage
         // The GC will need to carefully skip reference table entries holding the biased base of the card table.
         // final XirConstant biasedCardTableAddress = asm.createConstant(CiConstant.forObject(dummyCardTable));
         final XirConstant biasedCardTableAddress = biasedCardTableAddressXirConstant(asm);
-        asm.pstore(CiKind.Byte, biasedCardTableAddress, temp, asm.i(CardState.DIRTY_CARD.value()), false);
+        genCardMark(asm, biasedCardTableAddress, temp);
 
         // FIXME: remove this temp debug code
         if (MaxineVM.isDebug()) {
@@ -269,7 +278,27 @@ public final class CardTableRSet extends DeadSpaceListener implements HeapManage
         asm.shr(temp, temp, asm.i(CardTableRSet.LOG2_CARD_SIZE));
         // final XirConstant biasedCardTableAddress = asm.createConstant(CiConstant.forObject(dummyCardTable));
         final XirConstant biasedCardTableAddress = biasedCardTableAddressXirConstant(asm);
-        asm.pstore(CiKind.Byte, biasedCardTableAddress, temp, asm.i(CardState.DIRTY_CARD.value()), false);
+        genCardMark(asm, biasedCardTableAddress, temp);
+    }
+
+    /**
+     * Generate the store dirtying a card, preceded by a test of the card's state if {@link #ConditionalCardMark} is set.
+     *
+     * @param biasedCardTableAddress the biased address of the card table
+     * @param cardIndex the (biased) index of the card to dirty
+     */
+    @HOSTED_ONLY
+    private void genCardMark(CiXirAssembler asm, XirConstant biasedCardTableAddress, XirOperand cardIndex) {
+        if (ConditionalCardMark) {
+            final XirLabel done = asm.createInlineLabel("done");
+            final XirOperand cardValue = asm.createTemp("cardValue", CiKind.Int);
+            asm.pload(CiKind.Byte, cardValue, biasedCardTableAddress, cardIndex, false);
+            asm.jeq(done, cardValue, asm.i(CardState.DIRTY_CARD.value()));
+            asm.pstore(CiKind.Byte, biasedCardTableAddress, cardIndex, asm.i(CardState.DIRTY_CARD.value()), false);
+            asm.bindInline(done);
+        } else {
+            asm.pstore(CiKind.Byte, biasedCardTableAddress, cardIndex, asm.i(CardState.DIRTY_CARD.value()), false);
+        }
     }
 
     /**
@@ -384,6 +413,7 @@ public final class CardTableRSet extends DeadSpaceListener implements HeapManage
                 traceVisitedCard(startCardIndex, endCardIndex, CardState.DIRTY_CARD);
             }
             cardTable.clean(startCardIndex, endCardIndex);
+            GCMetrics.countCardsScanned(endCardIndex - startCardIndex);
             cardRangeVisitor.visitCards(cardTable.rangeStart(startCardIndex), cardTable.rangeStart(endCardIndex));
             if (++endCardIndex >= endOfRange) {
                 return;
@@ -407,6 +437,7 @@ public final class CardTableRSet extends DeadSpaceListener implements HeapManage
                 traceVisitedCard(startCardIndex, endCardIndex, CardState.DIRTY_CARD);
             }
             cardTable.clean(startCardIndex, endCardIndex);
+            GCMetrics.countCardsScanned(endCardIndex - startCardIndex);
             visitCards(startCardIndex, endCardIndex, cellVisitor);
             if (++endCardIndex >= endOfRange) {
                 return;
@@ -738,6 +738,7 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
             Log.println("--Begin nursery evacuation");
         }
         final long startGCTime = System.currentTimeMillis();
+        final long startGCNanos = System.nanoTime();
         evacTimers.start(TOTAL);
         youngSpaceEvacuator.setGCOperation(genCollection);
         HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.ANALYZING);
@@ -766,6 +767,11 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
         }
         final Size estimatedEvac = estimatedNextEvac();
         evacTimers.stop(TOTAL);
+        if (GCMetrics.isEnabled()) {
+            // every survivor of a minor collection is promoted to the old generation
+            GCMetrics.recordEvacuation(youngSpaceEvacuator.evacuatedBytes(), youngSpaceEvacuator.evacuatedBytes());
+        }
+        resizingPolicy.notifyMinorCollection(startGCNanos, System.nanoTime());
         if (Heap.logGCTime()) {
             timeLogger.logPhaseTimes(invocationCount,
                             evacTimers.get(ROOT_SCAN).getLastElapsedTime(),
@@ -777,6 +783,11 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
             timeLogger.logGcTimes(invocationCount, true, evacTimers.get(TOTAL).getLastElapsedTime());
         }
         requiresFullGC = resizingPolicy.shouldPerformFullGC(estimatedEvac, oldSpace.freeSpace(), oldSpaceMutatorOverflow) || AlwaysFullGC;
+        if (!requiresFullGC && resizingPolicy.resizeAfterMinorGC()) {
+            // The young generation is empty and the old generation only grows, so both can be resized now.
+            resize(youngSpace, resizingPolicy.youngGenSize());
+            resize(oldSpace, resizingPolicy.oldGenSize());
+        }
         if (requiresFullGC) {
             // Force a temporary transition to MUTATING state.
             // This simplifies the inspector's maintenance of references state and GC counters.
@@ -786,6 +797,9 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
             }
             evacTimers.start(TOTAL);
             doOldGenCollection();
+            if (GCMetrics.isEnabled()) {
+                GCMetrics.recordEvacuation(Size.zero(), oldSpaceEvacuator.evacuatedBytes());
+            }
             if (MaxineVM.isDebug() && Heap.verbose()) {
                 Log.println("--End   old generation collection");
             }
@@ -842,7 +856,8 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
             // clearing this flag must be done before moving to the MUTATING phase to avoid the inspector's confusion.
             requiresFullGC = false;
         }
-        accumulatedGCTime = endGCTime - startGCTime;
+        accumulatedGCTime += endGCTime - startGCTime;
+        resizingPolicy.notifyCollection(startGCNanos, System.nanoTime());
         Heap.invokeGCCallbacks(GCCallbackPhase.AFTER);
         HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.MUTATING);
     }
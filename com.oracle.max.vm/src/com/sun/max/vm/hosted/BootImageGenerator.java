@@ -40,6 +40,7 @@ import com.sun.max.vm.compiler.*;
 import com.sun.max.vm.compiler.deps.*;
 import com.sun.max.vm.compiler.target.*;
 import com.sun.max.vm.heap.*;
+import com.sun.max.vm.heap.gcx.rset.ctbl.*;
 import com.sun.max.vm.jdk.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.type.*;
@@ -95,6 +96,9 @@ public final class BootImageGenerator {
     private static final Option<Boolean> useOutOfLineStubs = options.newBooleanOption("out-stubs", true,
                     "Uses out of line runtime stubs when generating inlined TLAB allocations with XIR");
 
+    private static final Option<Boolean> conditionalCardMarkOption = options.newBooleanOption("conditional-card-mark", false,
+                    "Generate card table write barriers that only dirty a card if it isn't already dirty (heap schemes using a CardTableRSet).");
+
     // Options shared with the Inspector
 
     public static final OptionSet inspectorSharedOptions = new OptionSet();
@@ -245,6 +249,7 @@ public final class BootImageGenerator {
 
             Heap.genInlinedTLAB = inlinedTLABOption.getValue(); // TODO: cleanup. Just for evaluating impact on performance of inlined tlab alloc.
             Heap.useOutOfLineStubs = useOutOfLineStubs.getValue(); // TODO: cleanup.
+            CardTableRSet.ConditionalCardMark = conditionalCardMarkOption.getValue();
 
             DataPrototype dataPrototype = prototypeGenerator.createDataPrototype(treeOption.getValue());
 
@@ -48,6 +48,6 @@ public final class JDK_java_lang_String {
      */
     @SUBSTITUTE
     public String intern() {
-        return SymbolTable.intern(thisString());
+        return StringTable.intern(thisString());
     }
 }
@@ -48,6 +48,12 @@ public final class JDK_java_lang_Throwable {
         VMOptions.addFieldOption("-XX:", "StackTraceInThrowable", JDK_java_lang_Throwable.class, "Collect backtrace in throwable when exception happens.");
     }
 
+    public static int MaxJavaStackTraceDepth = 1024;
+    static {
+        VMOptions.addFieldOption("-XX:", "MaxJavaStackTraceDepth", JDK_java_lang_Throwable.class,
+            "Maximum number of frames recorded in the backtrace of a throwable (0 means no limit).");
+    }
+
     private static final ObjectThreadLocal<Throwable> TRACE_UNDER_CONSTRUCTION = new ObjectThreadLocal<Throwable>("TRACE_UNDER_CONSTRUCTION",
                     "Exception whose back or stack trace is currently being constructed");
 
@@ -100,7 +106,7 @@ public final class JDK_java_lang_Throwable {
         final Pointer sp = VMRegister.getCpuStackPointer();
         final Pointer fp = VMRegister.getCpuFramePointer();
         try {
-            Backtrace backtrace = getBacktrace(sfw, ip, sp, fp, throwableActor, Integer.MAX_VALUE);
+            Backtrace backtrace = getBacktrace(sfw, ip, sp, fp, throwableActor, MaxJavaStackTraceDepth == 0 ? Integer.MAX_VALUE : MaxJavaStackTraceDepth);
             this.backtrace = backtrace;
         } catch (OutOfMemoryError e) {
             // Could not build backtrace due to memory shortage
@@ -112,12 +118,20 @@ public final class JDK_java_lang_Throwable {
 
     /**
      * A back trace is a lighter weight representation of a stack trace than
-     * an array of {@link StackTraceElement}s.
+     * an array of {@link StackTraceElement}s. To make capturing a back trace cheap, the
+     * mapping from BCI to source line number is deferred until the stack trace is requested.
      */
     public static class Backtrace extends StackTraceVisitor {
 
         static final int INITIAL_LENGTH = 200;
 
+        /**
+         * Entries in {@link #lineNos} less than or equal to this value encode a BCI whose
+         * source line number has not yet been computed.
+         */
+        static final int UNMAPPED_BCI = -3;
+
+        public final int maxDepth;
         public int count;
         public int[] lineNos;
         public ClassMethodActor[] methods;
@@ -125,6 +139,7 @@ public final class JDK_java_lang_Throwable {
         public Backtrace(ClassActor exceptionClass, int maxDepth) {
             super(exceptionClass);
 
+            this.maxDepth = maxDepth;
             int len = Math.min(maxDepth, INITIAL_LENGTH);
             lineNos = new int[len];
             methods = new ClassMethodActor[len];
@@ -146,7 +161,24 @@ public final class JDK_java_lang_Throwable {
             lineNos[count] = sourceLineNumber;
             methods[count] = methodActor;
             count++;
-            return true;
+            return count < maxDepth;
+        }
+
+        @Override
+        public boolean addBytecodeFrame(ClassMethodActor method, int bci) {
+            return add(method, bci >= 0 ? UNMAPPED_BCI - bci : -1);
+        }
+
+        /**
+         * Gets the source line number of the {@code index}'th element in this back trace.
+         */
+        public int lineNumberAt(int index) {
+            int lineNo = lineNos[index];
+            if (lineNo <= UNMAPPED_BCI) {
+                lineNo = methods[index].sourceLineNumber(UNMAPPED_BCI - lineNo);
+                lineNos[index] = lineNo;
+            }
+            return lineNo;
         }
 
         private void expand() {
@@ -158,7 +190,7 @@ public final class JDK_java_lang_Throwable {
         StackTraceElement stackTraceElement(int index) {
             ClassMethodActor method = methods[index];
             ClassActor holder = method.holder();
-            int sourceLineNumber = lineNos[index];
+            int sourceLineNumber = lineNumberAt(index);
             return new StackTraceElement(holder.name.toString(), method.name.toString(), holder.sourceFileName, sourceLineNumber);
         }
 
@@ -87,6 +87,7 @@ public final class JmmFunctions {
     public static final int JMM_VERBOSE_CLASS                  = 22;
     public static final int JMM_THREAD_CONTENTION_MONITORING   = 23;
     public static final int JMM_THREAD_CPU_TIME                = 24;
+    public static final int JMM_THREAD_ALLOCATED_MEMORY        = 25;
   //} jmmBoolAttribute;
 
 
@@ -328,12 +329,29 @@ public final class JmmFunctions {
     }
 
     @VM_ENTRY_POINT
-    private static native Pointer reserved4();
+    private static void GetThreadAllocatedMemory(Pointer env, JniHandle ids, JniHandle sizeArray) {
         // Source: JmmFunctionsSource.java:107
+        Pointer anchor = prologue(env);
+        if (logger.enabled()) {
+            logger.log(LogOperations.GetThreadAllocatedMemory.ordinal(), UPCALL_ENTRY, anchor, env, ids, sizeArray);
+        }
+
+        try {
+            ThreadManagement.getThreadAllocatedBytes((long[]) ids.unhand(), (long[]) sizeArray.unhand());
+        } catch (Throwable t) {
+            VmThread.fromJniEnv(env).setJniException(t);
+        } finally {
+            epilogue(anchor);
+            if (logger.enabled()) {
+                logger.log(LogOperations.GetThreadAllocatedMemory.ordinal(), UPCALL_EXIT);
+            }
+
+        }
+    }
 
     @VM_ENTRY_POINT
     private static JniHandle GetMemoryUsage(Pointer env, boolean heap) {
-        // Source: JmmFunctionsSource.java:110
+        // Source: JmmFunctionsSource.java:112
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetMemoryUsage.ordinal(), UPCALL_ENTRY, anchor, env, Address.fromInt(heap ? 1 : 0));
@@ -355,7 +373,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static long GetLongAttribute(Pointer env, JniHandle obj, int att) {
-        // Source: JmmFunctionsSource.java:115
+        // Source: JmmFunctionsSource.java:117
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetLongAttribute.ordinal(), UPCALL_ENTRY, anchor, env, obj, Address.fromInt(att));
@@ -377,14 +395,19 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static boolean GetBoolAttribute(Pointer env, int att) {
-        // Source: JmmFunctionsSource.java:120
+        // Source: JmmFunctionsSource.java:122
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetBoolAttribute.ordinal(), UPCALL_ENTRY, anchor, env, Address.fromInt(att));
         }
 
         try {
-            return false;
+            switch (att) {
+                case JMM_THREAD_ALLOCATED_MEMORY:
+                    return ThreadManagement.isThreadAllocatedMemoryEnabled();
+                default:
+                    return false;
+            }
         } catch (Throwable t) {
             VmThread.fromJniEnv(env).setJniException(t);
             return false;
@@ -399,7 +422,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static boolean SetBoolAttribute(Pointer env, int att, boolean flag) {
-        // Source: JmmFunctionsSource.java:125
+        // Source: JmmFunctionsSource.java:132
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.SetBoolAttribute.ordinal(), UPCALL_ENTRY, anchor, env, Address.fromInt(att), Address.fromInt(flag ? 1 : 0));
@@ -415,6 +438,8 @@ public final class JmmFunctions {
                     return ThreadManagement.setThreadCpuTimeEnabled(flag);
                 case JMM_THREAD_CPU_TIME:
                     return ThreadManagement.setThreadCpuTimeEnabled(flag);
+                case JMM_THREAD_ALLOCATED_MEMORY:
+                    return ThreadManagement.setThreadAllocatedMemoryEnabled(flag);
                 default:
                         FatalError.unexpected("unknown attribute value " + att +  "to JmmFunctions.SetBoolAttribute");
             }
@@ -433,7 +458,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static int GetLongAttributes(Pointer env, JniHandle obj, JniHandle atts, int count, JniHandle result) {
-        // Source: JmmFunctionsSource.java:142
+        // Source: JmmFunctionsSource.java:151
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetLongAttributes.ordinal(), UPCALL_ENTRY, anchor, env, obj, atts, Address.fromInt(count), result);
@@ -455,7 +480,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static JniHandle FindCircularBlockedThreads(Pointer env) {
-        // Source: JmmFunctionsSource.java:147
+        // Source: JmmFunctionsSource.java:156
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.FindCircularBlockedThreads.ordinal(), UPCALL_ENTRY, anchor, env);
@@ -477,7 +502,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static long GetThreadCpuTime(Pointer env, long thread_id) {
-        // Source: JmmFunctionsSource.java:152
+        // Source: JmmFunctionsSource.java:161
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetThreadCpuTime.ordinal(), UPCALL_ENTRY, anchor, env, Address.fromLong(thread_id));
@@ -499,7 +524,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static JniHandle GetVMGlobalNames(Pointer env) {
-        // Source: JmmFunctionsSource.java:157
+        // Source: JmmFunctionsSource.java:166
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetVMGlobalNames.ordinal(), UPCALL_ENTRY, anchor, env);
@@ -521,7 +546,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static int GetVMGlobals(Pointer env, JniHandle names, Pointer globals, int count) {
-        // Source: JmmFunctionsSource.java:162
+        // Source: JmmFunctionsSource.java:171
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetVMGlobals.ordinal(), UPCALL_ENTRY, anchor, env, names, globals, Address.fromInt(count));
@@ -543,7 +568,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static int GetInternalThreadTimes(Pointer env, JniHandle names, JniHandle times) {
-        // Source: JmmFunctionsSource.java:167
+        // Source: JmmFunctionsSource.java:176
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetInternalThreadTimes.ordinal(), UPCALL_ENTRY, anchor, env, names, times);
@@ -565,7 +590,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static boolean ResetStatistic(Pointer env, Word obj, int type) {
-        // Source: JmmFunctionsSource.java:172
+        // Source: JmmFunctionsSource.java:181
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.ResetStatistic.ordinal(), UPCALL_ENTRY, anchor, env, obj, Address.fromInt(type));
@@ -587,7 +612,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static void SetPoolSensor(Pointer env, JniHandle pool, int type, JniHandle sensor) {
-        // Source: JmmFunctionsSource.java:177
+        // Source: JmmFunctionsSource.java:186
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.SetPoolSensor.ordinal(), UPCALL_ENTRY, anchor, env, pool, Address.fromInt(type), sensor);
@@ -607,7 +632,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static long SetPoolThreshold(Pointer env, JniHandle pool, int type, long threshold) {
-        // Source: JmmFunctionsSource.java:181
+        // Source: JmmFunctionsSource.java:190
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.SetPoolThreshold.ordinal(), UPCALL_ENTRY, anchor, env, pool, Address.fromInt(type), Address.fromLong(threshold));
@@ -629,7 +654,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static JniHandle GetPoolCollectionUsage(Pointer env, JniHandle pool) {
-        // Source: JmmFunctionsSource.java:186
+        // Source: JmmFunctionsSource.java:195
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetPoolCollectionUsage.ordinal(), UPCALL_ENTRY, anchor, env, pool);
@@ -651,7 +676,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static int GetGCExtAttributeInfo(Pointer env, JniHandle mgr, Pointer ext_info, int count) {
-        // Source: JmmFunctionsSource.java:191
+        // Source: JmmFunctionsSource.java:200
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetGCExtAttributeInfo.ordinal(), UPCALL_ENTRY, anchor, env, mgr, ext_info, Address.fromInt(count));
@@ -673,7 +698,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static void GetLastGCStat(Pointer env, JniHandle mgr, Pointer gc_stat) {
-        // Source: JmmFunctionsSource.java:196
+        // Source: JmmFunctionsSource.java:205
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetLastGCStat.ordinal(), UPCALL_ENTRY, anchor, env, mgr, gc_stat);
@@ -693,7 +718,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static long GetThreadCpuTimeWithKind(Pointer env, long thread_id, boolean user_sys_cpu_time) {
-        // Source: JmmFunctionsSource.java:200
+        // Source: JmmFunctionsSource.java:209
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.GetThreadCpuTimeWithKind.ordinal(), UPCALL_ENTRY, anchor, env, Address.fromLong(thread_id), Address.fromInt(user_sys_cpu_time ? 1 : 0));
@@ -715,11 +740,11 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static native Pointer reserved5();
-        // Source: JmmFunctionsSource.java:205
+        // Source: JmmFunctionsSource.java:214
 
     @VM_ENTRY_POINT
     private static int DumpHeap0(Pointer env, JniHandle outputfile, boolean live) {
-        // Source: JmmFunctionsSource.java:208
+        // Source: JmmFunctionsSource.java:217
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.DumpHeap0.ordinal(), UPCALL_ENTRY, anchor, env, outputfile, Address.fromInt(live ? 1 : 0));
@@ -741,7 +766,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static JniHandle FindDeadlocks(Pointer env, boolean object_monitors_only) {
-        // Source: JmmFunctionsSource.java:213
+        // Source: JmmFunctionsSource.java:222
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.FindDeadlocks.ordinal(), UPCALL_ENTRY, anchor, env, Address.fromInt(object_monitors_only ? 1 : 0));
@@ -763,7 +788,7 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static void SetVMGlobal(Pointer env, JniHandle flag_name, Word new_value) {
-        // Source: JmmFunctionsSource.java:218
+        // Source: JmmFunctionsSource.java:227
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.SetVMGlobal.ordinal(), UPCALL_ENTRY, anchor, env, flag_name, new_value);
@@ -783,11 +808,11 @@ public final class JmmFunctions {
 
     @VM_ENTRY_POINT
     private static native Word reserved6();
-        // Source: JmmFunctionsSource.java:222
+        // Source: JmmFunctionsSource.java:231
 
     @VM_ENTRY_POINT
     private static JniHandle DumpThreads(Pointer env, JniHandle ids, boolean lockedMonitors, boolean lockedSynchronizers) {
-        // Source: JmmFunctionsSource.java:225
+        // Source: JmmFunctionsSource.java:234
         Pointer anchor = prologue(env);
         if (logger.enabled()) {
             logger.log(LogOperations.DumpThreads.ordinal(), UPCALL_ENTRY, anchor, env, ids, Address.fromInt(lockedMonitors ? 1 : 0), Address.fromInt(lockedSynchronizers ? 1 : 0));
@@ -814,35 +839,36 @@ public final class JmmFunctions {
         /* 4 */ GetMemoryManagers,
         /* 5 */ GetMemoryPoolUsage,
         /* 6 */ GetPeakMemoryPoolUsage,
-        /* 7 */ GetMemoryUsage,
-        /* 8 */ GetLongAttribute,
-        /* 9 */ GetBoolAttribute,
-        /* 10 */ SetBoolAttribute,
-        /* 11 */ GetLongAttributes,
-        /* 12 */ FindCircularBlockedThreads,
-        /* 13 */ GetThreadCpuTime,
-        /* 14 */ GetVMGlobalNames,
-        /* 15 */ GetVMGlobals,
-        /* 16 */ GetInternalThreadTimes,
-        /* 17 */ ResetStatistic,
-        /* 18 */ SetPoolSensor,
-        /* 19 */ SetPoolThreshold,
-        /* 20 */ GetPoolCollectionUsage,
-        /* 21 */ GetGCExtAttributeInfo,
-        /* 22 */ GetLastGCStat,
-        /* 23 */ GetThreadCpuTimeWithKind,
-        /* 24 */ DumpHeap0,
-        /* 25 */ FindDeadlocks,
-        /* 26 */ SetVMGlobal,
-        /* 27 */ DumpThreads,
+        /* 7 */ GetThreadAllocatedMemory,
+        /* 8 */ GetMemoryUsage,
+        /* 9 */ GetLongAttribute,
+        /* 10 */ GetBoolAttribute,
+        /* 11 */ SetBoolAttribute,
+        /* 12 */ GetLongAttributes,
+        /* 13 */ FindCircularBlockedThreads,
+        /* 14 */ GetThreadCpuTime,
+        /* 15 */ GetVMGlobalNames,
+        /* 16 */ GetVMGlobals,
+        /* 17 */ GetInternalThreadTimes,
+        /* 18 */ ResetStatistic,
+        /* 19 */ SetPoolSensor,
+        /* 20 */ SetPoolThreshold,
+        /* 21 */ GetPoolCollectionUsage,
+        /* 22 */ GetGCExtAttributeInfo,
+        /* 23 */ GetLastGCStat,
+        /* 24 */ GetThreadCpuTimeWithKind,
+        /* 25 */ DumpHeap0,
+        /* 26 */ FindDeadlocks,
+        /* 27 */ SetVMGlobal,
+        /* 28 */ DumpThreads,
         // operation for logging native method down call
-        /* 28 */ NativeMethodCall,
+        /* 29 */ NativeMethodCall,
         // operation for logging reflective invocation
-        /* 29 */ ReflectiveInvocation,
+        /* 30 */ ReflectiveInvocation,
         // operation for logging dynamic linking
-        /* 30 */ DynamicLink,
+        /* 31 */ DynamicLink,
         // operation for logging native method registration
-        /* 31 */ RegisterNativeMethod;
+        /* 32 */ RegisterNativeMethod;
 
     }
 // END GENERATED CODE
@@ -104,7 +104,9 @@ public final class JmmFunctionsSource {
     }
 
     @VM_ENTRY_POINT
-    private static native Pointer reserved4();
+    private static void GetThreadAllocatedMemory(Pointer env, JniHandle ids, JniHandle sizeArray) {
+        ThreadManagement.getThreadAllocatedBytes((long[]) ids.unhand(), (long[]) sizeArray.unhand());
+    }
 
     @VM_ENTRY_POINT
     private static JniHandle GetMemoryUsage(Pointer env, boolean heap) {
@@ -118,7 +120,12 @@ public final class JmmFunctionsSource {
 
     @VM_ENTRY_POINT
     private static boolean GetBoolAttribute(Pointer env, int att) {
-        return false;
+        switch (att) {
+            case JMM_THREAD_ALLOCATED_MEMORY:
+                return ThreadManagement.isThreadAllocatedMemoryEnabled();
+            default:
+                return false;
+        }
     }
 
     @VM_ENTRY_POINT
@@ -132,6 +139,8 @@ public final class JmmFunctionsSource {
                 return ThreadManagement.setThreadCpuTimeEnabled(flag);
             case JMM_THREAD_CPU_TIME:
                 return ThreadManagement.setThreadCpuTimeEnabled(flag);
+            case JMM_THREAD_ALLOCATED_MEMORY:
+                return ThreadManagement.setThreadAllocatedMemoryEnabled(flag);
             default:
                     FatalError.unexpected("unknown attribute value " + att +  "to JmmFunctions.SetBoolAttribute");
         }
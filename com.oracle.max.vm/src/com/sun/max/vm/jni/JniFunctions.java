@@ -4541,7 +4541,7 @@ public final class JniFunctions {
             final Object arrayObject = array.unhand();
             if (Heap.useDirectPointer(arrayObject)) {
                 setCopyPointer(isCopy, false);
-                return Reference.fromJava(arrayObject).toOrigin().plus(Layout.byteArrayLayout().getElementOffsetFromOrigin(0));
+                return directElements(arrayObject);
             }
 
             if (arrayObject instanceof boolean[]) {
@@ -4584,7 +4584,7 @@ public final class JniFunctions {
 
         try {
             final Object arrayObject = array.unhand();
-            if (Heap.releasedDirectPointer(arrayObject)) {
+            if (Heap.releasedDirectPointer(arrayObject, elements.equals(directElements(arrayObject)))) {
                 return;
             }
             if (arrayObject instanceof boolean[]) {
@@ -4845,6 +4845,14 @@ public final class JniFunctions {
         }
     }
 
+    /**
+     * Gets the address of the first element of an array. This is what a critical function returns instead of a copy of
+     * the elements if the array is pinned or GC is disabled, which is how the release tells the two cases apart.
+     */
+    private static Pointer directElements(Object arrayObject) {
+        return Reference.fromJava(arrayObject).toOrigin().plus(Layout.byteArrayLayout().getElementOffsetFromOrigin(0));
+    }
+
     private static void releaseElements(Pointer elements, int mode) {
         if (mode == 0 || mode == JNI_ABORT) {
             Memory.deallocate(elements);
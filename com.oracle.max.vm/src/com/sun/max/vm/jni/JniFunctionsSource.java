@@ -1658,7 +1658,7 @@ public final class JniFunctionsSource {
         final Object arrayObject = array.unhand();
         if (Heap.useDirectPointer(arrayObject)) {
             setCopyPointer(isCopy, false);
-            return Reference.fromJava(arrayObject).toOrigin().plus(Layout.byteArrayLayout().getElementOffsetFromOrigin(0));
+            return directElements(arrayObject);
         }
 
         if (arrayObject instanceof boolean[]) {
@@ -1684,7 +1684,7 @@ public final class JniFunctionsSource {
     @VM_ENTRY_POINT
     private static void ReleasePrimitiveArrayCritical(Pointer env, JniHandle array, Pointer elements, int mode) {
         final Object arrayObject = array.unhand();
-        if (Heap.releasedDirectPointer(arrayObject)) {
+        if (Heap.releasedDirectPointer(arrayObject, elements.equals(directElements(arrayObject)))) {
             return;
         }
         if (arrayObject instanceof boolean[]) {
@@ -1785,6 +1785,14 @@ public final class JniFunctionsSource {
         }
     }
 
+    /**
+     * Gets the address of the first element of an array. This is what a critical function returns instead of a copy of
+     * the elements if the array is pinned or GC is disabled, which is how the release tells the two cases apart.
+     */
+    private static Pointer directElements(Object arrayObject) {
+        return Reference.fromJava(arrayObject).toOrigin().plus(Layout.byteArrayLayout().getElementOffsetFromOrigin(0));
+    }
+
     private static void releaseElements(Pointer elements, int mode) {
         if (mode == 0 || mode == JNI_ABORT) {
             Memory.deallocate(elements);
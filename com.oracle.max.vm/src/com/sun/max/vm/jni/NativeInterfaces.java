@@ -143,7 +143,6 @@ public final class NativeInterfaces {
         parseInterfaceFunctions(jmmHeaderFile, jmmFunctionNames);
 
         // Insert some other reserved function slots
-        jmmFunctionNames.add(jmmFunctionNames.indexOf("GetMemoryUsage"), "reserved4");
         jmmFunctionNames.add(jmmFunctionNames.indexOf("DumpHeap0"), "reserved5");
         jmmFunctionNames.add(jmmFunctionNames.indexOf("DumpThreads"), "reserved6");
 
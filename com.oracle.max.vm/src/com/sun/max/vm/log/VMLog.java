@@ -25,6 +25,8 @@ package com.sun.max.vm.log;
 import java.util.*;
 
 import com.sun.max.annotate.*;
+import com.sun.max.lang.*;
+import com.sun.max.memory.*;
 import com.sun.max.program.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
@@ -605,13 +607,15 @@ public abstract class VMLog implements Heap.GCCallback {
      *
      * The default output is "raw", which means no interpretation of the bits, which is left to an offline tool. This is
      * the most robust approach. The alternative is "trace" which invokes the trace method on the logger, which
-     * may crash, particularly if the log is being flushed on a VM crash.
+     * may crash, particularly if the log is being flushed on a VM crash. Finally, "binary[=file]" writes the records
+     * unformatted to a separate file (default {@value BinaryDumpFlusher#DEFAULT_PATH}), which is the cheapest
+     * way to capture a large log. See {@link BinaryDumpFlusher} for the format.
      */
     private static class VMLogFlushOption extends VMStringOption {
 
         @HOSTED_ONLY
         public VMLogFlushOption() {
-            super("-XX:VMLogFlush=", false, null, "flush VMLog: mode,output. mode=crash|exit|full, output=raw|trace");
+            super("-XX:VMLogFlush=", false, null, "flush VMLog: mode,output. mode=crash|exit|full, output=raw|trace|binary[=file]");
         }
 
         @Override
@@ -625,6 +629,12 @@ public abstract class VMLog implements Heap.GCCallback {
                         vmLog.flusher = rawDumpFlusher;
                     } else if (param.equals("trace")) {
                         vmLog.flusher = traceDumpFlusher;
+                    } else if (param.equals("binary") || param.startsWith("binary=")) {
+                        String path = param.length() > "binary=".length() ? param.substring("binary=".length()) : BinaryDumpFlusher.DEFAULT_PATH;
+                        if (!binaryDumpFlusher.open(path)) {
+                            return false;
+                        }
+                        vmLog.flusher = binaryDumpFlusher;
                     } else if (param.equals("exit")) {
                         vmLog.flushMode |= FLUSHMODE_EXIT;
                     } else if (param.equals("crash")) {
@@ -660,16 +670,7 @@ public abstract class VMLog implements Heap.GCCallback {
             return;
         }
         if (isPerThread()) {
-            Pointer.Procedure proc = new Pointer.Procedure() {
-                public void run(Pointer tla) {
-                    VmThread vmThread = VmThread.fromTLA(tla);
-                    flush(mode, vmThread);
-                }
-            };
-            synchronized (VmThreadMap.THREAD_LOCK) {
-                VmThreadMap.ACTIVE.forAllThreadLocals(null, proc);
-            }
-
+            flushThreadLogs(mode);
         } else {
             try {
                 flusher.start(null);
@@ -680,6 +681,22 @@ public abstract class VMLog implements Heap.GCCallback {
         }
     }
 
+    /**
+     * Flushes the logs of all threads for a per-thread log. The default is to flush each thread's log in turn.
+     * The {@link #flusher} is non-null and {@code mode} has been checked against the enabled flush modes.
+     */
+    protected void flushThreadLogs(final int mode) {
+        Pointer.Procedure proc = new Pointer.Procedure() {
+            public void run(Pointer tla) {
+                VmThread vmThread = VmThread.fromTLA(tla);
+                flush(mode, vmThread);
+            }
+        };
+        synchronized (VmThreadMap.THREAD_LOCK) {
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, proc);
+        }
+    }
+
     /**
      * Flush the log for a single thread (assumes a per-thread log).
      * @param vmThread
@@ -724,7 +741,7 @@ public abstract class VMLog implements Heap.GCCallback {
         /**
          * Called before any flushes.
          * Allows any setup to be done by flusher.
-         * @param vmThread thread owning log or {@code null} for a non per-thread log
+         * @param vmThread thread owning log or {@code null} for a non per-thread log or a merged flush of all thread logs
          */
         public void start(VmThread vmThread) {
         }
@@ -740,7 +757,7 @@ public abstract class VMLog implements Heap.GCCallback {
         /**
          * Called after all flushes.
          * Allows any tear down to be done by flusher.
-         * @param vmThread thread owning log or {@code null} for a non per-thread log
+         * @param vmThread thread owning log or {@code null} for a non per-thread log or a merged flush of all thread logs
          */
         public void end(VmThread vmThread) {
         }
@@ -748,6 +765,7 @@ public abstract class VMLog implements Heap.GCCallback {
 
     public static final RawDumpFlusher rawDumpFlusher = new RawDumpFlusher();
     private static TraceDumpFlusher traceDumpFlusher;
+    private static final BinaryDumpFlusher binaryDumpFlusher = new BinaryDumpFlusher();
 
     /**
      * Flusher used to dump a log to the external world using {@link Log} in raw mode.
@@ -797,6 +815,83 @@ public abstract class VMLog implements Heap.GCCallback {
 
     }
 
+    /**
+     * Flusher that writes the records unformatted to a file, bypassing {@link Log} entirely. This avoids
+     * the cost of formatting every argument as text, which dominates flushing a large log.
+     * <p>
+     * The file starts with a header of three {@code int}s: {@link #MAGIC}, {@link #VERSION} and the word size.
+     * Each record follows as its {@link Record#getHeader() header} ({@code int}), its id ({@code int}) and
+     * then {@link Record#getArgCount() argCount} words. All values are in the native byte order. The owning thread
+     * of a record is encoded in its header, so no per-thread markers are written. Records of per-thread logs
+     * are written in the order in which they are flushed, which is id order if the log is
+     * {@linkplain com.sun.max.vm.log.nat.thread.VMLogNativeThread#VMLogTimestamps timestamped}.
+     * <p>
+     * Records are accumulated in a native buffer allocated when the file is opened,
+     * so flushing does not allocate on the heap.
+     */
+    public static class BinaryDumpFlusher extends Flusher {
+        public static final String DEFAULT_PATH = "maxvm.vmlog";
+        public static final int MAGIC = 0x4D4C4F47; // "MLOG"
+        public static final int VERSION = 1;
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private Pointer buffer = Pointer.zero();
+        private int used;
+
+        @C_FUNCTION
+        private static native boolean log_binary_open(Pointer path);
+
+        @C_FUNCTION
+        private static native void log_binary_write(Pointer buffer, int length);
+
+        /**
+         * Opens the output file and writes the file header.
+         *
+         * @return {@code false} if the file could not be opened
+         */
+        boolean open(String path) {
+            final Pointer cpath = CString.utf8FromJava(path);
+            final boolean result = log_binary_open(cpath);
+            Memory.deallocate(cpath);
+            if (result && buffer.isZero()) {
+                buffer = Memory.allocate(Size.fromInt(BUFFER_SIZE));
+                putInt(MAGIC);
+                putInt(VERSION);
+                putInt(Word.size());
+            }
+            return result;
+        }
+
+        private void putInt(int value) {
+            buffer.writeInt(used, value);
+            used += Ints.SIZE;
+        }
+
+        private void write() {
+            log_binary_write(buffer, used);
+            used = 0;
+        }
+
+        @Override
+        public void flushRecord(VmThread vmThread, Record r, int uuid) {
+            final int argCount = r.getArgCount();
+            if (used + 2 * Ints.SIZE + argCount * Word.size() > BUFFER_SIZE) {
+                write();
+            }
+            putInt(r.getHeader());
+            putInt(uuid);
+            for (int i = 1; i <= argCount; i++) {
+                buffer.writeWord(used, r.getArg(i));
+                used += Word.size();
+            }
+        }
+
+        @Override
+        public void end(VmThread vmThread) {
+            write();
+        }
+    }
+
     private class TraceDumpFlusher extends RawDumpFlusher {
         @Override
         public void flushRecord(VmThread vmThread, Record r, int uuid) {
@@ -56,6 +56,10 @@ import com.sun.max.vm.thread.*;
  * Note that in order for the Inspector to be able to recreate a globally ordered
  * set of records (by id), we must store the id in the record itself.
  *
+ * By default the id is allocated from a global counter, which every logging thread updates
+ * with a compare and swap. With {@code -XX:+VMLogTimestamps} the id is instead a
+ * {@linkplain #getUniqueId() timestamp} so that logging threads share no state at all.
+ * The ids then remain ordered across threads (to the resolution of the timestamp) but are not dense.
  */
 public abstract class VMLogNativeThread extends VMLogNative {
 
@@ -75,6 +79,22 @@ public abstract class VMLogNativeThread extends VMLogNative {
     public static final int DISABLED = 0x1;
     public static final long DISABLED_MASK = 0x7FFFFFFFFFFFFFFEL;
 
+    /**
+     * The number of low bits dropped from {@link MaxineVM#native_nanoTime()} to form a timestamp id.
+     * This gives a resolution of about a microsecond and ids that wrap every 73 minutes.
+     */
+    public static final int TIMESTAMP_SHIFT = 10;
+
+    /**
+     * Use timestamps rather than a global counter for record ids.
+     */
+    public static boolean VMLogTimestamps;
+
+    static {
+        VMOptions.addFieldOption("-XX:", "VMLogTimestamps", VMLogNativeThread.class,
+            "Use timestamps instead of a global counter for per-thread VMLog record ids.", MaxineVM.Phase.PRISTINE);
+    }
+
     @CONSTANT
     protected VmThreadLocal vmLogBufferTL;
     @CONSTANT
@@ -85,6 +105,27 @@ public abstract class VMLogNativeThread extends VMLogNative {
         return true;
     }
 
+    /**
+     * Returns a timestamp if {@link #VMLogTimestamps} is set, avoiding contention on the global id counter.
+     * As timestamp ids wrap, two ids must be compared with {@link #idBefore(int, int)}.
+     */
+    @Override
+    @NO_SAFEPOINT_POLLS("atomic")
+    protected int getUniqueId() {
+        if (VMLogTimestamps && !MaxineVM.isHosted()) {
+            return (int) (MaxineVM.native_nanoTime() >>> TIMESTAMP_SHIFT);
+        }
+        return super.getUniqueId();
+    }
+
+    /**
+     * Determines if the record with id {@code id1} was logged before the record with id {@code id2}.
+     */
+    @INLINE
+    public static boolean idBefore(int id1, int id2) {
+        return id1 - id2 < 0;
+    }
+
     /**
      * Sets the specific thread locals used to control this log.
      * @param vmLogBufferTL
@@ -48,7 +48,8 @@ import com.sun.max.vm.thread.*;
  * beginning of the buffer; it must start at {@code firstOffset} to avoid encountering a partially overwritten record.
  *
  * A log with a {@link com.sun.max.vm.log.VMLog.Flusher} will only overwrite records after they have been passed to the flusher.
- * The records are all flushed at once and then the log is then reset to empty.
+ * The records are all flushed at once and then the log is then reset to empty. If the record ids are
+ * {@linkplain #VMLogTimestamps timestamps}, flushing all threads' logs merges the per-thread buffers in id order.
  *
  * This class is abstract because it does not define the specific thread locals that are used to control
  * the buffer. That is left to a concrete subclass, thereby allowing multiple instances of this log to co-exist
@@ -255,6 +256,101 @@ public abstract class VMLogNativeThreadVariableUnbound extends VMLogNativeThread
         }
     }
 
+    /**
+     * Maximum number of thread logs merged by {@link #flushThreadLogs(int)}. The logs of any further threads
+     * are flushed separately.
+     */
+    private static final int MAX_MERGED_LOGS = 256;
+
+    /**
+     * The thread locals and current offsets of the logs being merged. Preallocated, as flushing must not allocate.
+     */
+    private final long[] mergeTLAs = new long[MAX_MERGED_LOGS];
+    private final int[] mergeOffsets = new int[MAX_MERGED_LOGS];
+    private int mergeCount;
+    private int mergeMode;
+
+    private final Pointer.Procedure mergeCollector = new Pointer.Procedure() {
+        public void run(Pointer tla) {
+            long offsets = vmLogBufferOffsetsTL.load(tla).toLong();
+            if (nextOffset(offsets) == 0 && !isWrapped(offsets)) {
+                return;
+            }
+            if (mergeCount == MAX_MERGED_LOGS) {
+                flush(mergeMode, VmThread.fromTLA(tla));
+                return;
+            }
+            mergeTLAs[mergeCount] = tla.toLong();
+            mergeOffsets[mergeCount] = firstOffset(offsets);
+            mergeCount++;
+        }
+    };
+
+    /**
+     * Flushes the logs of all threads as a single sequence ordered by record id, if the ids are timestamps.
+     */
+    @Override
+    protected void flushThreadLogs(int mode) {
+        if (!VMLogTimestamps) {
+            super.flushThreadLogs(mode);
+            return;
+        }
+        synchronized (VmThreadMap.THREAD_LOCK) {
+            mergeMode = mode;
+            mergeCount = 0;
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, mergeCollector);
+            try {
+                flusher.start(null);
+                mergeRecords();
+            } finally {
+                flusher.end(null);
+            }
+            for (int i = 0; i < mergeCount; i++) {
+                vmLogBufferOffsetsTL.store3(Pointer.fromLong(mergeTLAs[i]), Address.zero());
+            }
+            mergeCount = 0;
+        }
+    }
+
+    /**
+     * Advances past any holes at {@code offset} in a thread's buffer.
+     */
+    private int skipFree(Pointer buffer, int offset, int nextOffset) {
+        while (offset != nextOffset && Record.isFree(buffer.readInt(offset))) {
+            offset = modLogSize(offset + ARGS_OFFSET);
+        }
+        return offset;
+    }
+
+    private void mergeRecords() {
+        while (true) {
+            int min = -1;
+            int minId = 0;
+            for (int i = 0; i < mergeCount; i++) {
+                Pointer tla = Pointer.fromLong(mergeTLAs[i]);
+                Pointer buffer = getBuffer(tla);
+                int nextOffset = nextOffset(vmLogBufferOffsetsTL.load(tla).toLong());
+                int offset = skipFree(buffer, mergeOffsets[i], nextOffset);
+                mergeOffsets[i] = offset;
+                if (offset != nextOffset) {
+                    int id = buffer.readInt(offset + ID_OFFSET);
+                    if (min < 0 || idBefore(id, minId)) {
+                        min = i;
+                        minId = id;
+                    }
+                }
+            }
+            if (min < 0) {
+                return;
+            }
+            Pointer tla = Pointer.fromLong(mergeTLAs[min]);
+            NativeRecord r = getNativeRecord(tla);
+            r.address = getBuffer(tla).plus(mergeOffsets[min]);
+            flusher.flushRecord(VmThread.fromTLA(tla), r, minId);
+            mergeOffsets[min] = modLogSize(mergeOffsets[min] + ARGS_OFFSET + r.getArgCount() * Word.size());
+        }
+    }
+
     @Override
     protected void flushRecords(VmThread vmThread) {
         Pointer tla = vmThread.tla();
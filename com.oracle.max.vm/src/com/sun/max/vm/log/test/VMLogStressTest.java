@@ -32,6 +32,7 @@ import com.sun.max.vm.log.VMLog.Flusher;
 import com.sun.max.vm.log.VMLog.Record;
 import com.sun.max.vm.log.hosted.*;
 import com.sun.max.vm.log.nat.VMLogNative.NativeRecord;
+import com.sun.max.vm.log.nat.thread.*;
 import com.sun.max.vm.log.nat.thread.var.*;
 import com.sun.max.vm.thread.*;
 import com.sun.max.vm.ti.*;
@@ -40,6 +41,11 @@ import com.sun.max.vm.ti.*;
  * A stress test for {@link VMLog}.
  * Must be included in the boot image, which is controlled by the "max.vmlog.stresstest" property.
  * Registers as a {@link VMTI} handler as a way of getting control.
+ * The property value is a comma separated list of {@code t=threads} and {@code c=records per thread}.
+ * <p>
+ * Once all threads have logged their records, the remaining records of all threads are flushed together.
+ * With {@code -XX:+VMLogTimestamps} this is a merged flush, and the test also checks that the records
+ * are delivered in {@linkplain VMLogNativeThread#idBefore(int, int) id order} across threads.
  */
 public class VMLogStressTest {
 
@@ -52,14 +58,41 @@ public class VMLogStressTest {
     private static final XFlusherDebugLogger xFlusherDebugLogger = new XFlusherDebugLogger();
 
     private static class XFlusher extends Flusher {
+        /**
+         * Set while flushing the logs of all threads together.
+         */
+        private boolean merging;
+        private boolean first;
+        private int lastId;
+
+        @Override
+        public void start(VmThread vmThread) {
+            if (vmThread == null) {
+                merging = true;
+                first = true;
+            }
+        }
 
         @Override
         public void flushRecord(VmThread vmThread, Record r, int uuid) {
             NativeRecord nativeRecord = (NativeRecord) r;
             xFlusherDebugLogger.log(0, nativeRecord.address);
+            if (merging && VMLogNativeThread.VMLogTimestamps) {
+                if (!first && VMLogNativeThread.idBefore(uuid, lastId)) {
+                    throw new RuntimeException("merged flush out of id order");
+                }
+                first = false;
+                lastId = uuid;
+            }
             logger.trace(r);
         }
 
+        @Override
+        public void end(VmThread vmThread) {
+            if (vmThread == null) {
+                merging = false;
+            }
+        }
     }
 
     private static class XVMLog extends VMLogNativeThreadVariableUnbound {
@@ -124,6 +157,9 @@ public class VMLogStressTest {
                     uuid++;
                     myIterations--;
                 }
+                // keep the thread, and hence its log, alive until all logs have been flushed together
+                logged.countDown();
+                flushed.await();
             } catch (Throwable ex) {
                 Log.println(ex.getMessage());
                 MaxineVM.native_exit(1);
@@ -174,6 +210,13 @@ public class VMLogStressTest {
             return result;
         }
 
+        /**
+         * Checks that all the records logged by the thread have been delivered.
+         */
+        void checkComplete() {
+            asert(lastUuid == iterations - 1);
+        }
+
         /**
          * Checks that the data at index {@code uuid} matches {@code args}.
          * and that records are delivered in the correct order with no duplicates/omissions.
@@ -201,6 +244,9 @@ public class VMLogStressTest {
 
     private static int iterations = 1000000;
 
+    private static CountDownLatch logged;
+    private static final CountDownLatch flushed = new CountDownLatch(1);
+
     private static class VMTIHandler extends NullVMTIHandler {
         @Override
         public void vmInitialized() {
@@ -214,7 +260,7 @@ public class VMLogStressTest {
             for (int i = 0; i < args.length; i++) {
                 String arg = args[i];
                 if (arg.startsWith("t=")) {
-                    // TODO
+                    numThreads = getValue(arg);
                 } else if (arg.startsWith("c=")) {
                     iterations = getValue(arg);
                 }
@@ -222,12 +268,24 @@ public class VMLogStressTest {
 
             logger.enable(true);
 
+            logged = new CountDownLatch(numThreads);
             Thread[] threads = new Thread[numThreads];
             for (int t = 0; t < numThreads; t++) {
                 threads[t] = new Tester(t);
                 threads[t].start();
             }
 
+            try {
+                logged.await();
+                xvmLog.flush(VMLog.FLUSHMODE_FULL);
+                for (LoggedData loggedData : loggedDataMap.values()) {
+                    loggedData.checkComplete();
+                }
+            } catch (Throwable ex) {
+                Log.println(ex.getMessage());
+                MaxineVM.native_exit(1);
+            }
+            flushed.countDown();
         }
 
         private static int getValue(String arg) {
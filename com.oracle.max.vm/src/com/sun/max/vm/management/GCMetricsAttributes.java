@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.management;
+
+/**
+ * Maxine specific attributes of a garbage collector bean that expose the {@link com.sun.max.vm.heap.GCMetrics}.
+ * Like {@link MemoryManagerMXBeanPools}, this interface augments the bean without being an MXBean interface itself
+ * (a bean may only implement one), so the attributes are only available through {@link MemoryManagement#getGCMetrics()}.
+ * Times are in nanoseconds. The histogram attributes are indexed by position in {@link #getHistogramNames()}.
+ */
+public interface GCMetricsAttributes {
+
+    boolean isGCMetricsEnabled();
+
+    long getPromotedBytes();
+
+    long getEvacuatedBytes();
+
+    long getCardsScanned();
+
+    long getTLABRefills();
+
+    String[] getHistogramNames();
+
+    long[] getHistogramCounts();
+
+    long[] getHistogramTotals();
+
+    long[] getHistogramMaxima();
+
+    /**
+     * Gets the power of 2 bucket counts of the histogram at position {@code index} in {@link #getHistogramNames()}.
+     */
+    long[] getHistogramBuckets(int index);
+}
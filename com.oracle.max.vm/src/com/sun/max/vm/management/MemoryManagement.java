@@ -96,6 +96,16 @@ public class MemoryManagement {
         return new MemoryUsage(init, used, committed, max);
     }
 
+    /**
+     * Gets the GC and safepoint metrics of the heap scheme's garbage collector bean.
+     *
+     * @return {@code null} if the heap scheme's bean does not expose the metrics
+     */
+    public static GCMetricsAttributes getGCMetrics() {
+        final GarbageCollectorMXBean bean = vmConfig().heapScheme().getGarbageCollectorMXBean();
+        return bean instanceof GCMetricsAttributes ? (GCMetricsAttributes) bean : null;
+    }
+
     public static boolean setVerboseGC(boolean value) {
         final boolean result = Heap.verbose();
         Heap.setVerbose(value);
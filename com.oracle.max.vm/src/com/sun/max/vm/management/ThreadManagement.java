@@ -22,11 +22,14 @@
  */
 package com.sun.max.vm.management;
 
+import static com.sun.max.vm.VMConfiguration.*;
+
 import java.lang.management.*;
 import java.lang.reflect.*;
 import java.util.*;
 
 import com.sun.max.unsafe.*;
+import com.sun.max.vm.heap.*;
 import com.sun.max.vm.jdk.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.stack.*;
@@ -77,6 +80,84 @@ public class ThreadManagement {
         return false;
     }
 
+    private static boolean threadAllocatedMemoryEnabled = true;
+
+    public static boolean isThreadAllocatedMemoryEnabled() {
+        return threadAllocatedMemoryEnabled;
+    }
+
+    /**
+     * Enables or disables the reporting of per-thread allocated bytes.
+     *
+     * @return the previous value
+     */
+    public static boolean setThreadAllocatedMemoryEnabled(boolean enable) {
+        final boolean previous = threadAllocatedMemoryEnabled;
+        threadAllocatedMemoryEnabled = enable;
+        return previous;
+    }
+
+    /**
+     * Support for {@code com.sun.management.ThreadMXBean.getThreadAllocatedBytes}.
+     *
+     * @param ids java.lang.Thread ids from getId()
+     * @param result the number of bytes allocated in the heap by each thread in {@code ids}
+     *            or -1 if the thread is not alive or allocation is not tracked
+     */
+    public static void getThreadAllocatedBytes(long[] ids, long[] result) {
+        Arrays.fill(result, -1L);
+        if (!threadAllocatedMemoryEnabled) {
+            return;
+        }
+        final AllocatedBytesProcedure proc = new AllocatedBytesProcedure(ids);
+        synchronized (VmThreadMap.THREAD_LOCK) {
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, proc);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = proc.allocatedBytes[Arrays.binarySearch(proc.ids, ids[i])];
+        }
+    }
+
+    /**
+     * Matches each thread against the requested ids with a binary search over a sorted copy of them,
+     * so that nothing is allocated while {@link VmThreadMap#THREAD_LOCK} is held.
+     */
+    static class AllocatedBytesProcedure implements Pointer.Procedure {
+        private final HeapScheme heapScheme = vmConfig().heapScheme();
+
+        /**
+         * The distinct requested ids in ascending order.
+         */
+        final long[] ids;
+
+        /**
+         * The number of bytes allocated by the thread with the id at the same index in {@link #ids}, or -1.
+         */
+        final long[] allocatedBytes;
+
+        AllocatedBytesProcedure(long[] requestedIds) {
+            final long[] sorted = requestedIds.clone();
+            Arrays.sort(sorted);
+            int length = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (length == 0 || sorted[length - 1] != sorted[i]) {
+                    sorted[length++] = sorted[i];
+                }
+            }
+            ids = Arrays.copyOf(sorted, length);
+            allocatedBytes = new long[length];
+            Arrays.fill(allocatedBytes, -1L);
+        }
+
+        public void run(Pointer tla) {
+            final VmThread vmThread = VmThread.fromTLA(tla);
+            final int index = Arrays.binarySearch(ids, vmThread.javaThread().getId());
+            if (index >= 0) {
+                allocatedBytes[index] = heapScheme.threadAllocatedBytes(vmThread);
+            }
+        }
+    }
+
     public static void getThreadInfo(long[] ids, int maxDepth, ThreadInfo[] result) {
         // The ids are java.lang.Thread ids from getId()
         // maxDepth is -1 when the entire stack is requested, not MAX_VALUE as in API call (see sun.management.ThreadImpl)
@@ -181,7 +262,20 @@ public class ThreadManagement {
                 traces[i] = trace;
             }
         }
-        VmOperationThread.submit(new StackTraceGatherer(Arrays.asList(threads), traces, maxDepth));
+        if (threads.length == 1) {
+            if (currentThreadIndex < 0) {
+                // Only the target thread needs to be stopped
+                final VmThread vmThread = VmThread.fromJava(threads[0]);
+                if (vmThread != null) {
+                    final StackTraceHandshake handshake = new StackTraceHandshake(vmThread, maxDepth);
+                    if (handshake.execute()) {
+                        traces[0] = handshake.trace;
+                    }
+                }
+            }
+        } else {
+            VmOperationThread.submit(new StackTraceGatherer(Arrays.asList(threads), traces, maxDepth));
+        }
         if (currentThreadIndex >= 0) {
             threads[currentThreadIndex] = Thread.currentThread();
         }
@@ -221,6 +315,28 @@ public class ThreadManagement {
     }
 
 
+    /**
+     * A handshake to get the stack trace of a single thread without stopping any other thread.
+     */
+    static final class StackTraceHandshake extends Handshake {
+        final int maxDepth;
+        StackTraceElement[] trace;
+        StackTraceHandshake(VmThread vmThread, int maxDepth) {
+            super("StackTraceHandshake", vmThread);
+            this.maxDepth = maxDepth;
+        }
+
+        @Override
+        protected void doThread(VmThread vmThread, Pointer ip, Pointer sp, Pointer fp) {
+            if (ip.isZero()) {
+                trace = new StackTraceElement[0];
+            } else {
+                VmStackFrameWalker sfw = new VmStackFrameWalker(vmThread.tla());
+                trace = JDK_java_lang_Throwable.getStackTrace(sfw, ip, sp, fp, null, maxDepth);
+            }
+        }
+    }
+
     public static Thread[] findMonitorDeadlockedThreads() {
         return null;
     }
@@ -98,37 +98,42 @@ public abstract class BiasedLockModeHandler extends AbstractModeHandler implemen
         }
     }
 
-    class RevokeBiasOperation extends VmOperation {
+    /**
+     * Revokes the bias of an object at a safepoint of the bias owner. Other threads keep running.
+     */
+    class RevokeBiasHandshake extends Handshake {
         final Object object;
         ModalLockword64 newLockword;
-        RevokeBiasOperation(VmThread thread, Object object) {
-            super("RevokeBias", thread, Mode.Safepoint, false);
+        RevokeBiasHandshake(VmThread thread, Object object) {
+            super("RevokeBias", thread);
             this.object = object;
         }
         @Override
-        protected void doIt() {
+        protected void doThread(VmThread vmThread, Pointer ip, Pointer sp, Pointer fp) {
             newLockword = revokeBias(object);
         }
     }
 
     protected ModalLockword64 revokeWithOwnerSafepointed(final Object object, int vmThreadMapThreadID, BiasedLockword64 biasedLockword) {
+        final VmThread biasOwnerThread;
         synchronized (VmThreadMap.THREAD_LOCK) {
-            final VmThread biasOwnerThread = VmThreadMap.ACTIVE.getVmThreadForID(vmThreadMapThreadID);
-            if (biasOwnerThread == null) {
-                // The bias owner is terminated. No need to safepoint.
-                // Lets try to reset the bias to anon.
-                return ModalLockword64.from(ObjectAccess.compareAndSwapMisc(object, biasedLockword, biasedLockword.asAnonBiased()));
-            }
-            final Pointer tla = biasOwnerThread.tla();
-            if (tla.isZero()) {
+            biasOwnerThread = VmThreadMap.ACTIVE.getVmThreadForID(vmThreadMapThreadID);
+            if (biasOwnerThread != null && biasOwnerThread.tla().isZero()) {
                 // The bias holding thread is still starting up, so how can it own biases??
                 FatalError.unexpected("Attempted to revoke bias for still initializing thread.");
             }
-
-            RevokeBiasOperation operation = new RevokeBiasOperation(VmThread.fromTLA(tla), object);
-            operation.submit();
-            return operation.newLockword;
         }
+        if (biasOwnerThread != null) {
+            // The handshake must not be executed while holding the thread lock as the
+            // bias owner may need it (e.g. for a GC) before it reaches a safepoint.
+            final RevokeBiasHandshake handshake = new RevokeBiasHandshake(biasOwnerThread, object);
+            if (handshake.execute()) {
+                return handshake.newLockword;
+            }
+        }
+        // The bias owner is terminated. No need to safepoint.
+        // Lets try to reset the bias to anon.
+        return ModalLockword64.from(ObjectAccess.compareAndSwapMisc(object, biasedLockword, biasedLockword.asAnonBiased()));
     }
 
     public Word createMisc(Object object) {
@@ -26,6 +26,7 @@ import java.util.*;
 
 import com.sun.max.annotate.*;
 import com.sun.max.program.*;
+import com.sun.max.vm.*;
 import com.sun.max.vm.compiler.target.*;
 
 /**
@@ -88,7 +89,15 @@ public class MethodProfile {
      */
     public boolean compilationDisabled;
 
+    /**
+     * The value of {@link System#nanoTime()} when this profile was created at runtime, {@code 0} for a profile
+     * created while building the boot image. Together with {@link #entryCount} this gives the rate at which the
+     * method's counter is consumed.
+     */
+    public final long creationTime;
+
     protected MethodProfile() {
+        creationTime = MaxineVM.isHosted() ? 0 : System.nanoTime();
     }
 
     /**
@@ -237,6 +237,8 @@ public class JavaRunScheme extends AbstractVMScheme implements RunScheme {
                 new ExcessiveGCDaemon(Heap.ExcessiveGCFrequency).start();
             }
 
+            GCMetrics.startDumper();
+
             if (Deoptimization.DeoptimizeALot != 0 && Deoptimization.UseDeopt) {
                 new DeoptimizeALot(Deoptimization.DeoptimizeALot).start();
             }
@@ -87,7 +87,13 @@ public abstract class GCOperation extends VmOperation {
         Pointer tla = vmThread.tla();
 
         final boolean threadWasInNative = LOWEST_ACTIVE_STACK_SLOT_ADDRESS.load(tla).isZero();
-        if (threadWasInNative) {
+        if (threadWasInNative && vmThread.stackReferenceMapPreparer().reusePreparedStackReferenceMap(tla)) {
+            // The thread has not returned from native code since the previous GC prepared its stack reference map
+            if (VmOperationThread.TraceVmOperations) {
+                Log.print("Reusing stack reference map for ");
+                Log.printThread(VmThread.fromTLA(tla), true);
+            }
+        } else if (threadWasInNative) {
             if (VmOperationThread.TraceVmOperations) {
                 Log.print("Building full stack reference map for ");
                 Log.printThread(VmThread.fromTLA(tla), true);
@@ -115,6 +121,21 @@ public abstract class GCOperation extends VmOperation {
         LOWEST_ACTIVE_STACK_SLOT_ADDRESS.store3(thread.tla(), Address.zero());
     }
 
+    /**
+     * Determines if the stack reference map prepared for a thread blocked in native code is reused by the next GC
+     * if the thread has not returned to Java code in the meantime.
+     */
+    static boolean ReuseStackReferenceMaps = true;
+    static {
+        VMOptions.addFieldOption("-XX:", "ReuseStackReferenceMaps", GCOperation.class,
+            "Reuse the stack reference map of a thread that has stayed in native code since the previous GC.");
+    }
+
+    @Override
+    protected boolean leavesStackReferenceMapsPrepared() {
+        return ReuseStackReferenceMaps;
+    }
+
     long stackReferenceMapPreparationTime;
 
     public GCOperation(String name) {
@@ -192,7 +213,12 @@ public abstract class GCOperation extends VmOperation {
             Log.unlock(lockDisabledSafepoints);
         }
 
+        final long startNanos = GCMetrics.isEnabled() ? System.nanoTime() : 0L;
         collect(invocationCount);
+        if (GCMetrics.isEnabled()) {
+            GCMetrics.pauseTimes.record(System.nanoTime() - startNanos);
+        }
+        updateSoftReferencePolicy();
 
         if (Heap.verbose()) {
             final long afterUsed = Heap.reportUsedSpace();
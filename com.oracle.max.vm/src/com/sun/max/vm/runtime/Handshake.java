@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.runtime;
+
+import static com.sun.max.vm.intrinsics.Infopoints.*;
+import static com.sun.max.vm.runtime.VmOperation.*;
+import static com.sun.max.vm.runtime.VmOperationThread.*;
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import com.oracle.max.cri.intrinsics.*;
+import com.sun.max.annotate.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.reference.*;
+import com.sun.max.vm.stack.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * An operation performed on a single thread at a safepoint without stopping any other thread.
+ * Unlike a {@link VmOperation}, a handshake does not go through the {@linkplain VmOperationThread VM operation thread}
+ * and does not hold {@link VmThreadMap#THREAD_LOCK} while it is performed.
+ * <p>
+ * {@linkplain #execute() Executing} a handshake installs it in the {@link VmThreadLocal#HANDSHAKE} variable of the target
+ * thread and triggers safepoints for that thread only. The requesting thread then waits until the target thread is in
+ * native code, freezes it (exactly as the VM operation thread would) and calls {@link #doThread} on its behalf with the
+ * frame denoted by its last Java frame anchor. A target thread executing Java code gets into native code by
+ * parking on its {@linkplain VmThread#handshakeParker handshake parker} in the {@linkplain Trap trap} handler the next
+ * time it {@linkplain SafepointPoll polls}, and wakes the requesting thread when it does so. Both threads wait on their
+ * handshake parkers only, which no other code unparks, so that a handshake neither takes nor leaves a permit of
+ * {@link java.util.concurrent.locks.LockSupport#park()}.
+ * <p>
+ * As {@link #doThread} is always called on the requesting thread with safepoints enabled, it may allocate and trigger
+ * a GC. A VM operation that runs in the meantime treats the target thread as already frozen and leaves it frozen
+ * when it thaws the other threads. The target thread cannot return to Java code until the handshake is complete.
+ * <p>
+ * Handshakes on the same target thread are serialized. Only {@linkplain VmOperation#UseCASBasedThreadFreezing CAS based}
+ * thread freezing is supported.
+ */
+public abstract class Handshake {
+
+    /**
+     * The handshake has not been performed yet.
+     */
+    private static final int PENDING = 0;
+
+    /**
+     * The requesting thread is performing the handshake on behalf of the (frozen) target thread.
+     */
+    private static final int RUNNING_FROZEN = 1;
+
+    /**
+     * The handshake has been performed.
+     */
+    private static final int DONE = 2;
+
+    /**
+     * The target thread terminated before the handshake was performed.
+     */
+    private static final int CANCELLED = 3;
+
+    /**
+     * Maximum time the requesting thread waits before checking again whether the target thread is in native code or
+     * whether another handshake pending on the target thread is complete. The target thread wakes the requesting
+     * thread when it blocks at a safepoint, so this bound only applies when the target thread enters native code by
+     * calling a native method, and to handshakes on the same target thread racing with each other.
+     */
+    private static final long FREEZE_POLL_NANOS = 1000000L;
+
+    /**
+     * A descriptive name of this handshake. This value is only used for tracing.
+     */
+    public final String name;
+
+    private final VmThread thread;
+
+    /**
+     * The thread that executes this handshake.
+     */
+    private VmThread requester;
+
+    private volatile int state;
+
+    /**
+     * Creates a handshake.
+     *
+     * @param name descriptive name of the handshake. This value is only used for tracing.
+     * @param thread the thread on which the handshake is performed
+     */
+    protected Handshake(String name, VmThread thread) {
+        this.name = name;
+        this.thread = thread;
+    }
+
+    /**
+     * Gets the thread on which this handshake is performed.
+     */
+    public final VmThread thread() {
+        return thread;
+    }
+
+    /**
+     * Performs this handshake on its target thread. This is called on the requesting thread, with safepoints enabled,
+     * while the target thread is frozen (or is the requesting thread). If the target thread was stopped in native code
+     * before the call to {@link VmThread#run} then the {@code ip}, {@code sp} and {@code fp} arguments will be
+     * {@link Pointer#zero()}.
+     *
+     * @param vmThread the thread on which the handshake is performed
+     * @param ip instruction pointer of the last Java frame of {@code vmThread}
+     * @param sp stack pointer of the last Java frame of {@code vmThread}
+     * @param fp frame pointer of the last Java frame of {@code vmThread}
+     */
+    protected abstract void doThread(VmThread vmThread, Pointer ip, Pointer sp, Pointer fp);
+
+    /**
+     * Determines if the target thread is still alive. Must be called while holding {@link VmThreadMap#THREAD_LOCK}
+     * so that the thread locals of a thread found to be alive are not released before the lock is released.
+     */
+    private boolean isAlive() {
+        return !thread.tla().isZero() && thread.state() != Thread.State.TERMINATED;
+    }
+
+    /**
+     * Performs this handshake on its target thread and waits for it to complete. If the target thread is the current
+     * thread, then the handshake is simply performed on the current thread with the frame of this method.
+     *
+     * @return {@code true} if the handshake was performed, {@code false} if the target thread is not running
+     */
+    @NEVER_INLINE
+    public final boolean execute() {
+        final VmThread current = VmThread.current();
+        FatalError.check(!current.isVmOperationThread(), "Cannot execute a handshake on the VM operation thread");
+        FatalError.check(state == PENDING && requester == null, "Handshake can only be executed once");
+        requester = current;
+
+        if (thread == current) {
+            doThread(thread, Pointer.fromLong(here()), VMRegister.getCpuStackPointer(), VMRegister.getCpuFramePointer());
+            state = DONE;
+            return true;
+        }
+
+        if (!install()) {
+            return false;
+        }
+        final Pointer etla = waitUntilFrozen();
+        if (etla.isZero()) {
+            return false;
+        }
+        runFrozen(etla);
+        return true;
+    }
+
+    /**
+     * Installs this handshake in the thread locals of the target thread and triggers safepoints for it,
+     * waiting for any other handshake pending on the target thread to complete first.
+     *
+     * @return {@code false} if the target thread is not running
+     */
+    private boolean install() {
+        while (true) {
+            synchronized (VmThreadMap.THREAD_LOCK) {
+                if (!isAlive()) {
+                    state = CANCELLED;
+                    return false;
+                }
+                final Pointer tla = thread.tla();
+                final Pointer etla = ETLA.load(tla);
+                if (etla.compareAndSwapReference(HANDSHAKE.offset, null, Reference.fromJava(this)).isZero()) {
+                    SAFEPOINT_LATCH.store(etla, TTLA.load(tla));
+                    trace("Triggered safepoint");
+                    return true;
+                }
+            }
+            requester.handshakeParker.park(false, FREEZE_POLL_NANOS);
+        }
+    }
+
+    /**
+     * Waits until the target thread is in native code and freezes it.
+     *
+     * @return the safepoints-enabled thread locals of the frozen target thread or {@link Pointer#zero()} if the
+     *         target thread terminated
+     */
+    private Pointer waitUntilFrozen() {
+        while (true) {
+            synchronized (VmThreadMap.THREAD_LOCK) {
+                if (!isAlive()) {
+                    state = CANCELLED;
+                    trace("Cancelled");
+                    return Pointer.zero();
+                }
+                final Pointer etla = ETLA.load(thread.tla());
+                if (freezeInNative(etla)) {
+                    state = RUNNING_FROZEN;
+                    return etla;
+                }
+            }
+            requester.handshakeParker.park(false, FREEZE_POLL_NANOS);
+        }
+    }
+
+    /**
+     * Attempts to freeze a thread in native code. The thread is thawed into the {@link VmOperation#THREAD_IN_NATIVE}
+     * state, conservatively invalidating any stack reference map left prepared by a GC.
+     */
+    private static boolean freezeInNative(Pointer etla) {
+        return etla.compareAndSwapWord(MUTATOR_STATE.offset, THREAD_IN_NATIVE, THREAD_IS_FROZEN).equals(THREAD_IN_NATIVE) ||
+               etla.compareAndSwapWord(MUTATOR_STATE.offset, THREAD_IN_NATIVE_MAP_PREPARED, THREAD_IS_FROZEN).equals(THREAD_IN_NATIVE_MAP_PREPARED);
+    }
+
+    /**
+     * Performs this handshake on the current thread on behalf of the target thread frozen in native code.
+     */
+    private void runFrozen(Pointer etla) {
+        trace("Running on behalf of frozen thread");
+        Pointer ip = Pointer.zero();
+        Pointer sp = Pointer.zero();
+        Pointer fp = Pointer.zero();
+        final Pointer frameAnchor = JavaFrameAnchor.from(etla);
+        if (!frameAnchor.isZero()) {
+            ip = JavaFrameAnchor.PC.get(frameAnchor);
+            sp = JavaFrameAnchor.SP.get(frameAnchor);
+            fp = JavaFrameAnchor.FP.get(frameAnchor);
+        }
+        try {
+            doThread(thread, ip, sp, fp);
+        } finally {
+            synchronized (VmThreadMap.THREAD_LOCK) {
+                // Holding the lock ensures no VM operation considers the target thread
+                // frozen by this handshake while it is being thawed.
+                HANDSHAKE.store(etla, Reference.zero());
+                state = DONE;
+                // Wake the target thread if it is parked at a safepoint. It cannot terminate while it is frozen.
+                // If it wakes up before being thawed, it blocks on the lock rather than spinning.
+                thread.handshakeParker.unparkLive();
+                resetSafepointLatch(etla);
+                MUTATOR_STATE.store(etla, THREAD_IN_NATIVE);
+            }
+            trace("Thawed");
+        }
+    }
+
+    /**
+     * Called by the {@linkplain Trap trap} handler on a thread that hit a safepoint to wait for the completion of
+     * the handshake (if any) pending on the thread. This is always called with safepoints
+     * {@linkplain SafepointPoll#disable() disabled} for the current thread. Parking is a native call, during which
+     * the requesting thread freezes this thread and performs the handshake. The requesting thread cannot complete
+     * the handshake before this thread is parked, so it is still waiting (and alive) when it is woken here.
+     *
+     * @param etla the safepoints-enabled thread locals of the current thread
+     */
+    static void doAtSafepoint(Pointer etla) {
+        final Handshake handshake = (Handshake) HANDSHAKE.loadRef(etla).toJava();
+        if (handshake != null) {
+            final OSMonitor.Parker parker = handshake.thread.handshakeParker;
+            handshake.trace("Blocking at safepoint");
+            handshake.requester.handshakeParker.unparkLive();
+            while (handshake.state != DONE) {
+                parker.park(false, 0L);
+            }
+        }
+        resetSafepointLatch(etla);
+    }
+
+    /**
+     * Stops triggering safepoints for a thread unless a VM operation or handshake is pending for it.
+     * The latch is reset before checking for pending operations so that the trigger from an operation
+     * installed concurrently is not lost.
+     *
+     * @param etla the safepoints-enabled thread locals of the thread
+     */
+    static void resetSafepointLatch(Pointer etla) {
+        SAFEPOINT_LATCH.store(etla, etla);
+        MemoryBarriers.barrier(MemoryBarriers.STORE_LOAD);
+        if (!VM_OPERATION.loadRef(etla).isZero() || !HANDSHAKE.loadRef(etla).isZero()) {
+            SAFEPOINT_LATCH.store(etla, TTLA.load(etla));
+        }
+    }
+
+    /**
+     * Determines if a frozen thread was frozen by a handshake being performed on its behalf.
+     * This must only be called while holding {@link VmThreadMap#THREAD_LOCK}.
+     *
+     * @param etla the safepoints-enabled thread locals of a thread
+     */
+    static boolean isFrozenByHandshake(Pointer etla) {
+        final Handshake handshake = (Handshake) HANDSHAKE.loadRef(etla).toJava();
+        return handshake != null && handshake.state == RUNNING_FROZEN;
+    }
+
+    private void trace(String phase) {
+        if (TraceVmOperations) {
+            boolean lockDisabledSafepoints = Log.lock();
+            Log.print("Handshake[");
+            Log.print(name);
+            Log.print("]: ");
+            Log.printThread(thread, false);
+            Log.print(": ");
+            Log.println(phase);
+            Log.unlock(lockDisabledSafepoints);
+        }
+    }
+}
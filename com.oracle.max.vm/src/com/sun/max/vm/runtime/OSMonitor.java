@@ -25,6 +25,8 @@ package com.sun.max.vm.runtime;
 import com.sun.max.annotate.*;
 import com.sun.max.memory.*;
 import com.sun.max.unsafe.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.reference.*;
 
 /**
  * Direct access to OS (native) monitors for low-level use.
@@ -42,6 +44,10 @@ public class OSMonitor {
         new CriticalNativeMethod(OSMonitor.class, "nativeConditionWait");
         new CriticalNativeMethod(OSMonitor.class, "nativeTakeLockAndNotify");
         new CriticalNativeMethod(OSMonitor.class, "nativeTakeLockAndWait");
+        new CriticalNativeMethod(OSMonitor.class, "nativeParkerSize");
+        new CriticalNativeMethod(OSMonitor.class, "nativeParkerInitialize");
+        new CriticalNativeMethod(OSMonitor.class, "nativeParkerUnpark");
+        new CriticalNativeMethod(OSMonitor.class, "nativeParkerPark");
     }
 
     static int mutexSize;
@@ -136,6 +142,113 @@ public class OSMonitor {
 
     }
 
+    /**
+     * A per-thread parker implementing the semantics of {@link sun.misc.Unsafe#park(boolean, long)} and
+     * {@link sun.misc.Unsafe#unpark(Object)}. The native structure holds a permit (its first field) that
+     * is consumed here without entering native code when it is already available.
+     */
+    public static final class Parker {
+        /**
+         * Bit of {@link #state} set once {@link #destroy()} has started.
+         */
+        private static final int DESTROYED = 1 << 31;
+
+        private Word parker;
+
+        /**
+         * The number of unparks in progress on {@link #parker}, plus the {@link #DESTROYED} bit.
+         * Unparks and {@link #destroy()} synchronize through this word rather than through a monitor,
+         * as {@link #unpark()} is on the hot path of {@code java.util.concurrent}.
+         */
+        private volatile int state;
+
+        @FOLD
+        private static int stateOffset() {
+            return ClassActor.fromJava(Parker.class).findLocalInstanceFieldActor("state").offset();
+        }
+
+        /**
+         * Allocates the native structure. This must be called on a thread before it can {@linkplain #park park}.
+         */
+        public void init() {
+            if (parker.isZero()) {
+                final Word p = Memory.mustAllocate(nativeParkerSize());
+                nativeParkerInitialize(p);
+                parker = p;
+            }
+        }
+
+        /**
+         * Frees the native structure. Synchronizes with {@link #unpark()} so that a concurrent unpark
+         * by another thread never uses the structure after it has been freed: no new unpark can start once
+         * the {@link #DESTROYED} bit is set, and the structure is only freed when the unparks in progress are done.
+         */
+        public void destroy() {
+            int s;
+            do {
+                s = state;
+            } while (Reference.fromJava(this).compareAndSwapInt(stateOffset(), s, s | DESTROYED) != s);
+            while (state != DESTROYED) {
+                // An unpark in progress holds the native mutex for a bounded time only (see nativeParkerUnpark)
+                Thread.yield();
+            }
+            final Word p = parker;
+            parker = Word.zero();
+            if (!p.isZero()) {
+                Memory.deallocate(p.asAddress());
+            }
+        }
+
+        /**
+         * Blocks the current thread until the permit is available, the thread is interrupted
+         * (and {@link #unpark() unparked}), the deadline expires or spuriously.
+         *
+         * @param isAbsolute specifies if {@code time} is a deadline in milliseconds since the epoch
+         *            or a timeout in nanoseconds
+         * @param time the deadline or timeout ({@code 0} for no timeout if {@code !isAbsolute})
+         */
+        public void park(boolean isAbsolute, long time) {
+            if (parker.isZero()) {
+                // Only the owning thread parks, so a missing structure means it was never initialized
+                init();
+            }
+            if (parker.asPointer().compareAndSwapInt(0, 1, 0) == 1) {
+                return;
+            }
+            nativeParkerPark(parker, isAbsolute, time);
+        }
+
+        /**
+         * Makes the permit available, unblocking the thread parked on this parker (if any).
+         * This has no effect if the owning thread has not been started or has terminated.
+         */
+        public void unpark() {
+            int s;
+            do {
+                s = state;
+                if ((s & DESTROYED) != 0) {
+                    return;
+                }
+            } while (Reference.fromJava(this).compareAndSwapInt(stateOffset(), s, s + 1) != s);
+            if (!parker.isZero()) {
+                nativeParkerUnpark(parker);
+            }
+            do {
+                s = state;
+            } while (Reference.fromJava(this).compareAndSwapInt(stateOffset(), s, s - 1) != s);
+        }
+
+        /**
+         * Makes the permit available without synchronizing with {@link #destroy()}. This must only be called
+         * while the owning thread cannot terminate, e.g. because it is blocked waiting for the caller.
+         */
+        void unparkLive() {
+            if (!parker.isZero()) {
+                nativeParkerUnpark(parker);
+            }
+        }
+    }
+
     @C_FUNCTION
     public static native int nativeMutexSize();
 
@@ -180,4 +293,21 @@ public class OSMonitor {
      */
     public static native boolean nativeTakeLockAndWait(Word mutex, Word condition, long millis);
 
+    @C_FUNCTION
+    public static native int nativeParkerSize();
+
+    @C_FUNCTION
+    public static native void nativeParkerInitialize(Word parker);
+
+    /**
+     * Makes the permit of a parker available. This is a C function although it takes the parker's mutex: the mutex is
+     * never held across a blocking call. The owning thread only holds it between a successful try-lock and the condition
+     * wait, which releases it, and after waking up to reset the permit; unparkers only hold it to set the permit.
+     */
+    @C_FUNCTION
+    public static native void nativeParkerUnpark(Word parker);
+
+    // May block so JNI
+    public static native void nativeParkerPark(Word parker, boolean isAbsolute, long time);
+
 }
@@ -606,6 +606,13 @@ public class Snippets {
                 if (oldMutatorState.equals(THREAD_IN_JAVA)) {
                     FatalError.unexpected("Thread transitioned itself from THREAD_IS_FROZEN to THREAD_IN_JAVA -- only the VM operation thread should do that");
                 }
+                if (oldMutatorState.equals(THREAD_IN_NATIVE_MAP_PREPARED)) {
+                    // First return to Java code since the last GC: the stack reference map becomes stale
+                    if (etla.compareAndSwapWord(MUTATOR_STATE.offset, THREAD_IN_NATIVE_MAP_PREPARED, THREAD_IN_JAVA).equals(THREAD_IN_NATIVE_MAP_PREPARED)) {
+                        break;
+                    }
+                    continue;
+                }
                 nativeBlockOnThreadLock();
             }
         } else {
@@ -368,6 +368,10 @@ public abstract class Trap {
                  * VM_OPERATION for the mutator is null.
                  */
             }
+            // Wait for any handshake pending for this thread to be performed. This also stops triggering
+            // safepoints for this thread unless another operation is pending.
+            Handshake.doAtSafepoint(etla);
+
             // The state of the safepoint latch was TRIGGERED when the trap happened. It must be reset back to ENABLED
             // here otherwise another trap will occur as soon as the trap stub returns and re-executes the
             // safepoint instruction.
@@ -141,8 +141,15 @@ public class VmOperation {
      */
     public static final Word THREAD_IS_FROZEN = Address.fromInt(2);
 
+    /**
+     * Constant denoting a mutator thread is executing/blocked in native code and has not executed any Java code
+     * since it was thawed by an operation that {@linkplain #leavesStackReferenceMapsPrepared() left its stack reference map prepared}.
+     * The stack reference map is therefore still valid. The thread is otherwise treated as {@link #THREAD_IN_NATIVE}.
+     */
+    public static final Word THREAD_IN_NATIVE_MAP_PREPARED = Address.fromInt(3);
+
     private static final String [] mutatorStateNames = {
-        "THREAD_IN_NATIVE", "THREAD_IN_JAVA", "THREAD_IS_FROZEN"
+        "THREAD_IN_NATIVE", "THREAD_IN_JAVA", "THREAD_IS_FROZEN", "THREAD_IN_NATIVE_MAP_PREPARED"
     };
 
     public static String mutatorStateName(Word mutatorState) {
@@ -552,6 +559,7 @@ public class VmOperation {
 
                 tracePhase("-- Begin --");
 
+                final long freezeStart = GCMetrics.isEnabled() ? System.nanoTime() : 0L;
                 freeze();
 
                 // Ensures updates to safepoint-related control variables are visible to all threads
@@ -559,6 +567,9 @@ public class VmOperation {
                 MemoryBarriers.barrier(MemoryBarriers.STORE_LOAD);
 
                 waitUntilFrozen();
+                if (GCMetrics.isEnabled()) {
+                    GCMetrics.recordSafepointSync(ObjectAccess.readClassActor(this), System.nanoTime() - freezeStart);
+                }
 
                 boolean oldAtSafepoint = atSafepoint;
                 try {
@@ -768,16 +779,22 @@ public class VmOperation {
 
         int steps = 0;
         if (!frozenByEnclosing(thread)) {
+            boolean frozenWithPreparedMap = false;
             if (UseCASBasedThreadFreezing) {
                 while (true) {
                     Word mutatorState = MUTATOR_STATE.load(etla);
-                    if (mutatorState.equals(THREAD_IN_NATIVE)) {
-                        Word oldMutatorState = etla.compareAndSwapWord(MUTATOR_STATE.offset, THREAD_IN_NATIVE, THREAD_IS_FROZEN);
-                        if (oldMutatorState.equals(THREAD_IN_NATIVE)) {
+                    if (mutatorState.equals(THREAD_IN_NATIVE) || mutatorState.equals(THREAD_IN_NATIVE_MAP_PREPARED)) {
+                        Word oldMutatorState = etla.compareAndSwapWord(MUTATOR_STATE.offset, mutatorState, THREAD_IS_FROZEN);
+                        if (oldMutatorState.equals(mutatorState)) {
                             // Transitioned thread into frozen state
+                            frozenWithPreparedMap = mutatorState.equals(THREAD_IN_NATIVE_MAP_PREPARED);
                             break;
                         }
                     } else if (mutatorState.equals(THREAD_IS_FROZEN)) {
+                        if (Handshake.isFrozenByHandshake(etla)) {
+                            // The thread stays frozen until the handshake is complete
+                            break;
+                        }
                         FatalError.unexpected("VM operation thread found an already frozen thread");
                     }
                     waitForThreadFreezePause(thread, steps);
@@ -791,6 +808,9 @@ public class VmOperation {
                     steps++;
                 }
             }
+            // Only an operation that leaves maps prepared (i.e. a GC) can reuse the map prepared by the previous one.
+            // Any other freeze, including finding the thread frozen by a handshake, invalidates it.
+            thread.stackReferenceMapPreparer().setPreparedMapValid(frozenWithPreparedMap && leavesStackReferenceMapsPrepared());
         }
 
         doAfterFrozen(thread);
@@ -806,6 +826,15 @@ public class VmOperation {
         }
     }
 
+    /**
+     * Determines if the stack reference maps of the threads frozen by this operation are still valid when the threads
+     * are thawed. If so, a thread is thawed into the {@link #THREAD_IN_NATIVE_MAP_PREPARED} state and the next operation
+     * freezing it before it returns to Java code can reuse the map instead of walking the thread's stack.
+     */
+    protected boolean leavesStackReferenceMapsPrepared() {
+        return false;
+    }
+
     /**
      * Called just before a mutator thread is thawed by the VM operation thread.
      * Subclasses can use this to perform extra actions
@@ -844,12 +873,15 @@ public class VmOperation {
          * are once again triggered.
          */
         Pointer etla = ETLA.load(tla);
-        SAFEPOINT_LATCH.store(etla, ETLA.load(tla));
+        // Keep safepoints triggered for a handshake that is still pending
+        SAFEPOINT_LATCH.store(etla, HANDSHAKE.loadRef(etla).isZero() ? ETLA.load(tla) : TTLA.load(tla));
 
         VM_OPERATION.store(etla, Reference.zero());
 
         if (UseCASBasedThreadFreezing) {
-            MUTATOR_STATE.store(etla, THREAD_IN_NATIVE);
+            if (!Handshake.isFrozenByHandshake(etla)) {
+                MUTATOR_STATE.store(etla, leavesStackReferenceMapsPrepared() ? THREAD_IN_NATIVE_MAP_PREPARED : THREAD_IN_NATIVE);
+            }
         } else {
             // This must be last so that a frozen thread trying to return out of native code stays
             // frozen until its safepoint related state has been completely reset
@@ -122,6 +122,20 @@ public final class StackReferenceMapPreparer extends FrameReferenceMapVisitor {
      */
     private boolean ignoreCurrentFrame;
 
+    /**
+     * Records if the associated thread was frozen in native code without having executed any Java code since its
+     * reference map was last prepared.
+     *
+     * @see VmOperation#THREAD_IN_NATIVE_MAP_PREPARED
+     */
+    private boolean preparedMapValid;
+
+    /**
+     * The stack pointer of the {@linkplain JavaFrameAnchor Java frame anchor} from which the reference map was last
+     * prepared or zero if it was prepared from some other frame (e.g. a trap frame).
+     */
+    private Pointer preparedAnchorStackPointer = Pointer.zero();
+
     public StackReferenceMapPreparer(boolean verify, boolean prepare) {
         this.verify = verify;
         this.prepare = prepare;
@@ -283,6 +297,7 @@ public final class StackReferenceMapPreparer extends FrameReferenceMapVisitor {
     public long prepareStackReferenceMap(Pointer tla, CodePointer instructionPointer, Pointer stackPointer, Pointer framePointer, boolean ignoreTopFrame) {
         timer.start();
         ignoreCurrentFrame = ignoreTopFrame;
+        preparedAnchorStackPointer = Pointer.zero();
         initRefMapFields(tla);
         Pointer highestStackSlot = HIGHEST_STACK_SLOT_ADDRESS.load(tla);
 
@@ -437,6 +452,43 @@ public final class StackReferenceMapPreparer extends FrameReferenceMapVisitor {
             FatalError.unexpected("Thread is not stopped");
         }
         prepareStackReferenceMap(tla, instructionPointer, stackPointer, framePointer, false);
+        preparedAnchorStackPointer = stackPointer;
+    }
+
+    /**
+     * Sets whether the reference map last prepared for the associated thread is still valid.
+     * This is called by the VM operation thread whenever it freezes the associated thread.
+     */
+    public void setPreparedMapValid(boolean valid) {
+        preparedMapValid = valid;
+    }
+
+    /**
+     * Reuses the reference map prepared during a previous GC for a VM thread that has stayed in native code since.
+     * The frames below the {@linkplain JavaFrameAnchor Java frame anchor} have not changed and so
+     * only the range covered by the map needs to be re-established.
+     * <p>
+     * The whole map is either reused or prepared again. A Java frame watermark or return barrier, below which the
+     * frames of a thread that ran Java code since the last GC would not be scanned again, is out of scope: it would
+     * need per-platform stubs patched into return addresses. A cache of per-frame maps keyed by
+     * ({@link TargetMethod}, safepoint index) is not needed either, as each target method already stores its
+     * reference maps by safepoint index and the {@linkplain Safepoints#indexOf(int) index lookup} is cached.
+     *
+     * @param tla a pointer to the VM thread locals denoting the thread stack whose reference map is to be reused
+     * @return {@code true} if the map was reused, {@code false} if it must be prepared from scratch
+     */
+    public boolean reusePreparedStackReferenceMap(Pointer tla) {
+        if (!preparedMapValid || VerifyRefMaps) {
+            return false;
+        }
+        preparedMapValid = false;
+        Pointer anchor = LAST_JAVA_FRAME_ANCHOR.load(ETLA.load(tla));
+        if (anchor.isZero() || preparedAnchorStackPointer.isZero() || !JavaFrameAnchor.SP.get(anchor).equals(preparedAnchorStackPointer)) {
+            return false;
+        }
+        LOWEST_ACTIVE_STACK_SLOT_ADDRESS.store3(tla, preparedAnchorStackPointer);
+        preparationTime = 0;
+        return true;
     }
 
     /**
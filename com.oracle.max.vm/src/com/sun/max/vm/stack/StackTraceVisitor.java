@@ -65,17 +65,26 @@ public class StackTraceVisitor extends SourceFrameVisitor {
         method = method.original();
 
         final ClassActor holder = method.holder();
-        int sourceLineNumber;
         if (method.isNative()) {
-            sourceLineNumber = -2;
-        } else {
-            if (holder.isReflectionStub()) {
-                // ignore reflective invocation stubs
-                return true;
-            }
-            sourceLineNumber = bci >= 0 ? method.sourceLineNumber(bci) : -1;
+            return add(method, -2);
+        }
+        if (holder.isReflectionStub()) {
+            // ignore reflective invocation stubs
+            return true;
         }
-        return add(method, sourceLineNumber);
+        return addBytecodeFrame(method, bci);
+    }
+
+    /**
+     * Adds an element for a frame executing a bytecode method to the trace. This implementation
+     * maps {@code bci} to a source line number and calls {@link #add(ClassMethodActor, int)}.
+     * Subclasses may override this to defer the mapping.
+     *
+     * @param bci the current bytecode index in the frame or -1 if it is not known
+     * @return {@code true} if the stack walk should continue to the next element
+     */
+    public boolean addBytecodeFrame(ClassMethodActor method, int bci) {
+        return add(method, bci >= 0 ? method.sourceLineNumber(bci) : -1);
     }
 
     /**
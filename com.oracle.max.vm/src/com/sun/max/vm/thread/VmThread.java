@@ -233,7 +233,6 @@ public class VmThread {
     private volatile boolean interrupted = false;
     private Throwable terminationCause;
     private int id;
-    private int parkState;
     /**
      * Guaranteed unique for the lifetime of the VM.
      */
@@ -290,6 +289,18 @@ public class VmThread {
      */
     public final OSMonitor.SuspendMonitor suspendMonitor = new OSMonitor.SuspendMonitor();
 
+    /**
+     * The native parker used to implement {@link #park(boolean, long)} and {@link #unpark()}.
+     */
+    public final OSMonitor.Parker parker = new OSMonitor.Parker();
+
+    /**
+     * The native parker on which this thread waits for a {@link Handshake}, either as the requesting or as the target
+     * thread. It is separate from {@link #parker} so that a handshake neither consumes a permit meant for
+     * {@link #park(boolean, long)} nor is woken by {@link #unpark()}.
+     */
+    public final OSMonitor.Parker handshakeParker = new OSMonitor.Parker();
+
     /**
      * Marks this as a JVMTI agent thread. These are not visible to calls like {@link Thread#getThreads}.
      */
@@ -653,6 +664,8 @@ public class VmThread {
 
             // The main thread manages to avoid the normal runtime mechanism that sets this value
             thread.suspendMonitor.init();
+            thread.parker.init();
+            thread.handshakeParker.init();
 
             // Initialize VMTI agents
             VMTI.handler().initialize();
@@ -739,6 +752,8 @@ public class VmThread {
 
         // Synchronization can only be performed on this thread after the above two
         // statements have been executed.
+        thread.parker.init();
+        thread.handshakeParker.init();
         try {
             String name = nameCString.isZero() ? null : CString.utf8ToJava(nameCString);
             ThreadGroup group = (ThreadGroup) groupHandle.unhand();
@@ -808,6 +823,11 @@ public class VmThread {
         // GC may now reclaim or prepare any of its resources before the thread vanishes forever.
         vmConfig().heapScheme().notifyCurrentThreadDetach();
 
+        // Freeing the parker synchronizes with concurrent unparks, so it must be done before
+        // the thread is removed from the thread map (see below).
+        thread.parker.destroy();
+        thread.handshakeParker.destroy();
+
         synchronized (VmThreadMap.THREAD_LOCK) {
             // It is the monitor scheme's responsibility to ensure that this thread isn't
             // reset to RUNNABLE if it blocks here.
@@ -1361,6 +1381,8 @@ public class VmThread {
         state = Thread.State.RUNNABLE;
         Thread_vmThread.setObject(javaThread, this);
         suspendMonitor.init();
+        parker.init();
+        handshakeParker.init();
         VmThreadMap.ACTIVE.startThread(this, STACK_SIZE_OPTION.getValue().alignUp(platform().pageSize).asSize(), javaThread.getPriority());
     }
 
@@ -1416,6 +1438,7 @@ public class VmThread {
             // native thread if an InterruptedException is thrown after the
             // interruption.
             nativeInterrupt(nativeThread);
+            parker.unpark();
         }
     }
 
@@ -1478,42 +1501,23 @@ public class VmThread {
 
     /**
      * This method parks the current thread according to the semantics of {@link Unsafe#park(boolean, long)}.
-     * @throws InterruptedException
+     * The thread returns immediately if it has a pending interrupt.
      */
-    public final void park() throws InterruptedException {
-        synchronized (this) {
-            if (parkState == 1) {
-                parkState = 0;
-            } else {
-                parkState = 2;
-                wait();
-            }
-        }
-    }
-
-    /**
-     * This method parks the current thread according to the semantics of {@link Unsafe#park(boolean, long)}.
-     * @throws InterruptedException
-     */
-    public final void park(long wait) throws InterruptedException {
-        synchronized (this) {
-            if (parkState == 1) {
-                parkState = 0;
-            } else {
-                parkState = 2;
-                wait(wait / 1000000, (int) (wait % 1000000));
-            }
+    public final void park(boolean isAbsolute, long time) {
+        if (interrupted) {
+            return;
         }
+        State oldState = state();
+        setState(time == 0 && !isAbsolute ? State.WAITING : State.TIMED_WAITING);
+        parker.park(isAbsolute, time);
+        setState(oldState);
     }
 
     /**
-     * This method unparks the current thread according to the semantics of {@link Unsafe#unpark(Object)}.
+     * This method unparks this thread according to the semantics of {@link Unsafe#unpark(Object)}.
      */
     public final void unpark() {
-        synchronized (this) {
-            parkState = 1;
-            notifyAll();
-        }
+        parker.unpark();
     }
 
     public final void pushPrivilegedElement(ClassActor classActor, long frameId, AccessControlContext context) {
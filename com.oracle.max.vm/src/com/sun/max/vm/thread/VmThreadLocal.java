@@ -305,6 +305,12 @@ public class VmThreadLocal implements FormatWithToString {
     public static final VmThreadLocal SUSPEND
         = new VmThreadLocal("SUSPEND", false, "Bitset for thread suspension", Nature.Single);
 
+    /**
+     * The {@link Handshake} pending on a thread, for which the thread blocks when it traps at a {@linkplain SafepointPoll safepoint}.
+     */
+    public static final VmThreadLocal HANDSHAKE
+        = new VmThreadLocal("HANDSHAKE", true, "Handshake pending on this thread", Nature.Single);
+
     private static VmThreadLocal[] valuesNeedingInitialization;
 
     /**
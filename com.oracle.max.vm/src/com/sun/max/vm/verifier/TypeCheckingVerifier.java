@@ -22,10 +22,13 @@
  */
 package com.sun.max.vm.verifier;
 
+import java.util.*;
+
 import com.sun.max.vm.*;
 import com.sun.max.vm.actor.holder.*;
 import com.sun.max.vm.actor.member.*;
 import com.sun.max.vm.classfile.*;
+import com.sun.max.vm.type.*;
 
 /**
  */
@@ -44,15 +47,33 @@ public class TypeCheckingVerifier extends ClassVerifier {
         }
     }
 
+    /**
+     * Set if a {@linkplain VerificationCache cached result} applies to the class, in which case its methods are not verified.
+     */
+    private boolean verifiedByCache;
+
     @Override
     public synchronized void verify() {
+        if (VerificationCache.isEnabled()) {
+            if (VerificationCache.lookup(this)) {
+                verifiedByCache = true;
+            } else {
+                resolvedTypes = new HashMap<TypeDescriptor, ClassActor>();
+            }
+        }
         try {
             super.verify();
+            if (resolvedTypes != null && failoverVerifier == null) {
+                VerificationCache.record(this, resolvedTypes);
+            }
         } catch (VerifyError verifyError) {
             if (classActor.majorVersion == 50 && FailOverToOldVerifier) {
                 failoverVerifier().verify();
             }
             throw verifyError;
+        } finally {
+            verifiedByCache = false;
+            resolvedTypes = null;
         }
     }
 
@@ -67,6 +88,9 @@ public class TypeCheckingVerifier extends ClassVerifier {
 
     @Override
     public synchronized CodeAttribute verify(ClassMethodActor classMethodActor, CodeAttribute codeAttribute) {
+        if (verifiedByCache) {
+            return codeAttribute;
+        }
         try {
             new TypeCheckingMethodVerifier(this, classMethodActor, codeAttribute).verify();
             return codeAttribute;
@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.verifier;
+
+import static com.sun.max.vm.VMOptions.*;
+
+import java.io.*;
+import java.security.*;
+import java.util.*;
+import java.util.zip.*;
+
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.type.*;
+
+/**
+ * A cache of successful {@linkplain TypeCheckingVerifier type checking verifications}, enabled with
+ * {@code -XX:+CacheVerification}. It allows identical class files defined by different class loaders to be
+ * verified once.
+ * <p>
+ * A result is keyed by the SHA-1 digest of the class file and records the assumptions it depends on: for each type
+ * {@linkplain Verifier#resolve(TypeDescriptor) resolved} during verification (and the superclass of the verified class,
+ * on which protected access checks depend), the <i>hierarchy</i> of the class it resolved to. The hierarchy of a class is
+ * the list of its superclasses, each identified by the digest of its class file if it was defined while caching was
+ * enabled and otherwise by its name and class id. A later definition of the same bytes is considered verified if
+ * each of those types resolves, in the context of the new definition, to a class with the same hierarchy.
+ * <p>
+ * Only class files that will be verified by the type checking verifier are digested, i.e. those of version 50 or later
+ * that are defined by an application class loader whose classes {@linkplain Verifier#shouldBeVerified are verified}.
+ * Boot and VM classes are never digested, which also ensures that the classes loaded by the digest
+ * implementation itself do not recursively request a digest. Results of verifications that failed over to the
+ * {@linkplain TypeInferencingVerifier type inferencing verifier} are not cached as that verifier may rewrite the code.
+ * <p>
+ * With {@code -XX:VerificationCacheFile=<file>} the results are read from the file when first needed and written back
+ * at VM exit. A file written by a different boot image is ignored, as is a file in which the checksum of an entry
+ * doesn't match. The checksums only detect corrupted files: a cached result makes the VM skip the verification of a
+ * class, so the file must not be writable by anyone who isn't trusted to run code with the VM's privileges.
+ */
+public final class VerificationCache {
+
+    private static boolean CacheVerification;
+    static {
+        VMOptions.addFieldOption("-XX:", "CacheVerification", VerificationCache.class,
+            "Reuse the verification of a class file for later definitions of the same bytes whose resolved types have the same hierarchy.");
+    }
+
+    private static final VMStringOption cacheFileOption = register(new VMStringOption("-XX:VerificationCacheFile=", false, null,
+        "File from which cached verification results are read and to which they are written at exit. Implies -XX:+CacheVerification. " +
+        "Classes whose results are in the file are not verified, so the file must be trusted.") {
+        @Override
+        protected void beforeExit() {
+            save();
+        }
+    }, MaxineVM.Phase.STARTING);
+
+    private static final int MAGIC = 0x56524643; // "VRFC"
+
+    /**
+     * Identifies the boot image, whose class ids appear in the hierarchies. Initialized while building the image.
+     */
+    private static final long IMAGE_ID = new Random().nextLong();
+
+    /**
+     * Maximum number of results kept for one class file, i.e. the number of distinct contexts in which it is reused.
+     */
+    public static final int MAX_RESULTS_PER_CLASSFILE = 4;
+
+    /**
+     * The digests of the class files from which classes were defined while caching was enabled.
+     */
+    private static final Map<ClassActor, String> digests = new WeakHashMap<ClassActor, String>();
+
+    private static final ResultTable results = new ResultTable();
+
+    private static boolean loaded;
+    private static boolean digestUnavailable;
+
+    private VerificationCache() {
+    }
+
+    static boolean isEnabled() {
+        return (CacheVerification || cacheFileOption.getValue() != null) && !digestUnavailable;
+    }
+
+    /**
+     * The cached results of type checking verifications, keyed by class file digest. Each result is an array of
+     * alternating type descriptor and hierarchy strings.
+     */
+    public static final class ResultTable {
+
+        private final Map<String, List<String[]>> results = new HashMap<String, List<String[]>>();
+
+        /**
+         * Adds a result for a class file unless an identical result is already present or the class file already has
+         * {@link VerificationCache#MAX_RESULTS_PER_CLASSFILE} results.
+         *
+         * @return {@code true} if the result was added
+         */
+        public synchronized boolean add(String digest, String[] assumptions) {
+            List<String[]> list = results.get(digest);
+            if (list == null) {
+                list = new ArrayList<String[]>(1);
+                results.put(digest, list);
+            }
+            for (String[] existing : list) {
+                if (Arrays.equals(existing, assumptions)) {
+                    return false;
+                }
+            }
+            if (list.size() >= MAX_RESULTS_PER_CLASSFILE) {
+                return false;
+            }
+            list.add(assumptions);
+            return true;
+        }
+
+        /**
+         * Gets a copy of the results for a class file.
+         */
+        public synchronized List<String[]> get(String digest) {
+            final List<String[]> list = results.get(digest);
+            return list == null ? Collections.<String[]>emptyList() : new ArrayList<String[]>(list);
+        }
+
+        public synchronized boolean isEmpty() {
+            return results.isEmpty();
+        }
+
+        /**
+         * Creates the checksum of an entry, which covers {@link VerificationCache#IMAGE_ID} and the entry.
+         */
+        private static CRC32 entryChecksum() {
+            final CRC32 crc = new CRC32();
+            for (int shift = 0; shift < 64; shift += 8) {
+                crc.update((int) (IMAGE_ID >>> shift));
+            }
+            return crc;
+        }
+
+        /**
+         * Writes the results. The format is: {@link VerificationCache#MAGIC}, {@link VerificationCache#IMAGE_ID}, the
+         * number of class files and for each class file an entry followed by its {@linkplain #entryChecksum checksum}
+         * (long). An entry is the digest of the class file (UTF), the number of results and then each result as its
+         * length followed by its strings (UTF).
+         */
+        public synchronized void write(DataOutputStream out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeLong(IMAGE_ID);
+            out.writeInt(results.size());
+            for (Map.Entry<String, List<String[]>> entry : results.entrySet()) {
+                final CRC32 crc = entryChecksum();
+                final DataOutputStream entryOut = new DataOutputStream(new CheckedOutputStream(out, crc));
+                entryOut.writeUTF(entry.getKey());
+                entryOut.writeInt(entry.getValue().size());
+                for (String[] assumptions : entry.getValue()) {
+                    entryOut.writeInt(assumptions.length);
+                    for (String string : assumptions) {
+                        entryOut.writeUTF(string);
+                    }
+                }
+                out.writeLong(crc.getValue());
+            }
+        }
+
+        /**
+         * Reads results in the format produced by {@link #write}. Results for class files already present are ignored.
+         * Nothing is added unless the checksums of all entries match.
+         *
+         * @return {@code false} if the results were written by a different boot image and were therefore ignored
+         * @throws IOException if the results are truncated or an entry doesn't match its checksum
+         */
+        public synchronized boolean read(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC || in.readLong() != IMAGE_ID) {
+                return false;
+            }
+            final Map<String, List<String[]>> loaded = new HashMap<String, List<String[]>>();
+            final int classfiles = in.readInt();
+            for (int c = 0; c < classfiles; c++) {
+                final CRC32 crc = entryChecksum();
+                final DataInputStream entryIn = new DataInputStream(new CheckedInputStream(in, crc));
+                final String digest = entryIn.readUTF();
+                final int count = entryIn.readInt();
+                if (count < 0 || count > MAX_RESULTS_PER_CLASSFILE) {
+                    throw new IOException("corrupt entry for " + digest);
+                }
+                final List<String[]> list = new ArrayList<String[]>(count);
+                for (int r = 0; r < count; r++) {
+                    final int length = entryIn.readInt();
+                    final List<String> assumptions = new ArrayList<String>();
+                    for (int i = 0; i < length; i++) {
+                        assumptions.add(entryIn.readUTF());
+                    }
+                    list.add(assumptions.toArray(new String[assumptions.size()]));
+                }
+                if (in.readLong() != crc.getValue()) {
+                    throw new IOException("checksum mismatch in entry for " + digest);
+                }
+                loaded.put(digest, list);
+            }
+            for (Map.Entry<String, List<String[]>> entry : loaded.entrySet()) {
+                if (!results.containsKey(entry.getKey())) {
+                    results.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Determines if a class will be verified by the {@link TypeCheckingVerifier} and so needs its class file digested.
+     */
+    private static boolean isTypeChecked(ClassActor classActor) {
+        final ClassLoader classLoader = classActor.classLoader;
+        if (classLoader == null || classLoader == BootClassLoader.BOOT_CLASS_LOADER || classLoader == VMClassLoader.VM_CLASS_LOADER) {
+            return false;
+        }
+        return classActor.majorVersion >= 50 && !classActor.isReflectionStub() && Verifier.shouldBeVerified(classLoader, classActor.isRemote());
+    }
+
+    /**
+     * Computes the SHA-1 digest of some bytes as a hexadecimal string.
+     *
+     * @return the digest or {@code null} if SHA-1 is not available
+     */
+    public static String digest(byte[] bytes, int offset, int length) {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+        md.update(bytes, offset, length);
+        final StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Records the digest of the class file from which a class was defined, if the class will be verified by the
+     * type checking verifier.
+     *
+     * @param classActor the class defined from {@code bytes}
+     * @param bytes the class file is at indexes {@code [offset .. offset + length)} of this array
+     */
+    public static void recordClassfile(ClassActor classActor, byte[] bytes, int offset, int length) {
+        if (!isEnabled() || !isTypeChecked(classActor)) {
+            return;
+        }
+        final String digest = digest(bytes, offset, length);
+        if (digest == null) {
+            digestUnavailable = true;
+            return;
+        }
+        synchronized (VerificationCache.class) {
+            digests.put(classActor, digest);
+        }
+    }
+
+    private static synchronized String digestOf(ClassActor classActor) {
+        return digests.get(classActor);
+    }
+
+    private static String token(ClassActor classActor) {
+        if (classActor.isArrayClass()) {
+            return "[" + token(classActor.componentClassActor());
+        }
+        final String digest = digestOf(classActor);
+        return digest != null ? digest : classActor.typeDescriptor.string + "#" + classActor.id;
+    }
+
+    private static String hierarchy(ClassActor classActor) {
+        final StringBuilder sb = new StringBuilder(token(classActor));
+        for (ClassActor superClassActor = classActor.superClassActor; superClassActor != null; superClassActor = superClassActor.superClassActor) {
+            sb.append(',').append(token(superClassActor));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Determines if a cached result applies to the class being verified by a given verifier.
+     */
+    static boolean lookup(ClassVerifier verifier) {
+        final String digest = digestOf(verifier.classActor);
+        if (digest == null) {
+            return false;
+        }
+        synchronized (VerificationCache.class) {
+            load();
+        }
+        for (String[] assumptions : results.get(digest)) {
+            if (holds(verifier, assumptions)) {
+                if (Verifier.TraceVerifierLevel >= Verifier.TRACE_CLASS) {
+                    Log.println("[Reusing cached verification of class " + verifier.classActor.name + "]");
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean holds(ClassVerifier verifier, String[] assumptions) {
+        try {
+            for (int i = 0; i < assumptions.length; i += 2) {
+                final ClassActor classActor = verifier.resolve(JavaTypeDescriptor.parseTypeDescriptor(assumptions[i]));
+                if (!hierarchy(classActor).equals(assumptions[i + 1])) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (LinkageError e) {
+            // full verification will report the error, if any
+            return false;
+        }
+    }
+
+    /**
+     * Records the successful verification of a class.
+     *
+     * @param verifier the verifier that verified the class
+     * @param resolvedTypes the types resolved by {@code verifier}
+     */
+    static void record(ClassVerifier verifier, Map<TypeDescriptor, ClassActor> resolvedTypes) {
+        final ClassActor classActor = verifier.classActor;
+        final String digest = digestOf(classActor);
+        if (digest == null) {
+            return;
+        }
+        final SortedMap<String, String> sorted = new TreeMap<String, String>();
+        for (Map.Entry<TypeDescriptor, ClassActor> entry : resolvedTypes.entrySet()) {
+            sorted.put(entry.getKey().string, hierarchy(entry.getValue()));
+        }
+        if (classActor.superClassActor != null) {
+            sorted.put(classActor.superClassActor.typeDescriptor.string, hierarchy(classActor.superClassActor));
+        }
+        final String[] assumptions = new String[sorted.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            assumptions[i++] = entry.getKey();
+            assumptions[i++] = entry.getValue();
+        }
+        results.add(digest, assumptions);
+    }
+
+    /**
+     * Reads the results from {@code -XX:VerificationCacheFile} if that has not already been done.
+     */
+    private static void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        final String fileName = cacheFileOption.getValue();
+        if (fileName == null || !new File(fileName).exists()) {
+            return;
+        }
+        try {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+            try {
+                results.read(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            Log.println("Error reading verification cache from " + fileName + ": " + e);
+        }
+    }
+
+    /**
+     * Writes the results to a temporary file in the directory of {@code -XX:VerificationCacheFile} and renames it over
+     * that file, so that a VM reading the file never sees it partially written.
+     */
+    private static synchronized void save() {
+        final String fileName = cacheFileOption.getValue();
+        if (fileName == null) {
+            return;
+        }
+        load();
+        if (results.isEmpty()) {
+            return;
+        }
+        final File file = new File(fileName);
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                results.write(out);
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("could not rename " + tmp + " to " + file);
+            }
+            tmp = null;
+        } catch (IOException e) {
+            Log.println("Error writing verification cache to " + fileName + ": " + e);
+        } finally {
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+}
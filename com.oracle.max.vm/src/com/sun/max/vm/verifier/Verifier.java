@@ -162,6 +162,11 @@ public class Verifier implements VerificationRegistry {
     private IntHashMap<Subroutine> subroutines;
     public boolean verbose;
 
+    /**
+     * The types resolved so far, if they are being recorded for the {@link VerificationCache}; otherwise {@code null}.
+     */
+    Map<TypeDescriptor, ClassActor> resolvedTypes;
+
     public Verifier(ConstantPool constantPool) {
         this.constantPool = constantPool;
         this.objectTypes = new HashMap<TypeDescriptor, ObjectType>();
@@ -237,6 +242,10 @@ public class Verifier implements VerificationRegistry {
      * Resolves a given TypeDescriptor to a class actor.
      */
     public ClassActor resolve(TypeDescriptor type) {
-        return ClassActor.fromJava(type.resolveType(constantPool().classLoader()));
+        final ClassActor classActor = ClassActor.fromJava(type.resolveType(constantPool().classLoader()));
+        if (resolvedTypes != null) {
+            resolvedTypes.put(type, classActor);
+        }
+        return classActor;
     }
 }
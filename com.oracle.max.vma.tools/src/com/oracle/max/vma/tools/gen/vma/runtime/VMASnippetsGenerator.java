@@ -73,6 +73,30 @@ public class VMASnippetsGenerator {
 
     }
 
+    /**
+     * Advice that is never sampled, see {@code com.oracle.max.vm.ext.vma.runtime.AdviceGuard}.
+     */
+    private static final String[] UNSAMPLED = {"New", "MethodEntry", "Return", "Throw", "Monitor"};
+
+    /**
+     * After advice whose bytecode also has before advice, and so follows its sampling decision.
+     */
+    private static final String[] PAIRED_AFTER = {"adviseAfterLoad", "adviseAfterArrayLoad"};
+
+    private static String guard(String name) {
+        for (String s : UNSAMPLED) {
+            if (name.contains(s)) {
+                return "isAdvised";
+            }
+        }
+        for (String s : PAIRED_AFTER) {
+            if (name.equals(s)) {
+                return "isSampledAfter";
+            }
+        }
+        return "isSampled";
+    }
+
     private static void generateStatic(Method method) {
         String name = method.getName();
         out.printf("    @Snippet(inlining = MaxSnippetInliningPolicy.class)%n");
@@ -83,8 +107,10 @@ public class VMASnippetsGenerator {
             out.println("            arg2 = arg3.holder().staticTuple();");
             out.println("        }");
         }
-        out.printf("        VMAStaticBytecodeAdvice.%s(", method.getName());
+        out.printf("        if (AdviceGuard.%s()) {%n", guard(name));
+        out.printf("            VMAStaticBytecodeAdvice.%s(", method.getName());
         generateInvokeArgs(argCount);
+        out.println("        }");
         out.printf("    }%n%n");
     }
 